@@ -57,4 +57,10 @@ public interface CeTasksMBean {
    * Configured number of Workers.
    */
   int getWorkerCount();
+
+  /**
+   * Percentiles of wall time, CPU time and allocated bytes of each step of the analysis reports processed since
+   * startup, the slowest steps first.
+   */
+  String[] getComputationStepsStatistics();
 }
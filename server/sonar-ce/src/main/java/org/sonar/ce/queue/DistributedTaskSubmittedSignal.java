@@ -0,0 +1,70 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.queue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.picocontainer.Startable;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.ce.cluster.HazelcastClientWrapper;
+
+import static org.sonar.ce.queue.StandaloneTaskSubmittedSignal.notifyListeners;
+
+/**
+ * {@link TaskSubmittedSignal} of a clustered SonarQube instance: the signal is published on a Hazelcast topic so that the
+ * listeners of all the Compute Engines of the cluster are notified.
+ */
+public class DistributedTaskSubmittedSignal implements TaskSubmittedSignal, Startable {
+  private static final Logger LOG = Loggers.get(DistributedTaskSubmittedSignal.class);
+  private static final String TOPIC = "CE_TASK_SUBMITTED";
+
+  private final HazelcastClientWrapper hazelcastClientWrapper;
+  private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+  public DistributedTaskSubmittedSignal(HazelcastClientWrapper hazelcastClientWrapper) {
+    this.hazelcastClientWrapper = hazelcastClientWrapper;
+  }
+
+  @Override
+  public void start() {
+    hazelcastClientWrapper.<String>addMessageListener(TOPIC, message -> notifyListeners(listeners));
+  }
+
+  @Override
+  public void stop() {
+    // nothing to do
+  }
+
+  @Override
+  public void addListener(Runnable listener) {
+    listeners.add(listener);
+  }
+
+  @Override
+  public void signal() {
+    try {
+      hazelcastClientWrapper.publish(TOPIC, hazelcastClientWrapper.getClientUUID());
+    } catch (RuntimeException e) {
+      LOG.warn("Failed to notify other Compute Engines of submitted tasks", e);
+      notifyListeners(listeners);
+    }
+  }
+}
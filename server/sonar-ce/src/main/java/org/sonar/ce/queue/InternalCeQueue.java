@@ -70,6 +70,12 @@ public interface InternalCeQueue extends CeQueue {
 
   void resetTasksWithUnknownWorkerUUIDs(Set<String> knownWorkerUUIDs);
 
+  /**
+   * Called when tasks have been submitted to the queue, through this Compute Engine or another one of the cluster.
+   * The next call to {@link #peek(String)} queries the database, even if the queue was found drained recently.
+   */
+  void onTasksSubmitted();
+
   void pausePeek();
 
   void resumePeek();
@@ -23,16 +23,22 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.apache.log4j.Logger;
 import org.sonar.api.ce.ComputeEngineSide;
 import org.sonar.api.utils.System2;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.ce.configuration.CeConfiguration;
 import org.sonar.ce.monitoring.CEQueueStatus;
 import org.sonar.core.util.UuidFactory;
 import org.sonar.db.DbClient;
@@ -40,6 +46,7 @@ import org.sonar.db.DbSession;
 import org.sonar.db.ce.CeActivityDto;
 import org.sonar.db.ce.CeQueueDao;
 import org.sonar.db.ce.CeQueueDto;
+import org.sonar.db.ce.PeekResult;
 import org.sonar.server.organization.DefaultOrganizationProvider;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -55,17 +62,49 @@ public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue
   private final DbClient dbClient;
   private final CEQueueStatus queueStatus;
 
+  private final CeConfiguration ceConfiguration;
+  private final TaskSubmittedSignal taskSubmittedSignal;
+
   // state
   private AtomicBoolean peekPaused = new AtomicBoolean(false);
+  private final Object peekLock = new Object();
+  private final Set<String> waitingWorkerUuids = ConcurrentHashMap.newKeySet();
+  // incremented each time a task may have become eligible for peek
+  private final AtomicLong queueChanges = new AtomicLong();
+  // guarded by peekLock
+  private final Map<String, CeTask> dispatchedTasksByWorkerUuid = new HashMap<>();
+  // guarded by peekLock
+  private long noPendingTaskUntil = 0L;
+  // guarded by peekLock
+  private long noPendingTaskQueueChanges = -1L;
 
   public InternalCeQueueImpl(System2 system2, DbClient dbClient, UuidFactory uuidFactory, CEQueueStatus queueStatus,
-    DefaultOrganizationProvider defaultOrganizationProvider) {
+    DefaultOrganizationProvider defaultOrganizationProvider, CeConfiguration ceConfiguration, TaskSubmittedSignal taskSubmittedSignal) {
     super(dbClient, uuidFactory, defaultOrganizationProvider);
     this.system2 = system2;
     this.dbClient = dbClient;
     this.queueStatus = queueStatus;
+    this.ceConfiguration = ceConfiguration;
+    this.taskSubmittedSignal = taskSubmittedSignal;
   }
 
+  @Override
+  protected void notifyTasksSubmitted() {
+    queueChanges.incrementAndGet();
+    taskSubmittedSignal.signal();
+  }
+
+  @Override
+  public void onTasksSubmitted() {
+    queueChanges.incrementAndGet();
+  }
+
+  /**
+   * Only one worker of this Compute Engine node queries the DB at a time. Tasks are claimed for this worker and for all the
+   * workers which are waiting for it to complete, and handed to them in memory. When the queue was found to be drained,
+   * workers don't query the DB again before {@link CeConfiguration#getQueuePollingDelay()} is elapsed, unless
+   * {@link #onTasksSubmitted()} is called or a task is removed from the queue in the meantime.
+   */
   @Override
   public Optional<CeTask> peek(String workerUuid) {
     requireNonNull(workerUuid, "workerUuid can't be null");
@@ -73,19 +112,53 @@ public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue
     if (peekPaused.get()) {
       return Optional.empty();
     }
+    waitingWorkerUuids.add(workerUuid);
+    synchronized (peekLock) {
+      waitingWorkerUuids.remove(workerUuid);
+      CeTask dispatchedTask = dispatchedTasksByWorkerUuid.remove(workerUuid);
+      if (dispatchedTask != null) {
+        return Optional.of(dispatchedTask);
+      }
+      if (noPendingTaskQueueChanges == queueChanges.get() && system2.now() < noPendingTaskUntil) {
+        return Optional.empty();
+      }
+
+      List<String> workerUuids = new ArrayList<>(1 + waitingWorkerUuids.size());
+      workerUuids.add(workerUuid);
+      // waiting workers which already have a dispatched task must not get their in progress task reset
+      waitingWorkerUuids.stream()
+        .filter(uuid -> !workerUuid.equals(uuid) && !dispatchedTasksByWorkerUuid.containsKey(uuid))
+        .forEach(workerUuids::add);
+      return Optional.ofNullable(peek(workerUuid, workerUuids));
+    }
+  }
+
+  @CheckForNull
+  private CeTask peek(String workerUuid, List<String> workerUuids) {
     try (DbSession dbSession = dbClient.openSession(false)) {
       CeQueueDao ceQueueDao = dbClient.ceQueueDao();
-      int i = ceQueueDao.resetToPendingForWorker(dbSession, workerUuid);
+      int i = ceQueueDao.resetToPendingForWorkers(dbSession, workerUuids);
       if (i > 0) {
-        LOG.debug("{} in progress tasks reset for worker uuid {}", i, workerUuid);
+        LOG.debug("{} in progress tasks reset for worker uuids {}", i, workerUuids);
+      }
+      long changes = queueChanges.get();
+      PeekResult peekResult = ceQueueDao.peek(dbSession, workerUuids, MAX_EXECUTION_COUNT);
+      if (!peekResult.isEligibleTasksFound()) {
+        // tasks claimed concurrently by other nodes do not mean that queue is drained
+        noPendingTaskQueueChanges = changes;
+        noPendingTaskUntil = system2.now() + ceConfiguration.getQueuePollingDelay();
       }
-      Optional<CeQueueDto> dto = ceQueueDao.peek(dbSession, workerUuid, MAX_EXECUTION_COUNT);
       CeTask task = null;
-      if (dto.isPresent()) {
-        task = loadTask(dbSession, dto.get());
+      for (CeQueueDto dto : peekResult.getTasks()) {
+        CeTask ceTask = loadTask(dbSession, dto);
         queueStatus.addInProgress();
+        if (workerUuid.equals(dto.getWorkerUuid())) {
+          task = ceTask;
+        } else {
+          dispatchedTasksByWorkerUuid.put(dto.getWorkerUuid(), ceTask);
+        }
       }
-      return Optional.ofNullable(task);
+      return task;
     }
   }
 
@@ -107,6 +180,8 @@ public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue
       updateError(activityDto, error);
       remove(dbSession, queueDto, activityDto);
     }
+    // other tasks of the same component may now be peeked
+    queueChanges.incrementAndGet();
   }
 
   private static void updateTaskResult(CeActivityDto activityDto, @Nullable CeTaskResult taskResult) {
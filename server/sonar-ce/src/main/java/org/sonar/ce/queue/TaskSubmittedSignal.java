@@ -0,0 +1,38 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.queue;
+
+/**
+ * Signal raised when tasks are added to the queue, so that idle Compute Engine workers don't have to wait for their next
+ * scheduled poll to pick them.
+ */
+public interface TaskSubmittedSignal {
+
+  /**
+   * Registers a listener which is called, on an arbitrary thread, each time the signal is raised on this Compute Engine
+   * or, when clustered, on any other Compute Engine of the cluster.
+   */
+  void addListener(Runnable listener);
+
+  /**
+   * Raises the signal. Never fails: tasks are picked at the next scheduled poll anyway.
+   */
+  void signal();
+}
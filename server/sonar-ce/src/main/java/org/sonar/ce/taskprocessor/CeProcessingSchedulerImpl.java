@@ -23,6 +23,8 @@ import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListenableScheduledFuture;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import javax.annotation.CheckForNull;
@@ -31,6 +33,8 @@ import org.picocontainer.Startable;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.ce.configuration.CeConfiguration;
+import org.sonar.ce.queue.InternalCeQueue;
+import org.sonar.ce.queue.TaskSubmittedSignal;
 
 import static com.google.common.util.concurrent.Futures.addCallback;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
@@ -38,15 +42,22 @@ import static java.util.concurrent.TimeUnit.MILLISECONDS;
 public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startable {
   private static final Logger LOG = Loggers.get(CeProcessingSchedulerImpl.class);
   private static final long DELAY_BETWEEN_DISABLED_TASKS = 30 * 1000L; // 30 seconds
+  /**
+   * Idle workers are woken up by {@link TaskSubmittedSignal}, polling the queue is only a fallback
+   */
+  private static final long DELAY_BETWEEN_IDLE_POLLS = 60 * 1000L; // 60 seconds
 
   private final CeProcessingSchedulerExecutorService executorService;
+  private final InternalCeQueue queue;
   private final long delayBetweenEnabledTasks;
   private final TimeUnit timeUnit;
   private final ChainingCallback[] chainingCallbacks;
 
   public CeProcessingSchedulerImpl(CeConfiguration ceConfiguration,
-    CeProcessingSchedulerExecutorService processingExecutorService, CeWorkerFactory ceCeWorkerFactory) {
+    CeProcessingSchedulerExecutorService processingExecutorService, CeWorkerFactory ceCeWorkerFactory,
+    InternalCeQueue queue, TaskSubmittedSignal taskSubmittedSignal) {
     this.executorService = processingExecutorService;
+    this.queue = queue;
 
     this.delayBetweenEnabledTasks = ceConfiguration.getQueuePollingDelay();
     this.timeUnit = MILLISECONDS;
@@ -57,6 +68,7 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startab
       CeWorker worker = ceCeWorkerFactory.create(i);
       chainingCallbacks[i] = new ChainingCallback(worker);
     }
+    taskSubmittedSignal.addListener(this::onTasksSubmitted);
   }
 
   @Override
@@ -79,12 +91,26 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startab
     }
   }
 
+  /**
+   * The queue is notified before the workers are woken up, otherwise they could peek it while it still
+   * considers itself as drained.
+   */
+  private void onTasksSubmitted() {
+    queue.onTasksSubmitted();
+    for (ChainingCallback chainingCallback : chainingCallbacks) {
+      chainingCallback.wakeUp();
+    }
+  }
+
   private class ChainingCallback implements FutureCallback<CeWorker.Result> {
     private final AtomicBoolean keepRunning = new AtomicBoolean(true);
+    private final AtomicBoolean wakeUpRequested = new AtomicBoolean(false);
     private final CeWorker worker;
 
     @CheckForNull
     private ListenableFuture<CeWorker.Result> workerFuture;
+    @CheckForNull
+    private volatile IdleWorkerCall idleCall;
 
     public ChainingCallback(CeWorker worker) {
       this.worker = worker;
@@ -100,7 +126,7 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startab
             chainWithDisabledTaskDelay();
             break;
           case NO_TASK:
-            chainWithEnabledTaskDelay();
+            chainWithIdleDelay();
             break;
           case TASK_PROCESSED:
           default:
@@ -114,11 +140,29 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startab
       if (t instanceof Error) {
         LOG.error("Compute Engine execution failed. Scheduled processing interrupted.", t);
       } else {
+        if (t instanceof CancellationException) {
+          // idle call has been cancelled by wakeUp()
+          wakeUpRequested.set(false);
+        }
         chainWithoutDelay();
       }
     }
 
+    /**
+     * Runs the worker right away if it is waiting for its idle delay to expire. If the worker is currently busy,
+     * it will poll the queue again without delay once done.
+     */
+    public void wakeUp() {
+      wakeUpRequested.set(true);
+      IdleWorkerCall call = this.idleCall;
+      if (call != null && call.cancelIfNotStarted()) {
+        // cancelling the future triggers onFailure, which chains the worker without delay
+        call.future.cancel(false);
+      }
+    }
+
     private void chainWithoutDelay() {
+      idleCall = null;
       if (keepRunning()) {
         workerFuture = executorService.submit(worker);
       }
@@ -132,6 +176,25 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startab
       addCallback();
     }
 
+    private void chainWithIdleDelay() {
+      if (wakeUpRequested.getAndSet(false)) {
+        chainWithoutDelay();
+        return;
+      }
+      if (keepRunning()) {
+        IdleWorkerCall call = new IdleWorkerCall(worker);
+        call.future = executorService.schedule(call, DELAY_BETWEEN_IDLE_POLLS, timeUnit);
+        workerFuture = call.future;
+        // publish only once the future is known to wakeUp()
+        idleCall = call;
+        if (wakeUpRequested.get() && call.cancelIfNotStarted()) {
+          // a wake up was requested while the idle call was being scheduled
+          call.future.cancel(false);
+        }
+      }
+      addCallback();
+    }
+
     private void chainWithDisabledTaskDelay() {
       if (keepRunning()) {
         workerFuture = executorService.schedule(worker, DELAY_BETWEEN_DISABLED_TASKS, timeUnit);
@@ -156,4 +219,34 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startab
       }
     }
   }
+
+  /**
+   * Delayed call of a worker which can be cancelled by {@link ChainingCallback#wakeUp()} as long as the worker
+   * has not started, so that the same worker never runs twice concurrently.
+   */
+  static final class IdleWorkerCall implements Callable<CeWorker.Result> {
+    private final AtomicBoolean claimed = new AtomicBoolean(false);
+    private final CeWorker worker;
+    private ListenableScheduledFuture<CeWorker.Result> future;
+
+    IdleWorkerCall(CeWorker worker) {
+      this.worker = worker;
+    }
+
+    CeWorker getWorker() {
+      return worker;
+    }
+
+    boolean cancelIfNotStarted() {
+      return claimed.compareAndSet(false, true);
+    }
+
+    @Override
+    public CeWorker.Result call() throws Exception {
+      if (!claimed.compareAndSet(false, true)) {
+        return CeWorker.Result.NO_TASK;
+      }
+      return worker.call();
+    }
+  }
 }
@@ -238,6 +238,26 @@ public class HazelcastClientWrapperImplTest {
     }
   }
 
+  @Test
+  public void client_must_receive_messages_published_on_topic() throws InterruptedException {
+    try {
+      hzClient.start();
+
+      CountDownLatch received = new CountDownLatch(1);
+      List<String> messages = new ArrayList<>();
+      hzClient.<String>addMessageListener("TOPIC1", message -> {
+        messages.add(message);
+        received.countDown();
+      });
+      hzClient.publish("TOPIC1", "foo");
+
+      assertThat(received.await(10, TimeUnit.SECONDS)).isTrue();
+      assertThat(messages).containsExactly("foo");
+    } finally {
+      hzClient.stop();
+    }
+  }
+
   @Test
   public void configuration_tweaks_of_hazelcast_must_be_present() {
     try {
@@ -116,12 +116,13 @@ public class ComputeEngineContainerImplTest {
           + 72 // level 4
           + 4 // content of CeConfigurationModule
           + 4 // content of CeQueueModule
-          + 4 // content of CeHttpModule
-          + 3 // content of CeTaskCommonsModule
-          + 4 // content of ProjectAnalysisTaskModule
+          + 5 // content of CeHttpModule
+          + 4 // content of CeTaskCommonsModule
+          + 6 // content of ProjectAnalysisTaskModule
           + 5 // content of CeTaskProcessorModule
           + 3 // CeCleaningModule + its content
           + 1 // CeDistributedInformation
+          + 1 // TaskSubmittedSignal
     );
     assertThat(picoContainer.getParent().getComponentAdapters()).hasSize(
       CONTAINER_ITSELF
@@ -135,9 +136,9 @@ public class ComputeEngineContainerImplTest {
     assertThat(picoContainer.getParent().getParent().getParent().getComponentAdapters()).hasSize(
       COMPONENTS_IN_LEVEL_1_AT_CONSTRUCTION
         + 25 // level 1
-        + 47 // content of DaoModule
-        + 3 // content of EsSearchModule
-        + 58 // content of CorePropertyDefinitions
+        + 48 // content of DaoModule
+        + 4 // content of EsSearchModule
+        + 59 // content of CorePropertyDefinitions
     );
     assertThat(
       picoContainer.getComponentAdapters().stream()
@@ -27,6 +27,8 @@ import javax.management.ObjectName;
 import org.junit.Test;
 import org.sonar.ce.configuration.CeConfiguration;
 import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo;
+import org.sonar.server.computation.task.step.ComputationStepMetrics;
+import org.sonar.server.computation.task.step.ComputationStepsStatistics;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -39,7 +41,8 @@ public class CeTasksMBeanImplTest {
   private static final int WORKER_MAX_COUNT = 666;
   private static final int WORKER_COUNT = 56;
 
-  private CeTasksMBeanImpl underTest = new CeTasksMBeanImpl(new DumbCEQueueStatus(), new DumbCeConfiguration());
+  private ComputationStepsStatistics computationStepsStatistics = new ComputationStepsStatistics();
+  private CeTasksMBeanImpl underTest = new CeTasksMBeanImpl(new DumbCEQueueStatus(), new DumbCeConfiguration(), computationStepsStatistics);
 
   @Test
   public void register_and_unregister() throws Exception {
@@ -71,6 +74,16 @@ public class CeTasksMBeanImplTest {
     assertThat(underTest.getWorkerMaxCount()).isEqualTo(WORKER_MAX_COUNT);
   }
 
+  @Test
+  public void getComputationStepsStatistics_returns_statistics_of_slowest_steps_first() {
+    computationStepsStatistics.add("fast step", new ComputationStepMetrics(10, 8, 1_000));
+    computationStepsStatistics.add("slow step", new ComputationStepMetrics(200, 150, 50_000));
+
+    assertThat(underTest.getComputationStepsStatistics()).containsExactly(
+      "slow step | count=1 | wallTimeP50=200ms | wallTimeP95=200ms | wallTimeP99=200ms | cpuTimeP95=150ms | allocatedBytesP95=50000",
+      "fast step | count=1 | wallTimeP50=10ms | wallTimeP95=10ms | wallTimeP99=10ms | cpuTimeP95=8ms | allocatedBytesP95=1000");
+  }
+
   @Test
   public void export_system_info() {
     ProtobufSystemInfo.Section section = underTest.toProtobuf();
@@ -22,9 +22,12 @@ package org.sonar.ce.queue;
 import com.google.common.collect.ImmutableSet;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.annotation.Nullable;
 import org.hamcrest.Matchers;
 import org.junit.Before;
@@ -33,15 +36,19 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.sonar.api.utils.System2;
 import org.sonar.api.utils.internal.AlwaysIncreasingSystem2;
+import org.sonar.ce.configuration.CeConfigurationRule;
 import org.sonar.ce.monitoring.CEQueueStatus;
 import org.sonar.ce.monitoring.CEQueueStatusImpl;
 import org.sonar.core.util.UuidFactory;
 import org.sonar.core.util.UuidFactoryImpl;
+import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
 import org.sonar.db.ce.CeActivityDto;
+import org.sonar.db.ce.CeQueueDao;
 import org.sonar.db.ce.CeQueueDto;
 import org.sonar.db.ce.CeTaskTypes;
+import org.sonar.db.ce.PeekResult;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTesting;
 import org.sonar.db.organization.OrganizationDto;
@@ -50,8 +57,17 @@ import org.sonar.server.organization.DefaultOrganizationProvider;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class InternalCeQueueImplTest {
@@ -66,13 +82,17 @@ public class InternalCeQueueImplTest {
   public ExpectedException expectedException = ExpectedException.none();
   @Rule
   public DbTester dbTester = DbTester.create(system2);
+  @Rule
+  public CeConfigurationRule ceConfiguration = new CeConfigurationRule();
 
   private DbSession session = dbTester.getSession();
 
   private UuidFactory uuidFactory = UuidFactoryImpl.INSTANCE;
   private CEQueueStatus queueStatus = new CEQueueStatusImpl(dbTester.getDbClient());
   private DefaultOrganizationProvider defaultOrganizationProvider = mock(DefaultOrganizationProvider.class);
-  private InternalCeQueue underTest = new InternalCeQueueImpl(system2, dbTester.getDbClient(), uuidFactory, queueStatus, defaultOrganizationProvider);
+  private TaskSubmittedSignal taskSubmittedSignal = mock(TaskSubmittedSignal.class);
+  private InternalCeQueue underTest = new InternalCeQueueImpl(system2, dbTester.getDbClient(), uuidFactory, queueStatus, defaultOrganizationProvider,
+    ceConfiguration, taskSubmittedSignal);
 
   @Before
   public void setUp() throws Exception {
@@ -114,6 +134,15 @@ public class InternalCeQueueImplTest {
     verifyCeTask(taskSubmit, task, null);
   }
 
+  @Test
+  public void submit_and_massSubmit_signal_submitted_tasks() {
+    underTest.submit(createTaskSubmit("some type"));
+    verify(taskSubmittedSignal).signal();
+
+    underTest.massSubmit(asList(createTaskSubmit("some type"), createTaskSubmit("some other type")));
+    verify(taskSubmittedSignal, times(2)).signal();
+  }
+
   @Test
   public void submit_fails_with_ISE_if_paused() {
     underTest.pauseSubmit();
@@ -279,6 +308,60 @@ public class InternalCeQueueImplTest {
     assertThat(peek.isPresent()).isFalse();
   }
 
+  @Test
+  public void peek_does_not_query_db_within_polling_delay_once_queue_is_drained() {
+    ceConfiguration.setQueuePollingDelay(60 * 60 * 1000);
+    assertThat(underTest.peek(WORKER_UUID_1).isPresent()).isFalse();
+
+    // task submitted by another node
+    insertPending("uuid", null, 0);
+
+    assertThat(underTest.peek(WORKER_UUID_2).isPresent()).isFalse();
+    assertThat(dbTester.getDbClient().ceQueueDao().selectByUuid(session, "uuid").get().getStatus()).isEqualTo(CeQueueDto.Status.PENDING);
+  }
+
+  @Test
+  public void peek_queries_db_again_without_delay_if_eligible_tasks_were_claimed_by_another_node() {
+    ceConfiguration.setQueuePollingDelay(60 * 60 * 1000);
+    DbClient dbClient = mock(DbClient.class);
+    CeQueueDao ceQueueDao = mock(CeQueueDao.class);
+    when(dbClient.openSession(false)).thenReturn(mock(DbSession.class));
+    when(dbClient.ceQueueDao()).thenReturn(ceQueueDao);
+    when(ceQueueDao.peek(any(DbSession.class), anyListOf(String.class), anyInt()))
+      .thenReturn(new PeekResult(true, emptyList()))
+      .thenReturn(new PeekResult(false, emptyList()));
+    underTest = new InternalCeQueueImpl(system2, dbClient, uuidFactory, queueStatus, defaultOrganizationProvider, ceConfiguration, taskSubmittedSignal);
+
+    assertThat(underTest.peek(WORKER_UUID_1).isPresent()).isFalse();
+    assertThat(underTest.peek(WORKER_UUID_1).isPresent()).isFalse();
+    // queue is now drained
+    assertThat(underTest.peek(WORKER_UUID_1).isPresent()).isFalse();
+
+    verify(ceQueueDao, times(2)).peek(any(DbSession.class), anyListOf(String.class), anyInt());
+    verify(ceQueueDao, times(2)).resetToPendingForWorkers(any(DbSession.class), eq(singletonList(WORKER_UUID_1)));
+  }
+
+  @Test
+  public void peek_queries_db_once_queue_is_drained_if_task_is_submitted_through_this_node() {
+    ceConfiguration.setQueuePollingDelay(60 * 60 * 1000);
+    assertThat(underTest.peek(WORKER_UUID_1).isPresent()).isFalse();
+
+    CeTask task = submit(CeTaskTypes.REPORT, "PROJECT_1");
+
+    assertThat(underTest.peek(WORKER_UUID_2).get().getUuid()).isEqualTo(task.getUuid());
+  }
+
+  @Test
+  public void peek_queries_db_once_queue_is_drained_if_tasks_are_submitted_through_another_node() {
+    ceConfiguration.setQueuePollingDelay(60 * 60 * 1000);
+    assertThat(underTest.peek(WORKER_UUID_1).isPresent()).isFalse();
+
+    insertPending("uuid", null, 0);
+    underTest.onTasksSubmitted();
+
+    assertThat(underTest.peek(WORKER_UUID_2).get().getUuid()).isEqualTo("uuid");
+  }
+
   @Test
   public void peek_overrides_workerUuid_to_argument() {
     dbTester.getDbClient().ceQueueDao().insert(session, new CeQueueDto()
@@ -500,6 +583,59 @@ public class InternalCeQueueImplTest {
     underTest.cancel(task.getUuid());
   }
 
+  @Test
+  public void peek_does_not_reset_task_dispatched_to_a_worker_which_is_still_waiting_for_it() throws Exception {
+    DbClient dbClient = mock(DbClient.class);
+    CeQueueDao ceQueueDao = mock(CeQueueDao.class);
+    DbSession dbSession = mock(DbSession.class);
+    when(dbClient.openSession(false)).thenReturn(dbSession);
+    when(dbClient.ceQueueDao()).thenReturn(ceQueueDao);
+    underTest = new InternalCeQueueImpl(system2, dbClient, uuidFactory, queueStatus, defaultOrganizationProvider, ceConfiguration, taskSubmittedSignal);
+    List<List<String>> resetWorkerUuids = new ArrayList<>();
+    doAnswer(invocation -> {
+      resetWorkerUuids.add(new ArrayList<>((List<String>) invocation.getArguments()[1]));
+      return 0;
+    }).when(ceQueueDao).resetToPendingForWorkers(any(DbSession.class), anyListOf(String.class));
+    when(ceQueueDao.peek(any(DbSession.class), anyListOf(String.class), anyInt()))
+      .thenReturn(new PeekResult(true, emptyList()))
+      .thenReturn(new PeekResult(true, asList(inProgressDto("TASK_1", WORKER_UUID_1), inProgressDto("TASK_2", WORKER_UUID_2))))
+      .thenReturn(new PeekResult(false, emptyList()));
+    AtomicReference<Optional<CeTask>> worker2Task = new AtomicReference<>();
+    Thread worker2 = new Thread(() -> worker2Task.set(underTest.peek(WORKER_UUID_2)));
+    AtomicInteger closedSessions = new AtomicInteger();
+    // worker 1 holds the lock while worker 2 waits for it, then another worker gets the lock before worker 2
+    doAnswer(invocation -> {
+      switch (closedSessions.incrementAndGet()) {
+        case 1:
+          worker2.start();
+          while (worker2.getState() != Thread.State.BLOCKED) {
+            Thread.sleep(10L);
+          }
+          assertThat(underTest.peek(WORKER_UUID_1).get().getUuid()).isEqualTo("TASK_1");
+          break;
+        case 2:
+          assertThat(underTest.peek("worker uuid 3")).isEmpty();
+          break;
+        default:
+          break;
+      }
+      return null;
+    }).when(dbSession).close();
+
+    assertThat(underTest.peek(WORKER_UUID_1)).isEmpty();
+    worker2.join();
+
+    assertThat(worker2Task.get().get().getUuid()).isEqualTo("TASK_2");
+    assertThat(resetWorkerUuids).containsExactly(
+      singletonList(WORKER_UUID_1),
+      asList(WORKER_UUID_1, WORKER_UUID_2),
+      singletonList("worker uuid 3"));
+  }
+
+  private static CeQueueDto inProgressDto(String uuid, String workerUuid) {
+    return new CeQueueDto().setUuid(uuid).setTaskType(CeTaskTypes.REPORT).setStatus(CeQueueDto.Status.IN_PROGRESS).setWorkerUuid(workerUuid);
+  }
+
   @Test
   public void cancelAll_pendings_but_not_in_progress() throws Exception {
     CeTask inProgressTask = submit(CeTaskTypes.REPORT, "PROJECT_1");
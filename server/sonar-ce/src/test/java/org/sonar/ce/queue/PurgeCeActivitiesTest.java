@@ -19,12 +19,14 @@
  */
 package org.sonar.ce.queue;
 
+import java.util.Collections;
 import org.junit.Rule;
 import org.junit.Test;
 import org.sonar.api.utils.System2;
 import org.sonar.db.DbTester;
 import org.sonar.db.ce.CeActivityDto;
 import org.sonar.db.ce.CeQueueDto;
+import org.sonar.db.ce.CeTaskStepDto;
 import org.sonar.db.ce.CeTaskTypes;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -52,6 +54,31 @@ public class PurgeCeActivitiesTest {
     assertThat(dbTester.getDbClient().ceActivityDao().selectByUuid(dbTester.getSession(), "RECENT").isPresent()).isTrue();
   }
 
+  @Test
+  public void delete_steps_of_tasks_older_than_6_months() throws Exception {
+    insertWithDate("VERY_OLD", 1_000_000_000_000L);
+    insertStep("VERY_OLD");
+    insertWithDate("RECENT", 1_500_000_000_000L);
+    insertStep("RECENT");
+    when(system2.now()).thenReturn(1_500_000_000_100L);
+
+    underTest.start();
+
+    assertThat(dbTester.getDbClient().ceTaskStepDao().selectByTaskUuid(dbTester.getSession(), "VERY_OLD")).isEmpty();
+    assertThat(dbTester.getDbClient().ceTaskStepDao().selectByTaskUuid(dbTester.getSession(), "RECENT")).hasSize(1);
+  }
+
+  private void insertStep(String taskUuid) {
+    dbTester.getDbClient().ceTaskStepDao().insert(dbTester.getSession(), Collections.singletonList(new CeTaskStepDto()
+      .setUuid(taskUuid + "_step")
+      .setTaskUuid(taskUuid)
+      .setStepIndex(0)
+      .setDescription("Load report")
+      .setWallTime(10L)
+      .setCreatedAt(1_000L)));
+    dbTester.getSession().commit();
+  }
+
   private void insertWithDate(String uuid, long date) {
     CeQueueDto queueDto = new CeQueueDto();
     queueDto.setUuid(uuid);
@@ -47,7 +47,10 @@ import org.junit.Test;
 import org.junit.rules.DisableOnDebug;
 import org.junit.rules.TestRule;
 import org.junit.rules.Timeout;
+import org.mockito.InOrder;
 import org.sonar.ce.configuration.CeConfigurationRule;
+import org.sonar.ce.queue.InternalCeQueue;
+import org.sonar.ce.queue.StandaloneTaskSubmittedSignal;
 
 import static com.google.common.collect.ImmutableList.copyOf;
 import static java.util.Collections.emptySet;
@@ -55,6 +58,7 @@ import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
@@ -78,9 +82,12 @@ public class CeProcessingSchedulerImplTest {
   private StubCeProcessingSchedulerExecutorService processingExecutorService = new StubCeProcessingSchedulerExecutorService();
   private SchedulerCall regularDelayedPoll = new SchedulerCall(ceWorker, 2000L, MILLISECONDS);
   private SchedulerCall extendedDelayedPoll = new SchedulerCall(ceWorker, 30000L, MILLISECONDS);
+  private SchedulerCall idleDelayedPoll = new SchedulerCall(ceWorker, 60000L, MILLISECONDS);
   private SchedulerCall notDelayedPoll = new SchedulerCall(ceWorker);
+  private StandaloneTaskSubmittedSignal taskSubmittedSignal = new StandaloneTaskSubmittedSignal();
+  private InternalCeQueue queue = mock(InternalCeQueue.class);
 
-  private CeProcessingSchedulerImpl underTest = new CeProcessingSchedulerImpl(ceConfiguration, processingExecutorService, ceWorkerFactory);
+  private CeProcessingSchedulerImpl underTest = new CeProcessingSchedulerImpl(ceConfiguration, processingExecutorService, ceWorkerFactory, queue, taskSubmittedSignal);
 
   @Test
   public void polls_without_delay_when_CeWorkerCallable_returns_TASK_PROCESSED() throws Exception {
@@ -109,7 +116,7 @@ public class CeProcessingSchedulerImplTest {
   }
 
   @Test
-  public void polls_with_regular_delay_when_CeWorkerCallable_returns_NO_TASK() throws Exception {
+  public void polls_with_idle_delay_when_CeWorkerCallable_returns_NO_TASK() throws Exception {
     when(ceWorker.call())
       .thenReturn(NO_TASK)
       .thenThrow(ERROR_TO_INTERRUPT_CHAINING);
@@ -118,7 +125,60 @@ public class CeProcessingSchedulerImplTest {
 
     assertThat(processingExecutorService.getSchedulerCalls()).containsExactly(
       regularDelayedPoll,
-      regularDelayedPoll);
+      idleDelayedPoll);
+  }
+
+  @Test
+  public void signal_of_submitted_task_wakes_up_idle_CeWorkerCallable() throws Exception {
+    when(ceWorker.call())
+      .thenReturn(NO_TASK)
+      .thenThrow(ERROR_TO_INTERRUPT_CHAINING);
+
+    underTest.startScheduling();
+    processingExecutorService.futures.poll().get();
+    taskSubmittedSignal.signal();
+    processingExecutorService.runFutures();
+
+    assertThat(processingExecutorService.getSchedulerCalls()).containsExactly(
+      regularDelayedPoll,
+      idleDelayedPoll,
+      notDelayedPoll);
+    verify(ceWorker, times(2)).call();
+  }
+
+  @Test
+  public void signal_of_submitted_task_notifies_queue_before_waking_up_idle_CeWorkerCallable() throws Exception {
+    when(ceWorker.call())
+      .thenReturn(NO_TASK)
+      .thenThrow(ERROR_TO_INTERRUPT_CHAINING);
+
+    underTest.startScheduling();
+    processingExecutorService.futures.poll().get();
+    taskSubmittedSignal.signal();
+    processingExecutorService.runFutures();
+
+    InOrder inOrder = inOrder(queue, ceWorker);
+    inOrder.verify(ceWorker).call();
+    inOrder.verify(queue).onTasksSubmitted();
+    inOrder.verify(ceWorker).call();
+  }
+
+  @Test
+  public void signal_of_submitted_task_while_CeWorkerCallable_is_running_makes_next_poll_without_delay() throws Exception {
+    when(ceWorker.call())
+      .thenAnswer(invocation -> {
+        taskSubmittedSignal.signal();
+        return NO_TASK;
+      })
+      .thenReturn(NO_TASK)
+      .thenThrow(ERROR_TO_INTERRUPT_CHAINING);
+
+    startSchedulingAndRun();
+
+    assertThat(processingExecutorService.getSchedulerCalls()).containsExactly(
+      regularDelayedPoll,
+      notDelayedPoll,
+      idleDelayedPoll);
   }
 
   @Test
@@ -154,13 +214,13 @@ public class CeProcessingSchedulerImplTest {
       regularDelayedPoll,
       notDelayedPoll,
       notDelayedPoll,
-      regularDelayedPoll,
+      idleDelayedPoll,
       notDelayedPoll,
-      regularDelayedPoll,
+      idleDelayedPoll,
       notDelayedPoll,
-      regularDelayedPoll,
-      regularDelayedPoll,
-      regularDelayedPoll);
+      idleDelayedPoll,
+      idleDelayedPoll,
+      idleDelayedPoll);
   }
 
   @Test
@@ -196,9 +256,9 @@ public class CeProcessingSchedulerImplTest {
     assertThat(cancelledTaskFutureCount).isEqualTo(1);
     assertThat(processingExecutorService.getSchedulerCalls()).containsExactly(
       regularDelayedPoll,
-      regularDelayedPoll,
+      idleDelayedPoll,
       notDelayedPoll,
-      regularDelayedPoll);
+      idleDelayedPoll);
   }
 
   @Test
@@ -219,7 +279,7 @@ public class CeProcessingSchedulerImplTest {
     when(processingExecutorService.schedule(any(CeWorker.class), any(Long.class), any(TimeUnit.class))).thenReturn(listenableScheduledFuture);
 
     CeWorkerFactory ceWorkerFactory = spy(new TestCeWorkerFactory(workers));
-    CeProcessingSchedulerImpl underTest = new CeProcessingSchedulerImpl(ceConfiguration, processingExecutorService, ceWorkerFactory);
+    CeProcessingSchedulerImpl underTest = new CeProcessingSchedulerImpl(ceConfiguration, processingExecutorService, ceWorkerFactory, queue, taskSubmittedSignal);
     when(processingExecutorService.schedule(ceWorker, ceConfiguration.getQueuePollingDelay(), MILLISECONDS))
       .thenReturn(listenableScheduledFuture);
 
@@ -290,7 +350,7 @@ public class CeProcessingSchedulerImplTest {
 
     @Override
     public <V> ListenableScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
-      this.schedulerCalls.add(new SchedulerCall(callable, delay, unit));
+      this.schedulerCalls.add(new SchedulerCall(unwrap(callable), delay, unit));
       return delegate.schedule(callable, delay, unit);
     }
 
@@ -300,6 +360,13 @@ public class CeProcessingSchedulerImplTest {
       return delegate.submit(task);
     }
 
+    private static Callable<?> unwrap(Callable<?> callable) {
+      if (callable instanceof CeProcessingSchedulerImpl.IdleWorkerCall) {
+        return ((CeProcessingSchedulerImpl.IdleWorkerCall) callable).getWorker();
+      }
+      return callable;
+    }
+
     @Override
     public void stop() {
       throw new UnsupportedOperationException("stop() not implemented");
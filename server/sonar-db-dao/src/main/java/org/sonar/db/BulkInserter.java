@@ -0,0 +1,206 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.sonar.db.DatabaseUtils.closeQuietly;
+import static org.sonar.db.DatabaseUtils.wrapSqlException;
+
+/**
+ * Inserts rows with a JDBC batch of a single {@link PreparedStatement}, rather than through MyBatis, so that
+ * persisting a large number of rows requires neither parsing of mapped statements nor buffering of rows.
+ * <p>
+ * Pending rows are sent to the database every {@code batchSize} rows, or on {@link #flush()}. Nothing is committed
+ * until {@link #commit()} is called, which also commits any other change made in the same {@link DbSession}.
+ * {@link #close()} rolls back the session if rows were sent but not committed by this inserter, as MyBatis does not
+ * know about them and would commit them when releasing the connection.
+ * </p>
+ */
+public class BulkInserter<T> implements AutoCloseable {
+  public static final int DEFAULT_BATCH_SIZE = 1_000;
+
+  private final DbSession dbSession;
+  private final String sql;
+  private final RowWriter<T> rowWriter;
+  private final int batchSize;
+  private final PreparedStatement stmt;
+  private final Row row;
+  private int pendingRows = 0;
+  private long insertedRows = 0;
+  private boolean uncommittedRows = false;
+
+  public BulkInserter(DbSession dbSession, String sql, RowWriter<T> rowWriter) {
+    this(dbSession, sql, rowWriter, DEFAULT_BATCH_SIZE);
+  }
+
+  public BulkInserter(DbSession dbSession, String sql, RowWriter<T> rowWriter, int batchSize) {
+    checkArgument(batchSize > 0, "Batch size must be strictly positive");
+    this.dbSession = dbSession;
+    this.sql = sql;
+    this.rowWriter = rowWriter;
+    this.batchSize = batchSize;
+    try {
+      this.stmt = dbSession.getConnection().prepareStatement(sql);
+    } catch (SQLException e) {
+      throw wrapSqlException(e, "Fail to prepare statement %s", sql);
+    }
+    this.row = new Row(stmt);
+  }
+
+  public void add(T item) {
+    try {
+      rowWriter.write(row, item);
+      stmt.addBatch();
+    } catch (SQLException e) {
+      throw wrapSqlException(e, "Fail to add row to batch of %s", sql);
+    }
+    pendingRows++;
+    if (pendingRows >= batchSize) {
+      executeBatch();
+    }
+  }
+
+  /**
+   * Number of rows sent to the database so far.
+   */
+  public long getInsertedRows() {
+    return insertedRows;
+  }
+
+  /**
+   * Sends pending rows to the database without committing them, for instance when rows of several inserters
+   * must be committed together with {@link DbSession#commit(boolean)} before the inserters are closed.
+   */
+  public void flush() {
+    executeBatch();
+  }
+
+  /**
+   * Sends pending rows to the database and commits the session.
+   */
+  public void commit() {
+    executeBatch();
+    // forced, as rows inserted through JDBC are unknown to MyBatis
+    dbSession.commit(true);
+    uncommittedRows = false;
+  }
+
+  /**
+   * Releases the statement. Rows which are not committed yet are discarded.
+   */
+  @Override
+  public void close() {
+    closeQuietly(stmt);
+    if (uncommittedRows) {
+      // forced, as rows inserted through JDBC are unknown to MyBatis
+      dbSession.rollback(true);
+    }
+  }
+
+  private void executeBatch() {
+    if (pendingRows == 0) {
+      return;
+    }
+    try {
+      stmt.executeBatch();
+      stmt.clearBatch();
+    } catch (SQLException e) {
+      throw wrapSqlException(e, "Fail to execute batch of %s", sql);
+    }
+    insertedRows += pendingRows;
+    pendingRows = 0;
+    uncommittedRows = true;
+  }
+
+  @FunctionalInterface
+  public interface RowWriter<T> {
+    void write(Row row, T item) throws SQLException;
+  }
+
+  /**
+   * Sets the parameters of the current row, {@code null} values being supported.
+   */
+  public static final class Row {
+    private final PreparedStatement stmt;
+
+    private Row(PreparedStatement stmt) {
+      this.stmt = stmt;
+    }
+
+    public Row setString(int columnIndex, @Nullable String value) throws SQLException {
+      if (value == null) {
+        stmt.setNull(columnIndex, Types.VARCHAR);
+      } else {
+        stmt.setString(columnIndex, value);
+      }
+      return this;
+    }
+
+    public Row setInt(int columnIndex, @Nullable Integer value) throws SQLException {
+      if (value == null) {
+        stmt.setNull(columnIndex, Types.INTEGER);
+      } else {
+        stmt.setInt(columnIndex, value);
+      }
+      return this;
+    }
+
+    public Row setLong(int columnIndex, @Nullable Long value) throws SQLException {
+      if (value == null) {
+        stmt.setNull(columnIndex, Types.BIGINT);
+      } else {
+        stmt.setLong(columnIndex, value);
+      }
+      return this;
+    }
+
+    public Row setDouble(int columnIndex, @Nullable Double value) throws SQLException {
+      if (value == null) {
+        stmt.setNull(columnIndex, Types.DOUBLE);
+      } else {
+        stmt.setDouble(columnIndex, value);
+      }
+      return this;
+    }
+
+    public Row setBoolean(int columnIndex, @Nullable Boolean value) throws SQLException {
+      if (value == null) {
+        stmt.setNull(columnIndex, Types.BOOLEAN);
+      } else {
+        stmt.setBoolean(columnIndex, value);
+      }
+      return this;
+    }
+
+    public Row setBytes(int columnIndex, @Nullable byte[] value) throws SQLException {
+      if (value == null) {
+        stmt.setNull(columnIndex, Types.BINARY);
+      } else {
+        stmt.setBytes(columnIndex, value);
+      }
+      return this;
+    }
+  }
+}
@@ -27,6 +27,7 @@ import org.sonar.db.ce.CeQueueDao;
 import org.sonar.db.ce.CeScannerContextDao;
 import org.sonar.db.ce.CeTaskCharacteristicDao;
 import org.sonar.db.ce.CeTaskInputDao;
+import org.sonar.db.ce.CeTaskStepDao;
 import org.sonar.db.component.ComponentDao;
 import org.sonar.db.component.ComponentKeyUpdaterDao;
 import org.sonar.db.component.ComponentLinkDao;
@@ -82,6 +83,7 @@ public class DaoModule extends Module {
     CeScannerContextDao.class,
     CeTaskCharacteristicDao.class,
     CeTaskInputDao.class,
+    CeTaskStepDao.class,
     ComponentDao.class,
     ComponentKeyUpdaterDao.class,
     ComponentLinkDao.class,
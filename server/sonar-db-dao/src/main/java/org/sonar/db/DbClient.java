@@ -26,6 +26,7 @@ import org.sonar.db.ce.CeQueueDao;
 import org.sonar.db.ce.CeScannerContextDao;
 import org.sonar.db.ce.CeTaskCharacteristicDao;
 import org.sonar.db.ce.CeTaskInputDao;
+import org.sonar.db.ce.CeTaskStepDao;
 import org.sonar.db.component.ComponentDao;
 import org.sonar.db.component.ComponentKeyUpdaterDao;
 import org.sonar.db.component.ComponentLinkDao;
@@ -100,6 +101,7 @@ public class DbClient {
   private final CeQueueDao ceQueueDao;
   private final CeTaskInputDao ceTaskInputDao;
   private final CeTaskCharacteristicDao ceTaskCharacteristicsDao;
+  private final CeTaskStepDao ceTaskStepDao;
   private final CeScannerContextDao ceScannerContextDao;
   private final FileSourceDao fileSourceDao;
   private final ComponentLinkDao componentLinkDao;
@@ -157,6 +159,7 @@ public class DbClient {
     ceQueueDao = getDao(map, CeQueueDao.class);
     ceTaskInputDao = getDao(map, CeTaskInputDao.class);
     ceTaskCharacteristicsDao = getDao(map, CeTaskCharacteristicDao.class);
+    ceTaskStepDao = getDao(map, CeTaskStepDao.class);
     ceScannerContextDao = getDao(map, CeScannerContextDao.class);
     fileSourceDao = getDao(map, FileSourceDao.class);
     componentLinkDao = getDao(map, ComponentLinkDao.class);
@@ -292,6 +295,10 @@ public class DbClient {
     return ceTaskCharacteristicsDao;
   }
 
+  public CeTaskStepDao ceTaskStepDao() {
+    return ceTaskStepDao;
+  }
+
   public CeScannerContextDao ceScannerContextDao() {
     return ceScannerContextDao;
   }
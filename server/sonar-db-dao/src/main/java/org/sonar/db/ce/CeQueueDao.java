@@ -19,7 +19,12 @@
  */
 package org.sonar.db.ce;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import javax.annotation.Nullable;
@@ -30,14 +35,14 @@ import org.sonar.db.DbSession;
 import org.sonar.db.Pagination;
 
 import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+import static org.sonar.core.util.stream.MoreCollectors.uniqueIndex;
 import static org.sonar.db.DatabaseUtils.executeLargeUpdates;
 import static org.sonar.db.ce.CeQueueDto.Status.IN_PROGRESS;
-import static org.sonar.db.ce.CeQueueDto.Status.PENDING;
 
 public class CeQueueDao implements Dao {
 
-  private static final Pagination ONE_RESULT_PAGINATION = Pagination.forPage(1).andSize(1);
-
   private final System2 system2;
 
   public CeQueueDao(System2 system2) {
@@ -124,7 +129,18 @@ public class CeQueueDao implements Dao {
    * STATUS='PENDING', STARTED_AT=NULL, UPDATED_AT={now}.
    */
   public int resetToPendingForWorker(DbSession session, String workerUuid) {
-    return mapper(session).resetToPendingForWorker(workerUuid, system2.now());
+    return resetToPendingForWorkers(session, singletonList(workerUuid));
+  }
+
+  /**
+   * Same as {@link #resetToPendingForWorker(DbSession, String)} for several workers, in a single statement.
+   * The number of workers of a Compute Engine node is low enough to not be partitioned.
+   */
+  public int resetToPendingForWorkers(DbSession session, Collection<String> workerUuids) {
+    if (workerUuids.isEmpty()) {
+      return 0;
+    }
+    return mapper(session).resetToPendingForWorkers(workerUuids, system2.now());
   }
 
   public int countByStatus(DbSession dbSession, CeQueueDto.Status status) {
@@ -136,27 +152,65 @@ public class CeQueueDao implements Dao {
   }
 
   public Optional<CeQueueDto> peek(DbSession session, String workerUuid, int maxExecutionCount) {
-    List<EligibleTaskDto> eligibles = mapper(session).selectEligibleForPeek(maxExecutionCount, ONE_RESULT_PAGINATION);
+    return peek(session, singletonList(workerUuid), maxExecutionCount).getTasks().stream().findFirst();
+  }
+
+  /**
+   * Claims up to one pending task for each of the specified workers, oldest tasks first, in a single update statement.
+   * At most one task is claimed per component. Claimed tasks are in status {@link CeQueueDto.Status#IN_PROGRESS} and their
+   * worker UUID is the one of the worker they have been assigned to.
+   * <p>
+   * Tasks claimed concurrently by another Compute Engine node are not returned, so fewer tasks than workers may be
+   * returned even if there are enough eligible tasks. {@link PeekResult#isEligibleTasksFound()} allows to distinguish
+   * this case from an empty queue.
+   * </p>
+   */
+  public PeekResult peek(DbSession session, List<String> workerUuids, int maxExecutionCount) {
+    if (workerUuids.isEmpty()) {
+      return PeekResult.noEligibleTask();
+    }
+    // a window larger than the number of workers leaves room for tasks of the same component, only the first of which can be claimed
+    Pagination pagination = Pagination.forPage(1).andSize(workerUuids.size() * 2);
+    List<EligibleTaskDto> eligibles = mapper(session).selectEligibleForPeek(maxExecutionCount, pagination);
     if (eligibles.isEmpty()) {
-      return Optional.empty();
+      return PeekResult.noEligibleTask();
     }
 
-    EligibleTaskDto eligible = eligibles.get(0);
-    return tryToPeek(session, eligible, workerUuid);
-  }
-
-  private Optional<CeQueueDto> tryToPeek(DbSession session, EligibleTaskDto eligible, String workerUuid) {
-    long now = system2.now();
-    int touchedRows = mapper(session).updateIf(eligible.getUuid(),
-      new UpdateIf.NewProperties(IN_PROGRESS, workerUuid, eligible.getExecutionCount() + 1, now, now),
-      new UpdateIf.OldProperties(PENDING, eligible.getExecutionCount()));
-    if (touchedRows != 1) {
-      return Optional.empty();
+    List<TaskClaim> claims = toClaims(eligibles, workerUuids);
+    int touchedRows = mapper(session).updateToInProgress(claims, maxExecutionCount, system2.now());
+    if (touchedRows == 0) {
+      return new PeekResult(true, emptyList());
     }
 
-    CeQueueDto result = mapper(session).selectByUuid(eligible.getUuid());
+    Map<String, CeQueueDto> dtosByUuid = mapper(session).selectByUuids(claims.stream().map(TaskClaim::getTaskUuid).collect(toList()))
+      .stream()
+      .collect(uniqueIndex(CeQueueDto::getUuid));
+    List<CeQueueDto> result = new ArrayList<>(touchedRows);
+    for (TaskClaim claim : claims) {
+      CeQueueDto dto = dtosByUuid.get(claim.getTaskUuid());
+      // task may have been claimed concurrently by another worker
+      if (dto != null && dto.getStatus() == IN_PROGRESS && claim.getWorkerUuid().equals(dto.getWorkerUuid())) {
+        result.add(dto);
+      }
+    }
     session.commit();
-    return Optional.of(result);
+    return new PeekResult(true, result);
+  }
+
+  private static List<TaskClaim> toClaims(List<EligibleTaskDto> eligibles, List<String> workerUuids) {
+    Set<String> claimedComponentUuids = new HashSet<>();
+    List<TaskClaim> claims = new ArrayList<>(workerUuids.size());
+    Iterator<String> workerUuidIt = workerUuids.iterator();
+    for (EligibleTaskDto eligible : eligibles) {
+      String componentUuid = eligible.getComponentUuid();
+      if (componentUuid == null || claimedComponentUuids.add(componentUuid)) {
+        claims.add(new TaskClaim(eligible.getUuid(), workerUuidIt.next()));
+        if (!workerUuidIt.hasNext()) {
+          break;
+        }
+      }
+    }
+    return claims;
   }
 
   private static CeQueueMapper mapper(DbSession session) {
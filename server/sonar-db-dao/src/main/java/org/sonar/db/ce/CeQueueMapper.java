@@ -19,6 +19,7 @@
  */
 package org.sonar.db.ce;
 
+import java.util.Collection;
 import java.util.List;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
@@ -41,6 +42,8 @@ public interface CeQueueMapper {
   @CheckForNull
   CeQueueDto selectByUuid(@Param("uuid") String uuid);
 
+  List<CeQueueDto> selectByUuids(@Param("uuids") List<String> uuids);
+
   /**
    * Select all pending tasks which execution count is greater than or equal to the specified {@code minExecutionCount}.
    */
@@ -63,11 +66,13 @@ public interface CeQueueMapper {
 
   void resetAllToPendingStatus(@Param("updatedAt") long updatedAt);
 
-  int resetToPendingForWorker(@Param("workerUuid") String workerUuid, @Param("updatedAt") long updatedAt);
+  int resetToPendingForWorkers(@Param("workerUuids") Collection<String> workerUuids, @Param("updatedAt") long updatedAt);
 
-  int updateIf(@Param("uuid") String uuid,
-    @Param("new") UpdateIf.NewProperties newProperties,
-    @Param("old") UpdateIf.OldProperties oldProperties);
+  /**
+   * Update the specified pending tasks to status IN_PROGRESS, each one with the worker UUID of its claim. Tasks which are not
+   * pending anymore or which reached {@code maxExecutionCount} are left unchanged.
+   */
+  int updateToInProgress(@Param("claims") List<TaskClaim> claims, @Param("maxExecutionCount") int maxExecutionCount, @Param("now") long now);
 
   void deleteByUuid(@Param("uuid") String uuid);
 }
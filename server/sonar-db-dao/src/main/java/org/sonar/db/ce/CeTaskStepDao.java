@@ -0,0 +1,48 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.ce;
+
+import java.util.Collection;
+import java.util.List;
+import org.sonar.db.Dao;
+import org.sonar.db.DatabaseUtils;
+import org.sonar.db.DbSession;
+
+public class CeTaskStepDao implements Dao {
+  public void insert(DbSession dbSession, Collection<CeTaskStepDto> steps) {
+    CeTaskStepMapper mapper = mapper(dbSession);
+    steps.forEach(mapper::insert);
+  }
+
+  /**
+   * Steps of the task, ordered by execution
+   */
+  public List<CeTaskStepDto> selectByTaskUuid(DbSession dbSession, String taskUuid) {
+    return mapper(dbSession).selectByTaskUuid(taskUuid);
+  }
+
+  public void deleteByTaskUuids(DbSession dbSession, Collection<String> taskUuids) {
+    DatabaseUtils.executeLargeUpdates(taskUuids, mapper(dbSession)::deleteByTaskUuids);
+  }
+
+  private static CeTaskStepMapper mapper(DbSession session) {
+    return session.getMapper(CeTaskStepMapper.class);
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.ce;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+/**
+ * Metrics of the execution of a step of a Compute Engine task
+ */
+public class CeTaskStepDto {
+  private String uuid;
+  private String taskUuid;
+  private int stepIndex;
+  private String description;
+  private long wallTime;
+  private Long cpuTime;
+  private Long allocatedBytes;
+  private long createdAt;
+
+  public String getUuid() {
+    return uuid;
+  }
+
+  public CeTaskStepDto setUuid(String uuid) {
+    this.uuid = uuid;
+    return this;
+  }
+
+  public String getTaskUuid() {
+    return taskUuid;
+  }
+
+  public CeTaskStepDto setTaskUuid(String taskUuid) {
+    this.taskUuid = taskUuid;
+    return this;
+  }
+
+  /**
+   * Position of the step in the task, starting from 0
+   */
+  public int getStepIndex() {
+    return stepIndex;
+  }
+
+  public CeTaskStepDto setStepIndex(int stepIndex) {
+    this.stepIndex = stepIndex;
+    return this;
+  }
+
+  public String getDescription() {
+    return description;
+  }
+
+  public CeTaskStepDto setDescription(String description) {
+    this.description = description;
+    return this;
+  }
+
+  /**
+   * Elapsed time, in milliseconds
+   */
+  public long getWallTime() {
+    return wallTime;
+  }
+
+  public CeTaskStepDto setWallTime(long wallTime) {
+    this.wallTime = wallTime;
+    return this;
+  }
+
+  /**
+   * CPU time, in milliseconds, or {@code null} if not supported by the JVM
+   */
+  @CheckForNull
+  public Long getCpuTime() {
+    return cpuTime;
+  }
+
+  public CeTaskStepDto setCpuTime(@Nullable Long cpuTime) {
+    this.cpuTime = cpuTime;
+    return this;
+  }
+
+  /**
+   * Bytes allocated on heap, or {@code null} if not supported by the JVM
+   */
+  @CheckForNull
+  public Long getAllocatedBytes() {
+    return allocatedBytes;
+  }
+
+  public CeTaskStepDto setAllocatedBytes(@Nullable Long allocatedBytes) {
+    this.allocatedBytes = allocatedBytes;
+    return this;
+  }
+
+  public long getCreatedAt() {
+    return createdAt;
+  }
+
+  public CeTaskStepDto setCreatedAt(long createdAt) {
+    this.createdAt = createdAt;
+    return this;
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.ce;
+
+import java.util.List;
+import javax.annotation.concurrent.Immutable;
+
+import static java.util.Collections.emptyList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Result of {@link CeQueueDao#peek(org.sonar.db.DbSession, List, int)}.
+ */
+@Immutable
+public final class PeekResult {
+  private static final PeekResult NO_ELIGIBLE_TASK = new PeekResult(false, emptyList());
+
+  private final boolean eligibleTasksFound;
+  private final List<CeQueueDto> tasks;
+
+  public PeekResult(boolean eligibleTasksFound, List<CeQueueDto> tasks) {
+    this.eligibleTasksFound = eligibleTasksFound;
+    this.tasks = requireNonNull(tasks, "tasks can't be null");
+  }
+
+  static PeekResult noEligibleTask() {
+    return NO_ELIGIBLE_TASK;
+  }
+
+  /**
+   * Whether pending tasks could be peeked. Tasks may have been found but not claimed, because they were claimed
+   * concurrently by another Compute Engine node.
+   */
+  public boolean isEligibleTasksFound() {
+    return eligibleTasksFound;
+  }
+
+  /**
+   * The claimed tasks, at most one per worker
+   */
+  public List<CeQueueDto> getTasks() {
+    return tasks;
+  }
+}
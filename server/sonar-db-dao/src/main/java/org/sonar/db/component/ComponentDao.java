@@ -240,6 +240,16 @@ public class ComponentDao implements Dao {
     return mapper(dbSession).selectAllRootsByOrganization(organizationUuid);
   }
 
+  /**
+   * Select the uuids of all root components (projects and views), including disabled ones, sorted
+   * in the order of the database.
+   *
+   * @param afterUuid if not null, only the uuids greater than this one are returned
+   */
+  public List<String> selectRootUuidsAfter(DbSession dbSession, @Nullable String afterUuid) {
+    return mapper(dbSession).selectRootUuidsAfter(afterUuid);
+  }
+
   /**
    * Select a page of provisioned (root) components. Results are ordered by ascending name.
    * @param dbSession
@@ -78,6 +78,8 @@ public interface ComponentMapper {
    */
   List<ComponentDto> selectProjects();
 
+  List<String> selectRootUuidsAfter(@Nullable @Param("afterUuid") String afterUuid);
+
   List<ComponentDto> selectAllRootsByOrganization(@Param("organizationUuid") String organizationUuid);
 
   /**
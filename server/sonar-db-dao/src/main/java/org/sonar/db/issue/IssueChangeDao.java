@@ -19,11 +19,13 @@
  */
 package org.sonar.db.issue;
 
+import java.sql.SQLException;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.sonar.core.issue.FieldDiffs;
 import org.sonar.core.util.stream.MoreCollectors;
+import org.sonar.db.BulkInserter;
 import org.sonar.db.Dao;
 import org.sonar.db.DbSession;
 
@@ -32,6 +34,9 @@ import static org.sonar.db.DatabaseUtils.executeLargeInputs;
 
 public class IssueChangeDao implements Dao {
 
+  private static final String INSERT_SQL = "INSERT INTO issue_changes (kee, issue_key, user_login, change_type, change_data, created_at, " +
+    "updated_at, issue_change_creation_date) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
   public List<FieldDiffs> selectChangelogByIssue(DbSession session, String issueKey) {
     return selectByTypeAndIssueKeys(session, singletonList(issueKey), IssueChangeDto.TYPE_FIELD_CHANGE)
       .stream()
@@ -56,6 +61,29 @@ public class IssueChangeDao implements Dao {
     mapper(session).insert(change);
   }
 
+  /**
+   * Inserter of a large number of changes, see {@link BulkInserter}.
+   */
+  public BulkInserter<IssueChangeDto> newBulkInserter(DbSession session) {
+    return new BulkInserter<>(session, INSERT_SQL, IssueChangeDao::writeRow);
+  }
+
+  public BulkInserter<IssueChangeDto> newBulkInserter(DbSession session, int batchSize) {
+    return new BulkInserter<>(session, INSERT_SQL, IssueChangeDao::writeRow, batchSize);
+  }
+
+  private static void writeRow(BulkInserter.Row row, IssueChangeDto change) throws SQLException {
+    row
+      .setString(1, change.getKey())
+      .setString(2, change.getIssueKey())
+      .setString(3, change.getUserLogin())
+      .setString(4, change.getChangeType())
+      .setString(5, change.getChangeData())
+      .setLong(6, change.getCreatedAt())
+      .setLong(7, change.getUpdatedAt())
+      .setLong(8, change.getIssueChangeCreationDate());
+  }
+
   public boolean delete(DbSession session, String key) {
     IssueChangeMapper mapper = mapper(session);
     int count = mapper.delete(key);
@@ -21,6 +21,7 @@ package org.sonar.db.issue;
 
 import com.google.common.base.Function;
 import com.google.common.base.Predicates;
+import java.sql.SQLException;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
@@ -29,6 +30,7 @@ import java.util.Set;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.apache.ibatis.session.ResultHandler;
+import org.sonar.db.BulkInserter;
 import org.sonar.db.Dao;
 import org.sonar.db.DbSession;
 import org.sonar.db.RowNotFoundException;
@@ -38,9 +40,15 @@ import org.sonar.db.component.ComponentDto;
 import static com.google.common.collect.FluentIterable.from;
 import static org.sonar.db.DaoDatabaseUtils.buildLikeValue;
 import static org.sonar.db.DatabaseUtils.executeLargeInputs;
+import static org.sonar.db.DatabaseUtils.executeLargeInputsWithoutOutput;
 
 public class IssueDao implements Dao {
 
+  private static final String INSERT_SQL = "INSERT INTO issues (kee, rule_id, severity, manual_severity, message, line, locations, gap, effort, " +
+    "status, tags, resolution, checksum, assignee, author_login, issue_attributes, issue_creation_date, issue_update_date, issue_close_date, " +
+    "created_at, updated_at, component_uuid, project_uuid, issue_type) " +
+    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
   public java.util.Optional<IssueDto> selectByKey(DbSession session, String key) {
     return java.util.Optional.ofNullable(mapper(session).selectByKey(key));
   }
@@ -98,11 +106,30 @@ public class IssueDao implements Dao {
     mapper(dbSession).scrollNonClosedByComponentUuid(componentUuid, handler);
   }
 
+  public void scrollNonClosedByComponentUuids(DbSession dbSession, Collection<String> componentUuids, ResultHandler<IssueDto> handler) {
+    executeLargeInputsWithoutOutput(componentUuids, uuids -> mapper(dbSession).scrollNonClosedByComponentUuids(uuids, handler));
+  }
+
   public void scrollNonClosedByModuleOrProject(DbSession dbSession, ComponentDto module, ResultHandler<IssueDto> handler) {
     String likeModuleUuidPath = buildLikeValue(module.moduleUuidPath(), WildcardPosition.AFTER);
     mapper(dbSession).scrollNonClosedByModuleOrProject(module.projectUuid(), likeModuleUuidPath, handler);
   }
 
+  /**
+   * Issues, including closed ones, whose technical update date is greater than or equal to {@code changedSince}
+   */
+  public void scrollChangedSinceByComponentUuid(DbSession dbSession, String componentUuid, long changedSince, ResultHandler<IssueDto> handler) {
+    mapper(dbSession).scrollChangedSinceByComponentUuid(componentUuid, changedSince, handler);
+  }
+
+  /**
+   * Issues, including closed ones, whose technical update date is greater than or equal to {@code changedSince}
+   */
+  public void scrollChangedSinceByModuleOrProject(DbSession dbSession, ComponentDto module, long changedSince, ResultHandler<IssueDto> handler) {
+    String likeModuleUuidPath = buildLikeValue(module.moduleUuidPath(), WildcardPosition.AFTER);
+    mapper(dbSession).scrollChangedSinceByModuleOrProject(module.projectUuid(), likeModuleUuidPath, changedSince, handler);
+  }
+
   public void insert(DbSession session, IssueDto dto) {
     mapper(session).insert(dto);
   }
@@ -115,6 +142,45 @@ public class IssueDao implements Dao {
     }
   }
 
+  /**
+   * Inserter of a large number of issues, see {@link BulkInserter}.
+   */
+  public BulkInserter<IssueDto> newBulkInserter(DbSession session) {
+    return new BulkInserter<>(session, INSERT_SQL, IssueDao::writeRow);
+  }
+
+  public BulkInserter<IssueDto> newBulkInserter(DbSession session, int batchSize) {
+    return new BulkInserter<>(session, INSERT_SQL, IssueDao::writeRow, batchSize);
+  }
+
+  private static void writeRow(BulkInserter.Row row, IssueDto issue) throws SQLException {
+    row
+      .setString(1, issue.getKee())
+      .setInt(2, issue.getRuleId())
+      .setString(3, issue.getSeverity())
+      .setBoolean(4, issue.isManualSeverity())
+      .setString(5, issue.getMessage())
+      .setInt(6, issue.getLine())
+      .setBytes(7, issue.getLocations())
+      .setDouble(8, issue.getGap())
+      .setLong(9, issue.getEffort())
+      .setString(10, issue.getStatus())
+      .setString(11, issue.getTagsString())
+      .setString(12, issue.getResolution())
+      .setString(13, issue.getChecksum())
+      .setString(14, issue.getAssignee())
+      .setString(15, issue.getAuthorLogin())
+      .setString(16, issue.getIssueAttributes())
+      .setLong(17, issue.getIssueCreationTime())
+      .setLong(18, issue.getIssueUpdateTime())
+      .setLong(19, issue.getIssueCloseTime())
+      .setLong(20, issue.getCreatedAt())
+      .setLong(21, issue.getUpdatedAt())
+      .setString(22, issue.getComponentUuid())
+      .setString(23, issue.getProjectUuid())
+      .setInt(24, issue.getType());
+  }
+
   public void update(DbSession session, IssueDto dto) {
     mapper(session).update(dto);
   }
@@ -40,8 +40,18 @@ public interface IssueMapper {
 
   void scrollNonClosedByComponentUuid(@Param("componentUuid") String componentUuid, ResultHandler<IssueDto> handler);
 
+  void scrollNonClosedByComponentUuids(@Param("componentUuids") List<String> componentUuids, ResultHandler<IssueDto> handler);
+
   void scrollNonClosedByModuleOrProject(
     @Param("projectUuid") String projectUuid,
     @Param("likeModuleUuidPath") String likeModuleUuidPath,
     ResultHandler<IssueDto> handler);
+
+  void scrollChangedSinceByComponentUuid(@Param("componentUuid") String componentUuid, @Param("changedSince") long changedSince, ResultHandler<IssueDto> handler);
+
+  void scrollChangedSinceByModuleOrProject(
+    @Param("projectUuid") String projectUuid,
+    @Param("likeModuleUuidPath") String likeModuleUuidPath,
+    @Param("changedSince") long changedSince,
+    ResultHandler<IssueDto> handler);
 }
@@ -21,19 +21,25 @@ package org.sonar.db.measure;
 
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import java.sql.SQLException;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.apache.ibatis.session.ResultHandler;
+import org.sonar.db.BulkInserter;
 import org.sonar.db.Dao;
 import org.sonar.db.DbSession;
 import org.sonar.db.component.ComponentDto;
 
 import static java.util.Collections.emptyList;
 import static org.sonar.db.DatabaseUtils.executeLargeInputs;
+import static org.sonar.db.DatabaseUtils.executeLargeInputsWithoutOutput;
 
 public class MeasureDao implements Dao {
 
+  private static final String INSERT_SQL = "insert into project_measures (value, metric_id, component_uuid, analysis_uuid, text_value, " +
+    "alert_status, alert_text, person_id, variation_value_1, measure_data) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
   public Optional<MeasureDto> selectSingle(DbSession dbSession, MeasureQuery query) {
     List<MeasureDto> measures = selectByQuery(dbSession, query);
     return Optional.ofNullable(Iterables.getOnlyElement(measures, null));
@@ -85,13 +91,14 @@ public class MeasureDao implements Dao {
     mapper(dbSession).selectTreeByQuery(query, baseComponent.uuid(), query.getUuidPath(baseComponent), resultHandler);
   }
 
-  public List<PastMeasureDto> selectPastMeasures(DbSession dbSession, String componentUuid, String analysisUuid, Collection<Integer> metricIds) {
-    if (metricIds.isEmpty()) {
-      return emptyList();
-    }
-    return executeLargeInputs(
+  /**
+   * Scroll the measures of an analysis, on all the components but files, for a list of metrics.
+   * Measures associated to developers are not returned.
+   */
+  public void scrollPastMeasures(DbSession dbSession, String analysisUuid, Collection<Integer> metricIds, ResultHandler<PastMeasureDto> resultHandler) {
+    executeLargeInputsWithoutOutput(
       metricIds,
-      ids -> mapper(dbSession).selectPastMeasuresOnSingleAnalysis(componentUuid, analysisUuid, ids));
+      ids -> mapper(dbSession).scrollPastMeasuresOnAnalysis(analysisUuid, ids, resultHandler));
   }
 
   /**
@@ -134,6 +141,31 @@ public class MeasureDao implements Dao {
     insert(session, Lists.asList(item, others));
   }
 
+  /**
+   * Inserter of a large number of measures, see {@link BulkInserter}.
+   */
+  public BulkInserter<MeasureDto> newBulkInserter(DbSession session) {
+    return new BulkInserter<>(session, INSERT_SQL, MeasureDao::writeRow);
+  }
+
+  public BulkInserter<MeasureDto> newBulkInserter(DbSession session, int batchSize) {
+    return new BulkInserter<>(session, INSERT_SQL, MeasureDao::writeRow, batchSize);
+  }
+
+  private static void writeRow(BulkInserter.Row row, MeasureDto measure) throws SQLException {
+    row
+      .setDouble(1, measure.getValue())
+      .setInt(2, measure.getMetricId())
+      .setString(3, measure.getComponentUuid())
+      .setString(4, measure.getAnalysisUuid())
+      .setString(5, measure.getTextValue())
+      .setString(6, measure.getAlertStatus())
+      .setString(7, measure.getAlertText())
+      .setInt(8, measure.getDeveloperId() == null ? null : measure.getDeveloperId().intValue())
+      .setDouble(9, measure.getVariation())
+      .setBytes(10, measure.getDataValue());
+  }
+
   private static MeasureMapper mapper(DbSession session) {
     return session.getMapper(MeasureMapper.class);
   }
@@ -80,6 +80,16 @@ public class MeasureDto {
     return this;
   }
 
+  @CheckForNull
+  String getTextValue() {
+    return textValue;
+  }
+
+  @CheckForNull
+  byte[] getDataValue() {
+    return dataValue;
+  }
+
   @CheckForNull
   public Double getVariation() {
     return variation;
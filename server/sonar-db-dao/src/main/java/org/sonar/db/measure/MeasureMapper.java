@@ -36,8 +36,8 @@ public interface MeasureMapper {
                          ResultHandler<MeasureDto> resultHandler);
 
 
-  List<PastMeasureDto> selectPastMeasuresOnSingleAnalysis(@Param("componentUuid") String componentUuid, @Param("analysisUuid") String analysisUuid,
-    @Param("metricIds") List<Integer> metricIds);
+  void scrollPastMeasuresOnAnalysis(@Param("analysisUuid") String analysisUuid, @Param("metricIds") List<Integer> metricIds,
+    ResultHandler<PastMeasureDto> resultHandler);
 
   List<MeasureDto> selectPastMeasuresOnSeveralAnalyses(@Param("query") PastMeasureQuery query);
 
@@ -131,7 +131,12 @@ public class PurgeDao implements Dao {
     purgeCommands.deleteComponentMeasures(analysisUuids, componentWithoutHistoricalDataUuids);
   }
 
-  private void purgeDisabledComponents(DbSession session, PurgeConfiguration conf, PurgeListener listener) {
+  /**
+   * Deletes the data of the components disabled by the latest analysis. This is the only part of
+   * {@link #purge(DbSession, PurgeConfiguration, PurgeListener, PurgeProfiler)} which requires
+   * to know the components disabled by an analysis.
+   */
+  public void purgeDisabledComponents(DbSession session, PurgeConfiguration conf, PurgeListener listener) {
     PurgeMapper mapper = mapper(session);
     executeLargeInputs(conf.getDisabledComponentUuids(),
       input -> {
@@ -25,6 +25,7 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.function.Function;
@@ -35,6 +36,8 @@ import org.sonar.db.Dao;
 import org.sonar.db.DbSession;
 import org.sonar.db.source.FileSourceDto.Type;
 
+import static org.sonar.db.DatabaseUtils.executeLargeInputs;
+
 public class FileSourceDao implements Dao {
 
   private static final Splitter END_OF_LINE_SPLITTER = Splitter.on('\n');
@@ -74,6 +77,14 @@ public class FileSourceDao implements Dao {
     }
   }
 
+  /**
+   * Loads the line hashes of the sources of the specified files. Only columns id, file_uuid and line_hashes
+   * of the returned DTOs are populated. Files with no source data are ignored.
+   */
+  public List<FileSourceDto> selectLineHashesByFileUuids(DbSession dbSession, Collection<String> fileUuids) {
+    return executeLargeInputs(fileUuids, uuids -> mapper(dbSession).selectLineHashesByFileUuids(uuids, Type.SOURCE));
+  }
+
   public <T> void readLineHashesStream(DbSession dbSession, String fileUuid, Function<Reader, T> function) {
     Connection connection = dbSession.getConnection();
     PreparedStatement pstmt = null;
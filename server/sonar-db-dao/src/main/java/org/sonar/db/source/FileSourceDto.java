@@ -20,13 +20,17 @@
 package org.sonar.db.source;
 
 import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
 import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.WireFormat;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import net.jpountz.lz4.LZ4BlockInputStream;
@@ -212,6 +216,63 @@ public class FileSourceDto {
     return decodeSourceData(binaryData);
   }
 
+  /**
+   * Decompress and deserialize the lines of {@link org.sonar.db.protobuf.DbFileSources.Data} one by one, as long as
+   * {@code consumer} returns {@code true}. The remaining data are not decompressed once the consumer stops.
+   * <p>
+   * Only the fields of {@link org.sonar.db.protobuf.DbFileSources.Line} whose number is in {@code fieldNumbers}
+   * are deserialized, for example {@link DbFileSources.Line#SCM_REVISION_FIELD_NUMBER}. Other fields, like source or
+   * highlighting, are skipped. All the fields are deserialized if {@code fieldNumbers} is empty.
+   * </p>
+   */
+  public void readSourceLines(Set<Integer> fieldNumbers, Predicate<DbFileSources.Line> consumer) {
+    try (LZ4BlockInputStream lz4Input = new LZ4BlockInputStream(new ByteArrayInputStream(binaryData))) {
+      CodedInputStream input = CodedInputStream.newInstance(lz4Input);
+      input.setSizeLimit(Integer.MAX_VALUE);
+      ByteArrayOutputStream lineBytes = new ByteArrayOutputStream();
+      boolean keepReading = true;
+      while (keepReading) {
+        int tag = input.readTag();
+        if (tag == 0) {
+          return;
+        }
+        if (WireFormat.getTagFieldNumber(tag) != DbFileSources.Data.LINES_FIELD_NUMBER) {
+          input.skipField(tag);
+          continue;
+        }
+        int oldLimit = input.pushLimit(input.readRawVarint32());
+        DbFileSources.Line line = fieldNumbers.isEmpty()
+          ? DbFileSources.Line.newBuilder().mergeFrom(input).build()
+          : readLine(input, fieldNumbers, lineBytes);
+        input.popLimit(oldLimit);
+        keepReading = consumer.test(line);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException(
+        format("Fail to decompress and deserialize source data [id=%s,fileUuid=%s,projectUuid=%s]", id, fileUuid, projectUuid),
+        e);
+    }
+  }
+
+  /**
+   * Copies the requested fields of the current line, then deserializes them only
+   */
+  private static DbFileSources.Line readLine(CodedInputStream input, Set<Integer> fieldNumbers, ByteArrayOutputStream lineBytes) throws IOException {
+    lineBytes.reset();
+    CodedOutputStream output = CodedOutputStream.newInstance(lineBytes);
+    int tag = input.readTag();
+    while (tag != 0) {
+      if (fieldNumbers.contains(WireFormat.getTagFieldNumber(tag))) {
+        input.skipField(tag, output);
+      } else {
+        input.skipField(tag);
+      }
+      tag = input.readTag();
+    }
+    output.flush();
+    return DbFileSources.Line.parseFrom(lineBytes.toByteArray());
+  }
+
   public FileSourceDto setSourceData(DbFileSources.Data data) {
     this.dataType = Type.SOURCE;
     this.binaryData = encodeSourceData(data);
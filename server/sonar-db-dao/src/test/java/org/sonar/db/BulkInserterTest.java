@@ -0,0 +1,152 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BulkInserterTest {
+  private static final String SQL = "insert into foo (a, b) values (?, ?)";
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private DbSession dbSession = mock(DbSession.class);
+  private Connection connection = mock(Connection.class);
+  private PreparedStatement stmt = mock(PreparedStatement.class);
+
+  @Before
+  public void setUp() throws SQLException {
+    when(dbSession.getConnection()).thenReturn(connection);
+    when(connection.prepareStatement(SQL)).thenReturn(stmt);
+  }
+
+  @Test
+  public void rows_are_sent_by_batch_and_committed_on_commit() throws SQLException {
+    try (BulkInserter<String> underTest = new BulkInserter<>(dbSession, SQL, (row, s) -> row.setString(1, s).setLong(2, null), 2)) {
+      underTest.add("a");
+      verify(stmt, never()).executeBatch();
+      underTest.add("b");
+      verify(stmt, times(1)).executeBatch();
+      underTest.add("c");
+      underTest.add("d");
+      underTest.add("e");
+      verify(stmt, times(2)).executeBatch();
+      verify(dbSession, never()).commit(true);
+      assertThat(underTest.getInsertedRows()).isEqualTo(4);
+
+      underTest.commit();
+
+      verify(stmt, times(3)).executeBatch();
+      verify(dbSession, times(1)).commit(true);
+      assertThat(underTest.getInsertedRows()).isEqualTo(5);
+    }
+
+    verify(stmt, times(5)).addBatch();
+    verify(stmt).setString(1, "e");
+    verify(stmt, times(5)).setNull(2, Types.BIGINT);
+    verify(stmt).close();
+    verify(dbSession, never()).rollback(true);
+  }
+
+  @Test
+  public void flush_sends_pending_rows_without_committing() throws SQLException {
+    try (BulkInserter<String> underTest = new BulkInserter<>(dbSession, SQL, (row, s) -> row.setString(1, s), 10)) {
+      underTest.add("a");
+      underTest.add("b");
+
+      underTest.flush();
+
+      verify(stmt, times(1)).executeBatch();
+      assertThat(underTest.getInsertedRows()).isEqualTo(2);
+
+      // nothing left to send
+      underTest.flush();
+      verify(stmt, times(1)).executeBatch();
+    }
+
+    verify(dbSession, never()).commit(true);
+    verify(dbSession, never()).commit();
+    verify(dbSession).rollback(true);
+  }
+
+  @Test
+  public void close_neither_sends_pending_rows_nor_commits() throws SQLException {
+    try (BulkInserter<String> underTest = new BulkInserter<>(dbSession, SQL, (row, s) -> row.setString(1, s), 2)) {
+      underTest.add("a");
+    }
+
+    verify(stmt, never()).executeBatch();
+    verify(dbSession, never()).commit(true);
+    verify(dbSession, never()).rollback(true);
+    verify(stmt).close();
+  }
+
+  @Test
+  public void rows_are_not_committed_if_caller_fails_before_commit() throws SQLException {
+    try (BulkInserter<String> underTest = new BulkInserter<>(dbSession, SQL, (row, s) -> row.setString(1, s), 1)) {
+      underTest.add("a");
+      underTest.add("b");
+      throw new IllegalStateException("simulating failure of caller");
+    } catch (IllegalStateException e) {
+      assertThat(e).hasMessage("simulating failure of caller");
+    }
+
+    verify(stmt, times(2)).executeBatch();
+    verify(dbSession, never()).commit(true);
+    verify(dbSession, never()).commit();
+    // rows sent through JDBC would otherwise be committed when MyBatis releases the connection
+    verify(dbSession).rollback(true);
+    verify(stmt).close();
+  }
+
+  @Test
+  public void fail_with_ISE_if_batch_fails() throws SQLException {
+    doThrow(new SQLException("simulated")).when(stmt).executeBatch();
+    BulkInserter<String> underTest = new BulkInserter<>(dbSession, SQL, (row, s) -> row.setString(1, s), 1);
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Fail to execute batch of " + SQL);
+
+    underTest.add("a");
+  }
+
+  @Test
+  public void fail_with_IAE_if_batch_size_is_not_strictly_positive() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Batch size must be strictly positive");
+
+    new BulkInserter<String>(dbSession, SQL, (row, s) -> row.setString(1, s), 0);
+  }
+}
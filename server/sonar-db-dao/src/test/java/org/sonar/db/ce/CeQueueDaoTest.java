@@ -40,8 +40,11 @@ import org.sonar.db.DbTester;
 
 import static com.google.common.collect.FluentIterable.from;
 import static com.google.common.collect.Lists.newArrayList;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.sonar.db.ce.CeQueueDto.Status.IN_PROGRESS;
@@ -281,6 +284,26 @@ public class CeQueueDaoTest {
     verifyUnchangedByResetToPendingForWorker(o4);
   }
 
+  @Test
+  public void resetToPendingForWorkers_resets_status_of_non_pending_tasks_of_all_specified_workerUuids() {
+    long startedAt = 2_099_888L;
+    CeQueueDto u1 = insert("u1", CeQueueDto.Status.IN_PROGRESS, 1, WORKER_UUID_1, startedAt);
+    CeQueueDto u2 = insert("u2", CeQueueDto.Status.PENDING, 1, WORKER_UUID_1, startedAt);
+    CeQueueDto o1 = insert("o1", CeQueueDto.Status.IN_PROGRESS, 1, WORKER_UUID_2, startedAt);
+    CeQueueDto o2 = insert("o2", CeQueueDto.Status.PENDING, 1, WORKER_UUID_2, startedAt);
+    CeQueueDto x1 = insert("x1", CeQueueDto.Status.IN_PROGRESS, 1, "worker uuid 3", startedAt);
+
+    int reset = underTestAlwaysIncreasingSystem2.resetToPendingForWorkers(db.getSession(), asList(WORKER_UUID_1, WORKER_UUID_2));
+
+    assertThat(reset).isEqualTo(2);
+    verifyResetToPendingForWorker(u1);
+    verifyUnchangedByResetToPendingForWorker(u2);
+    verifyResetToPendingForWorker(o1);
+    verifyUnchangedByResetToPendingForWorker(o2);
+    verifyUnchangedByResetToPendingForWorker(x1);
+    assertThat(underTest.resetToPendingForWorkers(db.getSession(), emptyList())).isEqualTo(0);
+  }
+
 
   @Test
   public void resetTasksWithUnknownWorkerUUIDs_with_empty_set_resets_status_of_all_pending_tasks() {
@@ -426,6 +449,89 @@ public class CeQueueDaoTest {
     assertThat(peek.get().getExecutionCount()).isEqualTo(1);
   }
 
+  @Test
+  public void peek_for_several_workers_claims_one_task_per_worker_oldest_first() {
+    insert(TASK_UUID_1, COMPONENT_UUID_1, PENDING);
+    system2.setNow(INIT_TIME + 3_000_000);
+    insert(TASK_UUID_2, COMPONENT_UUID_2, PENDING);
+    system2.setNow(INIT_TIME + 6_000_000);
+    insert(TASK_UUID_3, "PROJECT_3", PENDING);
+
+    PeekResult result = underTest.peek(db.getSession(), asList(WORKER_UUID_1, WORKER_UUID_2), MAX_EXECUTION_COUNT);
+
+    assertThat(result.isEligibleTasksFound()).isTrue();
+    assertThat(result.getTasks()).extracting(CeQueueDto::getUuid, CeQueueDto::getWorkerUuid, CeQueueDto::getStatus, CeQueueDto::getExecutionCount)
+      .containsExactly(
+        tuple(TASK_UUID_1, WORKER_UUID_1, IN_PROGRESS, 1),
+        tuple(TASK_UUID_2, WORKER_UUID_2, IN_PROGRESS, 1));
+    verifyCeQueueStatuses(TASK_UUID_1, IN_PROGRESS, TASK_UUID_2, IN_PROGRESS, TASK_UUID_3, PENDING);
+  }
+
+  @Test
+  public void peek_for_several_workers_claims_at_most_one_task_per_project() {
+    insert(TASK_UUID_1, COMPONENT_UUID_1, PENDING);
+    system2.setNow(INIT_TIME + 3_000_000);
+    insert(TASK_UUID_2, COMPONENT_UUID_1, PENDING);
+    system2.setNow(INIT_TIME + 6_000_000);
+    insert(TASK_UUID_3, COMPONENT_UUID_2, PENDING);
+
+    PeekResult result = underTest.peek(db.getSession(), asList(WORKER_UUID_1, WORKER_UUID_2, "worker uuid 3"), MAX_EXECUTION_COUNT);
+
+    assertThat(result.getTasks()).extracting(CeQueueDto::getUuid, CeQueueDto::getWorkerUuid)
+      .containsExactly(
+        tuple(TASK_UUID_1, WORKER_UUID_1),
+        tuple(TASK_UUID_3, WORKER_UUID_2));
+    verifyCeQueueStatuses(TASK_UUID_1, IN_PROGRESS, TASK_UUID_2, PENDING, TASK_UUID_3, IN_PROGRESS);
+  }
+
+  @Test
+  public void peek_claims_report_of_project_before_purge_of_project() {
+    insert(TASK_UUID_1, COMPONENT_UUID_1, CeTaskTypes.PROJECT_PURGE);
+    system2.setNow(INIT_TIME + 3_000_000);
+    insert(TASK_UUID_2, COMPONENT_UUID_2, CeTaskTypes.PROJECT_PURGE);
+    system2.setNow(INIT_TIME + 6_000_000);
+    insert(TASK_UUID_3, COMPONENT_UUID_1, CeTaskTypes.REPORT);
+
+    PeekResult result = underTest.peek(db.getSession(), asList(WORKER_UUID_1, WORKER_UUID_2), MAX_EXECUTION_COUNT);
+
+    assertThat(result.getTasks()).extracting(CeQueueDto::getUuid, CeQueueDto::getWorkerUuid)
+      .containsExactly(
+        tuple(TASK_UUID_2, WORKER_UUID_1),
+        tuple(TASK_UUID_3, WORKER_UUID_2));
+    verifyCeQueueStatuses(TASK_UUID_1, PENDING, TASK_UUID_2, IN_PROGRESS, TASK_UUID_3, IN_PROGRESS);
+  }
+
+  @Test
+  public void peek_claims_purge_of_project_once_reports_of_project_are_processed() {
+    insert(TASK_UUID_1, COMPONENT_UUID_1, CeTaskTypes.PROJECT_PURGE);
+    system2.setNow(INIT_TIME + 3_000_000);
+    insert(TASK_UUID_2, COMPONENT_UUID_1, CeTaskTypes.REPORT);
+    underTest.peek(db.getSession(), singletonList(WORKER_UUID_1), MAX_EXECUTION_COUNT);
+
+    underTest.deleteByUuid(db.getSession(), TASK_UUID_2);
+    PeekResult result = underTest.peek(db.getSession(), singletonList(WORKER_UUID_1), MAX_EXECUTION_COUNT);
+
+    assertThat(result.getTasks()).extracting(CeQueueDto::getUuid).containsExactly(TASK_UUID_1);
+  }
+
+  @Test
+  public void peek_for_no_worker_claims_nothing() {
+    insert(TASK_UUID_1, COMPONENT_UUID_1, PENDING);
+
+    assertThat(underTest.peek(db.getSession(), emptyList(), MAX_EXECUTION_COUNT).getTasks()).isEmpty();
+    verifyCeQueueStatuses(new String[] {TASK_UUID_1}, new CeQueueDto.Status[] {PENDING});
+  }
+
+  @Test
+  public void peek_for_several_workers_reports_that_no_task_is_eligible_when_queue_has_no_pending_task() {
+    insert(TASK_UUID_1, COMPONENT_UUID_1, IN_PROGRESS);
+
+    PeekResult result = underTest.peek(db.getSession(), asList(WORKER_UUID_1, WORKER_UUID_2), MAX_EXECUTION_COUNT);
+
+    assertThat(result.isEligibleTasksFound()).isFalse();
+    assertThat(result.getTasks()).isEmpty();
+  }
+
   @Test
   public void peek_ignores_rows_with_executionCount_greater_or_equal_to_specified_maxExecutionCount_0() {
     peek_ignores_rows_with_executionCount_greater_or_equal_to_specified_maxExecutionCount(0, null);
@@ -640,6 +746,18 @@ public class CeQueueDaoTest {
     return dto;
   }
 
+  private CeQueueDto insert(String uuid, String componentUuid, String taskType) {
+    CeQueueDto dto = new CeQueueDto();
+    dto.setUuid(uuid);
+    dto.setTaskType(taskType);
+    dto.setComponentUuid(componentUuid);
+    dto.setStatus(PENDING);
+    dto.setSubmitterLogin("henri");
+    underTest.insert(db.getSession(), dto);
+    db.getSession().commit();
+    return dto;
+  }
+
   private static Iterable<Map<String, Object>> upperizeKeys(List<Map<String, Object>> select) {
     return from(select).transform(new Function<Map<String, Object>, Map<String, Object>>() {
       @Nullable
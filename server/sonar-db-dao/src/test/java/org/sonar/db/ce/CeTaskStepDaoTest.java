@@ -0,0 +1,98 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.ce;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.utils.System2;
+import org.sonar.db.DbSession;
+import org.sonar.db.DbTester;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+public class CeTaskStepDaoTest {
+  @Rule
+  public DbTester dbTester = DbTester.create(System2.INSTANCE);
+
+  private DbSession dbSession = dbTester.getSession();
+  private CeTaskStepDao underTest = new CeTaskStepDao();
+
+  @Test
+  public void selectByTaskUuid_returns_steps_in_execution_order() {
+    underTest.insert(dbSession, Arrays.asList(
+      newStep("task1", 1, "Persist sources", 20L, null, null),
+      newStep("task1", 0, "Load report", 10L, 8L, 1_000L),
+      newStep("task2", 0, "Load report", 5L, 4L, 500L)));
+    dbSession.commit();
+
+    assertThat(underTest.selectByTaskUuid(dbSession, "task1"))
+      .extracting(CeTaskStepDto::getStepIndex, CeTaskStepDto::getDescription, CeTaskStepDto::getWallTime, CeTaskStepDto::getCpuTime,
+        CeTaskStepDto::getAllocatedBytes, CeTaskStepDto::getCreatedAt)
+      .containsExactly(
+        tuple(0, "Load report", 10L, 8L, 1_000L, 1_500L),
+        tuple(1, "Persist sources", 20L, null, null, 1_500L));
+  }
+
+  @Test
+  public void selectByTaskUuid_returns_empty_list_if_task_has_no_steps() {
+    assertThat(underTest.selectByTaskUuid(dbSession, "task1")).isEmpty();
+  }
+
+  @Test
+  public void deleteByTaskUuids_deletes_only_steps_of_given_tasks() {
+    underTest.insert(dbSession, Arrays.asList(
+      newStep("task1", 0, "Load report", 10L, 8L, 1_000L),
+      newStep("task2", 0, "Load report", 5L, 4L, 500L),
+      newStep("task3", 0, "Load report", 5L, 4L, 500L)));
+    dbSession.commit();
+
+    underTest.deleteByTaskUuids(dbSession, Arrays.asList("task1", "task3"));
+    dbSession.commit();
+
+    assertThat(underTest.selectByTaskUuid(dbSession, "task1")).isEmpty();
+    assertThat(underTest.selectByTaskUuid(dbSession, "task2")).hasSize(1);
+    assertThat(underTest.selectByTaskUuid(dbSession, "task3")).isEmpty();
+  }
+
+  @Test
+  public void deleteByTaskUuids_does_nothing_if_no_uuids() {
+    underTest.insert(dbSession, Collections.singletonList(newStep("task1", 0, "Load report", 10L, 8L, 1_000L)));
+    dbSession.commit();
+
+    underTest.deleteByTaskUuids(dbSession, Collections.emptyList());
+
+    assertThat(underTest.selectByTaskUuid(dbSession, "task1")).hasSize(1);
+  }
+
+  private static CeTaskStepDto newStep(String taskUuid, int index, String description, long wallTime, Long cpuTime, Long allocatedBytes) {
+    return new CeTaskStepDto()
+      .setUuid(taskUuid + "_" + index)
+      .setTaskUuid(taskUuid)
+      .setStepIndex(index)
+      .setDescription(description)
+      .setWallTime(wallTime)
+      .setCpuTime(cpuTime)
+      .setAllocatedBytes(allocatedBytes)
+      .setCreatedAt(1_500L);
+  }
+}
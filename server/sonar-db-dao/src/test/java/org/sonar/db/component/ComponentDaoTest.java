@@ -550,6 +550,19 @@ public class ComponentDaoTest {
       .containsOnly(provisionedProject.uuid(), projectUuid);
   }
 
+  @Test
+  public void select_root_uuids_after() {
+    OrganizationDto organization = db.organizations().insert();
+    ComponentDto project1 = db.components().insertComponent(ComponentTesting.newPrivateProjectDto(organization, "P1"));
+    db.components().insertComponent(ComponentTesting.newPrivateProjectDto(organization, "P2").setEnabled(false));
+    db.components().insertComponent(ComponentTesting.newView(organization, "V1"));
+    db.components().insertComponent(ComponentTesting.newModuleDto("M1", project1));
+
+    assertThat(underTest.selectRootUuidsAfter(dbSession, null)).containsExactly("P1", "P2", "V1");
+    assertThat(underTest.selectRootUuidsAfter(dbSession, "P1")).containsExactly("P2", "V1");
+    assertThat(underTest.selectRootUuidsAfter(dbSession, "V1")).isEmpty();
+  }
+
   @Test
   public void select_provisioned() {
     OrganizationDto organization = db.organizations().insert();
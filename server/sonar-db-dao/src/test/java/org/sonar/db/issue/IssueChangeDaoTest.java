@@ -26,6 +26,7 @@ import org.junit.Test;
 import org.sonar.api.utils.DateUtils;
 import org.sonar.api.utils.System2;
 import org.sonar.core.issue.FieldDiffs;
+import org.sonar.db.BulkInserter;
 import org.sonar.db.DbTester;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -109,6 +110,26 @@ public class IssueChangeDaoTest {
     db.assertDbUnit(getClass(), "insert-result.xml", new String[] {"id"}, "issue_changes");
   }
 
+  @Test
+  public void newBulkInserter_inserts_issue_changes() {
+    IssueChangeDto changeDto = new IssueChangeDto()
+      .setKey("EFGH")
+      .setUserLogin("emmerik")
+      .setChangeData("Some text")
+      .setChangeType("comment")
+      .setIssueKey("ABCDE")
+      .setCreatedAt(1_500_000_000_000L)
+      .setUpdatedAt(1_501_000_000_000L)
+      .setIssueChangeCreationDate(1_502_000_000_000L);
+
+    try (BulkInserter<IssueChangeDto> inserter = underTest.newBulkInserter(db.getSession())) {
+      inserter.add(changeDto);
+      inserter.commit();
+    }
+
+    db.assertDbUnit(getClass(), "insert-result.xml", new String[] {"id"}, "issue_changes");
+  }
+
   @Test
   public void update() {
     db.prepareDbUnit(getClass(), "update.xml");
@@ -29,6 +29,7 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.api.utils.System2;
+import org.sonar.db.BulkInserter;
 import org.sonar.db.DbTester;
 import org.sonar.db.RowNotFoundException;
 import org.sonar.db.component.ComponentDto;
@@ -39,6 +40,7 @@ import org.sonar.db.rule.RuleDto;
 import org.sonar.db.rule.RuleTesting;
 
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.sonar.db.component.ComponentTesting.newFileDto;
 import static org.sonar.db.component.ComponentTesting.newModuleDto;
@@ -97,6 +99,64 @@ public class IssueDaoTest {
     assertThat(issue.parseLocations()).isNull();
   }
 
+  @Test
+  public void newBulkInserter_inserts_all_columns_of_issues() {
+    db.rules().insertRule(RULE);
+    OrganizationDto organizationDto = db.organizations().insert();
+    ComponentDto projectDto = db.components().insertPrivateProject(organizationDto, (t) -> t.setUuid(PROJECT_UUID).setDbKey(PROJECT_KEY));
+    db.components().insertComponent(newFileDto(projectDto).setUuid(FILE_UUID).setDbKey(FILE_KEY));
+
+    try (BulkInserter<IssueDto> inserter = underTest.newBulkInserter(db.getSession(), 1)) {
+      inserter.add(newIssueDto(ISSUE_KEY1)
+        .setRuleId(RULE.getId())
+        .setComponentUuid(FILE_UUID)
+        .setProjectUuid(PROJECT_UUID)
+        .setManualSeverity(true)
+        .setTags(asList("tag1", "tag2"))
+        .setLocations(new byte[] {1, 2, 3}));
+      inserter.add(newIssueDto(ISSUE_KEY2)
+        .setRuleId(RULE.getId())
+        .setComponentUuid(FILE_UUID)
+        .setProjectUuid(PROJECT_UUID)
+        .setLine(null)
+        .setGap(null)
+        .setEffort(null)
+        .setIssueCloseTime(null));
+      inserter.commit();
+    }
+
+    IssueDto issue1 = underTest.selectOrFailByKey(db.getSession(), ISSUE_KEY1);
+    assertThat(issue1.getRuleId()).isEqualTo(RULE.getId());
+    assertThat(issue1.getComponentUuid()).isEqualTo(FILE_UUID);
+    assertThat(issue1.getProjectUuid()).isEqualTo(PROJECT_UUID);
+    assertThat(issue1.getSeverity()).isEqualTo("BLOCKER");
+    assertThat(issue1.isManualSeverity()).isTrue();
+    assertThat(issue1.getType()).isEqualTo(2);
+    assertThat(issue1.getMessage()).isEqualTo("the message");
+    assertThat(issue1.getLine()).isEqualTo(500);
+    assertThat(issue1.getGap()).isEqualTo(3.14);
+    assertThat(issue1.getEffort()).isEqualTo(10L);
+    assertThat(issue1.getStatus()).isEqualTo("RESOLVED");
+    assertThat(issue1.getResolution()).isEqualTo("FIXED");
+    assertThat(issue1.getChecksum()).isEqualTo("123456789");
+    assertThat(issue1.getAuthorLogin()).isEqualTo("morgan");
+    assertThat(issue1.getAssignee()).isEqualTo("karadoc");
+    assertThat(issue1.getIssueAttributes()).isEqualTo("JIRA=FOO-1234");
+    assertThat(issue1.getTags()).containsOnly("tag1", "tag2");
+    assertThat(issue1.getLocations()).isEqualTo(new byte[] {1, 2, 3});
+    assertThat(issue1.getIssueCreationTime()).isEqualTo(1_450_000_000_000L);
+    assertThat(issue1.getIssueUpdateTime()).isEqualTo(1_450_000_000_000L);
+    assertThat(issue1.getIssueCloseTime()).isEqualTo(1_450_000_000_000L);
+    assertThat(issue1.getCreatedAt()).isEqualTo(1_440_000_000_000L);
+    assertThat(issue1.getUpdatedAt()).isEqualTo(1_440_000_000_000L);
+    IssueDto issue2 = underTest.selectOrFailByKey(db.getSession(), ISSUE_KEY2);
+    assertThat(issue2.getLine()).isNull();
+    assertThat(issue2.getGap()).isNull();
+    assertThat(issue2.getEffort()).isNull();
+    assertThat(issue2.getIssueCloseTime()).isNull();
+    assertThat(issue2.getLocations()).isNull();
+  }
+
   @Test
   public void selectByKeyOrFail_fails_if_key_not_found() {
     expectedException.expect(RowNotFoundException.class);
@@ -152,6 +212,26 @@ public class IssueDaoTest {
     assertThat(accumulator.list).isEmpty();
   }
 
+  @Test
+  public void scrollNonClosedByComponentUuids() {
+    RuleDefinitionDto rule = db.rules().insert();
+    ComponentDto project = db.components().insertPrivateProject();
+    ComponentDto file1 = db.components().insertComponent(newFileDto(project));
+    ComponentDto file2 = db.components().insertComponent(newFileDto(project));
+    IssueDto openIssueOnFile1 = db.issues().insert(rule, project, file1, i -> i.setStatus("OPEN").setResolution(null));
+    IssueDto closedIssueOnFile1 = db.issues().insert(rule, project, file1, i -> i.setStatus("CLOSED").setResolution("FIXED"));
+    IssueDto openIssueOnFile2 = db.issues().insert(rule, project, file2, i -> i.setStatus("OPEN").setResolution(null));
+    IssueDto openIssueOnProject = db.issues().insert(rule, project, project, i -> i.setStatus("OPEN").setResolution(null));
+
+    Accumulator accumulator = new Accumulator();
+    underTest.scrollNonClosedByComponentUuids(db.getSession(), asList(file1.uuid(), file2.uuid(), "does_not_exist"), accumulator);
+    accumulator.assertThatContainsOnly(openIssueOnFile1, openIssueOnFile2);
+
+    accumulator.clear();
+    underTest.scrollNonClosedByComponentUuids(db.getSession(), emptyList(), accumulator);
+    assertThat(accumulator.list).isEmpty();
+  }
+
   @Test
   public void scrollNonClosedByModuleOrProject() {
     RuleDefinitionDto rule = db.rules().insert();
@@ -180,6 +260,48 @@ public class IssueDaoTest {
     assertThat(accumulator.list).isEmpty();
   }
 
+  @Test
+  public void scrollChangedSinceByComponentUuid() {
+    RuleDefinitionDto rule = db.rules().insert();
+    ComponentDto project = db.components().insertPrivateProject();
+    ComponentDto file = db.components().insertComponent(newFileDto(project));
+    IssueDto oldIssueOnFile = db.issues().insert(rule, project, file, i -> i.setStatus("OPEN").setResolution(null).setUpdatedAt(1_000L));
+    IssueDto openIssueOnFile = db.issues().insert(rule, project, file, i -> i.setStatus("OPEN").setResolution(null).setUpdatedAt(2_000L));
+    IssueDto closedIssueOnFile = db.issues().insert(rule, project, file, i -> i.setStatus("CLOSED").setResolution("FIXED").setUpdatedAt(3_000L));
+    IssueDto issueOnProject = db.issues().insert(rule, project, project, i -> i.setStatus("OPEN").setResolution(null).setUpdatedAt(3_000L));
+
+    Accumulator accumulator = new Accumulator();
+    underTest.scrollChangedSinceByComponentUuid(db.getSession(), file.uuid(), 2_000L, accumulator);
+    accumulator.assertThatContainsOnly(openIssueOnFile, closedIssueOnFile);
+
+    accumulator.clear();
+    underTest.scrollChangedSinceByComponentUuid(db.getSession(), file.uuid(), 3_001L, accumulator);
+    assertThat(accumulator.list).isEmpty();
+  }
+
+  @Test
+  public void scrollChangedSinceByModuleOrProject() {
+    RuleDefinitionDto rule = db.rules().insert();
+    ComponentDto project = db.components().insertPrivateProject();
+    ComponentDto anotherProject = db.components().insertPrivateProject();
+    ComponentDto module = db.components().insertComponent(newModuleDto(project));
+    ComponentDto file = db.components().insertComponent(newFileDto(module));
+    IssueDto oldIssueOnFile = db.issues().insert(rule, project, file, i -> i.setStatus("OPEN").setResolution(null).setUpdatedAt(1_000L));
+    IssueDto openIssueOnFile = db.issues().insert(rule, project, file, i -> i.setStatus("OPEN").setResolution(null).setUpdatedAt(2_000L));
+    IssueDto closedIssueOnFile = db.issues().insert(rule, project, file, i -> i.setStatus("CLOSED").setResolution("FIXED").setUpdatedAt(2_000L));
+    IssueDto issueOnModule = db.issues().insert(rule, project, module, i -> i.setStatus("OPEN").setResolution(null).setUpdatedAt(2_000L));
+    IssueDto issueOnProject = db.issues().insert(rule, project, project, i -> i.setStatus("OPEN").setResolution(null).setUpdatedAt(2_000L));
+    IssueDto issueOnAnotherProject = db.issues().insert(rule, anotherProject, anotherProject, i -> i.setStatus("OPEN").setResolution(null).setUpdatedAt(2_000L));
+
+    Accumulator accumulator = new Accumulator();
+    underTest.scrollChangedSinceByModuleOrProject(db.getSession(), project, 2_000L, accumulator);
+    accumulator.assertThatContainsOnly(openIssueOnFile, closedIssueOnFile, issueOnModule, issueOnProject);
+
+    accumulator.clear();
+    underTest.scrollChangedSinceByModuleOrProject(db.getSession(), module, 2_000L, accumulator);
+    accumulator.assertThatContainsOnly(openIssueOnFile, closedIssueOnFile, issueOnModule);
+  }
+
   private static IssueDto newIssueDto(String key) {
     IssueDto dto = new IssueDto();
     dto.setComponent(new ComponentDto().setDbKey("struts:Action").setId(123L).setUuid("component-uuid"));
@@ -24,11 +24,13 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import javax.annotation.Nullable;
+import org.apache.commons.lang.StringUtils;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.sonar.api.utils.System2;
 import org.sonar.core.util.UuidFactoryImpl;
+import org.sonar.db.BulkInserter;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
@@ -40,6 +42,7 @@ import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.sonar.api.resources.Qualifiers.FILE;
 import static org.sonar.api.resources.Qualifiers.UNIT_TEST_FILE;
 import static org.sonar.api.utils.DateUtils.parseDate;
@@ -103,6 +106,53 @@ public class MeasureDaoTest {
     assertThat(selected.getAlertText()).isEqualTo(inserted.getAlertText());
   }
 
+  @Test
+  public void newBulkInserter_inserts_all_columns_of_measures() {
+    ComponentDto project = db.components().insertPrivateProject();
+    insertAnalysis(LAST_ANALYSIS_UUID, project.uuid(), true);
+    db.components().insertComponent(newFileDto(project).setUuid("C4"));
+    String largeData = StringUtils.repeat("a", 5_000);
+
+    try (BulkInserter<MeasureDto> inserter = underTest.newBulkInserter(db.getSession(), 1)) {
+      inserter.add(new MeasureDto()
+        .setAnalysisUuid(LAST_ANALYSIS_UUID)
+        .setMetricId(2)
+        .setDeveloperId(3L)
+        .setComponentUuid("C4")
+        .setValue(5.0d)
+        .setData("data")
+        .setVariation(1d)
+        .setAlertStatus("alert")
+        .setAlertText("alert-text"));
+      inserter.add(new MeasureDto()
+        .setAnalysisUuid(LAST_ANALYSIS_UUID)
+        .setMetricId(3)
+        .setComponentUuid("C4")
+        .setData(largeData));
+
+      inserter.commit();
+      assertThat(inserter.getInsertedRows()).isEqualTo(2);
+    }
+
+    List<MeasureDto> selected = underTest.selectByComponentsAndMetrics(db.getSession(), singletonList("C4"), asList(2, 3));
+    assertThat(selected).hasSize(1);
+    MeasureDto measure = selected.get(0);
+    assertThat(measure.getMetricId()).isEqualTo(3);
+    assertThat(measure.getValue()).isNull();
+    assertThat(measure.getVariation()).isNull();
+    assertThat(measure.getData()).isEqualTo(largeData);
+    MeasureDto measureOfDeveloper = underTest.selectSingle(db.getSession(), MeasureQuery.builder()
+      .setComponentUuid("C4")
+      .setPersonId(3L)
+      .build()).get();
+    assertThat(measureOfDeveloper.getMetricId()).isEqualTo(2);
+    assertThat(measureOfDeveloper.getValue()).isEqualTo(5.0d);
+    assertThat(measureOfDeveloper.getData()).isEqualTo("data");
+    assertThat(measureOfDeveloper.getVariation()).isEqualTo(1d);
+    assertThat(measureOfDeveloper.getAlertStatus()).isEqualTo("alert");
+    assertThat(measureOfDeveloper.getAlertText()).isEqualTo("alert-text");
+  }
+
   @Test
   public void selectByQuery() {
     ComponentDto project1 = db.components().insertPrivateProject();
@@ -327,6 +377,29 @@ public class MeasureDaoTest {
     assertThat(result).hasSize(2).extracting(MeasureDto::getData).containsOnly("PROJECT_M1", "PROJECT_M2");
   }
 
+  @Test
+  public void scrollPastMeasures() {
+    ComponentDto project = db.components().insertPrivateProject();
+    ComponentDto module = db.components().insertComponent(newModuleDto(project));
+    ComponentDto file = db.components().insertComponent(newFileDto(module));
+    insertAnalysis(LAST_ANALYSIS_UUID, project.uuid(), true);
+    insertAnalysis(OTHER_ANALYSIS_UUID, project.uuid(), false);
+
+    insertMeasure("PROJECT_M1", OTHER_ANALYSIS_UUID, project.uuid(), NCLOC_METRIC_ID);
+    insertMeasure("PROJECT_M2", OTHER_ANALYSIS_UUID, project.uuid(), COVERAGE_METRIC_ID);
+    insertMeasure("PROJECT_M3", LAST_ANALYSIS_UUID, project.uuid(), NCLOC_METRIC_ID);
+    insertMeasure("MODULE_M1", OTHER_ANALYSIS_UUID, module.uuid(), NCLOC_METRIC_ID);
+    insertMeasure("FILE_M1", OTHER_ANALYSIS_UUID, file.uuid(), NCLOC_METRIC_ID);
+    insertMeasureOnPerson("PROJECT_P1", OTHER_ANALYSIS_UUID, project.uuid(), NCLOC_METRIC_ID, 123L);
+    db.commit();
+
+    List<PastMeasureDto> result = new ArrayList<>();
+    underTest.scrollPastMeasures(db.getSession(), OTHER_ANALYSIS_UUID, singletonList(NCLOC_METRIC_ID), context -> result.add(context.getResultObject()));
+
+    assertThat(result).extracting(PastMeasureDto::getComponentUuid, PastMeasureDto::getMetricId)
+      .containsOnly(tuple(project.uuid(), NCLOC_METRIC_ID), tuple(module.uuid(), NCLOC_METRIC_ID));
+  }
+
   @Test
   public void selectByComponentsAndMetrics() {
     ComponentDto project1 = db.components().insertPrivateProject(db.getDefaultOrganization(), "P1");
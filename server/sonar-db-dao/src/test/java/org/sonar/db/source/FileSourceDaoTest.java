@@ -21,6 +21,7 @@ package org.sonar.db.source;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.util.List;
 import java.util.function.Function;
 import javax.annotation.Nullable;
 import org.apache.commons.io.IOUtils;
@@ -31,8 +32,10 @@ import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
 import org.sonar.db.source.FileSourceDto.Type;
 
+import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.fail;
+import static org.assertj.core.api.Assertions.tuple;
 
 public class FileSourceDaoTest {
 
@@ -89,6 +92,38 @@ public class FileSourceDaoTest {
     assertThat(fn.result).isNull();
   }
 
+  @Test
+  public void selectLineHashesByFileUuids() {
+    dbTester.prepareDbUnit(getClass(), "shared.xml");
+    underTest.insert(session, new FileSourceDto()
+      .setProjectUuid("PRJ_UUID")
+      .setFileUuid("FILE2_UUID")
+      .setBinaryData("FILE2_BINARY_DATA".getBytes())
+      .setDataHash("FILE2_DATA_HASH")
+      .setLineHashes("JKL\nMNO")
+      .setSrcHash("FILE2_HASH")
+      .setDataType(Type.SOURCE)
+      .setCreatedAt(1500000000000L)
+      .setUpdatedAt(1500000000001L));
+    underTest.insert(session, new FileSourceDto()
+      .setProjectUuid("PRJ_UUID")
+      .setFileUuid("FILE3_UUID")
+      .setBinaryData("FILE3_BINARY_DATA".getBytes())
+      .setDataHash("FILE3_DATA_HASH")
+      .setLineHashes("PQR")
+      .setSrcHash("FILE3_HASH")
+      .setDataType(Type.TEST)
+      .setCreatedAt(1500000000000L)
+      .setUpdatedAt(1500000000001L));
+    session.commit();
+
+    List<FileSourceDto> dtos = underTest.selectLineHashesByFileUuids(session, asList("FILE1_UUID", "FILE2_UUID", "FILE3_UUID", "unknown"));
+
+    assertThat(dtos).extracting(FileSourceDto::getFileUuid, FileSourceDto::getLineHashes).containsOnly(
+      tuple("FILE1_UUID", "ABC\\nDEF\\nGHI"),
+      tuple("FILE2_UUID", "JKL\nMNO"));
+  }
+
   @Test
   public void insert() {
     dbTester.prepareDbUnit(getClass(), "shared.xml");
@@ -19,7 +19,10 @@
  */
 package org.sonar.db.source;
 
+import com.google.common.collect.ImmutableSet;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import org.junit.Rule;
 import org.junit.Test;
@@ -80,6 +83,72 @@ public class FileSourceDtoTest {
     assertThat(data.getLinesCount()).isEqualTo(build.getLinesCount());
   }
 
+  @Test
+  public void readSourceLines_reads_all_fields_when_no_field_is_requested() {
+    DbFileSources.Data data = createData(3);
+    FileSourceDto underTest = new FileSourceDto().setSourceData(data);
+
+    List<DbFileSources.Line> lines = new ArrayList<>();
+    underTest.readSourceLines(Collections.emptySet(), lines::add);
+
+    assertThat(lines).isEqualTo(data.getLinesList());
+  }
+
+  @Test
+  public void readSourceLines_reads_only_requested_fields() {
+    FileSourceDto underTest = new FileSourceDto().setSourceData(createData(3));
+
+    List<DbFileSources.Line> lines = new ArrayList<>();
+    underTest.readSourceLines(ImmutableSet.of(DbFileSources.Line.LINE_FIELD_NUMBER, DbFileSources.Line.SCM_REVISION_FIELD_NUMBER), lines::add);
+
+    assertThat(lines).extracting(DbFileSources.Line::getLine).containsExactly(1, 2, 3);
+    assertThat(lines).extracting(DbFileSources.Line::getScmRevision).containsExactly("rev1", "rev2", "rev3");
+    assertThat(lines).extracting(DbFileSources.Line::hasSource).containsOnly(false);
+    assertThat(lines).extracting(DbFileSources.Line::hasHighlighting).containsOnly(false);
+    assertThat(lines).extracting(DbFileSources.Line::hasScmAuthor).containsOnly(false);
+  }
+
+  @Test
+  public void readSourceLines_stops_reading_when_consumer_returns_false() {
+    FileSourceDto underTest = new FileSourceDto().setSourceData(createData(10));
+
+    List<DbFileSources.Line> lines = new ArrayList<>();
+    underTest.readSourceLines(Collections.emptySet(), line -> {
+      lines.add(line);
+      return lines.size() < 4;
+    });
+
+    assertThat(lines).extracting(DbFileSources.Line::getLine).containsExactly(1, 2, 3, 4);
+  }
+
+  @Test
+  public void readSourceLines_throws_ISE_with_id_fileUuid_and_projectUuid_in_message_when_data_cant_be_read() {
+    FileSourceDto underTest = new FileSourceDto()
+      .setBinaryData(new byte[] {1, 2, 3, 4, 5})
+      .setId(12L)
+      .setFileUuid("file uuid")
+      .setProjectUuid("project uuid");
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Fail to decompress and deserialize source data [id=12,fileUuid=file uuid,projectUuid=project uuid]");
+
+    underTest.readSourceLines(Collections.emptySet(), line -> true);
+  }
+
+  private static DbFileSources.Data createData(int numberOfLines) {
+    DbFileSources.Data.Builder dataBuilder = DbFileSources.Data.newBuilder();
+    for (int i = 1; i <= numberOfLines; i++) {
+      dataBuilder.addLinesBuilder()
+        .setLine(i)
+        .setSource("line " + i)
+        .setHighlighting("0,4,k")
+        .setScmRevision("rev" + i)
+        .setScmAuthor("author" + i)
+        .setScmDate(1_500_000_000_000L + i);
+    }
+    return dataBuilder.build();
+  }
+
   private static DbFileSources.Data createOver64MBDataStructure() {
     DbFileSources.Data.Builder dataBuilder = DbFileSources.Data.newBuilder();
     DbFileSources.Line.Builder lineBuilder = DbFileSources.Line.newBuilder();
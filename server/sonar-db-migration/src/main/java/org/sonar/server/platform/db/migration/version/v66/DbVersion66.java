@@ -28,6 +28,7 @@ public class DbVersion66 implements DbVersion {
   public void addSteps(MigrationStepRegistry registry) {
     registry
       .add(1800, "Add incremental column to snapthots table", AddIncrementalColumnToSnapshotsTable.class)
-      .add(1801, "Create table CE task characteristics", CreateTableCeTaskCharacteristics.class);
+      .add(1801, "Create table CE task characteristics", CreateTableCeTaskCharacteristics.class)
+      .add(1802, "Create table CE task steps", CreateTableCeTaskSteps.class);
   }
 }
@@ -0,0 +1,65 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.db.migration.version.v66;
+
+import java.sql.SQLException;
+import java.sql.Types;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.db.CoreDbTester;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CreateTableCeTaskStepsTest {
+  private static final String TABLE = "ce_task_steps";
+
+  @Rule
+  public final CoreDbTester db = CoreDbTester.createForSchema(CreateTableCeTaskStepsTest.class, "empty.sql");
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private CreateTableCeTaskSteps underTest = new CreateTableCeTaskSteps(db.database());
+
+  @Test
+  public void creates_table_on_empty_db() throws SQLException {
+    underTest.execute();
+
+    assertThat(db.countRowsOfTable(TABLE)).isEqualTo(0);
+    db.assertPrimaryKey(TABLE, "pk_" + TABLE, "uuid");
+    db.assertColumnDefinition(TABLE, "task_uuid", Types.VARCHAR, 40, false);
+    db.assertColumnDefinition(TABLE, "step_index", Types.INTEGER, null, false);
+    db.assertColumnDefinition(TABLE, "description", Types.VARCHAR, 255, false);
+    db.assertColumnDefinition(TABLE, "wall_time", Types.BIGINT, null, false);
+    db.assertColumnDefinition(TABLE, "cpu_time", Types.BIGINT, null, true);
+    db.assertColumnDefinition(TABLE, "allocated_bytes", Types.BIGINT, null, true);
+    db.assertColumnDefinition(TABLE, "created_at", Types.BIGINT, null, false);
+    db.assertIndex(TABLE, "ce_task_steps_task_uuid", "task_uuid");
+  }
+
+  @Test
+  public void migration_is_not_reentrant() throws SQLException {
+    underTest.execute();
+
+    expectedException.expect(IllegalStateException.class);
+
+    underTest.execute();
+  }
+}
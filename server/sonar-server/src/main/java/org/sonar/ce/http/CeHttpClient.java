@@ -29,4 +29,11 @@ public interface CeHttpClient {
   void changeLogLevel(LoggerLevel level);
 
   void refreshCeWorkerCount();
+
+  /**
+   * Wakes up the idle workers of the Compute Engine, and of the other Compute Engines of the cluster if any, so that
+   * the tasks just added to the queue are picked without waiting for the next poll. The notification is sent
+   * asynchronously and its failures are ignored.
+   */
+  void notifyTasksSubmitted();
 }
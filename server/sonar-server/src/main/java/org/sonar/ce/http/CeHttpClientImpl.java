@@ -23,11 +23,17 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import okhttp3.Call;
+import okhttp3.Callback;
 import okhttp3.OkHttpClient;
 import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
 import org.apache.commons.io.IOUtils;
 import org.sonar.api.config.Configuration;
+import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.LoggerLevel;
+import org.sonar.api.utils.log.Loggers;
 import org.sonar.process.DefaultProcessCommands;
 import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo;
 
@@ -39,14 +45,17 @@ import static org.sonar.process.ProcessId.COMPUTE_ENGINE;
  * Client for the HTTP server of the Compute Engine.
  */
 public class CeHttpClientImpl implements CeHttpClient {
+  private static final Logger LOG = Loggers.get(CeHttpClientImpl.class);
 
   private static final String PATH_CHANGE_LOG_LEVEL = "changeLogLevel";
   private static final String PATH_SYSTEM_INFO = "systemInfo";
 
   private final File ipcSharedDir;
+  private final TasksSubmittedActionClient tasksSubmittedActionClient;
 
-  public CeHttpClientImpl(Configuration config) {
+  public CeHttpClientImpl(Configuration config, OkHttpClient okHttpClient) {
     this.ipcSharedDir = new File(config.get(PROPERTY_SHARED_PATH).get());
+    this.tasksSubmittedActionClient = new TasksSubmittedActionClient(okHttpClient);
   }
 
   /**
@@ -158,6 +167,64 @@ public class CeHttpClientImpl implements CeHttpClient {
     }
   }
 
+  @Override
+  public void notifyTasksSubmitted() {
+    call(tasksSubmittedActionClient);
+  }
+
+  /**
+   * The notification is sent asynchronously, on the threads of the shared {@link OkHttpClient}, so that task submission
+   * is not slowed down by an unresponsive Compute Engine. Failures are only logged.
+   */
+  private static final class TasksSubmittedActionClient implements ActionClient<Void>, Callback {
+    private static final long TIMEOUT_MS = 1_000L;
+
+    private final OkHttpClient client;
+
+    private TasksSubmittedActionClient(OkHttpClient okHttpClient) {
+      // shares the connection pool and the dispatcher of the specified client
+      this.client = okHttpClient.newBuilder()
+        .connectTimeout(TIMEOUT_MS, TimeUnit.MILLISECONDS)
+        .readTimeout(TIMEOUT_MS, TimeUnit.MILLISECONDS)
+        .build();
+    }
+
+    @Override
+    public String getPath() {
+      return "tasksSubmitted";
+    }
+
+    @Override
+    public Void getDefault() {
+      return null;
+    }
+
+    @Override
+    public Void call(String url) {
+      okhttp3.Request request = new okhttp3.Request.Builder()
+        .post(RequestBody.create(null, new byte[0]))
+        .url(url)
+        .build();
+      client.newCall(request).enqueue(this);
+      return null;
+    }
+
+    @Override
+    public void onFailure(Call call, IOException e) {
+      LOG.debug("Failed to notify Compute Engine of submitted tasks", e);
+    }
+
+    @Override
+    public void onResponse(Call call, okhttp3.Response response) throws IOException {
+      try (ResponseBody body = response.body()) {
+        if (response.code() != 200) {
+          LOG.debug("Failed to notify Compute Engine of submitted tasks. Code was '{}' and response was '{}' for url '{}'",
+            response.code(), body.string(), call.request().url());
+        }
+      }
+    }
+  }
+
   private <T> T call(ActionClient<T> actionClient) {
     try (DefaultProcessCommands commands = DefaultProcessCommands.secondary(ipcSharedDir, COMPUTE_ENGINE.getIpcIndex())) {
       if (commands.isUp()) {
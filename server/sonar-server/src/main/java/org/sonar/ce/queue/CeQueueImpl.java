@@ -31,6 +31,9 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.ce.http.CeHttpClient;
 import org.sonar.core.util.UuidFactory;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
@@ -47,18 +50,27 @@ import static java.util.Objects.requireNonNull;
 
 @ComputeEngineSide
 public class CeQueueImpl implements CeQueue {
+  private static final Logger LOG = Loggers.get(CeQueueImpl.class);
 
   private final DbClient dbClient;
   private final UuidFactory uuidFactory;
   private final DefaultOrganizationProvider defaultOrganizationProvider;
+  @Nullable
+  private final CeHttpClient ceHttpClient;
 
   // state
   private AtomicBoolean submitPaused = new AtomicBoolean(false);
 
   public CeQueueImpl(DbClient dbClient, UuidFactory uuidFactory, DefaultOrganizationProvider defaultOrganizationProvider) {
+    this(dbClient, uuidFactory, defaultOrganizationProvider, null);
+  }
+
+  public CeQueueImpl(DbClient dbClient, UuidFactory uuidFactory, DefaultOrganizationProvider defaultOrganizationProvider,
+    @Nullable CeHttpClient ceHttpClient) {
     this.dbClient = dbClient;
     this.uuidFactory = uuidFactory;
     this.defaultOrganizationProvider = defaultOrganizationProvider;
+    this.ceHttpClient = ceHttpClient;
   }
 
   @Override
@@ -74,6 +86,7 @@ public class CeQueueImpl implements CeQueue {
       CeQueueDto dto = new CeTaskSubmitToInsertedCeQueueDto(dbSession, dbClient).apply(submission);
       CeTask task = loadTask(dbSession, dto);
       dbSession.commit();
+      notifyTasksSubmitted();
       return task;
     }
   }
@@ -91,10 +104,26 @@ public class CeQueueImpl implements CeQueue {
         .toList();
       List<CeTask> tasks = loadTasks(dbSession, ceQueueDtos);
       dbSession.commit();
+      notifyTasksSubmitted();
       return tasks;
     }
   }
 
+  /**
+   * Called once submitted tasks are committed, to wake up the workers of the local Compute Engine instead of waiting
+   * for their next poll of the queue. Failures are ignored as the tasks will be picked at next poll anyway.
+   */
+  protected void notifyTasksSubmitted() {
+    if (ceHttpClient == null) {
+      return;
+    }
+    try {
+      ceHttpClient.notifyTasksSubmitted();
+    } catch (RuntimeException e) {
+      LOG.debug("Failed to notify Compute Engine of submitted tasks", e);
+    }
+  }
+
   protected CeTask loadTask(DbSession dbSession, CeQueueDto dto) {
     if (dto.getComponentUuid() == null) {
       return new CeQueueDtoToCeTask(defaultOrganizationProvider.get().getUuid()).apply(dto);
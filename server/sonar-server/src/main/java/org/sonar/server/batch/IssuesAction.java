@@ -24,16 +24,22 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
+import javax.annotation.Nullable;
+import org.apache.commons.lang.math.NumberUtils;
 import org.apache.ibatis.session.ResultHandler;
+import org.sonar.api.config.Configuration;
 import org.sonar.api.resources.Scopes;
 import org.sonar.api.rules.RuleType;
 import org.sonar.api.server.ws.Request;
 import org.sonar.api.server.ws.Response;
 import org.sonar.api.server.ws.WebService;
+import org.sonar.api.utils.System2;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
+import org.sonar.db.ce.CeQueueDto;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.issue.IssueDto;
+import org.sonar.db.property.PropertyDto;
 import org.sonar.scanner.protocol.input.ScannerInput;
 import org.sonar.server.component.ComponentFinder;
 import org.sonar.server.user.UserSession;
@@ -42,28 +48,50 @@ import org.sonarqube.ws.MediaTypes;
 import static com.google.common.collect.Maps.newHashMap;
 import static java.lang.String.format;
 import static org.sonar.api.web.UserRole.USER;
+import static org.sonar.core.config.PurgeConstants.DAYS_BEFORE_DELETING_CLOSED_ISSUES;
 import static org.sonar.core.util.Protobuf.setNullable;
+import static org.sonar.core.util.Uuids.UUID_EXAMPLE_01;
 import static org.sonar.server.ws.KeyExamples.KEY_PROJECT_EXAMPLE_001;
 
 public class IssuesAction implements BatchWsAction {
 
   private static final String PARAM_KEY = "key";
+  private static final String PARAM_CHANGED_SINCE = "changedSince";
+  private static final String PARAM_PROJECT_UUID = "projectUuid";
+  private static final String SYNC_DATE_HEADER = "Sonar-Issues-Sync-Date";
+  private static final String PROJECT_UUID_HEADER = "Sonar-Issues-Project-Uuid";
+  private static final String DELTA_HEADER = "Sonar-Issues-Delta";
+  /**
+   * Issues changed by users are persisted with a date which may be a bit older than the date of commit
+   */
+  private static final long SYNC_DATE_MARGIN = 5 * 60 * 1_000L;
+  private static final long ONE_DAY = 24 * 60 * 60 * 1_000L;
   private static final Splitter MODULE_PATH_SPLITTER = Splitter.on('.').trimResults().omitEmptyStrings();
 
   private final DbClient dbClient;
   private final UserSession userSession;
   private final ComponentFinder componentFinder;
+  private final Configuration configuration;
+  private final System2 system2;
 
-  public IssuesAction(DbClient dbClient, UserSession userSession, ComponentFinder componentFinder) {
+  public IssuesAction(DbClient dbClient, UserSession userSession, ComponentFinder componentFinder, Configuration configuration, System2 system2) {
     this.dbClient = dbClient;
     this.userSession = userSession;
     this.componentFinder = componentFinder;
+    this.configuration = configuration;
+    this.system2 = system2;
   }
 
   @Override
   public void define(WebService.NewController controller) {
     WebService.NewAction action = controller.createAction("issues")
-      .setDescription("Return open issues")
+      .setDescription(format("Return open issues.<br>" +
+        "The response header %s contains the date to be used as parameter '%s' of the next call, to only get the issues changed since this call. " +
+        "The response header %s contains the uuid of the project, to be used as parameter '%s' of the next call. " +
+        "Closed issues are then returned too, and the response has the header %s set to true. " +
+        "If changes can't be computed since this date, because closed issues may have been purged or because the project is not the same, " +
+        "all the open issues are returned.",
+        SYNC_DATE_HEADER, PARAM_CHANGED_SINCE, PROJECT_UUID_HEADER, PARAM_PROJECT_UUID, DELTA_HEADER))
       .setResponseExample(getClass().getResource("issues-example.proto"))
       .setSince("5.1")
       .setInternal(true)
@@ -74,6 +102,20 @@ public class IssuesAction implements BatchWsAction {
       .setRequired(true)
       .setDescription("Project, module or file key")
       .setExampleValue(KEY_PROJECT_EXAMPLE_001);
+
+    action
+      .createParam(PARAM_CHANGED_SINCE)
+      .setDescription(format("Only return the issues changed since this date, in milliseconds since epoch, as returned by the response header %s of a previous call",
+        SYNC_DATE_HEADER))
+      .setExampleValue("1500000000000")
+      .setSince("6.6");
+
+    action
+      .createParam(PARAM_PROJECT_UUID)
+      .setDescription(format("Uuid of the project, as returned by the response header %s of the previous call. " +
+        "Changes are returned only if the project has not been deleted and created again since the previous call.", PROJECT_UUID_HEADER))
+      .setExampleValue(UUID_EXAMPLE_01)
+      .setSince("6.6");
   }
 
   @Override
@@ -84,8 +126,17 @@ public class IssuesAction implements BatchWsAction {
       userSession.checkComponentPermission(USER, component);
 
       Map<String, String> keysByUUid = keysByUUid(dbSession, component);
+      Long changedSince = request.paramAsLong(PARAM_CHANGED_SINCE);
+      boolean delta = changedSince != null
+        && component.projectUuid().equals(request.param(PARAM_PROJECT_UUID))
+        && isDeltaAvailable(dbSession, component, changedSince);
 
       ScannerInput.ServerIssue.Builder responseBuilder = ScannerInput.ServerIssue.newBuilder();
+      response.setHeader(SYNC_DATE_HEADER, String.valueOf(computeSyncDate(dbSession, component)));
+      response.setHeader(PROJECT_UUID_HEADER, component.projectUuid());
+      if (delta) {
+        response.setHeader(DELTA_HEADER, String.valueOf(true));
+      }
       response.stream().setMediaType(MediaTypes.PROTOBUF);
       OutputStream output = response.stream().output();
 
@@ -93,18 +144,59 @@ public class IssuesAction implements BatchWsAction {
         IssueDto issue = resultContext.getResultObject();
         handleIssue(issue, responseBuilder, keysByUUid, output);
       };
-      switch (component.scope()) {
-        case Scopes.PROJECT:
+      scrollIssues(dbSession, component, delta ? changedSince : null, handler);
+    }
+  }
+
+  private void scrollIssues(DbSession dbSession, ComponentDto component, @Nullable Long changedSince, ResultHandler<IssueDto> handler) {
+    switch (component.scope()) {
+      case Scopes.PROJECT:
+        if (changedSince == null) {
           dbClient.issueDao().scrollNonClosedByModuleOrProject(dbSession, component, handler);
-          break;
-        case Scopes.FILE:
+        } else {
+          dbClient.issueDao().scrollChangedSinceByModuleOrProject(dbSession, component, changedSince, handler);
+        }
+        break;
+      case Scopes.FILE:
+        if (changedSince == null) {
           dbClient.issueDao().scrollNonClosedByComponentUuid(dbSession, component.uuid(), handler);
-          break;
-        default:
-          // only projects, modules and files are supported. Other types of components are not allowed.
-          throw new IllegalArgumentException(format("Component of scope '%s' is not allowed", component.scope()));
+        } else {
+          dbClient.issueDao().scrollChangedSinceByComponentUuid(dbSession, component.uuid(), changedSince, handler);
+        }
+        break;
+      default:
+        // only projects, modules and files are supported. Other types of components are not allowed.
+        throw new IllegalArgumentException(format("Component of scope '%s' is not allowed", component.scope()));
+    }
+  }
+
+  /**
+   * Closed issues are purged after some days. Changes can't be computed if closed issues may have been
+   * purged since the requested date.
+   */
+  private boolean isDeltaAvailable(DbSession dbSession, ComponentDto component, long changedSince) {
+    ComponentDto project = dbClient.componentDao().selectOrFailByUuid(dbSession, component.projectUuid());
+    PropertyDto projectProperty = dbClient.propertiesDao().selectProjectProperty(dbSession, project.getId(), DAYS_BEFORE_DELETING_CLOSED_ISSUES);
+    int daysBeforeDeletingClosedIssues = projectProperty != null
+      ? NumberUtils.toInt(projectProperty.getValue(), 0)
+      : configuration.getInt(DAYS_BEFORE_DELETING_CLOSED_ISSUES).orElse(0);
+    // closing date of issues is the date of analysis, which may be a bit older than the date of update
+    return changedSince > system2.now() - (daysBeforeDeletingClosedIssues - 1) * ONE_DAY;
+  }
+
+  /**
+   * Compute Engine persists issues with the date of the beginning of the persistence, possibly a long time
+   * before commit. The next synchronization must include the issues of the tasks in progress.
+   */
+  private long computeSyncDate(DbSession dbSession, ComponentDto component) {
+    long syncDate = system2.now();
+    for (CeQueueDto task : dbClient.ceQueueDao().selectByComponentUuid(dbSession, component.projectUuid())) {
+      Long startedAt = task.getStartedAt();
+      if (task.getStatus() == CeQueueDto.Status.IN_PROGRESS && startedAt != null) {
+        syncDate = Math.min(syncDate, startedAt);
       }
     }
+    return syncDate - SYNC_DATE_MARGIN;
   }
 
   private static void handleIssue(IssueDto issue, ScannerInput.ServerIssue.Builder issueBuilder,
@@ -30,6 +30,9 @@ import org.sonar.scanner.protocol.input.ProjectRepositories;
 import org.sonarqube.ws.WsBatch.WsProjectResponse;
 import org.sonarqube.ws.WsBatch.WsProjectResponse.FileData.Builder;
 
+import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
+import static org.apache.commons.lang.StringUtils.removeEnd;
+import static org.apache.commons.lang.StringUtils.removeStart;
 import static org.sonar.core.util.Protobuf.setNullable;
 import static org.sonar.server.ws.KeyExamples.KEY_PROJECT_EXAMPLE_001;
 import static org.sonar.server.ws.WsUtils.writeProtobuf;
@@ -39,6 +42,8 @@ public class ProjectAction implements BatchWsAction {
   private static final String PARAM_KEY = "key";
   private static final String PARAM_PROFILE = "profile";
   private static final String PARAM_ISSUES_MODE = "issues_mode";
+  private static final String ETAG = "ETag";
+  private static final String IF_NONE_MATCH = "If-None-Match";
 
   private final ProjectDataLoader projectDataLoader;
 
@@ -49,7 +54,9 @@ public class ProjectAction implements BatchWsAction {
   @Override
   public void define(WebService.NewController controller) {
     WebService.NewAction action = controller.createAction("project")
-      .setDescription("Return project repository")
+      .setDescription("Return project repository.<br>" +
+        "The response has an ETag header. If the request has the header If-None-Match with the same value, " +
+        "the response has no content and has the status 304 (Not Modified).")
       .setResponseExample(getClass().getResource("project-example.json"))
       .setSince("4.5")
       .setInternal(true)
@@ -75,15 +82,32 @@ public class ProjectAction implements BatchWsAction {
 
   @Override
   public void handle(Request wsRequest, Response wsResponse) throws Exception {
+    String knownVersion = wsRequest.header(IF_NONE_MATCH).map(ProjectAction::toVersion).orElse(null);
     ProjectRepositories data = projectDataLoader.load(ProjectDataQuery.create()
       .setModuleKey(wsRequest.mandatoryParam(PARAM_KEY))
       .setProfileName(wsRequest.param(PARAM_PROFILE))
-      .setIssuesMode(wsRequest.mandatoryParamAsBoolean(PARAM_ISSUES_MODE)));
-
+      .setIssuesMode(wsRequest.mandatoryParamAsBoolean(PARAM_ISSUES_MODE))
+      .setKnownVersion(knownVersion));
+
+    String version = data.version();
+    if (version != null) {
+      wsResponse.setHeader(ETAG, "\"" + version + "\"");
+      if (version.equals(knownVersion)) {
+        wsResponse.stream().setStatus(HTTP_NOT_MODIFIED);
+        return;
+      }
+    }
     WsProjectResponse projectResponse = buildResponse(data);
     writeProtobuf(projectResponse, wsRequest, wsResponse);
   }
 
+  /**
+   * Only a single entity tag is expected, as sent by scanners
+   */
+  private static String toVersion(String ifNoneMatch) {
+    return removeEnd(removeStart(removeStart(ifNoneMatch.trim(), "W/"), "\""), "\"");
+  }
+
   private static WsProjectResponse buildResponse(ProjectRepositories data) {
     WsProjectResponse.Builder response = WsProjectResponse.newBuilder();
     setNullable(data.lastAnalysisDate(), response::setLastAnalysisDate, Date::getTime);
@@ -23,9 +23,12 @@ import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.sonar.api.resources.Qualifiers;
 import org.sonar.api.resources.Scopes;
 import org.sonar.api.server.ServerSide;
@@ -33,6 +36,7 @@ import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.FilePathWithHashDto;
+import org.sonar.db.component.SnapshotDto;
 import org.sonar.db.permission.OrganizationPermission;
 import org.sonar.db.property.PropertyDto;
 import org.sonar.scanner.protocol.input.FileData;
@@ -83,8 +87,11 @@ public class ProjectDataLoader {
       TreeModuleSettings treeModuleSettings = new TreeModuleSettings(moduleUuidsByKey, moduleIdsByKey, modulesTree, modulesTreeSettings);
 
       addSettingsToChildrenModules(data, query.getModuleKey(), Maps.<String, String>newHashMap(), treeModuleSettings, hasScanPerm);
-      List<FilePathWithHashDto> files = searchFilesWithHashAndRevision(session, module);
-      addFileData(data, modulesTree, files);
+      data.setVersion(computeVersion(session, project, modulesTree, data));
+      if (!data.version().equals(query.getKnownVersion())) {
+        List<FilePathWithHashDto> files = searchFilesWithHashAndRevision(session, module);
+        addFileData(data, modulesTree, files);
+      }
 
       // FIXME need real value but actually only used to know if there is a previous analysis in local issue tracking mode so any value is
       // ok
@@ -94,6 +101,23 @@ public class ProjectDataLoader {
     }
   }
 
+  /**
+   * Hashes and revisions of files are changed only by analyses, so the version does not need to
+   * be computed from files, but from the last analysis of the project.
+   */
+  private String computeVersion(DbSession session, ComponentDto project, List<ComponentDto> modulesTree, ProjectRepositories data) {
+    StringBuilder version = new StringBuilder();
+    version.append(dbClient.snapshotDao().selectLastAnalysisByRootComponentUuid(session, project.uuid()).map(SnapshotDto::getUuid).orElse(""));
+    modulesTree.stream()
+      .sorted(Comparator.comparing(ComponentDto::getDbKey))
+      .forEach(m -> version.append('\0').append(m.getDbKey()).append('\0').append(m.uuid()));
+    new TreeMap<>(data.settings()).forEach((moduleKey, settings) -> {
+      version.append('\0').append(moduleKey);
+      new TreeMap<>(settings).forEach((key, value) -> version.append('\0').append(key).append('\0').append(value));
+    });
+    return DigestUtils.sha1Hex(version.toString());
+  }
+
   private static boolean isProjectOrModule(ComponentDto module) {
     if (!Scopes.PROJECT.equals(module.scope())) {
       return false;
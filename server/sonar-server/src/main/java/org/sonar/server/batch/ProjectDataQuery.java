@@ -27,6 +27,7 @@ public class ProjectDataQuery {
   private String projectOrModuleKey;
   private String profileName;
   private boolean issuesMode;
+  private String knownVersion;
 
   private ProjectDataQuery() {
     // No direct call
@@ -60,6 +61,20 @@ public class ProjectDataQuery {
     return this;
   }
 
+  /**
+   * Version of the project repository already known by the client. Files are not loaded
+   * if it's the current version.
+   */
+  @CheckForNull
+  public String getKnownVersion() {
+    return knownVersion;
+  }
+
+  public ProjectDataQuery setKnownVersion(@Nullable String knownVersion) {
+    this.knownVersion = knownVersion;
+    return this;
+  }
+
   public static ProjectDataQuery create() {
     return new ProjectDataQuery();
   }
@@ -37,6 +37,7 @@ import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.ce.CeActivityDto;
 import org.sonar.db.ce.CeQueueDto;
+import org.sonar.db.ce.CeTaskStepDto;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.permission.OrganizationPermission;
 import org.sonar.server.user.UserSession;
@@ -44,6 +45,7 @@ import org.sonar.server.ws.WsUtils;
 import org.sonarqube.ws.WsCe;
 
 import static org.sonar.core.permission.GlobalPermissions.SCAN_EXECUTION;
+import static org.sonar.core.util.Protobuf.setNullable;
 import static org.sonar.server.user.AbstractUserSession.insufficientPrivilegesException;
 import static org.sonar.server.ws.WsUtils.writeProtobuf;
 
@@ -69,7 +71,8 @@ public class TaskAction implements CeWsAction {
     WebService.NewAction action = controller.createAction(ACTION)
       .setDescription("Give Compute Engine task details such as type, status, duration and associated component.<br />" +
         "Requires 'Administer System' or 'Execute Analysis' permission.<br/>" +
-        "Since 6.1, field \"logs\" is deprecated and its value is always false.")
+        "Since 6.1, field \"logs\" is deprecated and its value is always false.<br/>" +
+        "Since 6.6, the metrics of the steps of an executed task can be requested with the additional field \"steps\".")
       .setResponseExample(getClass().getResource("task-example.json"))
       .setSince("5.2")
       .setHandler(this);
@@ -101,8 +104,11 @@ public class TaskAction implements CeWsAction {
         checkPermission(component);
         Set<AdditionalField> additionalFields = AdditionalField.getFromRequest(wsRequest);
         maskErrorStacktrace(ceActivityDto, additionalFields);
-        wsTaskResponse.setTask(
-          wsTaskFormatter.formatActivity(dbSession, ceActivityDto, component, extractScannerContext(dbSession, ceActivityDto, additionalFields)));
+        WsCe.Task.Builder task = wsTaskFormatter
+          .formatActivity(dbSession, ceActivityDto, component, extractScannerContext(dbSession, ceActivityDto, additionalFields))
+          .toBuilder();
+        addSteps(dbSession, ceActivityDto, additionalFields, task);
+        wsTaskResponse.setTask(task);
       }
       writeProtobuf(wsTaskResponse.build(), wsRequest, wsResponse);
     }
@@ -144,9 +150,23 @@ public class TaskAction implements CeWsAction {
     return null;
   }
 
+  private void addSteps(DbSession dbSession, CeActivityDto activityDto, Set<AdditionalField> additionalFields, WsCe.Task.Builder task) {
+    if (additionalFields.contains(AdditionalField.STEPS)) {
+      for (CeTaskStepDto step : dbClient.ceTaskStepDao().selectByTaskUuid(dbSession, activityDto.getUuid())) {
+        WsCe.TaskStep.Builder wsStep = WsCe.TaskStep.newBuilder()
+          .setDescription(step.getDescription())
+          .setWallTimeMs(step.getWallTime());
+        setNullable(step.getCpuTime(), wsStep::setCpuTimeMs);
+        setNullable(step.getAllocatedBytes(), wsStep::setAllocatedBytes);
+        task.addSteps(wsStep);
+      }
+    }
+  }
+
   private enum AdditionalField {
     STACKTRACE("stacktrace"),
-    SCANNER_CONTEXT("scannerContext");
+    SCANNER_CONTEXT("scannerContext"),
+    STEPS("steps");
 
     private final String label;
 
@@ -68,6 +68,39 @@ public class ProjectCleaner {
     return this;
   }
 
+  /**
+   * Same as {@link #purge(DbSession, IdUuidPair, Configuration, Collection)}, except that errors are not logged but
+   * propagated, so that a dedicated task of purge fails.
+   */
+  public ProjectCleaner purgeOrFail(DbSession session, IdUuidPair idUuidPair, Configuration projectConfig, Collection<String> disabledComponentUuids) {
+    long start = System.currentTimeMillis();
+    profiler.reset();
+
+    PurgeConfiguration configuration = newDefaultPurgeConfiguration(projectConfig, idUuidPair, disabledComponentUuids);
+
+    periodCleaner.clean(session, configuration.rootProjectIdUuid().getUuid(), projectConfig);
+    purgeDao.purge(session, configuration, purgeListener, profiler);
+
+    session.commit();
+    logProfiling(start, projectConfig);
+    return this;
+  }
+
+  /**
+   * Deletes the sources and closes the issues of the components disabled by an analysis. Unlike
+   * {@link #purge(DbSession, IdUuidPair, Configuration, Collection)}, it does not clean the history of the project.
+   */
+  public ProjectCleaner purgeDisabledComponents(DbSession session, IdUuidPair idUuidPair, Configuration projectConfig, Collection<String> disabledComponentUuids) {
+    PurgeConfiguration configuration = newDefaultPurgeConfiguration(projectConfig, idUuidPair, disabledComponentUuids);
+    try {
+      purgeDao.purgeDisabledComponents(session, configuration, purgeListener);
+    } catch (Exception e) {
+      // purge errors must no fail the report analysis
+      LOG.error("Fail to purge disabled components [id=" + idUuidPair.getId() + "]", e);
+    }
+    return this;
+  }
+
   private void logProfiling(long start, Configuration config) {
     if (config.getBoolean(CoreProperties.PROFILING_LOG_PROPERTY).orElse(false)) {
       long duration = System.currentTimeMillis() - start;
@@ -0,0 +1,88 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.dbcleaner;
+
+import com.google.common.base.Optional;
+import java.util.Collections;
+import java.util.Set;
+import javax.annotation.CheckForNull;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.ce.queue.CeTask;
+import org.sonar.ce.queue.CeTaskResult;
+import org.sonar.ce.settings.ProjectConfigurationFactory;
+import org.sonar.ce.taskprocessor.CeTaskProcessor;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.ce.CeTaskTypes;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.purge.IdUuidPair;
+import org.sonar.server.setting.ThreadLocalSettings;
+
+import static java.util.Collections.emptyList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Purges the history of a project (or a view) outside of the processing of its analysis report.
+ * Tasks are submitted by {@link org.sonar.server.computation.task.projectanalysis.step.PurgeDatastoresStep}.
+ */
+public class ProjectPurgeTaskProcessor implements CeTaskProcessor {
+
+  private static final Logger LOG = Loggers.get(ProjectPurgeTaskProcessor.class);
+  private static final Set<String> HANDLED_TYPES = Collections.singleton(CeTaskTypes.PROJECT_PURGE);
+
+  private final DbClient dbClient;
+  private final ProjectCleaner projectCleaner;
+  private final ProjectConfigurationFactory projectConfigurationFactory;
+  private final ThreadLocalSettings settings;
+
+  public ProjectPurgeTaskProcessor(DbClient dbClient, ProjectCleaner projectCleaner, ProjectConfigurationFactory projectConfigurationFactory,
+    ThreadLocalSettings settings) {
+    this.dbClient = dbClient;
+    this.projectCleaner = projectCleaner;
+    this.projectConfigurationFactory = projectConfigurationFactory;
+    this.settings = settings;
+  }
+
+  @Override
+  public Set<String> getHandledCeTaskTypes() {
+    return HANDLED_TYPES;
+  }
+
+  @Override
+  @CheckForNull
+  public CeTaskResult process(CeTask task) {
+    String rootUuid = requireNonNull(task.getComponentUuid(), "Task of type " + CeTaskTypes.PROJECT_PURGE + " must have a component");
+    settings.load();
+    try (DbSession dbSession = dbClient.openSession(true)) {
+      Optional<ComponentDto> root = dbClient.componentDao().selectByUuid(dbSession, rootUuid);
+      if (!root.isPresent()) {
+        LOG.debug("Component {} does not exist anymore, nothing to purge", rootUuid);
+        return null;
+      }
+      ComponentDto component = root.get();
+      projectCleaner.purgeOrFail(dbSession, new IdUuidPair(component.getId(), component.uuid()),
+        projectConfigurationFactory.newProjectConfiguration(component.getDbKey()), emptyList());
+      return null;
+    } finally {
+      settings.unload();
+    }
+  }
+}
@@ -22,8 +22,10 @@ package org.sonar.server.computation.task.projectanalysis;
 import org.sonar.server.computation.queue.ReportSubmitter;
 import org.sonar.core.platform.Module;
 import org.sonar.server.computation.task.projectanalysis.container.ContainerFactoryImpl;
+import org.sonar.server.computation.task.projectanalysis.filemove.FileMoveDetectionExecutorServiceImpl;
 import org.sonar.server.computation.task.projectanalysis.taskprocessor.ReportTaskProcessor;
 import org.sonar.server.computation.task.step.ComputationStepExecutor;
+import org.sonar.server.computation.task.step.ComputationStepsStatistics;
 
 public class ProjectAnalysisTaskModule extends Module {
   @Override
@@ -32,7 +34,11 @@ public class ProjectAnalysisTaskModule extends Module {
       // task
       ContainerFactoryImpl.class,
       ComputationStepExecutor.class,
+      ComputationStepsStatistics.class,
       ReportTaskProcessor.class,
-      ReportSubmitter.class);
+      ReportSubmitter.class,
+
+      // shared by the tasks of all workers
+      FileMoveDetectionExecutorServiceImpl.class);
   }
 }
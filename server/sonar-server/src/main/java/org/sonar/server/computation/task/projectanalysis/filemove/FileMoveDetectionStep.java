@@ -20,18 +20,21 @@
 package org.sonar.server.computation.task.projectanalysis.filemove;
 
 import com.google.common.base.Splitter;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import javax.annotation.CheckForNull;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
 import org.sonar.api.resources.Qualifiers;
@@ -39,12 +42,12 @@ import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.core.hash.SourceLinesHashesComputer;
 import org.sonar.core.util.CloseableIterator;
+import org.sonar.core.util.stream.MoreCollectors;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTreeQuery;
 import org.sonar.db.component.ComponentTreeQuery.Strategy;
-import org.sonar.db.source.FileSourceDto;
 import org.sonar.server.computation.task.projectanalysis.analysis.Analysis;
 import org.sonar.server.computation.task.projectanalysis.analysis.AnalysisMetadataHolder;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
@@ -74,15 +77,18 @@ public class FileMoveDetectionStep implements ComputationStep {
   private final SourceLinesRepository sourceLinesRepository;
   private final FileSimilarity fileSimilarity;
   private final MutableMovedFilesRepository movedFilesRepository;
+  private final FileMoveDetectionExecutorService executorService;
 
   public FileMoveDetectionStep(AnalysisMetadataHolder analysisMetadataHolder, TreeRootHolder rootHolder, DbClient dbClient,
-    SourceLinesRepository sourceLinesRepository, FileSimilarity fileSimilarity, MutableMovedFilesRepository movedFilesRepository) {
+    SourceLinesRepository sourceLinesRepository, FileSimilarity fileSimilarity, MutableMovedFilesRepository movedFilesRepository,
+    FileMoveDetectionExecutorService executorService) {
     this.analysisMetadataHolder = analysisMetadataHolder;
     this.rootHolder = rootHolder;
     this.dbClient = dbClient;
     this.sourceLinesRepository = sourceLinesRepository;
     this.fileSimilarity = fileSimilarity;
     this.movedFilesRepository = movedFilesRepository;
+    this.executorService = executorService;
   }
 
   @Override
@@ -197,45 +203,79 @@ public class FileMoveDetectionStep implements ComputationStep {
   }
 
   private ScoreMatrix computeScoreMatrix(Map<String, DbComponent> dtosByKey, Set<String> dbFileKeys, Map<String, File> reportFileSourcesByKey) {
-    int[][] scoreMatrix = new int[dbFileKeys.size()][reportFileSourcesByKey.size()];
-    int maxScore = 0;
-
-    try (DbSession dbSession = dbClient.openSession(false)) {
-      int dbFileIndex = 0;
-      for (String removedFileKey : dbFileKeys) {
-        File fileInDb = getFile(dbSession, dtosByKey.get(removedFileKey));
-        if (fileInDb == null) {
-          continue;
-        }
-
-        int reportFileIndex = 0;
-        for (Map.Entry<String, File> reportFileSourceAndKey : reportFileSourcesByKey.entrySet()) {
-          File unmatchedFile = reportFileSourceAndKey.getValue();
-          int score = fileSimilarity.score(fileInDb, unmatchedFile);
-          scoreMatrix[dbFileIndex][reportFileIndex] = score;
-          if (score > maxScore) {
-            maxScore = score;
-          }
-          reportFileIndex++;
+    List<File> dbFiles = getDbFiles(dtosByKey, dbFileKeys);
+    List<File> reportFiles = new ArrayList<>(reportFileSourcesByKey.values());
+    int[][] scoreMatrix = new int[dbFiles.size()][reportFiles.size()];
+
+    List<Future<?>> futures = new ArrayList<>(dbFiles.size());
+    try {
+      for (int dbFileIndex = 0; dbFileIndex < dbFiles.size(); dbFileIndex++) {
+        File fileInDb = dbFiles.get(dbFileIndex);
+        if (fileInDb != null) {
+          int[] scores = scoreMatrix[dbFileIndex];
+          futures.add(executorService.submit(() -> computeScores(fileInDb, reportFiles, scores)));
         }
-        dbFileIndex++;
       }
+      waitForTasksToComplete(futures);
+    } finally {
+      // the pool is shared with the other workers, tasks of a failed computation must not keep running
+      futures.forEach(future -> future.cancel(true));
     }
 
+    int maxScore = 0;
+    for (int[] scores : scoreMatrix) {
+      for (int score : scores) {
+        maxScore = Math.max(maxScore, score);
+      }
+    }
     return new ScoreMatrix(dbFileKeys, reportFileSourcesByKey, scoreMatrix, maxScore);
   }
 
-  @CheckForNull
-  private File getFile(DbSession dbSession, DbComponent dbComponent) {
-    if (dbComponent.getPath() == null) {
-      return null;
+  private void computeScores(File fileInDb, List<File> reportFiles, int[] scores) {
+    for (int reportFileIndex = 0; reportFileIndex < reportFiles.size(); reportFileIndex++) {
+      File unmatchedFile = reportFiles.get(reportFileIndex);
+      // files which can't be similar enough are not compared, their score is left to 0
+      if (fileSimilarity.maxScore(fileInDb, unmatchedFile) >= MIN_REQUIRED_SCORE) {
+        scores[reportFileIndex] = fileSimilarity.score(fileInDb, unmatchedFile);
+      }
+    }
+  }
+
+  private static void waitForTasksToComplete(List<Future<?>> futures) {
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while computing score matrix", e);
+      } catch (ExecutionException e) {
+        throw Throwables.propagate(e.getCause());
+      }
     }
-    FileSourceDto fileSourceDto = dbClient.fileSourceDao().selectSourceByFileUuid(dbSession, dbComponent.getUuid());
-    if (fileSourceDto == null) {
-      return null;
+  }
+
+  /**
+   * Line hashes of the specified DB files, loaded in bulk. Returned list has the same order as {@code dbFileKeys} and
+   * holds {@code null} for files which have no path or no source.
+   */
+  private List<File> getDbFiles(Map<String, DbComponent> dtosByKey, Set<String> dbFileKeys) {
+    List<DbComponent> dbComponents = dbFileKeys.stream().map(dtosByKey::get).collect(MoreCollectors.toList(dbFileKeys.size()));
+    Map<String, String> lineHashesByFileUuid = new HashMap<>(dbComponents.size());
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      List<String> fileUuids = dbComponents.stream()
+        .filter(dbComponent -> dbComponent.getPath() != null)
+        .map(DbComponent::getUuid)
+        .collect(MoreCollectors.toList());
+      dbClient.fileSourceDao().selectLineHashesByFileUuids(dbSession, fileUuids)
+        .forEach(dto -> lineHashesByFileUuid.put(dto.getFileUuid(), firstNonNull(dto.getLineHashes(), "")));
+    }
+
+    List<File> dbFiles = new ArrayList<>(dbComponents.size());
+    for (DbComponent dbComponent : dbComponents) {
+      String lineHashes = dbComponent.getPath() == null ? null : lineHashesByFileUuid.get(dbComponent.getUuid());
+      dbFiles.add(lineHashes == null ? null : new File(dbComponent.getPath(), LINES_HASHES_SPLITTER.splitToList(lineHashes)));
     }
-    String lineHashes = firstNonNull(fileSourceDto.getLineHashes(), "");
-    return new File(dbComponent.getPath(), LINES_HASHES_SPLITTER.splitToList(lineHashes));
+    return dbFiles;
   }
 
   private static void printIfDebug(ScoreMatrix scoreMatrix) {
@@ -48,4 +48,10 @@ public interface FileSimilarity {
   }
 
   int score(File file1, File file2);
+
+  /**
+   * Upper bound of {@link #score(File, File)}, computed without comparing the content of the files. It allows
+   * to not compare files which can't be similar enough.
+   */
+  int maxScore(File file1, File file2);
 }
@@ -35,4 +35,9 @@ public class FileSimilarityImpl implements FileSimilarity {
 
     return sourceSimilarity.score(file1.getLineHashes(), file2.getLineHashes());
   }
+
+  @Override
+  public int maxScore(File file1, File file2) {
+    return sourceSimilarity.maxScore(file1.getLineHashes().size(), file2.getLineHashes().size());
+  }
 }
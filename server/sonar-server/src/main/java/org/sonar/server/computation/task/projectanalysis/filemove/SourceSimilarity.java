@@ -28,4 +28,9 @@ public interface SourceSimilarity {
    * Range: between 0 and 100
    */
   <T extends Object> int score(List<T> left, List<T> right);
+
+  /**
+   * Upper bound of {@link #score(List, List)} for lists of the specified sizes, whatever their elements.
+   */
+  int maxScore(int leftSize, int rightSize);
 }
@@ -21,6 +21,7 @@ package org.sonar.server.computation.task.projectanalysis.filemove;
 
 import java.util.List;
 
+import static java.lang.Math.abs;
 import static java.lang.Math.max;
 import static java.lang.Math.min;
 
@@ -35,6 +36,18 @@ public class SourceSimilarityImpl implements SourceSimilarity {
     return (int) (100 * (1.0 - ((double) distance) / (max(left.size(), right.size()))));
   }
 
+  /**
+   * The Levenshtein distance is at least the difference between the sizes of the lists
+   */
+  @Override
+  public int maxScore(int leftSize, int rightSize) {
+    int maxSize = max(leftSize, rightSize);
+    if (maxSize == 0) {
+      return 0;
+    }
+    return (int) (100 * (1.0 - ((double) abs(leftSize - rightSize)) / maxSize));
+  }
+
   private static <T> int levenshteinDistance(List<T> left, List<T> right) {
     int len0 = left.size() + 1;
     int len1 = right.size() + 1;
@@ -0,0 +1,421 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.issue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.api.issue.IssueComment;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.rules.RuleType;
+import org.sonar.api.utils.Duration;
+import org.sonar.core.issue.DefaultIssue;
+import org.sonar.core.issue.DefaultIssueComment;
+import org.sonar.core.issue.FieldDiffs;
+import org.sonar.db.protobuf.DbIssues;
+import org.sonar.server.util.cache.DiskCacheCodec;
+
+/**
+ * Compact binary encoding of {@link DefaultIssue}, including its {@link FieldDiffs} and {@link DefaultIssueComment}s,
+ * used by {@link IssueCache}. Unlike Java serialization, no class descriptor is written for each issue.
+ */
+public class DefaultIssueCodec implements DiskCacheCodec<DefaultIssue> {
+
+  private static final int NULL = -1;
+
+  private static final byte VALUE_NULL = 0;
+  private static final byte VALUE_STRING = 1;
+  private static final byte VALUE_LONG = 2;
+  private static final byte VALUE_INTEGER = 3;
+  private static final byte VALUE_DOUBLE = 4;
+  private static final byte VALUE_SERIALIZED = 5;
+  private static final byte VALUE_DB_LOCATIONS = 6;
+
+  // a change is either one of these markers, or the index of the same instance in the list of changes
+  private static final int CHANGE_FOLLOWS = -1;
+  private static final int CHANGE_NULL = -2;
+
+  @Override
+  public void write(DefaultIssue issue, DataOutput output) throws IOException {
+    writeString(output, issue.key());
+    writeString(output, issue.type() == null ? null : issue.type().name());
+    writeString(output, issue.componentUuid());
+    writeString(output, issue.componentKey());
+    writeString(output, issue.moduleUuid());
+    writeString(output, issue.moduleUuidPath());
+    writeString(output, issue.projectUuid());
+    writeString(output, issue.projectKey());
+    RuleKey ruleKey = issue.ruleKey();
+    writeString(output, ruleKey == null ? null : ruleKey.repository());
+    writeString(output, ruleKey == null ? null : ruleKey.rule());
+    writeString(output, issue.language());
+    writeString(output, issue.severity());
+    output.writeBoolean(issue.manualSeverity());
+    writeString(output, issue.message());
+    output.writeInt(issue.line() == null ? NULL : issue.line());
+    writeValue(output, issue.gap());
+    writeValue(output, issue.effortInMinutes());
+    writeString(output, issue.status());
+    writeString(output, issue.resolution());
+    writeString(output, issue.assignee());
+    writeString(output, issue.checksum());
+    writeStringMap(output, issue.attributes());
+    writeString(output, issue.authorLogin());
+    writeComments(output, issue.comments());
+    writeTags(output, issue.tags());
+    writeValue(output, issue.getLocations());
+    writeDate(output, issue.creationDate());
+    writeDate(output, issue.updateDate());
+    writeDate(output, issue.closeDate());
+    writeChanges(output, issue.currentChange(), issue.changes());
+    output.writeBoolean(issue.isNew());
+    output.writeBoolean(issue.isBeingClosed());
+    output.writeBoolean(issue.isOnDisabledRule());
+    output.writeBoolean(issue.isChanged());
+    output.writeBoolean(issue.mustSendNotifications());
+    writeValue(output, issue.selectedAt());
+  }
+
+  @Override
+  public DefaultIssue read(DataInput input) throws IOException {
+    DefaultIssue issue = new DefaultIssue();
+    issue.setKey(readString(input));
+    String type = readString(input);
+    issue.setType(type == null ? null : RuleType.valueOf(type));
+    issue.setComponentUuid(readString(input));
+    issue.setComponentKey(readString(input));
+    issue.setModuleUuid(readString(input));
+    issue.setModuleUuidPath(readString(input));
+    issue.setProjectUuid(readString(input));
+    issue.setProjectKey(readString(input));
+    String ruleRepository = readString(input);
+    String rule = readString(input);
+    issue.setRuleKey(ruleRepository == null ? null : RuleKey.of(ruleRepository, rule));
+    issue.setLanguage(readString(input));
+    issue.setSeverity(readString(input));
+    issue.setManualSeverity(input.readBoolean());
+    issue.setMessage(readString(input));
+    int line = input.readInt();
+    issue.setLine(line == NULL ? null : line);
+    issue.setGap((Double) readValue(input));
+    Long effort = (Long) readValue(input);
+    issue.setEffort(effort == null ? null : Duration.create(effort));
+    String status = readString(input);
+    if (status != null) {
+      issue.setStatus(status);
+    }
+    issue.setResolution(readString(input));
+    issue.setAssignee(readString(input));
+    issue.setChecksum(readString(input));
+    issue.setAttributes(readStringMap(input));
+    issue.setAuthorLogin(readString(input));
+    readComments(input, issue);
+    Set<String> tags = readTags(input);
+    if (tags != null) {
+      issue.setTags(tags);
+    }
+    issue.setLocations(readValue(input));
+    issue.setCreationDate(readDate(input));
+    issue.setUpdateDate(readDate(input));
+    issue.setCloseDate(readDate(input));
+    readChanges(input, issue);
+    issue.setNew(input.readBoolean());
+    issue.setBeingClosed(input.readBoolean());
+    issue.setOnDisabledRule(input.readBoolean());
+    issue.setChanged(input.readBoolean());
+    issue.setSendNotifications(input.readBoolean());
+    issue.setSelectedAt((Long) readValue(input));
+    return issue;
+  }
+
+  private static void writeComments(DataOutput output, List<IssueComment> comments) throws IOException {
+    output.writeInt(comments.size());
+    for (IssueComment comment : comments) {
+      DefaultIssueComment defaultComment = (DefaultIssueComment) comment;
+      writeString(output, defaultComment.issueKey());
+      writeString(output, defaultComment.key());
+      writeString(output, defaultComment.userLogin());
+      writeString(output, defaultComment.markdownText());
+      writeDate(output, defaultComment.createdAt());
+      writeDate(output, defaultComment.updatedAt());
+      output.writeBoolean(defaultComment.isNew());
+    }
+  }
+
+  private static void readComments(DataInput input, DefaultIssue issue) throws IOException {
+    int size = input.readInt();
+    for (int i = 0; i < size; i++) {
+      DefaultIssueComment comment = new DefaultIssueComment()
+        .setIssueKey(readString(input))
+        .setKey(readString(input))
+        .setUserLogin(readString(input))
+        .setMarkdownText(readString(input))
+        .setCreatedAt(readDate(input))
+        .setUpdatedAt(readDate(input))
+        .setNew(input.readBoolean());
+      issue.addComment(comment);
+    }
+  }
+
+  private static void writeTags(DataOutput output, Set<String> tags) throws IOException {
+    output.writeInt(tags.size());
+    for (String tag : tags) {
+      writeString(output, tag);
+    }
+  }
+
+  @CheckForNull
+  private static Set<String> readTags(DataInput input) throws IOException {
+    int size = input.readInt();
+    if (size == 0) {
+      return null;
+    }
+    Set<String> tags = new LinkedHashSet<>(size);
+    for (int i = 0; i < size; i++) {
+      tags.add(readString(input));
+    }
+    return tags;
+  }
+
+  /**
+   * The current change is usually one of the changes, possibly several times. Identity of
+   * instances is kept by writing the index of their first occurrence.
+   */
+  private static void writeChanges(DataOutput output, @Nullable FieldDiffs currentChange, List<FieldDiffs> changes) throws IOException {
+    output.writeInt(changes.size());
+    for (int i = 0; i < changes.size(); i++) {
+      writeChange(output, changes.get(i), changes, i);
+    }
+    writeChange(output, currentChange, changes, changes.size());
+  }
+
+  private static void writeChange(DataOutput output, @Nullable FieldDiffs change, List<FieldDiffs> changes, int end) throws IOException {
+    if (change == null) {
+      output.writeInt(CHANGE_NULL);
+      return;
+    }
+    for (int i = 0; i < end; i++) {
+      if (changes.get(i) == change) {
+        output.writeInt(i);
+        return;
+      }
+    }
+    output.writeInt(CHANGE_FOLLOWS);
+    writeFieldDiffs(output, change);
+  }
+
+  private static void readChanges(DataInput input, DefaultIssue issue) throws IOException {
+    int size = input.readInt();
+    List<FieldDiffs> changes = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      changes.add(readChange(input, changes));
+    }
+    FieldDiffs currentChange = readChange(input, changes);
+    if (currentChange != null) {
+      issue.setCurrentChange(currentChange);
+    }
+    if (!changes.isEmpty() || currentChange != null) {
+      // replaces the list of changes initialized by setCurrentChange()
+      issue.setChanges(changes);
+    }
+  }
+
+  @CheckForNull
+  private static FieldDiffs readChange(DataInput input, List<FieldDiffs> changes) throws IOException {
+    int marker = input.readInt();
+    if (marker == CHANGE_NULL) {
+      return null;
+    }
+    if (marker == CHANGE_FOLLOWS) {
+      return readFieldDiffs(input);
+    }
+    return changes.get(marker);
+  }
+
+  private static void writeFieldDiffs(DataOutput output, FieldDiffs fieldDiffs) throws IOException {
+    writeString(output, fieldDiffs.issueKey());
+    writeString(output, fieldDiffs.userLogin());
+    writeDate(output, fieldDiffs.creationDate());
+    Map<String, FieldDiffs.Diff> diffs = fieldDiffs.diffs();
+    output.writeInt(diffs.size());
+    for (Map.Entry<String, FieldDiffs.Diff> diff : diffs.entrySet()) {
+      writeString(output, diff.getKey());
+      writeValue(output, diff.getValue().oldValue());
+      writeValue(output, diff.getValue().newValue());
+    }
+  }
+
+  private static FieldDiffs readFieldDiffs(DataInput input) throws IOException {
+    FieldDiffs fieldDiffs = new FieldDiffs()
+      .setIssueKey(readString(input))
+      .setUserLogin(readString(input))
+      .setCreationDate(readDate(input));
+    int size = input.readInt();
+    for (int i = 0; i < size; i++) {
+      String field = readString(input);
+      Serializable oldValue = (Serializable) readValue(input);
+      Serializable newValue = (Serializable) readValue(input);
+      fieldDiffs.diffs().put(field, new FieldDiffs.Diff<>(oldValue, newValue));
+    }
+    return fieldDiffs;
+  }
+
+  private static void writeStringMap(DataOutput output, Map<String, String> map) throws IOException {
+    output.writeInt(map.size());
+    for (Map.Entry<String, String> entry : map.entrySet()) {
+      writeString(output, entry.getKey());
+      writeString(output, entry.getValue());
+    }
+  }
+
+  @CheckForNull
+  private static Map<String, String> readStringMap(DataInput input) throws IOException {
+    int size = input.readInt();
+    if (size == 0) {
+      return null;
+    }
+    Map<String, String> map = new LinkedHashMap<>(size);
+    for (int i = 0; i < size; i++) {
+      map.put(readString(input), readString(input));
+    }
+    return map;
+  }
+
+  private static void writeDate(DataOutput output, @Nullable Date date) throws IOException {
+    output.writeBoolean(date != null);
+    if (date != null) {
+      output.writeLong(date.getTime());
+    }
+  }
+
+  @CheckForNull
+  private static Date readDate(DataInput input) throws IOException {
+    return input.readBoolean() ? new Date(input.readLong()) : null;
+  }
+
+  /**
+   * Unlike {@link DataOutput#writeUTF(String)}, length of strings is not limited to 64KB.
+   */
+  private static void writeString(DataOutput output, @Nullable String s) throws IOException {
+    if (s == null) {
+      output.writeInt(NULL);
+    } else {
+      byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+      output.writeInt(bytes.length);
+      output.write(bytes);
+    }
+  }
+
+  @CheckForNull
+  private static String readString(DataInput input) throws IOException {
+    int length = input.readInt();
+    if (length == NULL) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    input.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Values of {@link FieldDiffs}, locations and numbers. Types which are not known are
+   * stored with Java serialization.
+   */
+  private static void writeValue(DataOutput output, @Nullable Object value) throws IOException {
+    if (value == null) {
+      output.writeByte(VALUE_NULL);
+    } else if (value instanceof String) {
+      output.writeByte(VALUE_STRING);
+      writeString(output, (String) value);
+    } else if (value instanceof Long) {
+      output.writeByte(VALUE_LONG);
+      output.writeLong((Long) value);
+    } else if (value instanceof Integer) {
+      output.writeByte(VALUE_INTEGER);
+      output.writeInt((Integer) value);
+    } else if (value instanceof Double) {
+      output.writeByte(VALUE_DOUBLE);
+      output.writeDouble((Double) value);
+    } else if (value instanceof DbIssues.Locations) {
+      output.writeByte(VALUE_DB_LOCATIONS);
+      writeBytes(output, ((DbIssues.Locations) value).toByteArray());
+    } else {
+      output.writeByte(VALUE_SERIALIZED);
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (ObjectOutputStream objectOutput = new ObjectOutputStream(bytes)) {
+        objectOutput.writeObject(value);
+      }
+      writeBytes(output, bytes.toByteArray());
+    }
+  }
+
+  @CheckForNull
+  private static Object readValue(DataInput input) throws IOException {
+    byte type = input.readByte();
+    switch (type) {
+      case VALUE_NULL:
+        return null;
+      case VALUE_STRING:
+        return readString(input);
+      case VALUE_LONG:
+        return input.readLong();
+      case VALUE_INTEGER:
+        return input.readInt();
+      case VALUE_DOUBLE:
+        return input.readDouble();
+      case VALUE_DB_LOCATIONS:
+        return DbIssues.Locations.parseFrom(readBytes(input));
+      case VALUE_SERIALIZED:
+        try (ObjectInputStream objectInput = new ObjectInputStream(new ByteArrayInputStream(readBytes(input)))) {
+          return objectInput.readObject();
+        } catch (ClassNotFoundException e) {
+          throw new IllegalStateException("Fail to deserialize value", e);
+        }
+      default:
+        throw new IllegalStateException("Unsupported type of value: " + type);
+    }
+  }
+
+  private static void writeBytes(DataOutput output, byte[] bytes) throws IOException {
+    output.writeInt(bytes.length);
+    output.write(bytes);
+  }
+
+  private static byte[] readBytes(DataInput input) throws IOException {
+    byte[] bytes = new byte[input.readInt()];
+    input.readFully(bytes);
+    return bytes;
+  }
+}
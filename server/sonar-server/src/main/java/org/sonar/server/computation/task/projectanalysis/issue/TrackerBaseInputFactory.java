@@ -19,9 +19,14 @@
  */
 package org.sonar.server.computation.task.projectanalysis.issue;
 
+import com.google.common.base.Splitter;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import javax.annotation.CheckForNull;
+import java.util.Map;
+import java.util.Set;
 import javax.annotation.Nullable;
 import org.sonar.core.issue.DefaultIssue;
 import org.sonar.core.issue.tracking.Input;
@@ -29,38 +34,137 @@ import org.sonar.core.issue.tracking.LazyInput;
 import org.sonar.core.issue.tracking.LineHashSequence;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
+import org.sonar.db.source.FileSourceDto;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthLimit;
+import org.sonar.server.computation.task.projectanalysis.component.DepthTraversalTypeAwareCrawler;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
+import org.sonar.server.computation.task.projectanalysis.component.TypeAwareVisitorAdapter;
 import org.sonar.server.computation.task.projectanalysis.filemove.MovedFilesRepository;
 import org.sonar.server.computation.task.projectanalysis.filemove.MovedFilesRepository.OriginalFile;
 
+import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.POST_ORDER;
+
 /**
  * Factory of {@link Input} of base data for issue tracking. Data are lazy-loaded.
+ * <p>
+ * Components are expected to be requested in the order of {@link IntegrateIssuesVisitor}. When the data of a component
+ * are loaded, the data of the next {@link #PREFETCH_SIZE} components are loaded too, so that the number of requests
+ * does not depend on the number of files. Data of components which are requested out of this order are loaded
+ * individually.
+ * </p>
  */
 public class TrackerBaseInputFactory {
   private static final LineHashSequence EMPTY_LINE_HASH_SEQUENCE = new LineHashSequence(Collections.<String>emptyList());
+  private static final Splitter END_OF_LINE_SPLITTER = Splitter.on('\n');
+  static final int PREFETCH_SIZE = 200;
 
+  private final TreeRootHolder treeRootHolder;
   private final BaseIssuesLoader baseIssuesLoader;
   private final DbClient dbClient;
   private final MovedFilesRepository movedFilesRepository;
 
-  public TrackerBaseInputFactory(BaseIssuesLoader baseIssuesLoader, DbClient dbClient, MovedFilesRepository movedFilesRepository) {
+  private List<Component> componentsInVisitOrder;
+  private Map<String, Integer> visitIndexByUuid;
+  private Set<String> uuidsOfComponentsWithOpenIssues;
+  private final Set<String> prefetchedComponentUuids = new HashSet<>();
+  private final Map<String, List<DefaultIssue>> prefetchedIssues = new HashMap<>();
+  private final Map<String, LineHashSequence> prefetchedLineHashes = new HashMap<>();
+
+  public TrackerBaseInputFactory(TreeRootHolder treeRootHolder, BaseIssuesLoader baseIssuesLoader, DbClient dbClient,
+    MovedFilesRepository movedFilesRepository) {
+    this.treeRootHolder = treeRootHolder;
     this.baseIssuesLoader = baseIssuesLoader;
     this.dbClient = dbClient;
     this.movedFilesRepository = movedFilesRepository;
   }
 
   public Input<DefaultIssue> create(Component component) {
-    return new BaseLazyInput(component, movedFilesRepository.getOriginalFile(component).orNull());
+    return new BaseLazyInput(component, effectiveUuid(component));
+  }
+
+  /**
+   * Uuid of the component in the previous analysis, which differs from the current uuid when the file has been moved
+   */
+  private String effectiveUuid(Component component) {
+    OriginalFile originalFile = movedFilesRepository.getOriginalFile(component).orNull();
+    return originalFile == null ? component.getUuid() : originalFile.getUuid();
+  }
+
+  private void prefetch(Component component) {
+    if (prefetchedComponentUuids.contains(component.getUuid())) {
+      return;
+    }
+    if (componentsInVisitOrder == null) {
+      initVisitOrder();
+    }
+    // data of the previous components are not needed anymore
+    prefetchedComponentUuids.clear();
+    prefetchedIssues.clear();
+    prefetchedLineHashes.clear();
+
+    Integer index = visitIndexByUuid.get(component.getUuid());
+    List<Component> components = index == null ? Collections.singletonList(component)
+      : componentsInVisitOrder.subList(index, Math.min(index + PREFETCH_SIZE, componentsInVisitOrder.size()));
+    List<String> uuidsWithIssues = new ArrayList<>();
+    List<String> fileUuidsWithIssues = new ArrayList<>();
+    for (Component c : components) {
+      prefetchedComponentUuids.add(c.getUuid());
+      String uuid = effectiveUuid(c);
+      if (uuidsOfComponentsWithOpenIssues.contains(uuid)) {
+        uuidsWithIssues.add(uuid);
+        if (c.getType() == Component.Type.FILE) {
+          fileUuidsWithIssues.add(uuid);
+        }
+      }
+    }
+
+    for (String uuid : uuidsWithIssues) {
+      prefetchedIssues.put(uuid, new ArrayList<>());
+    }
+    prefetchedIssues.putAll(baseIssuesLoader.loadForComponentUuids(uuidsWithIssues));
+    for (String fileUuid : fileUuidsWithIssues) {
+      prefetchedLineHashes.put(fileUuid, EMPTY_LINE_HASH_SEQUENCE);
+    }
+    if (!fileUuidsWithIssues.isEmpty()) {
+      try (DbSession session = dbClient.openSession(false)) {
+        for (FileSourceDto dto : dbClient.fileSourceDao().selectLineHashesByFileUuids(session, fileUuidsWithIssues)) {
+          prefetchedLineHashes.put(dto.getFileUuid(), toLineHashSequence(dto.getLineHashes()));
+        }
+      }
+    }
+  }
+
+  private void initVisitOrder() {
+    List<Component> components = new ArrayList<>();
+    new DepthTraversalTypeAwareCrawler(new TypeAwareVisitorAdapter(CrawlerDepthLimit.FILE, POST_ORDER) {
+      @Override
+      public void visitAny(Component component) {
+        components.add(component);
+      }
+    }).visit(treeRootHolder.getRoot());
+    this.componentsInVisitOrder = components;
+    this.visitIndexByUuid = new HashMap<>();
+    for (int i = 0; i < components.size(); i++) {
+      visitIndexByUuid.put(components.get(i).getUuid(), i);
+    }
+    this.uuidsOfComponentsWithOpenIssues = baseIssuesLoader.loadUuidsOfComponentsWithOpenIssues();
+  }
+
+  private static LineHashSequence toLineHashSequence(@Nullable String lineHashes) {
+    if (lineHashes == null || lineHashes.isEmpty()) {
+      return EMPTY_LINE_HASH_SEQUENCE;
+    }
+    return new LineHashSequence(END_OF_LINE_SPLITTER.splitToList(lineHashes));
   }
 
   private class BaseLazyInput extends LazyInput<DefaultIssue> {
     private final Component component;
-    @CheckForNull
     private final String effectiveUuid;
 
-    private BaseLazyInput(Component component, @Nullable OriginalFile originalFile) {
+    private BaseLazyInput(Component component, String effectiveUuid) {
       this.component = component;
-      this.effectiveUuid = originalFile == null ? component.getUuid() : originalFile.getUuid();
+      this.effectiveUuid = effectiveUuid;
     }
 
     @Override
@@ -69,6 +173,15 @@ public class TrackerBaseInputFactory {
         return EMPTY_LINE_HASH_SEQUENCE;
       }
 
+      prefetch(component);
+      if (!uuidsOfComponentsWithOpenIssues.contains(effectiveUuid)) {
+        // line hashes are used only to match base issues
+        return EMPTY_LINE_HASH_SEQUENCE;
+      }
+      LineHashSequence prefetched = prefetchedLineHashes.get(effectiveUuid);
+      if (prefetched != null) {
+        return prefetched;
+      }
       try (DbSession session = dbClient.openSession(false)) {
         List<String> hashes = dbClient.fileSourceDao().selectLineHashes(session, effectiveUuid);
         if (hashes == null || hashes.isEmpty()) {
@@ -80,6 +193,14 @@ public class TrackerBaseInputFactory {
 
     @Override
     protected List<DefaultIssue> loadIssues() {
+      prefetch(component);
+      if (!uuidsOfComponentsWithOpenIssues.contains(effectiveUuid)) {
+        return new ArrayList<>();
+      }
+      List<DefaultIssue> prefetched = prefetchedIssues.get(effectiveUuid);
+      if (prefetched != null) {
+        return prefetched;
+      }
       return baseIssuesLoader.loadForComponentUuid(effectiveUuid);
     }
   }
@@ -20,12 +20,17 @@
 package org.sonar.server.computation.task.projectanalysis.scm;
 
 import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableSet;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
+import org.sonar.db.protobuf.DbFileSources;
 import org.sonar.db.source.FileSourceDto;
 import org.sonar.scanner.protocol.output.ScannerReport;
 import org.sonar.server.computation.task.projectanalysis.analysis.AnalysisMetadataHolder;
@@ -39,6 +44,14 @@ import static java.util.Objects.requireNonNull;
 public class ScmInfoRepositoryImpl implements ScmInfoRepository {
 
   private static final Logger LOGGER = Loggers.get(ScmInfoRepositoryImpl.class);
+  /**
+   * Only the SCM fields of the lines are read from db, source and highlighting are not deserialized
+   */
+  private static final Set<Integer> SCM_FIELDS = ImmutableSet.of(
+    DbFileSources.Line.LINE_FIELD_NUMBER,
+    DbFileSources.Line.SCM_REVISION_FIELD_NUMBER,
+    DbFileSources.Line.SCM_AUTHOR_FIELD_NUMBER,
+    DbFileSources.Line.SCM_DATE_FIELD_NUMBER);
 
   private final BatchReportReader batchReportReader;
   private final AnalysisMetadataHolder analysisMetadataHolder;
@@ -104,7 +117,9 @@ public class ScmInfoRepositoryImpl implements ScmInfoRepository {
       if (dto == null || !isDtoValid(file, dto)) {
         return NoScmInfo.INSTANCE;
       }
-      return DbScmInfo.create(file, dto.getSourceData().getLinesList()).or(NoScmInfo.INSTANCE);
+      List<DbFileSources.Line> lines = new ArrayList<>();
+      dto.readSourceLines(SCM_FIELDS, lines::add);
+      return DbScmInfo.create(file, lines).or(NoScmInfo.INSTANCE);
     }
   }
 
@@ -43,14 +43,12 @@ import org.sonar.server.computation.task.projectanalysis.measure.MeasureKey;
 import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepository;
 import org.sonar.server.computation.task.projectanalysis.metric.Metric;
 import org.sonar.server.computation.task.projectanalysis.metric.MetricRepository;
-import org.sonar.server.computation.task.projectanalysis.period.Period;
 import org.sonar.server.computation.task.projectanalysis.period.PeriodHolder;
 import org.sonar.server.computation.task.step.ComputationStep;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.lang.String.format;
-import static java.util.function.Function.identity;
-import static org.sonar.core.util.stream.MoreCollectors.uniqueIndex;
+import static java.util.Collections.emptyMap;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.DIRECTORY;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.SUBVIEW;
 import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.PRE_ORDER;
@@ -80,25 +78,40 @@ public class ComputeMeasureVariationsStep implements ComputationStep {
 
   @Override
   public void execute() {
+    List<Metric> metrics = StreamSupport.stream(metricRepository.getAll().spliterator(), false).filter(isNumeric()).collect(MoreCollectors.toList());
+    Map<String, Map<Integer, PastMeasureDto>> pastMeasuresByComponentUuid = loadPastMeasures(metrics);
+    new DepthTraversalTypeAwareCrawler(new VariationMeasuresVisitor(metrics, pastMeasuresByComponentUuid))
+      .visit(treeRootHolder.getRoot());
+  }
+
+  /**
+   * Past measures of all the components are loaded by a single request rather than one request per component
+   */
+  private Map<String, Map<Integer, PastMeasureDto>> loadPastMeasures(List<Metric> metrics) {
+    Map<String, Map<Integer, PastMeasureDto>> pastMeasuresByComponentUuid = new HashMap<>();
+    if (!periodHolder.hasPeriod() || metrics.isEmpty()) {
+      return pastMeasuresByComponentUuid;
+    }
+    Set<Integer> metricIds = metrics.stream().map(Metric::getId).collect(MoreCollectors.toSet());
     try (DbSession dbSession = dbClient.openSession(false)) {
-      List<Metric> metrics = StreamSupport.stream(metricRepository.getAll().spliterator(), false).filter(isNumeric()).collect(MoreCollectors.toList());
-      new DepthTraversalTypeAwareCrawler(new VariationMeasuresVisitor(dbSession, metrics))
-        .visit(treeRootHolder.getRoot());
+      dbClient.measureDao().scrollPastMeasures(dbSession, periodHolder.getPeriod().getAnalysisUuid(), metricIds, context -> {
+        PastMeasureDto pastMeasure = context.getResultObject();
+        pastMeasuresByComponentUuid.computeIfAbsent(pastMeasure.getComponentUuid(), k -> new HashMap<>()).put(pastMeasure.getMetricId(), pastMeasure);
+      });
     }
+    return pastMeasuresByComponentUuid;
   }
 
   private class VariationMeasuresVisitor extends TypeAwareVisitorAdapter {
 
-    private final DbSession session;
-    private final Set<Integer> metricIds;
     private final List<Metric> metrics;
+    private final Map<String, Map<Integer, PastMeasureDto>> pastMeasuresByComponentUuid;
 
-    VariationMeasuresVisitor(DbSession session, List<Metric> metrics) {
+    VariationMeasuresVisitor(List<Metric> metrics, Map<String, Map<Integer, PastMeasureDto>> pastMeasuresByComponentUuid) {
       // measures on files are currently purged, so past measures are not available on files
       super(CrawlerDepthLimit.reportMaxDepth(DIRECTORY).withViewsMaxDepth(SUBVIEW), PRE_ORDER);
-      this.session = session;
-      this.metricIds = metrics.stream().map(Metric::getId).collect(MoreCollectors.toSet());
       this.metrics = metrics;
+      this.pastMeasuresByComponentUuid = pastMeasuresByComponentUuid;
     }
 
     @Override
@@ -110,22 +123,18 @@ public class ComputeMeasureVariationsStep implements ComputationStep {
     private MeasuresWithVariationRepository computeMeasuresWithVariations(Component component) {
       MeasuresWithVariationRepository measuresWithVariationRepository = new MeasuresWithVariationRepository();
       if (periodHolder.hasPeriod()) {
-        Period period = periodHolder.getPeriod();
-        List<PastMeasureDto> pastMeasures = dbClient.measureDao()
-          .selectPastMeasures(session, component.getUuid(), period.getAnalysisUuid(), metricIds);
+        Map<Integer, PastMeasureDto> pastMeasures = pastMeasuresByComponentUuid.getOrDefault(component.getUuid(), emptyMap());
         setVariationMeasures(component, pastMeasures, measuresWithVariationRepository);
       }
       return measuresWithVariationRepository;
     }
 
-    private void setVariationMeasures(Component component, List<PastMeasureDto> pastMeasures, MeasuresWithVariationRepository measuresWithVariationRepository) {
-      Map<MeasureKey, PastMeasureDto> pastMeasuresByMeasureKey = pastMeasures
-        .stream()
-        .collect(uniqueIndex(m -> new MeasureKey(metricRepository.getById((long) m.getMetricId()).getKey(), null), identity()));
+    private void setVariationMeasures(Component component, Map<Integer, PastMeasureDto> pastMeasuresByMetricId,
+      MeasuresWithVariationRepository measuresWithVariationRepository) {
       for (Metric metric : metrics) {
         Optional<Measure> measure = measureRepository.getRawMeasure(component, metric);
         if (measure.isPresent() && !measure.get().hasVariation()) {
-          PastMeasureDto pastMeasure = pastMeasuresByMeasureKey.get(new MeasureKey(metric.getKey(), null));
+          PastMeasureDto pastMeasure = pastMeasuresByMetricId.get(metric.getId());
           double pastValue = (pastMeasure != null && pastMeasure.hasValue()) ? pastMeasure.getValue() : 0d;
           measuresWithVariationRepository.add(metric, measure.get(), computeVariation(measure.get(), pastValue));
         }
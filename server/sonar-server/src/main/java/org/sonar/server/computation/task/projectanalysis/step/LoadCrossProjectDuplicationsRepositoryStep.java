@@ -20,8 +20,14 @@
 package org.sonar.server.computation.task.projectanalysis.step;
 
 import com.google.common.base.Function;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import javax.annotation.Nonnull;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
@@ -79,7 +85,57 @@ public class LoadCrossProjectDuplicationsRepositoryStep implements ComputationSt
   @Override
   public void execute() {
     if (crossProjectDuplicationStatusHolder.isEnabled()) {
-      new DepthTraversalTypeAwareCrawler(new CrossProjectDuplicationVisitor()).visit(treeRootHolder.getRoot());
+      HashesVisitor hashesVisitor = new HashesVisitor();
+      new DepthTraversalTypeAwareCrawler(hashesVisitor).visit(treeRootHolder.getRoot());
+      Map<String, ListMultimap<String, Block>> candidatesByLanguage = selectCandidates(hashesVisitor.hashesByLanguage);
+      if (!candidatesByLanguage.isEmpty()) {
+        new DepthTraversalTypeAwareCrawler(new CrossProjectDuplicationVisitor(candidatesByLanguage)).visit(treeRootHolder.getRoot());
+      }
+    }
+  }
+
+  /**
+   * Candidates of all the files of the project are loaded at once, rather than file by file, in order to limit
+   * the number of requests on the large table DUPLICATIONS_INDEX.
+   */
+  private Map<String, ListMultimap<String, Block>> selectCandidates(Map<String, Set<String>> hashesByLanguage) {
+    Map<String, ListMultimap<String, Block>> candidatesByLanguage = new HashMap<>();
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      Analysis projectAnalysis = analysisMetadataHolder.getBaseAnalysis();
+      String analysisUuid = projectAnalysis == null ? null : projectAnalysis.getUuid();
+      for (Map.Entry<String, Set<String>> entry : hashesByLanguage.entrySet()) {
+        List<DuplicationUnitDto> dtos = dbClient.duplicationDao().selectCandidates(dbSession, analysisUuid, entry.getKey(), entry.getValue());
+        LOGGER.debug("Found {} duplicated cpd blocks for {} hashes of language {}", dtos.size(), entry.getValue().size(), entry.getKey());
+        if (!dtos.isEmpty()) {
+          ListMultimap<String, Block> candidatesByHash = ArrayListMultimap.create();
+          for (DuplicationUnitDto dto : dtos) {
+            candidatesByHash.put(dto.getHash(), DtoToBlock.INSTANCE.apply(dto));
+          }
+          candidatesByLanguage.put(entry.getKey(), candidatesByHash);
+        }
+      }
+    }
+    return candidatesByLanguage;
+  }
+
+  private class HashesVisitor extends TypeAwareVisitorAdapter {
+    private final Map<String, Set<String>> hashesByLanguage = new HashMap<>();
+
+    private HashesVisitor() {
+      super(CrawlerDepthLimit.FILE, PRE_ORDER);
+    }
+
+    @Override
+    public void visitFile(Component file) {
+      List<CpdTextBlock> cpdTextBlocks = newArrayList(reportReader.readCpdTextBlocks(file.getReportAttributes().getRef()));
+      LOGGER.trace("Found {} cpd blocks on file {}", cpdTextBlocks.size(), file.getKey());
+      if (cpdTextBlocks.isEmpty()) {
+        return;
+      }
+      Set<String> hashes = hashesByLanguage.computeIfAbsent(file.getFileAttributes().getLanguageKey(), language -> new LinkedHashSet<>());
+      for (CpdTextBlock cpdTextBlock : cpdTextBlocks) {
+        hashes.add(cpdTextBlock.getHash());
+      }
     }
   }
 
@@ -89,47 +145,45 @@ public class LoadCrossProjectDuplicationsRepositoryStep implements ComputationSt
   }
 
   private class CrossProjectDuplicationVisitor extends TypeAwareVisitorAdapter {
+    private final Map<String, ListMultimap<String, Block>> candidatesByLanguage;
 
-    private CrossProjectDuplicationVisitor() {
+    private CrossProjectDuplicationVisitor(Map<String, ListMultimap<String, Block>> candidatesByLanguage) {
       super(CrawlerDepthLimit.FILE, PRE_ORDER);
+      this.candidatesByLanguage = candidatesByLanguage;
     }
 
     @Override
     public void visitFile(Component file) {
+      ListMultimap<String, Block> candidatesByHash = candidatesByLanguage.get(file.getFileAttributes().getLanguageKey());
+      if (candidatesByHash == null) {
+        return;
+      }
       List<CpdTextBlock> cpdTextBlocks = newArrayList(reportReader.readCpdTextBlocks(file.getReportAttributes().getRef()));
-      LOGGER.trace("Found {} cpd blocks on file {}", cpdTextBlocks.size(), file.getKey());
       if (cpdTextBlocks.isEmpty()) {
         return;
       }
 
-      Collection<String> hashes = from(cpdTextBlocks).transform(CpdTextBlockToHash.INSTANCE).toList();
-      List<DuplicationUnitDto> dtos = selectDuplicates(file, hashes);
-      if (dtos.isEmpty()) {
+      List<Block> duplicatedBlocks = selectDuplicates(candidatesByHash, cpdTextBlocks);
+      if (duplicatedBlocks.isEmpty()) {
         return;
       }
 
-      Collection<Block> duplicatedBlocks = from(dtos).transform(DtoToBlock.INSTANCE).toList();
       Collection<Block> originBlocks = from(cpdTextBlocks).transform(new CpdTextBlockToBlock(file.getKey())).toList();
       LOGGER.trace("Found {} duplicated cpd blocks on file {}", duplicatedBlocks.size(), file.getKey());
 
       integrateCrossProjectDuplications.computeCpd(file, originBlocks, duplicatedBlocks);
     }
 
-    private List<DuplicationUnitDto> selectDuplicates(Component file, Collection<String> hashes) {
-      try (DbSession dbSession = dbClient.openSession(false)) {
-        Analysis projectAnalysis = analysisMetadataHolder.getBaseAnalysis();
-        String analysisUuid = projectAnalysis == null ? null : projectAnalysis.getUuid();
-        return dbClient.duplicationDao().selectCandidates(dbSession, analysisUuid, file.getFileAttributes().getLanguageKey(), hashes);
+    private List<Block> selectDuplicates(ListMultimap<String, Block> candidatesByHash, List<CpdTextBlock> cpdTextBlocks) {
+      Set<String> hashes = new LinkedHashSet<>();
+      for (CpdTextBlock cpdTextBlock : cpdTextBlocks) {
+        hashes.add(cpdTextBlock.getHash());
       }
-    }
-  }
-
-  private enum CpdTextBlockToHash implements Function<CpdTextBlock, String> {
-    INSTANCE;
-
-    @Override
-    public String apply(@Nonnull CpdTextBlock duplicationBlock) {
-      return duplicationBlock.getHash();
+      List<Block> duplicatedBlocks = newArrayList();
+      for (String hash : hashes) {
+        duplicatedBlocks.addAll(candidatesByHash.get(hash));
+      }
+      return duplicatedBlocks;
     }
   }
 
@@ -64,6 +64,11 @@ import static org.sonar.server.computation.task.projectanalysis.component.Compon
 
 public class PersistFileSourcesStep implements ComputationStep {
 
+  /**
+   * Inserts and updates are executed immediately (no batch session) but committed by groups of files.
+   */
+  static final int MAX_UNCOMMITTED_FILES = 100;
+
   private final DbClient dbClient;
   private final System2 system2;
   private final TreeRootHolder treeRootHolder;
@@ -91,6 +96,7 @@ public class PersistFileSourcesStep implements ComputationStep {
     try (DbSession dbSession = dbClient.openSession(false)) {
       new DepthTraversalTypeAwareCrawler(new FileSourceVisitor(dbSession))
         .visit(treeRootHolder.getRoot());
+      dbSession.commit();
     }
   }
 
@@ -100,6 +106,7 @@ public class PersistFileSourcesStep implements ComputationStep {
 
     private Map<String, FileSourceDto> previousFileSourcesByUuid = new HashMap<>();
     private String projectUuid;
+    private int uncommittedFiles = 0;
 
     private FileSourceVisitor(DbSession session) {
       super(CrawlerDepthLimit.FILE, PRE_ORDER);
@@ -158,7 +165,7 @@ public class PersistFileSourcesStep implements ComputationStep {
           .setUpdatedAt(system2.now())
           .setRevision(computeRevision(latestChange));
         dbClient.fileSourceDao().insert(session, dto);
-        session.commit();
+        commitIfNeeded();
       } else {
         // Update only if data_hash has changed or if src_hash is missing or revision is missing (progressive migration)
         boolean binaryDataUpdated = !dataHash.equals(previousDto.getDataHash());
@@ -174,11 +181,19 @@ public class PersistFileSourcesStep implements ComputationStep {
             .setRevision(revision)
             .setUpdatedAt(system2.now());
           dbClient.fileSourceDao().update(session, previousDto);
-          session.commit();
+          commitIfNeeded();
         }
       }
     }
 
+    private void commitIfNeeded() {
+      uncommittedFiles++;
+      if (uncommittedFiles >= MAX_UNCOMMITTED_FILES) {
+        session.commit();
+        uncommittedFiles = 0;
+      }
+    }
+
     @CheckForNull
     private String computeRevision(@Nullable Changeset latestChange) {
       if (latestChange == null) {
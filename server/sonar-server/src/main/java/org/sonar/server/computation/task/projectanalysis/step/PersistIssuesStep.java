@@ -25,10 +25,10 @@ import org.sonar.core.issue.DefaultIssue;
 import org.sonar.core.issue.DefaultIssueComment;
 import org.sonar.core.issue.FieldDiffs;
 import org.sonar.core.util.CloseableIterator;
+import org.sonar.db.BulkInserter;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.issue.IssueChangeDto;
-import org.sonar.db.issue.IssueChangeMapper;
 import org.sonar.db.issue.IssueDto;
 import org.sonar.db.issue.IssueMapper;
 import org.sonar.server.computation.task.projectanalysis.issue.IssueCache;
@@ -55,26 +55,31 @@ public class PersistIssuesStep implements ComputationStep {
 
   @Override
   public void execute() {
+    // new issues and changes are inserted in bulk, updates of existing issues go through MyBatis
     try (DbSession dbSession = dbClient.openSession(true);
+      BulkInserter<IssueDto> issueInserter = dbClient.issueDao().newBulkInserter(dbSession);
+      BulkInserter<IssueChangeDto> changeInserter = dbClient.issueChangeDao().newBulkInserter(dbSession);
       CloseableIterator<DefaultIssue> issues = issueCache.traverse()) {
 
       IssueMapper mapper = dbSession.getMapper(IssueMapper.class);
-      IssueChangeMapper changeMapper = dbSession.getMapper(IssueChangeMapper.class);
       while (issues.hasNext()) {
         DefaultIssue issue = issues.next();
-        boolean saved = persistIssueIfRequired(mapper, issue);
+        boolean saved = persistIssueIfRequired(issueInserter, mapper, issue);
         if (saved) {
-          insertChanges(changeMapper, issue);
+          insertChanges(changeInserter, issue);
         }
       }
-      dbSession.flushStatements();
-      dbSession.commit();
+      // issues and their changes are committed together
+      issueInserter.flush();
+      changeInserter.flush();
+      // forced, as rows inserted by bulk inserters are unknown to MyBatis
+      dbSession.commit(true);
     }
   }
 
-  private boolean persistIssueIfRequired(IssueMapper mapper, DefaultIssue issue) {
+  private boolean persistIssueIfRequired(BulkInserter<IssueDto> issueInserter, IssueMapper mapper, DefaultIssue issue) {
     if (issue.isNew()) {
-      persistNewIssue(mapper, issue);
+      persistNewIssue(issueInserter, issue);
       return true;
     }
     if (issue.isChanged()) {
@@ -84,10 +89,10 @@ public class PersistIssuesStep implements ComputationStep {
     return false;
   }
 
-  private void persistNewIssue(IssueMapper mapper, DefaultIssue issue) {
+  private void persistNewIssue(BulkInserter<IssueDto> issueInserter, DefaultIssue issue) {
     Integer ruleId = ruleRepository.getByKey(issue.ruleKey()).getId();
     IssueDto dto = IssueDto.toDtoForComputationInsert(issue, ruleId, system2.now());
-    mapper.insert(dto);
+    issueInserter.add(dto);
   }
 
   private void persistChangedIssue(IssueMapper mapper, DefaultIssue issue) {
@@ -100,18 +105,16 @@ public class PersistIssuesStep implements ComputationStep {
     }
   }
 
-  private static void insertChanges(IssueChangeMapper mapper, DefaultIssue issue) {
+  private static void insertChanges(BulkInserter<IssueChangeDto> changeInserter, DefaultIssue issue) {
     for (IssueComment comment : issue.comments()) {
       DefaultIssueComment c = (DefaultIssueComment) comment;
       if (c.isNew()) {
-        IssueChangeDto changeDto = IssueChangeDto.of(c);
-        mapper.insert(changeDto);
+        changeInserter.add(IssueChangeDto.of(c));
       }
     }
     FieldDiffs diffs = issue.currentChange();
     if (!issue.isNew() && diffs != null) {
-      IssueChangeDto changeDto = IssueChangeDto.of(issue.key(), diffs);
-      mapper.insert(changeDto);
+      changeInserter.add(IssueChangeDto.of(issue.key(), diffs));
     }
   }
 
@@ -27,9 +27,9 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import javax.annotation.Nonnull;
+import org.sonar.db.BulkInserter;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
-import org.sonar.db.measure.MeasureDao;
 import org.sonar.db.measure.MeasureDto;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthLimit;
@@ -82,21 +82,19 @@ public class PersistMeasuresStep implements ComputationStep {
 
   @Override
   public void execute() {
-    DbSession dbSession = dbClient.openSession(true);
-    try {
-      new DepthTraversalTypeAwareCrawler(new MeasureVisitor(dbSession)).visit(treeRootHolder.getRoot());
-      dbSession.commit();
-    } finally {
-      dbSession.close();
+    try (DbSession dbSession = dbClient.openSession(false);
+      BulkInserter<MeasureDto> inserter = dbClient.measureDao().newBulkInserter(dbSession)) {
+      new DepthTraversalTypeAwareCrawler(new MeasureVisitor(inserter)).visit(treeRootHolder.getRoot());
+      inserter.commit();
     }
   }
 
   private class MeasureVisitor extends TypeAwareVisitorAdapter {
-    private final DbSession session;
+    private final BulkInserter<MeasureDto> inserter;
 
-    private MeasureVisitor(DbSession session) {
+    private MeasureVisitor(BulkInserter<MeasureDto> inserter) {
       super(CrawlerDepthLimit.LEAVES, PRE_ORDER);
-      this.session = session;
+      this.inserter = inserter;
     }
 
     @Override
@@ -114,10 +112,8 @@ public class PersistMeasuresStep implements ComputationStep {
 
         Metric metric = metricRepository.getByKey(metricKey);
         Predicate<Measure> notBestValueOptimized = Predicates.not(BestValueOptimization.from(metric, component));
-        MeasureDao measureDao = dbClient.measureDao();
         for (Measure measure : from(measures.getValue()).filter(NonEmptyMeasure.INSTANCE).filter(notBestValueOptimized)) {
-          MeasureDto measureDto = measureToMeasureDto.toMeasureDto(measure, metric, component);
-          measureDao.insert(session, measureDto);
+          inserter.add(measureToMeasureDto.toMeasureDto(measure, metric, component));
         }
       }
     }
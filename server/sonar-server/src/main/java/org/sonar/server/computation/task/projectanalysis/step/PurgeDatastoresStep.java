@@ -19,8 +19,17 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
+import org.sonar.api.config.Configuration;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.ce.queue.CeQueue;
+import org.sonar.ce.queue.CeTaskSubmit;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
+import org.sonar.db.ce.CeActivityDto;
+import org.sonar.db.ce.CeTaskQuery;
+import org.sonar.db.ce.CeTaskTypes;
 import org.sonar.db.purge.IdUuidPair;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.DbIdsRepository;
@@ -32,28 +41,43 @@ import org.sonar.server.computation.task.projectanalysis.component.TypeAwareVisi
 import org.sonar.server.computation.dbcleaner.ProjectCleaner;
 import org.sonar.server.computation.task.step.ComputationStep;
 
+import static java.util.Collections.singletonList;
+import static org.sonar.core.config.PurgeConstants.HOURS_BETWEEN_PURGES;
+import static org.sonar.db.Pagination.forPage;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.PROJECT;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.VIEW;
 import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.PRE_ORDER;
 import static org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthLimit.reportMaxDepth;
 
+/**
+ * Purges the components disabled by the analysis, then submits a {@link CeTaskTypes#PROJECT_PURGE} task to clean
+ * the history of the project in background, unless such a task is already pending or ran recently
+ * (see {@link org.sonar.core.config.PurgeConstants#HOURS_BETWEEN_PURGES}).
+ */
 public class PurgeDatastoresStep implements ComputationStep {
 
+  private static final Logger LOG = Loggers.get(PurgeDatastoresStep.class);
+  private static final long ONE_HOUR_IN_MS = 60 * 60 * 1000L;
+
   private final ProjectCleaner projectCleaner;
   private final DbClient dbClient;
   private final DbIdsRepository dbIdsRepository;
   private final TreeRootHolder treeRootHolder;
   private final ConfigurationRepository configRepository;
   private final DisabledComponentsHolder disabledComponentsHolder;
+  private final CeQueue ceQueue;
+  private final System2 system2;
 
   public PurgeDatastoresStep(DbClient dbClient, ProjectCleaner projectCleaner, DbIdsRepository dbIdsRepository, TreeRootHolder treeRootHolder,
-    ConfigurationRepository configRepository, DisabledComponentsHolder disabledComponentsHolder) {
+    ConfigurationRepository configRepository, DisabledComponentsHolder disabledComponentsHolder, CeQueue ceQueue, System2 system2) {
     this.projectCleaner = projectCleaner;
     this.dbClient = dbClient;
     this.dbIdsRepository = dbIdsRepository;
     this.treeRootHolder = treeRootHolder;
     this.configRepository = configRepository;
     this.disabledComponentsHolder = disabledComponentsHolder;
+    this.ceQueue = ceQueue;
+    this.system2 = system2;
   }
 
   @Override
@@ -75,9 +99,39 @@ public class PurgeDatastoresStep implements ComputationStep {
   private void execute(Component root) {
     try (DbSession dbSession = dbClient.openSession(true)) {
       IdUuidPair idUuidPair = new IdUuidPair(dbIdsRepository.getComponentId(root), root.getUuid());
-      projectCleaner.purge(dbSession, idUuidPair, configRepository.getConfiguration(root), disabledComponentsHolder.getUuids());
+      Configuration config = configRepository.getConfiguration(root);
+      projectCleaner.purgeDisabledComponents(dbSession, idUuidPair, config, disabledComponentsHolder.getUuids());
       dbSession.commit();
+
+      if (shouldSubmitPurge(dbSession, root.getUuid(), config)) {
+        CeTaskSubmit.Builder submit = ceQueue.prepareSubmit()
+          .setType(CeTaskTypes.PROJECT_PURGE)
+          .setComponentUuid(root.getUuid());
+        ceQueue.submit(submit.build());
+      }
+    }
+  }
+
+  private boolean shouldSubmitPurge(DbSession dbSession, String rootUuid, Configuration config) {
+    if (ceQueue.isSubmitPaused()) {
+      LOG.debug("Submission of tasks is paused, purge of {} is skipped", rootUuid);
+      return false;
+    }
+    boolean purgePending = dbClient.ceQueueDao().selectByComponentUuid(dbSession, rootUuid).stream()
+      .anyMatch(task -> CeTaskTypes.PROJECT_PURGE.equals(task.getTaskType()));
+    if (purgePending) {
+      return false;
+    }
+    int hoursBetweenPurges = config.getInt(HOURS_BETWEEN_PURGES).orElse(0);
+    if (hoursBetweenPurges <= 0) {
+      return true;
     }
+    CeTaskQuery query = new CeTaskQuery()
+      .setComponentUuid(rootUuid)
+      .setType(CeTaskTypes.PROJECT_PURGE)
+      .setStatuses(singletonList(CeActivityDto.Status.SUCCESS.name()))
+      .setMinSubmittedAt(system2.now() - hoursBetweenPurges * ONE_HOUR_IN_MS);
+    return dbClient.ceActivityDao().selectByQuery(dbSession, query, forPage(1).andSize(1)).isEmpty();
   }
 
   @Override
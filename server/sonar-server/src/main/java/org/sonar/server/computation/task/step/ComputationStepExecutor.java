@@ -19,6 +19,8 @@
  */
 package org.sonar.server.computation.task.step;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonar.api.utils.log.Logger;
@@ -29,6 +31,8 @@ public final class ComputationStepExecutor {
   private static final Logger LOGGER = Loggers.get(ComputationStepExecutor.class);
 
   private final ComputationSteps steps;
+  private final ComputationStepsStatistics statistics;
+  private final ComputationStepsMetricsPersister metricsPersister;
   @CheckForNull
   private final Listener listener;
 
@@ -36,33 +40,55 @@ public final class ComputationStepExecutor {
    * Used when no {@link ComputationStepExecutor.Listener} is available in pico
    * container.
    */
-  public ComputationStepExecutor(ComputationSteps steps) {
-    this(steps, null);
+  public ComputationStepExecutor(ComputationSteps steps, ComputationStepsStatistics statistics, ComputationStepsMetricsPersister metricsPersister) {
+    this(steps, statistics, metricsPersister, null);
   }
 
-  public ComputationStepExecutor(ComputationSteps steps, @Nullable Listener listener) {
+  public ComputationStepExecutor(ComputationSteps steps, ComputationStepsStatistics statistics, ComputationStepsMetricsPersister metricsPersister,
+    @Nullable Listener listener) {
     this.steps = steps;
+    this.statistics = statistics;
+    this.metricsPersister = metricsPersister;
     this.listener = listener;
   }
 
   public void execute() {
     Profiler stepProfiler = Profiler.create(LOGGER);
     boolean allStepsExecuted = false;
+    Map<String, ComputationStepMetrics> metricsByStep = new LinkedHashMap<>();
     try {
-      executeSteps(stepProfiler);
+      executeSteps(stepProfiler, metricsByStep);
       allStepsExecuted = true;
     } finally {
+      persistMetrics(metricsByStep);
       if (listener != null) {
         executeListener(allStepsExecuted);
       }
     }
   }
 
-  private void executeSteps(Profiler stepProfiler) {
+  private void executeSteps(Profiler stepProfiler, Map<String, ComputationStepMetrics> metricsByStep) {
     for (ComputationStep step : steps.instances()) {
       stepProfiler.start();
+      ThreadResourcesProbe probe = ThreadResourcesProbe.start();
       step.execute();
-      stepProfiler.stopDebug(step.getDescription());
+      ComputationStepMetrics metrics = probe.stop();
+      String description = step.getDescription();
+      statistics.add(description, metrics);
+      metricsByStep.put(description, metrics);
+      stepProfiler
+        .addContext("cpuTime", metrics.getCpuTime() + "ms")
+        .addContext("allocatedBytes", metrics.getAllocatedBytes())
+        .stopDebug(description);
+    }
+  }
+
+  private void persistMetrics(Map<String, ComputationStepMetrics> metricsByStep) {
+    try {
+      metricsPersister.persist(metricsByStep);
+    } catch (RuntimeException e) {
+      // metrics are informative only, their persistence must not hide the failure of a step nor fail the task
+      LOGGER.error("Fail to persist metrics of steps", e);
     }
   }
 
@@ -0,0 +1,73 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.step;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Resources consumed by the thread executing a {@link ComputationStep}.
+ */
+@Immutable
+public final class ComputationStepMetrics {
+  /**
+   * Value of a metric which can not be measured by the current JVM.
+   */
+  public static final long UNAVAILABLE = -1L;
+
+  private final long wallTime;
+  private final long cpuTime;
+  private final long allocatedBytes;
+
+  public ComputationStepMetrics(long wallTime, long cpuTime, long allocatedBytes) {
+    this.wallTime = wallTime;
+    this.cpuTime = cpuTime;
+    this.allocatedBytes = allocatedBytes;
+  }
+
+  /**
+   * Elapsed time, in milliseconds.
+   */
+  public long getWallTime() {
+    return wallTime;
+  }
+
+  /**
+   * CPU time of the executing thread, in milliseconds, or {@link #UNAVAILABLE}.
+   */
+  public long getCpuTime() {
+    return cpuTime;
+  }
+
+  /**
+   * Bytes allocated on heap by the executing thread, or {@link #UNAVAILABLE}.
+   */
+  public long getAllocatedBytes() {
+    return allocatedBytes;
+  }
+
+  @Override
+  public String toString() {
+    return "ComputationStepMetrics{" +
+      "wallTime=" + wallTime +
+      ", cpuTime=" + cpuTime +
+      ", allocatedBytes=" + allocatedBytes +
+      '}';
+  }
+}
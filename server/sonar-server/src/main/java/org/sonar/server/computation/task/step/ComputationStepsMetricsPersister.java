@@ -0,0 +1,82 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.step;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import org.sonar.api.utils.System2;
+import org.sonar.ce.queue.CeTask;
+import org.sonar.core.util.UuidFactory;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.ce.CeTaskStepDto;
+
+import static java.util.Collections.singleton;
+import static org.sonar.server.computation.task.step.ComputationStepMetrics.UNAVAILABLE;
+
+/**
+ * Persists the metrics of the steps executed by the current task, so that they are returned by WS api/ce/task.
+ */
+public class ComputationStepsMetricsPersister {
+  private final DbClient dbClient;
+  private final UuidFactory uuidFactory;
+  private final System2 system2;
+  private final CeTask ceTask;
+
+  public ComputationStepsMetricsPersister(DbClient dbClient, UuidFactory uuidFactory, System2 system2, CeTask ceTask) {
+    this.dbClient = dbClient;
+    this.uuidFactory = uuidFactory;
+    this.system2 = system2;
+    this.ceTask = ceTask;
+  }
+
+  /**
+   * @param metricsByStep metrics of the executed steps, by step description, in order of execution
+   */
+  public void persist(Map<String, ComputationStepMetrics> metricsByStep) {
+    long now = system2.now();
+    List<CeTaskStepDto> dtos = new ArrayList<>(metricsByStep.size());
+    for (Map.Entry<String, ComputationStepMetrics> entry : metricsByStep.entrySet()) {
+      ComputationStepMetrics metrics = entry.getValue();
+      dtos.add(new CeTaskStepDto()
+        .setUuid(uuidFactory.create())
+        .setTaskUuid(ceTask.getUuid())
+        .setStepIndex(dtos.size())
+        .setDescription(entry.getKey())
+        .setWallTime(metrics.getWallTime())
+        .setCpuTime(toNullable(metrics.getCpuTime()))
+        .setAllocatedBytes(toNullable(metrics.getAllocatedBytes()))
+        .setCreatedAt(now));
+    }
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      // in case the task was restarted, the steps of the previous execution are replaced
+      dbClient.ceTaskStepDao().deleteByTaskUuids(dbSession, singleton(ceTask.getUuid()));
+      dbClient.ceTaskStepDao().insert(dbSession, dtos);
+      dbSession.commit();
+    }
+  }
+
+  @CheckForNull
+  private static Long toNullable(long value) {
+    return value == UNAVAILABLE ? null : value;
+  }
+}
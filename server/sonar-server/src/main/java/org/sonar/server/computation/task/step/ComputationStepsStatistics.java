@@ -0,0 +1,156 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.step;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import static org.sonar.core.util.stream.MoreCollectors.toList;
+import static org.sonar.server.computation.task.step.ComputationStepMetrics.UNAVAILABLE;
+
+/**
+ * Aggregates the {@link ComputationStepMetrics} of the last {@link #MAX_SAMPLES_PER_STEP} executions of each
+ * {@link ComputationStep}, since startup of the Compute Engine.
+ */
+@ThreadSafe
+public class ComputationStepsStatistics {
+  static final int MAX_SAMPLES_PER_STEP = 1_000;
+
+  private final Map<String, StepSamples> samplesByStep = new ConcurrentHashMap<>();
+
+  public void add(String stepDescription, ComputationStepMetrics metrics) {
+    samplesByStep.computeIfAbsent(stepDescription, k -> new StepSamples()).add(metrics);
+  }
+
+  /**
+   * Statistics of each step, the slowest steps (by 95th percentile of wall time) first.
+   */
+  public List<StepStatistics> getAll() {
+    return samplesByStep.entrySet().stream()
+      .map(entry -> entry.getValue().toStatistics(entry.getKey()))
+      .sorted(Comparator.comparingLong(StepStatistics::getWallTimeP95).reversed()
+        .thenComparing(StepStatistics::getStepDescription))
+      .collect(toList());
+  }
+
+  @Immutable
+  public static final class StepStatistics {
+    private final String stepDescription;
+    private final long count;
+    private final long wallTimeP50;
+    private final long wallTimeP95;
+    private final long wallTimeP99;
+    private final long cpuTimeP95;
+    private final long allocatedBytesP95;
+
+    private StepStatistics(String stepDescription, long count, long[] wallTimes, long[] cpuTimes, long[] allocatedBytes) {
+      this.stepDescription = stepDescription;
+      this.count = count;
+      this.wallTimeP50 = percentile(wallTimes, 50);
+      this.wallTimeP95 = percentile(wallTimes, 95);
+      this.wallTimeP99 = percentile(wallTimes, 99);
+      this.cpuTimeP95 = percentile(cpuTimes, 95);
+      this.allocatedBytesP95 = percentile(allocatedBytes, 95);
+    }
+
+    public String getStepDescription() {
+      return stepDescription;
+    }
+
+    /**
+     * Number of executions since startup
+     */
+    public long getCount() {
+      return count;
+    }
+
+    public long getWallTimeP50() {
+      return wallTimeP50;
+    }
+
+    public long getWallTimeP95() {
+      return wallTimeP95;
+    }
+
+    public long getWallTimeP99() {
+      return wallTimeP99;
+    }
+
+    public long getCpuTimeP95() {
+      return cpuTimeP95;
+    }
+
+    public long getAllocatedBytesP95() {
+      return allocatedBytesP95;
+    }
+
+    @Override
+    public String toString() {
+      return stepDescription +
+        " | count=" + count +
+        " | wallTimeP50=" + wallTimeP50 + "ms" +
+        " | wallTimeP95=" + wallTimeP95 + "ms" +
+        " | wallTimeP99=" + wallTimeP99 + "ms" +
+        " | cpuTimeP95=" + cpuTimeP95 + "ms" +
+        " | allocatedBytesP95=" + allocatedBytesP95;
+    }
+
+    /**
+     * Nearest-rank percentile of the available values, or {@link ComputationStepMetrics#UNAVAILABLE} if there is none.
+     */
+    private static long percentile(long[] values, int percentile) {
+      long[] available = Arrays.stream(values).filter(v -> v != UNAVAILABLE).sorted().toArray();
+      if (available.length == 0) {
+        return UNAVAILABLE;
+      }
+      int rank = (int) Math.ceil(percentile / 100d * available.length);
+      return available[Math.max(rank, 1) - 1];
+    }
+  }
+
+  /**
+   * Circular buffers of the last samples of a step
+   */
+  private static final class StepSamples {
+    private final long[] wallTimes = new long[MAX_SAMPLES_PER_STEP];
+    private final long[] cpuTimes = new long[MAX_SAMPLES_PER_STEP];
+    private final long[] allocatedBytes = new long[MAX_SAMPLES_PER_STEP];
+    private long count = 0;
+
+    synchronized void add(ComputationStepMetrics metrics) {
+      int index = (int) (count % MAX_SAMPLES_PER_STEP);
+      wallTimes[index] = metrics.getWallTime();
+      cpuTimes[index] = metrics.getCpuTime();
+      allocatedBytes[index] = metrics.getAllocatedBytes();
+      count++;
+    }
+
+    synchronized StepStatistics toStatistics(String stepDescription) {
+      int size = (int) Math.min(count, MAX_SAMPLES_PER_STEP);
+      return new StepStatistics(stepDescription, count,
+        Arrays.copyOf(wallTimes, size), Arrays.copyOf(cpuTimes, size), Arrays.copyOf(allocatedBytes, size));
+    }
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.step;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.sonar.server.computation.task.step.ComputationStepMetrics.UNAVAILABLE;
+
+/**
+ * Measures the resources consumed by the current thread between {@link #start()} and {@link #stop()}.
+ */
+final class ThreadResourcesProbe {
+  private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+  private final long startNanos;
+  private final long startCpuTime;
+  private final long startAllocatedBytes;
+
+  private ThreadResourcesProbe() {
+    this.startNanos = System.nanoTime();
+    this.startCpuTime = currentThreadCpuTime();
+    this.startAllocatedBytes = currentThreadAllocatedBytes();
+  }
+
+  static ThreadResourcesProbe start() {
+    return new ThreadResourcesProbe();
+  }
+
+  ComputationStepMetrics stop() {
+    long wallTime = NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    long cpuTime = delta(startCpuTime, currentThreadCpuTime());
+    long allocatedBytes = delta(startAllocatedBytes, currentThreadAllocatedBytes());
+    return new ComputationStepMetrics(wallTime, cpuTime == UNAVAILABLE ? UNAVAILABLE : NANOSECONDS.toMillis(cpuTime), allocatedBytes);
+  }
+
+  private static long delta(long start, long end) {
+    if (start == UNAVAILABLE || end == UNAVAILABLE) {
+      return UNAVAILABLE;
+    }
+    return end - start;
+  }
+
+  private static long currentThreadCpuTime() {
+    if (THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported() && THREAD_MX_BEAN.isThreadCpuTimeEnabled()) {
+      return THREAD_MX_BEAN.getCurrentThreadCpuTime();
+    }
+    return UNAVAILABLE;
+  }
+
+  private static long currentThreadAllocatedBytes() {
+    if (THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) THREAD_MX_BEAN;
+      if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+        return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+      }
+    }
+    return UNAVAILABLE;
+  }
+}
@@ -25,6 +25,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.Nullable;
 import org.elasticsearch.action.ActionRequest;
 import org.elasticsearch.action.admin.indices.settings.get.GetSettingsResponse;
@@ -78,9 +79,13 @@ public class BulkIndexer {
   }
 
   public BulkIndexer(EsClient client, IndexType indexType, Size size, IndexingListener indexingListener) {
+    this(client, indexType, size.createHandler(Runtime2.INSTANCE), indexingListener);
+  }
+
+  private BulkIndexer(EsClient client, IndexType indexType, SizeHandler sizeHandler, IndexingListener indexingListener) {
     this.client = client;
     this.indexType = indexType;
-    this.sizeHandler = size.createHandler(Runtime2.INSTANCE);
+    this.sizeHandler = sizeHandler;
     this.indexingListener = indexingListener;
     BulkProcessorListener bulkProcessorListener = new BulkProcessorListener();
     this.bulkProcessor = BulkProcessor.builder(client.nativeClient(), bulkProcessorListener)
@@ -177,6 +182,18 @@ public class BulkIndexer {
     return bulk.stop();
   }
 
+  /**
+   * Starts a large indexing of the index of {@code indexType} that is executed by several bulk indexers,
+   * for instance concurrently on distinct sets of documents. The settings of {@link Size#LARGE} are
+   * applied once for the whole index, instead of once per bulk indexer. They are reverted
+   * by {@link LargeIndexing#stop()}.
+   */
+  public static LargeIndexing startLargeIndexing(EsClient client, IndexType indexType) {
+    LargeIndexing largeIndexing = new LargeIndexing(client, indexType, Runtime2.INSTANCE);
+    largeIndexing.start();
+    return largeIndexing;
+  }
+
   private final class BulkProcessorListener implements Listener {
     @Override
     public void beforeBulk(long executionId, BulkRequest request) {
@@ -256,8 +273,8 @@ public class BulkIndexer {
 
   static class LargeSizeHandler extends SizeHandler {
 
-    private final Map<String, Object> initialSettings = new HashMap<>();
     private final Runtime2 runtime2;
+    private LargeIndexSettings settings;
     private ProgressLogger progress;
 
     LargeSizeHandler(Runtime2 runtime2) {
@@ -266,10 +283,7 @@ public class BulkIndexer {
 
     @Override
     int getConcurrentRequests() {
-      // see SONAR-8075
-      int cores = runtime2.getCores();
-      // FIXME do not use DEFAULT_NUMBER_OF_SHARDS
-      return Math.max(1, cores / DEFAULT_NUMBER_OF_SHARDS) - 1;
+      return getLargeConcurrentRequests(runtime2);
     }
 
     @Override
@@ -277,37 +291,130 @@ public class BulkIndexer {
       this.progress = new ProgressLogger(format("Progress[BulkIndexer[%s]]", bulkIndexer.indexType.getIndex()), bulkIndexer.result.total, LOGGER)
         .setPluralLabel("requests");
       this.progress.start();
+      this.settings = new LargeIndexSettings(bulkIndexer.client, bulkIndexer.indexType.getIndex());
+      this.settings.apply();
+    }
+
+    @Override
+    void afterStop(BulkIndexer bulkIndexer) {
+      this.settings.revert();
+      this.progress.stop();
+    }
+  }
+
+  private static int getLargeConcurrentRequests(Runtime2 runtime2) {
+    // see SONAR-8075
+    int cores = runtime2.getCores();
+    // FIXME do not use DEFAULT_NUMBER_OF_SHARDS
+    return Math.max(1, cores / DEFAULT_NUMBER_OF_SHARDS) - 1;
+  }
+
+  /**
+   * Large indexing of an index shared by several bulk indexers.
+   *
+   * @see BulkIndexer#startLargeIndexing(EsClient, IndexType)
+   */
+  public static class LargeIndexing {
+
+    private final EsClient client;
+    private final IndexType indexType;
+    private final Runtime2 runtime2;
+    private final LargeIndexSettings settings;
+    private final AtomicLong total = new AtomicLong();
+    private final ProgressLogger progress;
+
+    private LargeIndexing(EsClient client, IndexType indexType, Runtime2 runtime2) {
+      this.client = client;
+      this.indexType = indexType;
+      this.runtime2 = runtime2;
+      this.settings = new LargeIndexSettings(client, indexType.getIndex());
+      this.progress = new ProgressLogger(format("Progress[BulkIndexer[%s]]", indexType.getIndex()), total, LOGGER)
+        .setPluralLabel("requests");
+    }
+
+    private void start() {
+      progress.start();
+      settings.apply();
+    }
+
+    /**
+     * The returned bulk indexer does not change the settings of index. It can be
+     * used concurrently with the other bulk indexers of this large indexing.
+     */
+    public BulkIndexer newBulkIndexer(IndexingListener indexingListener) {
+      return new BulkIndexer(client, indexType, new LargeIndexingSizeHandler(), indexingListener);
+    }
+
+    /**
+     * Optimizes lucene segments and reverts the initial settings of index.
+     * Must be called once all the bulk indexers are stopped.
+     */
+    public void stop() {
+      try {
+        settings.revert();
+      } finally {
+        progress.stop();
+      }
+    }
+
+    private class LargeIndexingSizeHandler extends SizeHandler {
+      @Override
+      int getConcurrentRequests() {
+        return getLargeConcurrentRequests(runtime2);
+      }
+
+      @Override
+      void afterStop(BulkIndexer bulkIndexer) {
+        total.addAndGet(bulkIndexer.result.getTotal());
+      }
+    }
+  }
+
+  /**
+   * Replicas and automatic refresh of index are disabled during large indexing,
+   * then lucene segments are optimized and initial settings are reverted.
+   */
+  private static class LargeIndexSettings {
+
+    private final Map<String, Object> initialSettings = new HashMap<>();
+    private final EsClient client;
+    private final String index;
+
+    private LargeIndexSettings(EsClient client, String index) {
+      this.client = client;
+      this.index = index;
+    }
+
+    void apply() {
       Map<String, Object> temporarySettings = new HashMap<>();
-      GetSettingsResponse settingsResp = bulkIndexer.client.nativeClient().admin().indices().prepareGetSettings(bulkIndexer.indexType.getIndex()).get();
+      GetSettingsResponse settingsResp = client.nativeClient().admin().indices().prepareGetSettings(index).get();
 
       // deactivate replicas
-      int initialReplicas = Integer.parseInt(settingsResp.getSetting(bulkIndexer.indexType.getIndex(), IndexMetaData.SETTING_NUMBER_OF_REPLICAS));
+      int initialReplicas = Integer.parseInt(settingsResp.getSetting(index, IndexMetaData.SETTING_NUMBER_OF_REPLICAS));
       if (initialReplicas > 0) {
         initialSettings.put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, initialReplicas);
         temporarySettings.put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, 0);
       }
 
       // deactivate periodical refresh
-      String refreshInterval = settingsResp.getSetting(bulkIndexer.indexType.getIndex(), REFRESH_INTERVAL_SETTING);
+      String refreshInterval = settingsResp.getSetting(index, REFRESH_INTERVAL_SETTING);
       initialSettings.put(REFRESH_INTERVAL_SETTING, refreshInterval);
       temporarySettings.put(REFRESH_INTERVAL_SETTING, "-1");
 
-      updateSettings(bulkIndexer, temporarySettings);
+      updateSettings(temporarySettings);
     }
 
-    @Override
-    void afterStop(BulkIndexer bulkIndexer) {
+    void revert() {
       // optimize lucene segments and revert index settings
       // Optimization must be done before re-applying replicas:
       // http://www.elasticsearch.org/blog/performance-considerations-elasticsearch-indexing/
-      bulkIndexer.client.prepareForceMerge(bulkIndexer.indexType.getIndex()).get();
+      client.prepareForceMerge(index).get();
 
-      updateSettings(bulkIndexer, initialSettings);
-      this.progress.stop();
+      updateSettings(initialSettings);
     }
 
-    private static void updateSettings(BulkIndexer bulkIndexer, Map<String, Object> settings) {
-      UpdateSettingsRequestBuilder req = bulkIndexer.client.nativeClient().admin().indices().prepareUpdateSettings(bulkIndexer.indexType.getIndex());
+    private void updateSettings(Map<String, Object> settings) {
+      UpdateSettingsRequestBuilder req = client.nativeClient().admin().indices().prepareUpdateSettings(index);
       req.setSettings(settings);
       req.get();
     }
@@ -19,7 +19,18 @@
  */
 package org.sonar.server.es;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import org.elasticsearch.action.admin.cluster.health.ClusterHealthAction;
 import org.elasticsearch.action.admin.indices.close.CloseIndexAction;
@@ -33,6 +44,7 @@ import org.sonar.api.utils.log.Loggers;
 import org.sonar.api.utils.log.Profiler;
 
 import static java.util.Arrays.stream;
+import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.toSet;
 
 public class IndexerStartupTask {
@@ -50,25 +62,115 @@ public class IndexerStartupTask {
     this.indexers = indexers;
   }
 
+  /**
+   * Bulk indexing changes the settings of the index it writes to (see {@link BulkIndexer}), so indexers which share
+   * an index are executed sequentially, in the order they are declared. Groups of indexers with no index in common
+   * are executed concurrently. Types are flagged as initialized only when all indexers are done, as this requires
+   * to close the index.
+   */
   public void execute() {
-    if (indexesAreEnabled()) {
-      stream(indexers)
-        .forEach(this::indexUninitializedTypes);
+    if (!indexesAreEnabled()) {
+      return;
+    }
+    Map<StartupIndexer, Set<IndexType>> uninitializedTypesByIndexer = new LinkedHashMap<>();
+    stream(indexers).forEach(indexer -> {
+      Set<IndexType> uninitializedTypes = getUninitializedTypes(indexer);
+      if (!uninitializedTypes.isEmpty()) {
+        uninitializedTypesByIndexer.put(indexer, uninitializedTypes);
+      }
+    });
+    List<List<StartupIndexer>> groups = groupBySharedIndices(uninitializedTypesByIndexer);
+    if (groups.isEmpty()) {
+      return;
+    }
+
+    Set<IndexType> indexedTypes = ConcurrentHashMap.newKeySet();
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(groups.size(), Runtime.getRuntime().availableProcessors()),
+      new ThreadFactoryBuilder().setNameFormat("IndexerStartup-%d").setDaemon(true).build());
+    try {
+      List<Future<?>> futures = groups.stream()
+        .map(group -> executor.submit(() -> group.forEach(indexer -> {
+          Set<IndexType> uninitializedTypes = uninitializedTypesByIndexer.get(indexer);
+          indexUninitializedTypes(indexer, uninitializedTypes);
+          indexedTypes.addAll(uninitializedTypes);
+        })))
+        .collect(Collectors.toList());
+      RuntimeException failure = null;
+      for (Future<?> future : futures) {
+        try {
+          waitFor(future);
+        } catch (RuntimeException e) {
+          failure = failure == null ? e : failure;
+        }
+      }
+      indexedTypes.forEach(this::setInitialized);
+      if (failure != null) {
+        throw failure;
+      }
+    } finally {
+      executor.shutdownNow();
     }
   }
 
+  /**
+   * Groups the indexers which, directly or through other indexers, write to the same indices.
+   */
+  static List<List<StartupIndexer>> groupBySharedIndices(Map<StartupIndexer, Set<IndexType>> typesByIndexer) {
+    List<Set<String>> indicesOfGroups = new ArrayList<>();
+    List<List<StartupIndexer>> groups = new ArrayList<>();
+    typesByIndexer.forEach((indexer, types) -> {
+      Set<String> indices = types.stream().map(IndexType::getIndex).collect(toSet());
+      int target = -1;
+      for (int i = 0; i < groups.size(); i++) {
+        if (Collections.disjoint(indicesOfGroups.get(i), indices)) {
+          continue;
+        }
+        if (target < 0) {
+          target = i;
+        } else {
+          // the indexer links two groups
+          indicesOfGroups.get(target).addAll(indicesOfGroups.remove(i));
+          groups.get(target).addAll(groups.remove(i));
+          i--;
+        }
+      }
+      if (target < 0) {
+        indicesOfGroups.add(indices);
+        groups.add(new ArrayList<>(singletonList(indexer)));
+      } else {
+        indicesOfGroups.get(target).addAll(indices);
+        groups.get(target).add(indexer);
+      }
+    });
+    return groups;
+  }
+
   private boolean indexesAreEnabled() {
     return !config.getBoolean("sonar.internal.es.disableIndexes").orElse(false);
   }
 
-  private void indexUninitializedTypes(StartupIndexer indexer) {
-    Set<IndexType> uninizializedTypes = getUninitializedTypes(indexer);
-    if (!uninizializedTypes.isEmpty()) {
-      Profiler profiler = Profiler.create(LOG);
-      profiler.startInfo(getLogMessage(uninizializedTypes, "..."));
-      indexer.indexOnStartup(uninizializedTypes);
-      uninizializedTypes.forEach(this::setInitialized);
-      profiler.stopInfo(getLogMessage(uninizializedTypes, "done"));
+  private void indexUninitializedTypes(StartupIndexer indexer, Set<IndexType> uninitializedTypes) {
+    Profiler profiler = Profiler.create(LOG);
+    profiler.startInfo(getLogMessage(uninitializedTypes, "..."));
+    indexer.indexOnStartup(uninitializedTypes);
+    profiler.stopInfo(getLogMessage(uninitializedTypes, "done"));
+  }
+
+  private static void waitFor(Future<?> future) {
+    try {
+      future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while indexing", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException("Fail to index", cause);
     }
   }
 
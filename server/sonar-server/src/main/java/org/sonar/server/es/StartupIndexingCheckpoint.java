@@ -0,0 +1,89 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.es;
+
+import java.util.Optional;
+import javax.annotation.CheckForNull;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+
+/**
+ * Progress of the initial indexing of a type, persisted in table INTERNAL_PROPERTIES so that
+ * a restart resumes indexing instead of starting over.
+ * <p>
+ * The checkpoint is bound to the creation date of the index. It is ignored if the index
+ * has been dropped and re-created since it was saved.
+ */
+public class StartupIndexingCheckpoint {
+
+  private static final String PROPERTY_PREFIX = "es.startupIndexing.";
+  private static final char SEPARATOR = '|';
+
+  private final DbClient dbClient;
+  private final EsClient esClient;
+  private final IndexType indexType;
+  private final String propertyKey;
+
+  public StartupIndexingCheckpoint(DbClient dbClient, EsClient esClient, IndexType indexType) {
+    this.dbClient = dbClient;
+    this.esClient = esClient;
+    this.indexType = indexType;
+    this.propertyKey = PROPERTY_PREFIX + indexType.getIndex() + "." + indexType.getType();
+  }
+
+  /**
+   * @return the position saved by the latest call to {@link #save(String)}, or null if indexing must start from scratch
+   */
+  @CheckForNull
+  public String load() {
+    Optional<String> value;
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      value = dbClient.internalPropertiesDao().selectByKey(dbSession, propertyKey);
+    }
+    if (!value.isPresent()) {
+      return null;
+    }
+    String prefix = getIndexCreationDate() + SEPARATOR;
+    if (!value.get().startsWith(prefix)) {
+      return null;
+    }
+    return value.get().substring(prefix.length());
+  }
+
+  public void save(String position) {
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      dbClient.internalPropertiesDao().save(dbSession, propertyKey, getIndexCreationDate() + SEPARATOR + position);
+      dbSession.commit();
+    }
+  }
+
+  public void clear() {
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      dbClient.internalPropertiesDao().saveAsEmpty(dbSession, propertyKey);
+      dbSession.commit();
+    }
+  }
+
+  private String getIndexCreationDate() {
+    String index = indexType.getIndex();
+    return esClient.nativeClient().admin().indices().prepareGetSettings(index).get().getSetting(index, IndexMetaData.SETTING_CREATION_DATE);
+  }
+}
@@ -23,10 +23,18 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ListMultimap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.sonar.api.resources.Qualifiers;
@@ -38,6 +46,7 @@ import org.sonar.db.DbSession;
 import org.sonar.db.es.EsQueueDto;
 import org.sonar.db.issue.IssueDto;
 import org.sonar.server.es.BulkIndexer;
+import org.sonar.server.es.BulkIndexer.LargeIndexing;
 import org.sonar.server.es.BulkIndexer.Size;
 import org.sonar.server.es.EsClient;
 import org.sonar.server.es.IndexType;
@@ -46,6 +55,7 @@ import org.sonar.server.es.IndexingResult;
 import org.sonar.server.es.OneToManyResilientIndexingListener;
 import org.sonar.server.es.OneToOneResilientIndexingListener;
 import org.sonar.server.es.ProjectIndexer;
+import org.sonar.server.es.StartupIndexingCheckpoint;
 import org.sonar.server.permission.index.AuthorizationScope;
 import org.sonar.server.permission.index.NeedAuthorizationIndexer;
 
@@ -68,6 +78,8 @@ public class IssueIndexer implements ProjectIndexer, NeedAuthorizationIndexer {
   private static final Logger LOGGER = Loggers.get(IssueIndexer.class);
   private static final AuthorizationScope AUTHORIZATION_SCOPE = new AuthorizationScope(INDEX_TYPE_ISSUE, project -> Qualifiers.PROJECT.equals(project.getQualifier()));
   private static final ImmutableSet<IndexType> INDEX_TYPES = ImmutableSet.of(INDEX_TYPE_ISSUE);
+  private static final int STARTUP_INDEXING_THREADS = 4;
+  private static final int STARTUP_INDEXING_RANGES = 4 * STARTUP_INDEXING_THREADS;
 
   private final EsClient esClient;
   private final DbClient dbClient;
@@ -89,10 +101,75 @@ public class IssueIndexer implements ProjectIndexer, NeedAuthorizationIndexer {
     return INDEX_TYPES;
   }
 
+  /**
+   * Issues are split in ranges of project uuids which are loaded and indexed concurrently. Each
+   * range has its own DB cursor and bulk indexer. Progress is checkpointed once all the ranges
+   * preceding a range are indexed, so that a restart resumes indexing after the last of these ranges.
+   */
   @Override
   public void indexOnStartup(Set<IndexType> uninitializedIndexTypes) {
-    try (IssueIterator issues = issueIteratorFactory.createForAll()) {
-      doIndex(issues, Size.LARGE, IndexingListener.NOOP);
+    StartupIndexingCheckpoint checkpoint = new StartupIndexingCheckpoint(dbClient, esClient, INDEX_TYPE_ISSUE);
+    String lastIndexedProjectUuid = checkpoint.load();
+    if (lastIndexedProjectUuid != null) {
+      LOGGER.info("Resume indexing of issues after project {}", lastIndexedProjectUuid);
+    }
+    List<ProjectUuidRange> ranges = splitInProjectUuidRanges(lastIndexedProjectUuid);
+    CompletedRanges completedRanges = new CompletedRanges(ranges, checkpoint);
+
+    // settings of large indexing are applied once for all the ranges indexed concurrently
+    LargeIndexing largeIndexing = BulkIndexer.startLargeIndexing(esClient, INDEX_TYPE_ISSUE);
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(ranges.size(), STARTUP_INDEXING_THREADS),
+      new ThreadFactoryBuilder().setNameFormat("IssueIndexer-%d").setDaemon(true).build());
+    try {
+      List<Future<?>> futures = ranges.stream()
+        .map(range -> executor.submit(() -> {
+          try (IssueIterator issues = issueIteratorFactory.createForProjectUuidRange(range.fromExclusive, range.toInclusive)) {
+            doIndex(issues, largeIndexing.newBulkIndexer(IndexingListener.NOOP));
+          }
+          completedRanges.add(range);
+        }))
+        .collect(MoreCollectors.toList(ranges.size()));
+      futures.forEach(IssueIndexer::waitFor);
+    } finally {
+      executor.shutdownNow();
+      largeIndexing.stop();
+    }
+    checkpoint.clear();
+  }
+
+  private List<ProjectUuidRange> splitInProjectUuidRanges(@Nullable String afterProjectUuid) {
+    List<String> rootUuids;
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      rootUuids = dbClient.componentDao().selectRootUuidsAfter(dbSession, afterProjectUuid);
+    }
+    int rangeSize = Math.max(1, (rootUuids.size() + STARTUP_INDEXING_RANGES - 1) / STARTUP_INDEXING_RANGES);
+    List<ProjectUuidRange> ranges = new ArrayList<>();
+    String from = afterProjectUuid;
+    for (int i = rangeSize - 1; i < rootUuids.size() - 1; i += rangeSize) {
+      String to = rootUuids.get(i);
+      ranges.add(new ProjectUuidRange(ranges.size(), from, to));
+      from = to;
+    }
+    // last range is not bounded, in order to include the projects created in the meantime
+    ranges.add(new ProjectUuidRange(ranges.size(), from, null));
+    return ranges;
+  }
+
+  private static void waitFor(Future<?> future) {
+    try {
+      future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while indexing issues", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException("Fail to index issues", cause);
     }
   }
 
@@ -238,7 +315,10 @@ public class IssueIndexer implements ProjectIndexer, NeedAuthorizationIndexer {
   }
 
   private void doIndex(Iterator<IssueDoc> issues, Size size, IndexingListener listener) {
-    BulkIndexer bulk = createBulkIndexer(size, listener);
+    doIndex(issues, createBulkIndexer(size, listener));
+  }
+
+  private void doIndex(Iterator<IssueDoc> issues, BulkIndexer bulk) {
     bulk.start();
     while (issues.hasNext()) {
       IssueDoc issue = issues.next();
@@ -271,4 +351,52 @@ public class IssueIndexer implements ProjectIndexer, NeedAuthorizationIndexer {
   private BulkIndexer createBulkIndexer(Size size, IndexingListener listener) {
     return new BulkIndexer(esClient, INDEX_TYPE_ISSUE, size, listener);
   }
+
+  /**
+   * Issues of the projects whose uuid is in {@code (fromExclusive, toInclusive]}
+   */
+  private static class ProjectUuidRange {
+    private final int index;
+    @CheckForNull
+    private final String fromExclusive;
+    @CheckForNull
+    private final String toInclusive;
+
+    private ProjectUuidRange(int index, @Nullable String fromExclusive, @Nullable String toInclusive) {
+      this.index = index;
+      this.fromExclusive = fromExclusive;
+      this.toInclusive = toInclusive;
+    }
+  }
+
+  /**
+   * Ranges can complete in any order. The checkpoint is moved to the upper bound of
+   * the longest sequence of completed ranges.
+   */
+  private static class CompletedRanges {
+    private final List<ProjectUuidRange> ranges;
+    private final StartupIndexingCheckpoint checkpoint;
+    private final boolean[] completed;
+    private int firstUncompleted = 0;
+
+    private CompletedRanges(List<ProjectUuidRange> ranges, StartupIndexingCheckpoint checkpoint) {
+      this.ranges = ranges;
+      this.checkpoint = checkpoint;
+      this.completed = new boolean[ranges.size()];
+    }
+
+    private synchronized void add(ProjectUuidRange range) {
+      completed[range.index] = true;
+      int previous = firstUncompleted;
+      while (firstUncompleted < completed.length && completed[firstUncompleted]) {
+        firstUncompleted++;
+      }
+      if (firstUncompleted > previous) {
+        String lastIndexedProjectUuid = ranges.get(firstUncompleted - 1).toInclusive;
+        if (lastIndexedProjectUuid != null) {
+          checkpoint.save(lastIndexedProjectUuid);
+        }
+      }
+    }
+  }
 }
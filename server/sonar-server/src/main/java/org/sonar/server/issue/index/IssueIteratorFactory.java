@@ -39,6 +39,14 @@ public class IssueIteratorFactory {
     return new IssueIteratorForSingleChunk(dbClient, projectUuid, null);
   }
 
+  /**
+   * Issues of the projects whose uuid is greater than {@code fromProjectUuidExclusive} and lower than or
+   * equal to {@code toProjectUuidInclusive}. Null bounds are ignored.
+   */
+  public IssueIterator createForProjectUuidRange(@Nullable String fromProjectUuidExclusive, @Nullable String toProjectUuidInclusive) {
+    return IssueIteratorForSingleChunk.forProjectUuidRange(dbClient, fromProjectUuidExclusive, toProjectUuidInclusive);
+  }
+
   public IssueIterator createForIssueKeys(Collection<String> issueKeys) {
     return new IssueIteratorForMultipleChunks(dbClient, issueKeys);
   }
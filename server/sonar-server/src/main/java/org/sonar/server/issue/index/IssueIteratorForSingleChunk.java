@@ -87,6 +87,8 @@ class IssueIteratorForSingleChunk implements IssueIterator {
     "inner join projects root on root.uuid=i.project_uuid";
 
   private static final String PROJECT_FILTER = " AND root.uuid=?";
+  private static final String PROJECT_RANGE_FROM_FILTER = " AND root.uuid>?";
+  private static final String PROJECT_RANGE_TO_FILTER = " AND root.uuid<=?";
   private static final String ISSUE_KEY_FILTER_PREFIX = " AND i.kee IN (";
   private static final String ISSUE_KEY_FILTER_SUFFIX = ")";
 
@@ -101,14 +103,35 @@ class IssueIteratorForSingleChunk implements IssueIterator {
   @CheckForNull
   private final Collection<String> issueKeys;
 
+  @CheckForNull
+  private final String fromProjectUuidExclusive;
+
+  @CheckForNull
+  private final String toProjectUuidInclusive;
+
   private final PreparedStatement stmt;
   private final ResultSetIterator<IssueDoc> iterator;
 
   IssueIteratorForSingleChunk(DbClient dbClient, @Nullable String projectUuid, @Nullable Collection<String> issueKeys) {
+    this(dbClient, projectUuid, issueKeys, null, null);
+  }
+
+  /**
+   * Issues of the projects whose uuid is in range {@code (fromProjectUuidExclusive, toProjectUuidInclusive]}.
+   * Bounds are compared by the database and are ignored when null.
+   */
+  static IssueIteratorForSingleChunk forProjectUuidRange(DbClient dbClient, @Nullable String fromProjectUuidExclusive, @Nullable String toProjectUuidInclusive) {
+    return new IssueIteratorForSingleChunk(dbClient, null, null, fromProjectUuidExclusive, toProjectUuidInclusive);
+  }
+
+  private IssueIteratorForSingleChunk(DbClient dbClient, @Nullable String projectUuid, @Nullable Collection<String> issueKeys,
+    @Nullable String fromProjectUuidExclusive, @Nullable String toProjectUuidInclusive) {
     checkArgument(issueKeys == null || issueKeys.size() <= DatabaseUtils.PARTITION_SIZE_FOR_ORACLE,
       "Cannot search for more than " + DatabaseUtils.PARTITION_SIZE_FOR_ORACLE + " issue keys at once. Please provide the keys in smaller chunks.");
     this.projectUuid = projectUuid;
     this.issueKeys = issueKeys;
+    this.fromProjectUuidExclusive = fromProjectUuidExclusive;
+    this.toProjectUuidInclusive = toProjectUuidInclusive;
     this.session = dbClient.openSession(false);
 
     try {
@@ -144,6 +167,8 @@ class IssueIteratorForSingleChunk implements IssueIterator {
   private String createSql() {
     String sql = SQL_ALL;
     sql += projectUuid == null ? "" : PROJECT_FILTER;
+    sql += fromProjectUuidExclusive == null ? "" : PROJECT_RANGE_FROM_FILTER;
+    sql += toProjectUuidInclusive == null ? "" : PROJECT_RANGE_TO_FILTER;
     if (issueKeys != null && !issueKeys.isEmpty()) {
       sql += ISSUE_KEY_FILTER_PREFIX;
       sql += IntStream.range(0, issueKeys.size()).mapToObj(i -> "?").collect(Collectors.joining(","));
@@ -158,6 +183,14 @@ class IssueIteratorForSingleChunk implements IssueIterator {
       stmt.setString(index, projectUuid);
       index++;
     }
+    if (fromProjectUuidExclusive != null) {
+      stmt.setString(index, fromProjectUuidExclusive);
+      index++;
+    }
+    if (toProjectUuidInclusive != null) {
+      stmt.setString(index, toProjectUuidInclusive);
+      index++;
+    }
     if (issueKeys != null) {
       for (String key : issueKeys) {
         stmt.setString(index, key);
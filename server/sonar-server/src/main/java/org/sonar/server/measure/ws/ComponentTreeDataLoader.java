@@ -53,6 +53,7 @@ import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTreeQuery;
 import org.sonar.db.component.SnapshotDto;
 import org.sonar.db.measure.MeasureDto;
+import org.sonar.db.measure.MeasureQuery;
 import org.sonar.db.measure.MeasureTreeQuery;
 import org.sonar.db.metric.MetricDto;
 import org.sonar.db.metric.MetricDtoFunctions;
@@ -71,6 +72,8 @@ import static org.sonar.api.utils.Paging.offset;
 import static org.sonar.server.component.ComponentFinder.ParamNames.BASE_COMPONENT_ID_AND_KEY;
 import static org.sonar.server.component.ComponentFinder.ParamNames.DEVELOPER_ID_AND_KEY;
 import static org.sonar.server.measure.ws.ComponentTreeAction.LEAVES_STRATEGY;
+import static org.sonar.server.measure.ws.ComponentTreeAction.METRIC_PERIOD_SORT;
+import static org.sonar.server.measure.ws.ComponentTreeAction.METRIC_SORT;
 import static org.sonar.server.measure.ws.ComponentTreeAction.STRATEGIES;
 import static org.sonar.server.measure.ws.ComponentTreeAction.WITH_MEASURES_ONLY_METRIC_SORT_FILTER;
 import static org.sonar.server.measure.ws.SnapshotDtoToWsPeriods.snapshotToWsPeriods;
@@ -106,15 +109,17 @@ public class ComponentTreeDataLoader {
       ComponentTreeQuery componentTreeQuery = toComponentTreeQuery(wsRequest, baseComponent);
       List<ComponentDto> components = searchComponents(dbSession, componentTreeQuery);
       List<MetricDto> metrics = searchMetrics(dbSession, wsRequest);
-      Table<String, MetricDto, Measure> measuresByComponentUuidAndMetric = searchMeasuresByComponentUuidAndMetric(dbSession, baseComponent, componentTreeQuery,
-        components,
-        metrics, developerId);
 
-      components = filterComponents(components, measuresByComponentUuidAndMetric, metrics, wsRequest);
-      components = sortComponents(components, wsRequest, metrics, measuresByComponentUuidAndMetric);
+      // only the measures used to filter and sort are loaded on the whole tree
+      List<MetricDto> sortMetrics = searchSortMetrics(metrics, wsRequest);
+      Table<String, MetricDto, Measure> sortMeasuresByComponentUuidAndMetric = searchMeasuresByComponentUuidAndMetric(dbSession, baseComponent, componentTreeQuery,
+        components, sortMetrics, developerId);
 
+      components = filterComponents(components, sortMeasuresByComponentUuidAndMetric, metrics, wsRequest);
       int componentCount = components.size();
-      components = paginateComponents(components, wsRequest);
+      components = sortAndPaginateComponents(components, wsRequest, metrics, sortMeasuresByComponentUuidAndMetric);
+
+      Table<String, MetricDto, Measure> measuresByComponentUuidAndMetric = searchMeasuresOfComponents(dbSession, baseComponent, components, metrics, developerId);
 
       return ComponentTreeData.builder()
         .setBaseComponent(baseComponent)
@@ -205,6 +210,44 @@ public class ComponentTreeDataLoader {
     return measuresByComponentUuidAndMetric;
   }
 
+  private Table<String, MetricDto, Measure> searchMeasuresOfComponents(DbSession dbSession, ComponentDto baseComponent, List<ComponentDto> components,
+    List<MetricDto> metrics, @Nullable Long developerId) {
+    Map<Integer, MetricDto> metricsById = Maps.uniqueIndex(metrics, MetricDto::getId);
+    List<String> componentUuids = new ArrayList<>(components.size() + 1);
+    componentUuids.add(baseComponent.uuid());
+    components.forEach(c -> componentUuids.add(c.uuid()));
+    MeasureQuery measureQuery = MeasureQuery.builder()
+      .setComponentUuids(baseComponent.projectUuid(), componentUuids)
+      .setPersonId(developerId)
+      .setMetricIds(new ArrayList<>(metricsById.keySet()))
+      .build();
+
+    Table<String, MetricDto, Measure> measuresByComponentUuidAndMetric = HashBasedTable.create(componentUuids.size(), metrics.size());
+    dbClient.measureDao().selectByQuery(dbSession, measureQuery).forEach(measureDto -> measuresByComponentUuidAndMetric.put(
+      measureDto.getComponentUuid(),
+      metricsById.get(measureDto.getMetricId()),
+      Measure.createFromMeasureDto(measureDto)));
+
+    addBestValuesToMeasures(measuresByComponentUuidAndMetric, components, metrics);
+
+    return measuresByComponentUuidAndMetric;
+  }
+
+  /**
+   * The metric used to sort or filter components, if any
+   */
+  private static List<MetricDto> searchSortMetrics(List<MetricDto> metrics, ComponentTreeWsRequest wsRequest) {
+    String metricKeyToSort = wsRequest.getMetricSort();
+    List<String> sortParameters = wsRequest.getSort();
+    boolean isSortedByMetric = sortParameters != null && (sortParameters.contains(METRIC_SORT) || sortParameters.contains(METRIC_PERIOD_SORT));
+    if (metricKeyToSort == null || !(isSortedByMetric || componentWithMeasuresOnly(wsRequest))) {
+      return Collections.emptyList();
+    }
+    return metrics.stream()
+      .filter(m -> metricKeyToSort.equals(m.getKey()))
+      .collect(MoreCollectors.toList(1));
+  }
+
   /**
    * Conditions for best value measure:
    * <ul>
@@ -253,15 +296,13 @@ public class ComponentTreeDataLoader {
     return WITH_MEASURES_ONLY_METRIC_SORT_FILTER.equals(wsRequest.getMetricSortFilter());
   }
 
-  private static List<ComponentDto> sortComponents(List<ComponentDto> components, ComponentTreeWsRequest wsRequest, List<MetricDto> metrics,
+  private static List<ComponentDto> sortAndPaginateComponents(List<ComponentDto> components, ComponentTreeWsRequest wsRequest, List<MetricDto> metrics,
     Table<String, MetricDto, Measure> measuresByComponentUuidAndMetric) {
-    return ComponentTreeSort.sortComponents(components, wsRequest, metrics, measuresByComponentUuidAndMetric);
-  }
-
-  private static List<ComponentDto> paginateComponents(List<ComponentDto> components, ComponentTreeWsRequest wsRequest) {
-    return components.stream()
-      .skip(offset(wsRequest.getPage(), wsRequest.getPageSize()))
-      .limit(wsRequest.getPageSize())
+    int offset = offset(wsRequest.getPage(), wsRequest.getPageSize());
+    List<ComponentDto> topComponents = ComponentTreeSort.sortTopComponents(components, wsRequest, metrics, measuresByComponentUuidAndMetric,
+      offset + wsRequest.getPageSize());
+    return topComponents.stream()
+      .skip(offset)
       .collect(MoreCollectors.toList(wsRequest.getPageSize()));
   }
 
@@ -24,14 +24,18 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Ordering;
 import com.google.common.collect.Table;
+import java.util.Comparator;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.sonar.api.measures.Metric;
 import org.sonar.api.measures.Metric.ValueType;
+import org.sonar.core.util.stream.MoreCollectors;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.metric.MetricDto;
 import org.sonar.server.exceptions.BadRequestException;
@@ -63,10 +67,54 @@ public class ComponentTreeSort {
   }
 
   public static List<ComponentDto> sortComponents(List<ComponentDto> components, ComponentTreeWsRequest wsRequest, List<MetricDto> metrics,
+    Table<String, MetricDto, ComponentTreeData.Measure> measuresByComponentUuidAndMetric) {
+    Ordering<ComponentDto> ordering = componentOrdering(wsRequest, metrics, measuresByComponentUuidAndMetric);
+    if (ordering == null) {
+      return components;
+    }
+    return ordering.immutableSortedCopy(components);
+  }
+
+  /**
+   * Same result as {@code sortComponents(...).subList(0, limit)}, but only {@code limit} components are
+   * sorted. Components which are equal according to the requested sort keep their initial order.
+   */
+  public static List<ComponentDto> sortTopComponents(List<ComponentDto> components, ComponentTreeWsRequest wsRequest, List<MetricDto> metrics,
+    Table<String, MetricDto, ComponentTreeData.Measure> measuresByComponentUuidAndMetric, int limit) {
+    Ordering<ComponentDto> ordering = componentOrdering(wsRequest, metrics, measuresByComponentUuidAndMetric);
+    if (ordering == null) {
+      return components.subList(0, Math.min(limit, components.size()));
+    }
+    if (limit >= components.size()) {
+      return ordering.immutableSortedCopy(components);
+    }
+
+    // first element of the queue is the greatest of the retained components
+    Comparator<Integer> byOrderingThenIndex = (i1, i2) -> {
+      int result = ordering.compare(components.get(i1), components.get(i2));
+      return result == 0 ? Integer.compare(i1, i2) : result;
+    };
+    PriorityQueue<Integer> topIndexes = new PriorityQueue<>(limit + 1, byOrderingThenIndex.reversed());
+    for (int i = 0; i < components.size(); i++) {
+      if (topIndexes.size() < limit) {
+        topIndexes.add(i);
+      } else if (limit > 0 && byOrderingThenIndex.compare(i, topIndexes.peek()) < 0) {
+        topIndexes.poll();
+        topIndexes.add(i);
+      }
+    }
+    return topIndexes.stream()
+      .sorted(byOrderingThenIndex)
+      .map(components::get)
+      .collect(MoreCollectors.toList(topIndexes.size()));
+  }
+
+  @CheckForNull
+  private static Ordering<ComponentDto> componentOrdering(ComponentTreeWsRequest wsRequest, List<MetricDto> metrics,
     Table<String, MetricDto, ComponentTreeData.Measure> measuresByComponentUuidAndMetric) {
     List<String> sortParameters = wsRequest.getSort();
     if (sortParameters == null || sortParameters.isEmpty()) {
-      return components;
+      return null;
     }
     boolean isAscending = wsRequest.getAsc();
     Map<String, Ordering<ComponentDto>> orderingsBySortField = ImmutableMap.<String, Ordering<ComponentDto>>builder()
@@ -87,7 +135,7 @@ public class ComponentTreeSort {
       }
     }
 
-    return primaryOrdering.immutableSortedCopy(components);
+    return primaryOrdering;
   }
 
   private static Ordering<ComponentDto> componentNameOrdering(boolean isAscending) {
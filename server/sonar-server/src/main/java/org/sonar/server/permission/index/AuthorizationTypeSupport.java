@@ -20,12 +20,15 @@
 package org.sonar.server.permission.index;
 
 import com.google.common.collect.ImmutableMap;
+import java.util.List;
 import java.util.Optional;
+import javax.annotation.Nullable;
 import org.elasticsearch.index.query.BoolQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.sonar.api.ce.ComputeEngineSide;
 import org.sonar.api.server.ServerSide;
+import org.sonar.core.util.stream.MoreCollectors;
 import org.sonar.db.user.GroupDto;
 import org.sonar.server.es.IndexType;
 import org.sonar.server.es.NewIndex;
@@ -35,6 +38,7 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Objects.requireNonNull;
 import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
 import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termsQuery;
 
 @ServerSide
 @ComputeEngineSide
@@ -43,6 +47,7 @@ public class AuthorizationTypeSupport {
   public static final String TYPE_AUTHORIZATION = "authorization";
   public static final String FIELD_GROUP_IDS = "groupIds";
   public static final String FIELD_USER_IDS = "userIds";
+  private static final String FIELD_ROUTING = "_routing";
 
   /**
    * When true, then anybody can access to the project. In that case
@@ -52,9 +57,16 @@ public class AuthorizationTypeSupport {
   public static final String FIELD_ALLOW_ANYONE = "allowAnyone";
 
   private final UserSession userSession;
+  @Nullable
+  private final ReadableProjectsCache readableProjectsCache;
 
   public AuthorizationTypeSupport(UserSession userSession) {
+    this(userSession, null);
+  }
+
+  public AuthorizationTypeSupport(UserSession userSession, @Nullable ReadableProjectsCache readableProjectsCache) {
     this.userSession = userSession;
+    this.readableProjectsCache = readableProjectsCache;
   }
 
   /**
@@ -94,6 +106,10 @@ public class AuthorizationTypeSupport {
   /**
    * Build a filter to restrict query to the documents on which
    * user has read access.
+   * <p>
+   * When {@link ReadableProjectsCache} is enabled, documents are filtered on their routing, which is the
+   * uuid of their project, instead of joining the type "authorization".
+   * </p>
    */
   public QueryBuilder createQueryFilter() {
     if (userSession.isRoot()) {
@@ -101,6 +117,9 @@ public class AuthorizationTypeSupport {
     }
 
     Integer userId = userSession.getUserId();
+    List<Integer> groupIds = userSession.getGroups().stream()
+      .map(GroupDto::getId)
+      .collect(MoreCollectors.toList());
     BoolQueryBuilder filter = boolQuery();
 
     // anyone
@@ -112,11 +131,11 @@ public class AuthorizationTypeSupport {
       .ifPresent(id -> filter.should(termQuery(FIELD_USER_IDS, id)));
 
     // groups
-    userSession.getGroups()
-      .stream()
-      .map(GroupDto::getId)
-      .forEach(groupId -> filter.should(termQuery(FIELD_GROUP_IDS, groupId)));
+    groupIds.forEach(groupId -> filter.should(termQuery(FIELD_GROUP_IDS, groupId)));
 
+    if (readableProjectsCache != null && readableProjectsCache.isEnabled()) {
+      return termsQuery(FIELD_ROUTING, readableProjectsCache.getReadableProjectUuids(userId, groupIds, filter));
+    }
     return QueryBuilders.hasParentQuery(TYPE_AUTHORIZATION,
       QueryBuilders.boolQuery().filter(filter));
   }
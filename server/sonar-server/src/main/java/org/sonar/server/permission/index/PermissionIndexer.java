@@ -28,6 +28,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import javax.annotation.Nullable;
 import org.elasticsearch.action.index.IndexRequest;
 import org.sonar.core.util.stream.MoreCollectors;
 import org.sonar.db.DbClient;
@@ -56,17 +57,31 @@ public class PermissionIndexer implements ProjectIndexer {
   private final EsClient esClient;
   private final Collection<AuthorizationScope> authorizationScopes;
   private final Set<IndexType> indexTypes;
+  @Nullable
+  private final ReadableProjectsCache readableProjectsCache;
 
   public PermissionIndexer(DbClient dbClient, EsClient esClient, NeedAuthorizationIndexer... needAuthorizationIndexers) {
-    this(dbClient, esClient, Arrays.stream(needAuthorizationIndexers)
+    this(dbClient, esClient, null, needAuthorizationIndexers);
+  }
+
+  public PermissionIndexer(DbClient dbClient, EsClient esClient, @Nullable ReadableProjectsCache readableProjectsCache,
+    NeedAuthorizationIndexer... needAuthorizationIndexers) {
+    this(dbClient, esClient, readableProjectsCache, Arrays.stream(needAuthorizationIndexers)
       .map(NeedAuthorizationIndexer::getAuthorizationScope)
       .collect(MoreCollectors.toList(needAuthorizationIndexers.length)));
   }
 
   @VisibleForTesting
   public PermissionIndexer(DbClient dbClient, EsClient esClient, Collection<AuthorizationScope> authorizationScopes) {
+    this(dbClient, esClient, null, authorizationScopes);
+  }
+
+  @VisibleForTesting
+  PermissionIndexer(DbClient dbClient, EsClient esClient, @Nullable ReadableProjectsCache readableProjectsCache,
+    Collection<AuthorizationScope> authorizationScopes) {
     this.dbClient = dbClient;
     this.esClient = esClient;
+    this.readableProjectsCache = readableProjectsCache;
     this.authorizationScopes = authorizationScopes;
     this.indexTypes = authorizationScopes.stream()
       .map(AuthorizationScope::getIndexType)
@@ -143,6 +158,7 @@ public class PermissionIndexer implements ProjectIndexer {
 
       bulkIndexer.stop();
     });
+    invalidateReadableProjects();
   }
 
   @Override
@@ -175,10 +191,17 @@ public class PermissionIndexer implements ProjectIndexer {
     remainingProjectUuids.forEach(projectUuid -> bulkIndexers.forEach(bi -> bi.addDeletion(bi.getIndexType(), projectUuid, projectUuid)));
 
     bulkIndexers.forEach(b -> result.add(b.stop()));
+    invalidateReadableProjects();
 
     return result;
   }
 
+  private void invalidateReadableProjects() {
+    if (readableProjectsCache != null) {
+      readableProjectsCache.invalidate();
+    }
+  }
+
   private static IndexRequest newIndexRequest(PermissionIndexerDao.Dto dto, IndexType indexType) {
     Map<String, Object> doc = new HashMap<>();
     if (dto.isAllowAnyone()) {
@@ -0,0 +1,124 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.permission.index;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchType;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.server.ServerSide;
+import org.sonar.server.es.EsClient;
+import org.sonar.server.es.EsUtils;
+import org.sonar.server.es.IndexType;
+
+import static java.util.Collections.unmodifiableSet;
+import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
+import static org.sonar.server.component.index.ComponentIndexDefinition.INDEX_TYPE_COMPONENT;
+import static org.sonar.server.es.EsUtils.SCROLL_TIME_IN_MINUTES;
+
+/**
+ * Caches the uuids of the projects that can be browsed by a set of permissions (user and groups), so that searches
+ * filter documents on their routing instead of joining the type "authorization". Disabled by default, see
+ * {@link #PROPERTY_ENABLED}.
+ * <p>
+ * Uuids are loaded from the type "authorization" of the components index, which contains all the projects,
+ * views and applications. They are a superset of the parents of the documents of any other index.
+ * </p>
+ * <p>
+ * Entries are invalidated by {@link PermissionIndexer} when permissions are indexed by the current process. They
+ * expire after {@link #EXPIRATION_IN_SECONDS} to take into account the permissions indexed by other processes.
+ * </p>
+ */
+@ServerSide
+@ComputeEngineSide
+public class ReadableProjectsCache {
+
+  public static final String PROPERTY_ENABLED = "sonar.search.authorizationCache";
+
+  private static final long EXPIRATION_IN_SECONDS = 30L;
+  // about 80 bytes per uuid
+  private static final long MAX_CACHED_UUIDS = 500_000L;
+  private static final int SCROLL_SIZE = 1_000;
+
+  private final EsClient esClient;
+  private final IndexType authorizationType;
+  private final boolean enabled;
+  private final Cache<String, Set<String>> uuidsByPermissions = CacheBuilder.newBuilder()
+    .expireAfterWrite(EXPIRATION_IN_SECONDS, TimeUnit.SECONDS)
+    .maximumWeight(MAX_CACHED_UUIDS)
+    .<String, Set<String>>weigher((key, uuids) -> uuids.size())
+    .build();
+
+  public ReadableProjectsCache(EsClient esClient, Configuration config) {
+    this(esClient, config, AuthorizationTypeSupport.getAuthorizationIndexType(INDEX_TYPE_COMPONENT));
+  }
+
+  @VisibleForTesting
+  ReadableProjectsCache(EsClient esClient, Configuration config, IndexType authorizationType) {
+    this.esClient = esClient;
+    this.authorizationType = authorizationType;
+    this.enabled = config.getBoolean(PROPERTY_ENABLED).orElse(false);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * @param permissionFilter filter on the type "authorization" matching the projects readable with the given permissions
+   */
+  Set<String> getReadableProjectUuids(@Nullable Integer userId, Collection<Integer> groupIds, QueryBuilder permissionFilter) {
+    String key = userId + "|" + groupIds.stream().sorted().map(String::valueOf).collect(Collectors.joining(","));
+    try {
+      return uuidsByPermissions.get(key, () -> load(permissionFilter));
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Fail to load readable projects", e.getCause());
+    }
+  }
+
+  private Set<String> load(QueryBuilder permissionFilter) {
+    SearchResponse response = esClient.prepareSearch(authorizationType)
+      .setSearchType(SearchType.SCAN)
+      .setScroll(TimeValue.timeValueMinutes(SCROLL_TIME_IN_MINUTES))
+      .setSize(SCROLL_SIZE)
+      .setQuery(boolQuery().filter(permissionFilter))
+      .get();
+    Set<String> uuids = new HashSet<>();
+    EsUtils.scrollIds(esClient, response.getScrollId(), Function.identity()).forEachRemaining(uuids::add);
+    return unmodifiableSet(uuids);
+  }
+
+  public void invalidate() {
+    uuidsByPermissions.invalidateAll();
+  }
+}
@@ -19,9 +19,13 @@
  */
 package org.sonar.server.source;
 
+import com.google.common.collect.ImmutableSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
-import org.sonar.core.util.stream.MoreCollectors;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.protobuf.DbFileSources;
@@ -31,6 +35,15 @@ import static com.google.common.base.Preconditions.checkArgument;
 
 public class SourceService {
 
+  private static final Set<Integer> RAW_TEXT_FIELDS = ImmutableSet.of(
+    DbFileSources.Line.LINE_FIELD_NUMBER,
+    DbFileSources.Line.SOURCE_FIELD_NUMBER);
+  private static final Set<Integer> HTML_FIELDS = ImmutableSet.of(
+    DbFileSources.Line.LINE_FIELD_NUMBER,
+    DbFileSources.Line.SOURCE_FIELD_NUMBER,
+    DbFileSources.Line.HIGHLIGHTING_FIELD_NUMBER,
+    DbFileSources.Line.SYMBOLS_FIELD_NUMBER);
+
   private final DbClient dbClient;
   private final HtmlSourceDecorator htmlDecorator;
 
@@ -45,7 +58,7 @@ public class SourceService {
    * @param toInclusive starts from 1, must be greater than or equal param {@code from}
    */
   public Optional<Iterable<DbFileSources.Line>> getLines(DbSession dbSession, String fileUuid, int from, int toInclusive) {
-    return getLines(dbSession, fileUuid, from, toInclusive, Function.identity());
+    return getLines(dbSession, fileUuid, from, toInclusive, Collections.emptySet(), Function.identity());
   }
 
   /**
@@ -53,25 +66,34 @@ public class SourceService {
    * @see #getLines(DbSession, String, int, int)
    */
   public Optional<Iterable<String>> getLinesAsRawText(DbSession dbSession, String fileUuid, int from, int toInclusive) {
-    return getLines(dbSession, fileUuid, from, toInclusive, DbFileSources.Line::getSource);
+    return getLines(dbSession, fileUuid, from, toInclusive, RAW_TEXT_FIELDS, DbFileSources.Line::getSource);
   }
 
   public Optional<Iterable<String>> getLinesAsHtml(DbSession dbSession, String fileUuid, int from, int toInclusive) {
-    return getLines(dbSession, fileUuid, from, toInclusive, lineToHtml());
+    return getLines(dbSession, fileUuid, from, toInclusive, HTML_FIELDS, lineToHtml());
   }
 
-  private <E> Optional<Iterable<E>> getLines(DbSession dbSession, String fileUuid, int from, int toInclusive, Function<DbFileSources.Line, E> function) {
+  /**
+   * Only the fields of lines listed in {@code fieldNumbers} are deserialized (all of them if empty), and the
+   * lines following {@code toInclusive} are not decompressed.
+   */
+  private <E> Optional<Iterable<E>> getLines(DbSession dbSession, String fileUuid, int from, int toInclusive, Set<Integer> fieldNumbers,
+    Function<DbFileSources.Line, E> function) {
     verifyLine(from);
     checkArgument(toInclusive >= from, String.format("Line number must greater than or equal to %d, got %d", from, toInclusive));
     FileSourceDto dto = dbClient.fileSourceDao().selectSourceByFileUuid(dbSession, fileUuid);
     if (dto == null) {
       return Optional.empty();
     }
-    return Optional.of(dto.getSourceData().getLinesList().stream()
-      .filter(line -> line.hasLine() && line.getLine() >= from)
-      .limit((toInclusive - from) + 1L)
-      .map(function)
-      .collect(MoreCollectors.toList()));
+    int maxLines = toInclusive - from + 1;
+    List<E> lines = new ArrayList<>();
+    dto.readSourceLines(fieldNumbers, line -> {
+      if (line.hasLine() && line.getLine() >= from) {
+        lines.add(function.apply(line));
+      }
+      return lines.size() < maxLines;
+    });
+    return Optional.of(lines);
   }
 
   private static void verifyLine(int line) {
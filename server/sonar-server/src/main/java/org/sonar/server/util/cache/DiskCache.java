@@ -19,36 +19,55 @@
  */
 package org.sonar.server.util.cache;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectOutputStream;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
+import javax.annotation.Nullable;
+import net.jpountz.lz4.LZ4BlockInputStream;
+import net.jpountz.lz4.LZ4BlockOutputStream;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.sonar.api.utils.System2;
 import org.sonar.core.util.CloseableIterator;
-import org.sonar.server.util.ObjectInputStreamIterator;
 
 /**
  * Serialize and deserialize objects on disk. No search capabilities, only traversal (full scan).
+ * <p>
+ * Objects are encoded by a {@link DiskCacheCodec}, Java serialization by default. Data can optionally be
+ * compressed with LZ4. In this case each {@link DiskAppender} writes its own LZ4 frame at the end of the file.
+ * </p>
  */
 public class DiskCache<O extends Serializable> {
 
+  private static final int BUFFER_SIZE = 64 * 1024;
+
   private final File file;
   private final System2 system2;
+  private final DiskCacheCodec<O> codec;
+  private final boolean compressed;
 
   public DiskCache(File file, System2 system2) {
+    this(file, system2, new SerializableCodec<>(), false);
+  }
+
+  public DiskCache(File file, System2 system2, DiskCacheCodec<O> codec, boolean compressed) {
     this.system2 = system2;
     this.file = file;
+    this.codec = codec;
+    this.compressed = compressed;
     OutputStream output = null;
     boolean threw = true;
     try {
-      // writes the serialization stream header required when calling "traverse()"
-      // on empty stream. Moreover it allows to call multiple times "newAppender()"
-      output = new ObjectOutputStream(new FileOutputStream(file));
-      output.flush();
+      // creates an empty file, or truncates the existing one, so that
+      // "traverse()" can be called before "newAppender()"
+      output = new FileOutputStream(file);
       threw = false;
     } catch (IOException e) {
       throw new IllegalStateException("Fail to write into file: " + file, e);
@@ -69,23 +88,27 @@ public class DiskCache<O extends Serializable> {
 
   public CloseableIterator<O> traverse() {
     try {
-      return new ObjectInputStreamIterator<>(FileUtils.openInputStream(file));
+      InputStream input = FileUtils.openInputStream(file);
+      if (compressed) {
+        input = new ConcatenatedLz4InputStream(new BufferedInputStream(input, BUFFER_SIZE));
+      }
+      return new DiskCacheIterator<>(new BufferedInputStream(input, BUFFER_SIZE), codec);
     } catch (IOException e) {
       throw new IllegalStateException("Fail to traverse file: " + file, e);
     }
   }
 
   public class DiskAppender implements AutoCloseable {
-    private final ObjectOutputStream output;
+    private final DataOutputStream output;
 
     private DiskAppender() {
       try {
-        this.output = new ObjectOutputStream(new FileOutputStream(file, true)) {
-          @Override
-          protected void writeStreamHeader() throws IOException {
-            // do not write stream headers as it's already done in constructor of DiskCache
-          }
-        };
+        OutputStream fileOutput = new FileOutputStream(file, true);
+        if (compressed) {
+          this.output = new DataOutputStream(new LZ4BlockOutputStream(fileOutput, BUFFER_SIZE));
+        } else {
+          this.output = new DataOutputStream(new BufferedOutputStream(fileOutput, BUFFER_SIZE));
+        }
       } catch (IOException e) {
         throw new IllegalStateException("Fail to open file " + file, e);
       }
@@ -93,8 +116,7 @@ public class DiskCache<O extends Serializable> {
 
     public DiskAppender append(O object) {
       try {
-        output.writeObject(object);
-        output.reset();
+        codec.write(object, output);
         return this;
       } catch (IOException e) {
         throw new IllegalStateException("Fail to write into file " + file, e);
@@ -106,4 +128,91 @@ public class DiskCache<O extends Serializable> {
       system2.close(output);
     }
   }
+
+  private static class DiskCacheIterator<O> extends CloseableIterator<O> {
+    private final BufferedInputStream input;
+    private final DataInputStream dataInput;
+    private final DiskCacheCodec<O> codec;
+
+    private DiskCacheIterator(BufferedInputStream input, DiskCacheCodec<O> codec) {
+      this.input = input;
+      this.dataInput = new DataInputStream(input);
+      this.codec = codec;
+    }
+
+    @Override
+    protected O doNext() {
+      try {
+        if (isEndOfStream(input)) {
+          return null;
+        }
+        return codec.read(dataInput);
+      } catch (IOException e) {
+        throw new IllegalStateException("Fail to read from disk cache", e);
+      }
+    }
+
+    @Override
+    protected void doClose() {
+      IOUtils.closeQuietly(dataInput);
+    }
+  }
+
+  private static boolean isEndOfStream(BufferedInputStream input) throws IOException {
+    input.mark(1);
+    int next = input.read();
+    input.reset();
+    return next < 0;
+  }
+
+  /**
+   * Reads the successive LZ4 frames written by the different appenders. {@link LZ4BlockInputStream}
+   * stops at the end of the first frame.
+   */
+  private static class ConcatenatedLz4InputStream extends InputStream {
+    private final BufferedInputStream input;
+    @Nullable
+    private LZ4BlockInputStream frame;
+
+    private ConcatenatedLz4InputStream(BufferedInputStream input) {
+      this.input = input;
+    }
+
+    @Override
+    public int read() throws IOException {
+      while (hasFrame()) {
+        int b = frame.read();
+        if (b >= 0) {
+          return b;
+        }
+        frame = null;
+      }
+      return -1;
+    }
+
+    @Override
+    public int read(byte[] bytes, int off, int len) throws IOException {
+      while (hasFrame()) {
+        int read = frame.read(bytes, off, len);
+        if (read >= 0) {
+          return read;
+        }
+        frame = null;
+      }
+      return -1;
+    }
+
+    private boolean hasFrame() throws IOException {
+      if (frame == null && !isEndOfStream(input)) {
+        // previous frame is not closed, as it would close the underlying stream
+        frame = new LZ4BlockInputStream(input);
+      }
+      return frame != null;
+    }
+
+    @Override
+    public void close() throws IOException {
+      input.close();
+    }
+  }
 }
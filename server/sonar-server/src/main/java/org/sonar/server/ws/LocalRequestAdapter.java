@@ -23,6 +23,7 @@ import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Optional;
 import org.sonar.api.server.ws.LocalConnector;
 import org.sonar.api.server.ws.internal.ValidatingRequest;
 
@@ -77,4 +78,9 @@ public class LocalRequestAdapter extends ValidatingRequest {
   public String getMediaType() {
     return localRequest.getMediaType();
   }
+
+  @Override
+  public Optional<String> header(String name) {
+    return Optional.empty();
+  }
 }
@@ -22,8 +22,11 @@ package org.sonar.ce.http;
 import java.io.File;
 import java.io.IOException;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import okhttp3.OkHttpClient;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
 import okio.Buffer;
 import org.junit.Before;
 import org.junit.Rule;
@@ -57,7 +60,7 @@ public class CeHttpClientTest {
     ipcSharedDir = temp.newFolder();
     MapSettings settings = new MapSettings();
     settings.setProperty(ProcessEntryPoint.PROPERTY_SHARED_PATH, ipcSharedDir.getAbsolutePath());
-    underTest = new CeHttpClientImpl(settings.asConfig());
+    underTest = new CeHttpClientImpl(settings.asConfig(), new OkHttpClient());
   }
 
   @Test
@@ -158,6 +161,33 @@ public class CeHttpClientTest {
     underTest.refreshCeWorkerCount();
   }
 
+  @Test
+  public void notifyTasksSubmitted_sends_request_asynchronously() throws Exception {
+    server.enqueue(new MockResponse().setResponseCode(200));
+    setUpWithHttpUrl(ProcessId.COMPUTE_ENGINE);
+
+    underTest.notifyTasksSubmitted();
+
+    RecordedRequest request = server.takeRequest(10, TimeUnit.SECONDS);
+    assertThat(request.getMethod()).isEqualTo("POST");
+    assertThat(request.getPath()).isEqualTo("/tasksSubmitted");
+  }
+
+  @Test
+  public void notifyTasksSubmitted_does_not_fail_if_http_error() throws Exception {
+    server.enqueue(new MockResponse().setResponseCode(500).setBody("blah"));
+    setUpWithHttpUrl(ProcessId.COMPUTE_ENGINE);
+
+    underTest.notifyTasksSubmitted();
+
+    assertThat(server.takeRequest(10, TimeUnit.SECONDS).getPath()).isEqualTo("/tasksSubmitted");
+  }
+
+  @Test
+  public void notifyTasksSubmitted_does_not_fail_if_process_is_down() {
+    underTest.notifyTasksSubmitted();
+  }
+
   private void setUpWithHttpUrl(ProcessId processId) {
     try (DefaultProcessCommands processCommands = DefaultProcessCommands.secondary(ipcSharedDir, processId.getIpcIndex())) {
       processCommands.setUp();
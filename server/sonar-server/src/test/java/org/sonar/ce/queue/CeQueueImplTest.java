@@ -27,6 +27,7 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.sonar.api.utils.System2;
 import org.sonar.api.utils.internal.TestSystem2;
+import org.sonar.ce.http.CeHttpClient;
 import org.sonar.core.util.UuidFactory;
 import org.sonar.core.util.UuidFactoryImpl;
 import org.sonar.db.DbSession;
@@ -42,6 +43,10 @@ import org.sonar.server.organization.TestDefaultOrganizationProvider;
 import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 public class CeQueueImplTest {
 
@@ -60,7 +65,9 @@ public class CeQueueImplTest {
   private UuidFactory uuidFactory = UuidFactoryImpl.INSTANCE;
   private DefaultOrganizationProvider defaultOrganizationProvider = TestDefaultOrganizationProvider.from(dbTester);
 
-  private CeQueue underTest = new CeQueueImpl(dbTester.getDbClient(), uuidFactory, defaultOrganizationProvider);
+  private CeHttpClient ceHttpClient = mock(CeHttpClient.class);
+
+  private CeQueue underTest = new CeQueueImpl(dbTester.getDbClient(), uuidFactory, defaultOrganizationProvider, ceHttpClient);
 
   @Test
   public void submit_returns_task_populated_from_CeTaskSubmit_and_creates_CeQueue_row() {
@@ -71,6 +78,26 @@ public class CeQueueImplTest {
     verifyCeQueueDtoForTaskSubmit(taskSubmit);
   }
 
+  @Test
+  public void submit_and_massSubmit_notify_Compute_Engine_of_submitted_tasks() {
+    underTest.submit(createTaskSubmit(CeTaskTypes.REPORT, "PROJECT_1", "rob"));
+    verify(ceHttpClient).notifyTasksSubmitted();
+
+    underTest.massSubmit(asList(createTaskSubmit("some type"), createTaskSubmit("some other type")));
+    verify(ceHttpClient, times(2)).notifyTasksSubmitted();
+  }
+
+  @Test
+  public void submit_does_not_fail_if_Compute_Engine_can_not_be_notified() {
+    doThrow(new IllegalStateException("Failed to call HTTP server of process 2")).when(ceHttpClient).notifyTasksSubmitted();
+    CeTaskSubmit taskSubmit = createTaskSubmit(CeTaskTypes.REPORT, "PROJECT_1", "rob");
+
+    CeTask task = underTest.submit(taskSubmit);
+
+    verifyCeTask(taskSubmit, task, null);
+    verifyCeQueueDtoForTaskSubmit(taskSubmit);
+  }
+
   @Test
   public void submit_populates_component_name_and_key_of_CeTask_if_component_exists() {
     ComponentDto componentDto = insertComponent(ComponentTesting.newPrivateProjectDto(dbTester.organizations().insert(), "PROJECT_1"));
@@ -23,11 +23,14 @@ import java.io.IOException;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.sonar.api.config.internal.MapSettings;
 import org.sonar.api.utils.System2;
 import org.sonar.api.web.UserRole;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.core.util.Protobuf;
 import org.sonar.db.DbTester;
+import org.sonar.db.ce.CeQueueDto;
+import org.sonar.db.ce.CeTaskTypes;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.issue.IssueDto;
 import org.sonar.db.rule.RuleDefinitionDto;
@@ -43,12 +46,16 @@ import org.sonar.server.ws.WsActionTester;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.tuple;
 import static org.sonar.api.rules.RuleType.BUG;
+import static org.sonar.core.config.PurgeConstants.DAYS_BEFORE_DELETING_CLOSED_ISSUES;
 import static org.sonar.db.component.ComponentTesting.newDirectory;
 import static org.sonar.db.component.ComponentTesting.newFileDto;
 import static org.sonar.db.component.ComponentTesting.newModuleDto;
+import static org.sonar.db.property.PropertyTesting.newComponentPropertyDto;
 
 public class IssuesActionTest {
 
+  private static final long ONE_DAY = 24 * 60 * 60 * 1_000L;
+
   private System2 system2 = System2.INSTANCE;
 
   @Rule
@@ -58,7 +65,8 @@ public class IssuesActionTest {
   @Rule
   public UserSessionRule userSessionRule = UserSessionRule.standalone();
 
-  private WsActionTester tester = new WsActionTester(new IssuesAction(db.getDbClient(), userSessionRule, TestComponentFinder.from(db)));
+  private MapSettings settings = new MapSettings().setProperty(DAYS_BEFORE_DELETING_CLOSED_ISSUES, 30);
+  private WsActionTester tester = new WsActionTester(new IssuesAction(db.getDbClient(), userSessionRule, TestComponentFinder.from(db), settings.asConfig(), system2));
 
   @Test
   public void test_nullable_fields() throws Exception {
@@ -243,6 +251,138 @@ public class IssuesActionTest {
     tester.newRequest().setParam("key", "does_not_exist").execute();
   }
 
+  @Test
+  public void return_sync_date_in_header() {
+    ComponentDto project = db.components().insertPrivateProject();
+    addPermissionTo(project);
+    long before = system2.now();
+
+    TestResponse response = tester.newRequest().setParam("key", project.getDbKey()).execute();
+
+    assertThat(Long.parseLong(response.getHeader("Sonar-Issues-Sync-Date"))).isBetween(before - 5 * 60 * 1_000L, system2.now() - 5 * 60 * 1_000L);
+    assertThat(response.getHeader("Sonar-Issues-Delta")).isNull();
+    assertThat(response.getHeader("Sonar-Issues-Project-Uuid")).isEqualTo(project.uuid());
+  }
+
+  @Test
+  public void sync_date_is_before_analysis_in_progress() {
+    ComponentDto project = db.components().insertPrivateProject();
+    addPermissionTo(project);
+    long startedAt = system2.now() - 60 * 60 * 1_000L;
+    CeQueueDto task = new CeQueueDto().setUuid("TASK_1").setTaskType(CeTaskTypes.REPORT).setComponentUuid(project.uuid())
+      .setStatus(CeQueueDto.Status.IN_PROGRESS).setStartedAt(startedAt);
+    db.getDbClient().ceQueueDao().insert(db.getSession(), task);
+    db.commit();
+
+    TestResponse response = tester.newRequest().setParam("key", project.getDbKey()).execute();
+
+    assertThat(Long.parseLong(response.getHeader("Sonar-Issues-Sync-Date"))).isEqualTo(startedAt - 5 * 60 * 1_000L);
+  }
+
+  @Test
+  public void return_issues_changed_since_date_including_closed_issues() {
+    RuleDefinitionDto rule = db.rules().insert();
+    ComponentDto project = db.components().insertPrivateProject();
+    ComponentDto file = db.components().insertComponent(newFileDto(project, null));
+    long now = system2.now();
+    IssueDto oldIssue = db.issues().insert(rule, project, file, i -> i.setStatus("OPEN").setResolution(null).setUpdatedAt(now - 2 * ONE_DAY));
+    IssueDto changedIssue = db.issues().insert(rule, project, file, i -> i.setStatus("OPEN").setResolution(null).setUpdatedAt(now));
+    IssueDto closedIssue = db.issues().insert(rule, project, file, i -> i.setStatus("CLOSED").setResolution("FIXED").setUpdatedAt(now));
+    addPermissionTo(project);
+
+    TestResponse response = tester.newRequest()
+      .setParam("key", project.getDbKey())
+      .setParam("changedSince", String.valueOf(now - ONE_DAY))
+      .setParam("projectUuid", project.uuid())
+      .execute();
+
+    assertThat(response.getHeader("Sonar-Issues-Delta")).isEqualTo("true");
+    assertThat(Protobuf.readStream(response.getInputStream(), ServerIssue.parser()))
+      .extracting(ServerIssue::getKey, ServerIssue::getStatus)
+      .containsOnly(tuple(changedIssue.getKey(), "OPEN"), tuple(closedIssue.getKey(), "CLOSED"));
+
+    response = tester.newRequest()
+      .setParam("key", file.getDbKey())
+      .setParam("changedSince", String.valueOf(now - ONE_DAY))
+      .setParam("projectUuid", project.uuid())
+      .execute();
+
+    assertThat(response.getHeader("Sonar-Issues-Delta")).isEqualTo("true");
+    assertThat(Protobuf.readStream(response.getInputStream(), ServerIssue.parser()))
+      .extracting(ServerIssue::getKey)
+      .containsOnly(changedIssue.getKey(), closedIssue.getKey());
+  }
+
+  @Test
+  public void return_all_open_issues_if_closed_issues_may_have_been_purged_since_date() {
+    RuleDefinitionDto rule = db.rules().insert();
+    ComponentDto project = db.components().insertPrivateProject();
+    ComponentDto file = db.components().insertComponent(newFileDto(project, null));
+    long now = system2.now();
+    IssueDto oldIssue = db.issues().insert(rule, project, file, i -> i.setStatus("OPEN").setResolution(null).setUpdatedAt(now - 40 * ONE_DAY));
+    db.issues().insert(rule, project, file, i -> i.setStatus("CLOSED").setResolution("FIXED").setUpdatedAt(now));
+    addPermissionTo(project);
+
+    TestResponse response = tester.newRequest()
+      .setParam("key", project.getDbKey())
+      .setParam("changedSince", String.valueOf(now - 30 * ONE_DAY))
+      .setParam("projectUuid", project.uuid())
+      .execute();
+
+    assertThat(response.getHeader("Sonar-Issues-Delta")).isNull();
+    assertThat(Protobuf.readStream(response.getInputStream(), ServerIssue.parser()))
+      .extracting(ServerIssue::getKey)
+      .containsOnly(oldIssue.getKey());
+  }
+
+  @Test
+  public void return_all_open_issues_if_project_uuid_is_not_the_one_of_previous_call() {
+    RuleDefinitionDto rule = db.rules().insert();
+    ComponentDto project = db.components().insertPrivateProject();
+    ComponentDto file = db.components().insertComponent(newFileDto(project, null));
+    long now = system2.now();
+    IssueDto oldIssue = db.issues().insert(rule, project, file, i -> i.setStatus("OPEN").setResolution(null).setUpdatedAt(now - 2 * ONE_DAY));
+    addPermissionTo(project);
+
+    TestResponse response = tester.newRequest()
+      .setParam("key", project.getDbKey())
+      .setParam("changedSince", String.valueOf(now - ONE_DAY))
+      .setParam("projectUuid", "UUID_OF_DELETED_PROJECT")
+      .execute();
+
+    assertThat(response.getHeader("Sonar-Issues-Delta")).isNull();
+    assertThat(response.getHeader("Sonar-Issues-Project-Uuid")).isEqualTo(project.uuid());
+    assertThat(Protobuf.readStream(response.getInputStream(), ServerIssue.parser()))
+      .extracting(ServerIssue::getKey)
+      .containsOnly(oldIssue.getKey());
+
+    response = tester.newRequest()
+      .setParam("key", project.getDbKey())
+      .setParam("changedSince", String.valueOf(now - ONE_DAY))
+      .execute();
+
+    assertThat(response.getHeader("Sonar-Issues-Delta")).isNull();
+  }
+
+  @Test
+  public void retention_of_closed_issues_can_be_overridden_on_project() {
+    RuleDefinitionDto rule = db.rules().insert();
+    ComponentDto project = db.components().insertPrivateProject();
+    ComponentDto file = db.components().insertComponent(newFileDto(project, null));
+    long now = system2.now();
+    db.issues().insert(rule, project, file, i -> i.setStatus("OPEN").setResolution(null).setUpdatedAt(now - 10 * ONE_DAY));
+    db.properties().insertProperty(newComponentPropertyDto(DAYS_BEFORE_DELETING_CLOSED_ISSUES, "2", project));
+    addPermissionTo(project);
+
+    TestResponse response = tester.newRequest()
+      .setParam("key", project.getDbKey())
+      .setParam("changedSince", String.valueOf(now - 5 * ONE_DAY))
+      .setParam("projectUuid", project.uuid())
+      .execute();
+
+    assertThat(response.getHeader("Sonar-Issues-Delta")).isNull();
+  }
+
   private void addPermissionTo(ComponentDto project) {
     userSessionRule.addProjectPermission(UserRole.USER, project);
   }
@@ -26,6 +26,7 @@ import org.sonar.scanner.protocol.input.FileData;
 import org.sonar.scanner.protocol.input.ProjectRepositories;
 import org.sonar.server.ws.TestResponse;
 import org.sonar.server.ws.WsActionTester;
+import org.sonarqube.ws.MediaTypes;
 import org.sonarqube.ws.WsBatch.WsProjectResponse;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -66,6 +67,40 @@ public class ProjectActionTest {
     assertThat(queryArgumentCaptor.getValue().isIssuesMode()).isFalse();
   }
 
+  @Test
+  public void return_version_of_project_repository_as_etag() {
+    ProjectRepositories projectRepositories = new ProjectRepositories().addFileData("module-1", "path", new FileData("hash", "revision"));
+    projectRepositories.setVersion("abc");
+    when(projectDataLoader.load(any(ProjectDataQuery.class))).thenReturn(projectRepositories);
+
+    TestResponse response = ws.newRequest()
+      .setParam("key", "org.codehaus.sonar:sonar")
+      .setHeader("If-None-Match", "\"def\"")
+      .setMediaType(MediaTypes.PROTOBUF)
+      .execute();
+
+    assertThat(response.getHeader("ETag")).isEqualTo("\"abc\"");
+    assertThat(response.getInputObject(WsProjectResponse.class).getFileDataByModuleAndPath()).containsOnlyKeys("module-1");
+  }
+
+  @Test
+  public void return_not_modified_if_client_knows_version_of_project_repository() {
+    ProjectRepositories projectRepositories = new ProjectRepositories();
+    projectRepositories.setVersion("abc");
+    ArgumentCaptor<ProjectDataQuery> queryArgumentCaptor = ArgumentCaptor.forClass(ProjectDataQuery.class);
+    when(projectDataLoader.load(queryArgumentCaptor.capture())).thenReturn(projectRepositories);
+
+    TestResponse response = ws.newRequest()
+      .setParam("key", "org.codehaus.sonar:sonar")
+      .setHeader("If-None-Match", "\"abc\"")
+      .execute();
+
+    assertThat(queryArgumentCaptor.getValue().getKnownVersion()).isEqualTo("abc");
+    assertThat(response.getStatus()).isEqualTo(304);
+    assertThat(response.getHeader("ETag")).isEqualTo("\"abc\"");
+    assertThat(response.getInput()).isEmpty();
+  }
+
   /**
    * SONAR-7084
    */
@@ -33,6 +33,7 @@ import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.organization.OrganizationDto;
+import org.sonar.db.source.FileSourceDto;
 import org.sonar.scanner.protocol.input.ProjectRepositories;
 import org.sonar.server.exceptions.BadRequestException;
 import org.sonar.server.exceptions.ForbiddenException;
@@ -42,6 +43,8 @@ import org.sonar.server.tester.UserSessionRule;
 import static java.lang.String.format;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.fail;
+import static org.sonar.db.component.ComponentTesting.newFileDto;
+import static org.sonar.db.property.PropertyTesting.newComponentPropertyDto;
 import static org.sonar.db.permission.OrganizationPermission.SCAN;
 
 public class ProjectDataLoaderTest {
@@ -150,6 +153,60 @@ public class ProjectDataLoaderTest {
     underTest.load(ProjectDataQuery.create().setModuleKey(project.getDbKey()));
   }
 
+  @Test
+  public void files_are_not_loaded_if_version_is_known_by_client() {
+    ComponentDto project = dbTester.components().insertPrivateProject();
+    ComponentDto file = insertFileWithSource(project);
+    userSession.logIn().addProjectPermission(GlobalPermissions.SCAN_EXECUTION, project);
+
+    ProjectRepositories repositories = underTest.load(ProjectDataQuery.create().setModuleKey(project.getDbKey()));
+    assertThat(repositories.version()).isNotEmpty();
+    assertThat(repositories.fileData(project.getDbKey(), file.path())).isNotNull();
+
+    ProjectRepositories notModified = underTest.load(ProjectDataQuery.create().setModuleKey(project.getDbKey()).setKnownVersion(repositories.version()));
+    assertThat(notModified.version()).isEqualTo(repositories.version());
+    assertThat(notModified.fileDataByModuleAndPath()).isEmpty();
+
+    ProjectRepositories modified = underTest.load(ProjectDataQuery.create().setModuleKey(project.getDbKey()).setKnownVersion("unknown"));
+    assertThat(modified.version()).isEqualTo(repositories.version());
+    assertThat(modified.fileData(project.getDbKey(), file.path())).isNotNull();
+  }
+
+  @Test
+  public void version_changes_with_new_analysis() {
+    ComponentDto project = dbTester.components().insertPrivateProject();
+    insertFileWithSource(project);
+    userSession.logIn().addProjectPermission(GlobalPermissions.SCAN_EXECUTION, project);
+    String version = underTest.load(ProjectDataQuery.create().setModuleKey(project.getDbKey())).version();
+
+    dbTester.components().insertSnapshot(project, s -> s.setLast(true));
+
+    assertThat(underTest.load(ProjectDataQuery.create().setModuleKey(project.getDbKey())).version()).isNotEqualTo(version);
+  }
+
+  @Test
+  public void version_changes_with_settings() {
+    ComponentDto project = dbTester.components().insertPrivateProject();
+    userSession.logIn().addProjectPermission(GlobalPermissions.SCAN_EXECUTION, project);
+    String version = underTest.load(ProjectDataQuery.create().setModuleKey(project.getDbKey())).version();
+
+    dbTester.properties().insertProperty(newComponentPropertyDto("sonar.exclusions", "**/*.js", project));
+
+    assertThat(underTest.load(ProjectDataQuery.create().setModuleKey(project.getDbKey())).version()).isNotEqualTo(version);
+  }
+
+  @Test
+  public void version_depends_on_visibility_of_secured_settings() {
+    ComponentDto project = dbTester.components().insertPrivateProject();
+    dbTester.properties().insertProperty(newComponentPropertyDto("sonar.token.secured", "secret", project));
+    userSession.logIn().addProjectPermission(GlobalPermissions.SCAN_EXECUTION, project).addProjectPermission(UserRole.USER, project);
+    String versionWithSecuredSettings = underTest.load(ProjectDataQuery.create().setModuleKey(project.getDbKey())).version();
+
+    userSession.logIn().addProjectPermission(UserRole.USER, project);
+
+    assertThat(underTest.load(ProjectDataQuery.create().setModuleKey(project.getDbKey()).setIssuesMode(true)).version()).isNotEqualTo(versionWithSecuredSettings);
+  }
+
   @Test
   public void issues_mode_is_allowed_if_user_has_browse_permission() {
     ComponentDto project = dbTester.components().insertPrivateProject();
@@ -181,4 +238,18 @@ public class ProjectDataLoaderTest {
 
     assertThat(repositories).isNotNull();
   }
+
+  private ComponentDto insertFileWithSource(ComponentDto project) {
+    ComponentDto file = dbTester.components().insertComponent(newFileDto(project));
+    dbClient.fileSourceDao().insert(dbSession, new FileSourceDto()
+      .setFileUuid(file.uuid())
+      .setProjectUuid(file.projectUuid())
+      .setDataType(FileSourceDto.Type.SOURCE)
+      .setSrcHash("123456")
+      .setRevision("123456789")
+      .setCreatedAt(1_500_000_000_000L)
+      .setUpdatedAt(1_500_000_000_000L));
+    dbSession.commit();
+    return file;
+  }
 }
@@ -126,6 +126,22 @@ public class ComponentActionTest {
     assertThat(response.getCurrent().getId()).isEqualTo("T3");
   }
 
+  @Test
+  public void purge_tasks_must_not_be_picked_as_current_analysis() {
+    ComponentDto project = dbTester.components().insertComponent(newPrivateProjectDto(dbTester.getDefaultOrganization(), "PROJECT_1"));
+    userSession.addProjectPermission(UserRole.USER, project);
+    insertActivity("T1", "PROJECT_1", CeActivityDto.Status.FAILED);
+    insertActivity("T2", "PROJECT_1", CeTaskTypes.PROJECT_PURGE, CeActivityDto.Status.SUCCESS);
+
+    WsCe.ProjectResponse response = ws.newRequest()
+      .setParam("componentId", "PROJECT_1")
+      .executeProtobuf(WsCe.ProjectResponse.class);
+    // T1 is the latest analysis of PROJECT_1, whatever the purges executed after
+    assertThat(response.hasCurrent()).isTrue();
+    assertThat(response.getCurrent().getId()).isEqualTo("T1");
+    assertThat(response.getCurrent().getStatus()).isEqualTo(WsCe.TaskStatus.FAILED);
+  }
+
   @Test
   public void fail_with_404_when_component_does_not_exist() throws Exception {
     expectedException.expect(NotFoundException.class);
@@ -172,8 +188,12 @@ public class ComponentActionTest {
   }
 
   private CeActivityDto insertActivity(String taskUuid, String componentUuid, CeActivityDto.Status status) {
+    return insertActivity(taskUuid, componentUuid, CeTaskTypes.REPORT, status);
+  }
+
+  private CeActivityDto insertActivity(String taskUuid, String componentUuid, String taskType, CeActivityDto.Status status) {
     CeQueueDto queueDto = new CeQueueDto();
-    queueDto.setTaskType(CeTaskTypes.REPORT);
+    queueDto.setTaskType(taskType);
     queueDto.setComponentUuid(componentUuid);
     queueDto.setUuid(taskUuid);
     CeActivityDto activityDto = new CeActivityDto(queueDto);
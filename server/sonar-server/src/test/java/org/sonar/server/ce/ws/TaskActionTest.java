@@ -19,6 +19,7 @@
  */
 package org.sonar.server.ce.ws;
 
+import java.util.Arrays;
 import javax.annotation.Nullable;
 import org.junit.Before;
 import org.junit.Rule;
@@ -30,6 +31,7 @@ import org.sonar.core.util.CloseableIterator;
 import org.sonar.db.DbTester;
 import org.sonar.db.ce.CeActivityDto;
 import org.sonar.db.ce.CeQueueDto;
+import org.sonar.db.ce.CeTaskStepDto;
 import org.sonar.db.ce.CeTaskTypes;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.organization.OrganizationDto;
@@ -41,6 +43,7 @@ import org.sonarqube.ws.WsCe;
 
 import static java.util.Collections.singleton;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.sonar.db.permission.OrganizationPermission.SCAN;
 
 public class TaskActionTest {
@@ -188,6 +191,42 @@ public class TaskActionTest {
     assertThat(task.hasScannerContext()).isFalse();
   }
 
+  @Test
+  public void return_steps_of_activity_when_additionalField_is_set() {
+    logInAsRoot();
+    persist(createActivityDto(SOME_TASK_UUID));
+    persistSteps(SOME_TASK_UUID,
+      new CeTaskStepDto().setStepIndex(0).setDescription("Load report").setWallTime(10L).setCpuTime(8L).setAllocatedBytes(2_000L),
+      new CeTaskStepDto().setStepIndex(1).setDescription("Persist sources").setWallTime(20L));
+
+    WsCe.Task task = ws.newRequest()
+      .setParam("id", SOME_TASK_UUID)
+      .setParam("additionalFields", "steps")
+      .executeProtobuf(WsCe.TaskResponse.class)
+      .getTask();
+
+    assertThat(task.getStepsList())
+      .extracting(WsCe.TaskStep::getDescription, WsCe.TaskStep::getWallTimeMs, WsCe.TaskStep::hasCpuTimeMs, WsCe.TaskStep::getCpuTimeMs,
+        WsCe.TaskStep::hasAllocatedBytes, WsCe.TaskStep::getAllocatedBytes)
+      .containsExactly(
+        tuple("Load report", 10L, true, 8L, true, 2_000L),
+        tuple("Persist sources", 20L, false, 0L, false, 0L));
+  }
+
+  @Test
+  public void do_not_return_steps_of_activity_when_additionalField_is_not_set() {
+    logInAsRoot();
+    persist(createActivityDto(SOME_TASK_UUID));
+    persistSteps(SOME_TASK_UUID, new CeTaskStepDto().setStepIndex(0).setDescription("Load report").setWallTime(10L));
+
+    WsCe.Task task = ws.newRequest()
+      .setParam("id", SOME_TASK_UUID)
+      .executeProtobuf(WsCe.TaskResponse.class)
+      .getTask();
+
+    assertThat(task.getStepsList()).isEmpty();
+  }
+
   @Test
   public void do_not_return_stacktrace_of_failed_activity_without_stacktrace() {
     logInAsRoot();
@@ -360,6 +399,12 @@ public class TaskActionTest {
     dbTester.commit();
   }
 
+  private void persistSteps(String taskUuid, CeTaskStepDto... steps) {
+    Arrays.stream(steps).forEach(step -> step.setUuid(taskUuid + "_" + step.getStepIndex()).setTaskUuid(taskUuid).setCreatedAt(1_000L));
+    dbTester.getDbClient().ceTaskStepDao().insert(dbTester.getSession(), Arrays.asList(steps));
+    dbTester.commit();
+  }
+
   private void logInAsSystemAdministrator() {
     userSession.logIn().setSystemAdministrator();
   }
@@ -37,6 +37,8 @@ import org.sonar.db.purge.PurgeProfiler;
 import org.sonar.db.purge.period.DefaultPeriodCleaner;
 
 import static java.util.Collections.emptyList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyString;
@@ -44,6 +46,7 @@ import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 
 public class ProjectCleanerTest {
 
@@ -87,6 +90,24 @@ public class ProjectCleanerTest {
     verify(dao).purge(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class), any(PurgeProfiler.class));
   }
 
+  @Test
+  public void purgeDisabledComponents_only_calls_purge_of_disabled_components() {
+    underTest.purgeDisabledComponents(mock(DbSession.class), mock(IdUuidPair.class), settings.asConfig(), emptyList());
+
+    verify(dao).purgeDisabledComponents(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class));
+    verify(dao, never()).purge(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class), any(PurgeProfiler.class));
+    verifyZeroInteractions(periodCleaner);
+  }
+
+  @Test
+  public void if_purge_of_disabled_components_fails_it_should_not_interrupt_program_execution() {
+    doThrow(RuntimeException.class).when(dao).purgeDisabledComponents(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class));
+
+    underTest.purgeDisabledComponents(mock(DbSession.class), mock(IdUuidPair.class), settings.asConfig(), emptyList());
+
+    verify(dao).purgeDisabledComponents(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class));
+  }
+
   @Test
   public void if_dao_purge_fails_it_should_not_interrupt_program_execution() {
     doThrow(RuntimeException.class).when(dao).purge(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class), any(PurgeProfiler.class));
@@ -104,4 +125,43 @@ public class ProjectCleanerTest {
 
     verify(periodCleaner).clean(any(DbSession.class), anyString(), any(Configuration.class));
   }
+
+  @Test
+  public void purgeOrFail_purges_and_commits() {
+    DbSession session = mock(DbSession.class);
+
+    underTest.purgeOrFail(session, mock(IdUuidPair.class), settings.asConfig(), emptyList());
+
+    verify(periodCleaner).clean(any(DbSession.class), anyString(), any(Configuration.class));
+    verify(dao).purge(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class), any(PurgeProfiler.class));
+    verify(session).commit();
+  }
+
+  @Test
+  public void purgeOrFail_propagates_failure_of_dao_purge() {
+    DbSession session = mock(DbSession.class);
+    doThrow(new IllegalStateException("Faking purge failure")).when(dao)
+      .purge(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class), any(PurgeProfiler.class));
+
+    try {
+      underTest.purgeOrFail(session, mock(IdUuidPair.class), settings.asConfig(), emptyList());
+      fail("An IllegalStateException should be raised");
+    } catch (IllegalStateException e) {
+      assertThat(e).hasMessage("Faking purge failure");
+    }
+    verify(session, never()).commit();
+  }
+
+  @Test
+  public void purgeOrFail_propagates_failure_of_cleaning_of_history() {
+    doThrow(new IllegalStateException("Faking clean failure")).when(periodCleaner).clean(any(DbSession.class), anyString(), any(Configuration.class));
+
+    try {
+      underTest.purgeOrFail(mock(DbSession.class), mock(IdUuidPair.class), settings.asConfig(), emptyList());
+      fail("An IllegalStateException should be raised");
+    } catch (IllegalStateException e) {
+      assertThat(e).hasMessage("Faking clean failure");
+    }
+    verify(dao, never()).purge(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class), any(PurgeProfiler.class));
+  }
 }
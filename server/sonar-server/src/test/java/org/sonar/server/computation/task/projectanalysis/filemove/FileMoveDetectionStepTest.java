@@ -23,13 +23,16 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.function.Function;
 import javax.annotation.Nullable;
 import org.apache.commons.io.FileUtils;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -54,8 +57,12 @@ import static java.util.Arrays.stream;
 import static java.util.stream.Collectors.toList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.sonar.api.resources.Qualifiers.FILE;
 import static org.sonar.api.resources.Qualifiers.UNIT_TEST_FILE;
@@ -228,19 +235,31 @@ public class FileMoveDetectionStepTest {
   private ComponentDao componentDao = mock(ComponentDao.class);
   private FileSourceDao fileSourceDao = mock(FileSourceDao.class);
   private FileSimilarity fileSimilarity = new FileSimilarityImpl(new SourceSimilarityImpl());
+  private Map<String, FileSourceDto> fileSourceDtosByFileUuid = new HashMap<>();
+  private FileMoveDetectionExecutorServiceImpl executorService = new FileMoveDetectionExecutorServiceImpl();
   private long dbIdGenerator = 0;
 
   private FileMoveDetectionStep underTest = new FileMoveDetectionStep(analysisMetadataHolder, treeRootHolder, dbClient,
-    sourceLinesRepository, fileSimilarity, movedFilesRepository);
+    sourceLinesRepository, fileSimilarity, movedFilesRepository, executorService);
 
   @Before
   public void setUp() throws Exception {
     when(dbClient.openSession(false)).thenReturn(dbSession);
     when(dbClient.componentDao()).thenReturn(componentDao);
     when(dbClient.fileSourceDao()).thenReturn(fileSourceDao);
+    when(fileSourceDao.selectLineHashesByFileUuids(eq(dbSession), anyCollectionOf(String.class)))
+      .thenAnswer(invocation -> ((Collection<String>) invocation.getArguments()[1]).stream()
+        .map(fileSourceDtosByFileUuid::get)
+        .filter(Objects::nonNull)
+        .collect(toList()));
     treeRootHolder.setRoot(PROJECT);
   }
 
+  @After
+  public void tearDown() {
+    executorService.stop();
+  }
+
   @Test
   public void getDescription_returns_description() {
     assertThat(underTest.getDescription()).isEqualTo("Detect file moves");
@@ -367,6 +386,37 @@ public class FileMoveDetectionStepTest {
     assertThat(movedFilesRepository.getComponentsWithOriginal()).isEmpty();
   }
 
+  @Test
+  public void execute_detects_move_when_another_file_has_no_source_in_DB() {
+    analysisMetadataHolder.setBaseAnalysis(ANALYSIS);
+    ComponentDto[] dtos = mockComponents(FILE_1.getKey(), FILE_2.getKey());
+    mockContentOfFileInDb(FILE_2.getKey(), CONTENT1);
+    setFilesInReport(FILE_3);
+    setFileContentInReport(FILE_3_REF, CONTENT1);
+
+    underTest.execute();
+
+    assertThat(movedFilesRepository.getComponentsWithOriginal()).containsOnly(FILE_3);
+    assertThat(movedFilesRepository.getOriginalFile(FILE_3).get().getKey()).isEqualTo(dtos[1].getDbKey());
+  }
+
+  @Test
+  public void execute_does_not_compare_files_whose_number_of_lines_are_too_different() {
+    FileSimilarity spiedFileSimilarity = spy(fileSimilarity);
+    underTest = new FileMoveDetectionStep(analysisMetadataHolder, treeRootHolder, dbClient,
+      sourceLinesRepository, spiedFileSimilarity, movedFilesRepository, executorService);
+    analysisMetadataHolder.setBaseAnalysis(ANALYSIS);
+    mockComponents(FILE_1.getKey());
+    mockContentOfFileInDb(FILE_1.getKey(), CONTENT1);
+    setFilesInReport(FILE_2);
+    setFileContentInReport(FILE_2_REF, new String[] {"a", "b"});
+
+    underTest.execute();
+
+    verify(spiedFileSimilarity, never()).score(any(FileSimilarity.File.class), any(FileSimilarity.File.class));
+    assertThat(movedFilesRepository.getComponentsWithOriginal()).isEmpty();
+  }
+
   @Test
   public void execute_detects_no_move_if_content_of_file_is_empty_in_report() {
     analysisMetadataHolder.setBaseAnalysis(ANALYSIS);
@@ -515,7 +565,8 @@ public class FileMoveDetectionStepTest {
       dto.setLineHashes(on('\n').join(linesHashesComputer.getLineHashes()));
     }
 
-    when(fileSourceDao.selectSourceByFileUuid(dbSession, componentUuidOf(key))).thenReturn(dto);
+    dto.setFileUuid(componentUuidOf(key));
+    fileSourceDtosByFileUuid.put(dto.getFileUuid(), dto);
   }
 
   private void setFilesInReport(Component... files) {
@@ -55,6 +55,16 @@ public class SourceSimilarityImplTest {
     assertThat(underTest.score(asList("a", "b", "c"), asList("a"))).isEqualTo(33);
   }
 
+  @Test
+  public void maxScore_is_an_upper_bound_of_score_depending_on_sizes_only() {
+    assertThat(underTest.maxScore(3, 3)).isEqualTo(100);
+    assertThat(underTest.maxScore(1, 3)).isEqualTo(33);
+    assertThat(underTest.maxScore(3, 1)).isEqualTo(33);
+    assertThat(underTest.maxScore(0, 0)).isEqualTo(0);
+    assertThat(underTest.score(asList("a"), asList("a", "b", "c"))).isEqualTo(underTest.maxScore(1, 3));
+    assertThat(underTest.score(asList("a", "b", "c"), asList("d", "e", "f"))).isLessThanOrEqualTo(underTest.maxScore(3, 3));
+  }
+
   @Test
   public void two_empty_lists_are_not_considered_as_equal() {
     assertThat(underTest.score(emptyList(), emptyList())).isEqualTo(0);
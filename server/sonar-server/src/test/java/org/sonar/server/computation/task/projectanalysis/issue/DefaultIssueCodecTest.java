@@ -0,0 +1,218 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.issue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Date;
+import org.junit.Test;
+import org.sonar.api.issue.Issue;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.rule.Severity;
+import org.sonar.api.rules.RuleType;
+import org.sonar.api.utils.Duration;
+import org.sonar.core.issue.DefaultIssue;
+import org.sonar.core.issue.DefaultIssueComment;
+import org.sonar.core.issue.FieldDiffs;
+import org.sonar.core.issue.IssueChangeContext;
+import org.sonar.db.protobuf.DbCommons;
+import org.sonar.db.protobuf.DbIssues;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+public class DefaultIssueCodecTest {
+
+  private DefaultIssueCodec underTest = new DefaultIssueCodec();
+
+  @Test
+  public void encode_and_decode_all_fields() throws IOException {
+    Date date = new Date(1_500_000_000_000L);
+    DbIssues.Locations locations = DbIssues.Locations.newBuilder()
+      .setTextRange(DbCommons.TextRange.newBuilder().setStartLine(1).setEndLine(2))
+      .build();
+    DefaultIssue issue = new DefaultIssue()
+      .setKey("ABCD")
+      .setType(RuleType.BUG)
+      .setComponentUuid("COMPONENT_UUID")
+      .setComponentKey("COMPONENT_KEY")
+      .setModuleUuid("MODULE_UUID")
+      .setModuleUuidPath(".MODULE_UUID.")
+      .setProjectUuid("PROJECT_UUID")
+      .setProjectKey("PROJECT_KEY")
+      .setRuleKey(RuleKey.of("xoo", "S001"))
+      .setLanguage("xoo")
+      .setSeverity(Severity.BLOCKER)
+      .setManualSeverity(true)
+      .setMessage("the message")
+      .setLine(10)
+      .setGap(2.5)
+      .setEffort(Duration.create(30L))
+      .setStatus(Issue.STATUS_RESOLVED)
+      .setResolution(Issue.RESOLUTION_FIXED)
+      .setAssignee("john")
+      .setChecksum("CHECKSUM")
+      .setAttribute("JIRA", "FOO-123")
+      .setAuthorLogin("jane")
+      .setTags(asList("tag1", "tag2"))
+      .setLocations(locations)
+      .setCreationDate(date)
+      .setUpdateDate(date)
+      .setCloseDate(date)
+      .setNew(false)
+      .setBeingClosed(true)
+      .setOnDisabledRule(true)
+      .setChanged(true)
+      .setSendNotifications(true)
+      .setSelectedAt(1_000L);
+    issue.addComment(new DefaultIssueComment().setIssueKey("ABCD").setKey("COMMENT").setUserLogin("john").setMarkdownText("*comment*")
+      .setCreatedAt(date).setUpdatedAt(date).setNew(true));
+    issue.addChange(new FieldDiffs().setIssueKey("ABCD").setUserLogin("john").setCreationDate(date).setDiff("severity", "MINOR", "MAJOR"));
+    IssueChangeContext context = IssueChangeContext.createUser(date, "jane");
+    issue.setFieldChange(context, "status", "OPEN", "RESOLVED");
+    issue.setFieldChange(context, "effort", 10L, 20L);
+
+    DefaultIssue decoded = encodeAndDecode(issue);
+
+    assertThat(decoded.key()).isEqualTo("ABCD");
+    assertThat(decoded.type()).isEqualTo(RuleType.BUG);
+    assertThat(decoded.componentUuid()).isEqualTo("COMPONENT_UUID");
+    assertThat(decoded.componentKey()).isEqualTo("COMPONENT_KEY");
+    assertThat(decoded.moduleUuid()).isEqualTo("MODULE_UUID");
+    assertThat(decoded.moduleUuidPath()).isEqualTo(".MODULE_UUID.");
+    assertThat(decoded.projectUuid()).isEqualTo("PROJECT_UUID");
+    assertThat(decoded.projectKey()).isEqualTo("PROJECT_KEY");
+    assertThat(decoded.ruleKey()).isEqualTo(RuleKey.of("xoo", "S001"));
+    assertThat(decoded.language()).isEqualTo("xoo");
+    assertThat(decoded.severity()).isEqualTo(Severity.BLOCKER);
+    assertThat(decoded.manualSeverity()).isTrue();
+    assertThat(decoded.message()).isEqualTo("the message");
+    assertThat(decoded.line()).isEqualTo(10);
+    assertThat(decoded.gap()).isEqualTo(2.5);
+    assertThat(decoded.effort()).isEqualTo(Duration.create(30L));
+    assertThat(decoded.status()).isEqualTo(Issue.STATUS_RESOLVED);
+    assertThat(decoded.resolution()).isEqualTo(Issue.RESOLUTION_FIXED);
+    assertThat(decoded.assignee()).isEqualTo("john");
+    assertThat(decoded.checksum()).isEqualTo("CHECKSUM");
+    assertThat(decoded.attributes()).containsOnly(entry("JIRA", "FOO-123"));
+    assertThat(decoded.authorLogin()).isEqualTo("jane");
+    assertThat(decoded.tags()).containsExactly("tag1", "tag2");
+    assertThat((DbIssues.Locations) decoded.getLocations()).isEqualTo(locations);
+    assertThat(decoded.creationDate()).isEqualTo(date);
+    assertThat(decoded.updateDate()).isEqualTo(date);
+    assertThat(decoded.closeDate()).isEqualTo(date);
+    assertThat(decoded.isNew()).isFalse();
+    assertThat(decoded.isBeingClosed()).isTrue();
+    assertThat(decoded.isOnDisabledRule()).isTrue();
+    assertThat(decoded.isChanged()).isTrue();
+    assertThat(decoded.mustSendNotifications()).isTrue();
+    assertThat(decoded.selectedAt()).isEqualTo(1_000L);
+
+    assertThat(decoded.comments()).hasSize(1);
+    DefaultIssueComment comment = (DefaultIssueComment) decoded.comments().get(0);
+    assertThat(comment.issueKey()).isEqualTo("ABCD");
+    assertThat(comment.key()).isEqualTo("COMMENT");
+    assertThat(comment.userLogin()).isEqualTo("john");
+    assertThat(comment.markdownText()).isEqualTo("*comment*");
+    assertThat(comment.createdAt()).isEqualTo(date);
+    assertThat(comment.updatedAt()).isEqualTo(date);
+    assertThat(comment.isNew()).isTrue();
+
+    // the current change was added twice to the list of changes
+    assertThat(decoded.changes()).hasSize(3);
+    FieldDiffs change = decoded.changes().get(0);
+    assertThat(change.issueKey()).isEqualTo("ABCD");
+    assertThat(change.userLogin()).isEqualTo("john");
+    assertThat(change.creationDate()).isEqualTo(date);
+    assertThat(change.toString()).isEqualTo("severity=MINOR|MAJOR");
+    FieldDiffs currentChange = decoded.currentChange();
+    assertThat(currentChange.userLogin()).isEqualTo("jane");
+    assertThat(currentChange.toString()).isEqualTo("status=OPEN|RESOLVED,effort=10|20");
+    assertThat(currentChange.get("effort").newValue()).isEqualTo(20L);
+    assertThat(decoded.changes().get(1)).isSameAs(currentChange);
+    assertThat(decoded.changes().get(2)).isSameAs(currentChange);
+  }
+
+  @Test
+  public void encode_and_decode_issue_with_null_fields() throws IOException {
+    DefaultIssue decoded = encodeAndDecode(new DefaultIssue());
+
+    assertThat(decoded.key()).isNull();
+    assertThat(decoded.type()).isNull();
+    assertThat(decoded.ruleKey()).isNull();
+    assertThat(decoded.line()).isNull();
+    assertThat(decoded.gap()).isNull();
+    assertThat(decoded.effort()).isNull();
+    assertThat(decoded.status()).isNull();
+    assertThat(decoded.attributes()).isEmpty();
+    assertThat(decoded.tags()).isEmpty();
+    assertThat((Object) decoded.getLocations()).isNull();
+    assertThat(decoded.creationDate()).isNull();
+    assertThat(decoded.comments()).isEmpty();
+    assertThat(decoded.changes()).isEmpty();
+    assertThat(decoded.currentChange()).isNull();
+    assertThat(decoded.isNew()).isTrue();
+    assertThat(decoded.selectedAt()).isNull();
+  }
+
+  @Test
+  public void encode_and_decode_change_values_of_any_type() throws IOException {
+    IssueChangeContext context = IssueChangeContext.createScan(new Date());
+    DefaultIssue issue = new DefaultIssue()
+      .setFieldChange(context, "line", 1, 2)
+      .setFieldChange(context, "type", RuleType.BUG, RuleType.VULNERABILITY);
+
+    DefaultIssue decoded = encodeAndDecode(issue);
+
+    assertThat(decoded.changes()).hasSize(2);
+    assertThat(decoded.changes().get(0)).isSameAs(decoded.currentChange());
+    assertThat(decoded.changes().get(1)).isSameAs(decoded.currentChange());
+    assertThat(decoded.currentChange().get("line").oldValue()).isEqualTo(1);
+    assertThat(decoded.currentChange().get("line").newValue()).isEqualTo(2);
+    assertThat(decoded.currentChange().get("type").oldValue()).isEqualTo(RuleType.BUG);
+    assertThat(decoded.currentChange().get("type").newValue()).isEqualTo(RuleType.VULNERABILITY);
+  }
+
+  @Test
+  public void encode_and_decode_several_issues_in_same_stream() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream output = new DataOutputStream(bytes);
+    underTest.write(new DefaultIssue().setKey("A").setMessage("first"), output);
+    underTest.write(new DefaultIssue().setKey("B").setMessage("second"), output);
+    output.close();
+
+    DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    assertThat(underTest.read(input).message()).isEqualTo("first");
+    assertThat(underTest.read(input).message()).isEqualTo("second");
+    assertThat(input.read()).isEqualTo(-1);
+  }
+
+  private DefaultIssue encodeAndDecode(DefaultIssue issue) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream output = new DataOutputStream(bytes)) {
+      underTest.write(issue, output);
+    }
+    return underTest.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+  }
+}
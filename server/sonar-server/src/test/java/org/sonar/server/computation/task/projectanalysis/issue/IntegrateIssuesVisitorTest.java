@@ -129,7 +129,7 @@ public class IntegrateIssuesVisitorTest {
     MockitoAnnotations.initMocks(this);
     IssueVisitors issueVisitors = new IssueVisitors(new IssueVisitor[] {issueVisitor});
 
-    tracker = new TrackerExecution(new TrackerBaseInputFactory(baseIssuesLoader, dbTester.getDbClient(), movedFilesRepository),
+    tracker = new TrackerExecution(new TrackerBaseInputFactory(treeRootHolder, baseIssuesLoader, dbTester.getDbClient(), movedFilesRepository),
       new TrackerRawInputFactory(treeRootHolder, reportReader, fileSourceRepository, new CommonRuleEngineImpl(), issueFilter),
       new Tracker<>());
 
@@ -20,24 +20,44 @@
 package org.sonar.server.computation.task.projectanalysis.issue;
 
 import com.google.common.base.Optional;
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.sonar.core.issue.DefaultIssue;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.source.FileSourceDao;
+import org.sonar.db.source.FileSourceDto;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.ReportComponent;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
 import org.sonar.server.computation.task.projectanalysis.filemove.MovedFilesRepository;
 
+import static com.google.common.collect.Sets.newHashSet;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class TrackerBaseInputFactoryTest {
   private static final String FILE_UUID = "uuid";
-  private static final ReportComponent FILE = ReportComponent.builder(Component.Type.FILE, 1).setUuid(FILE_UUID).build();
+  private static final ReportComponent FILE = ReportComponent.builder(Component.Type.FILE, 2).setUuid(FILE_UUID).build();
+  private static final String ORIGINAL_UUID = "original uuid";
+
+  @Rule
+  public TreeRootHolderRule treeRootHolder = new TreeRootHolderRule()
+    .setRoot(ReportComponent.builder(Component.Type.PROJECT, 1).setUuid("project uuid").addChildren(FILE).build());
 
   private BaseIssuesLoader baseIssuesLoader = mock(BaseIssuesLoader.class);
   private DbClient dbClient = mock(DbClient.class);
@@ -46,7 +66,7 @@ public class TrackerBaseInputFactoryTest {
 
   private MovedFilesRepository movedFilesRepository = mock(MovedFilesRepository.class);
 
-  private TrackerBaseInputFactory underTest = new TrackerBaseInputFactory(baseIssuesLoader, dbClient, movedFilesRepository);
+  private TrackerBaseInputFactory underTest = new TrackerBaseInputFactory(treeRootHolder, baseIssuesLoader, dbClient, movedFilesRepository);
 
   @Before
   public void setUp() throws Exception {
@@ -54,47 +74,84 @@ public class TrackerBaseInputFactoryTest {
     when(dbClient.fileSourceDao()).thenReturn(fileSourceDao);
     when(movedFilesRepository.getOriginalFile(any(Component.class)))
       .thenReturn(Optional.<MovedFilesRepository.OriginalFile>absent());
+    when(baseIssuesLoader.loadUuidsOfComponentsWithOpenIssues()).thenReturn(newHashSet(FILE_UUID, ORIGINAL_UUID));
   }
 
   @Test
   public void create_returns_Input_which_retrieves_lines_hashes_of_specified_file_component_when_it_has_no_original_file() {
-    underTest.create(FILE).getLineHashSequence();
+    when(fileSourceDao.selectLineHashesByFileUuids(dbSession, singletonList(FILE_UUID)))
+      .thenReturn(singletonList(new FileSourceDto().setFileUuid(FILE_UUID).setLineHashes("a\nb")));
 
-    verify(fileSourceDao).selectLineHashes(dbSession, FILE_UUID);
+    assertThat(underTest.create(FILE).getLineHashSequence().length()).isEqualTo(2);
+
+    verify(fileSourceDao).selectLineHashesByFileUuids(dbSession, singletonList(FILE_UUID));
   }
 
   @Test
   public void create_returns_Input_which_retrieves_lines_hashes_of_original_file_of_component_when_it_has_one() {
-    String originalUuid = "original uuid";
-
     when(movedFilesRepository.getOriginalFile(FILE)).thenReturn(
-        Optional.of(new MovedFilesRepository.OriginalFile(6542, originalUuid, "original key"))
+        Optional.of(new MovedFilesRepository.OriginalFile(6542, ORIGINAL_UUID, "original key"))
     );
 
     underTest.create(FILE).getLineHashSequence();
 
-    verify(fileSourceDao).selectLineHashes(dbSession, originalUuid);
-    verify(fileSourceDao, times(0)).selectLineHashes(dbSession, FILE_UUID);
+    verify(fileSourceDao).selectLineHashesByFileUuids(dbSession, singletonList(ORIGINAL_UUID));
   }
 
   @Test
   public void create_returns_Input_which_retrieves_issues_of_specified_file_component_when_it_has_no_original_file() {
-    underTest.create(FILE).getIssues();
+    DefaultIssue issue = new DefaultIssue();
+    when(baseIssuesLoader.loadForComponentUuids(singletonList(FILE_UUID))).thenReturn(singletonMap(FILE_UUID, singletonList(issue)));
+
+    assertThat(underTest.create(FILE).getIssues()).containsExactly(issue);
 
-    verify(baseIssuesLoader).loadForComponentUuid(FILE_UUID);
+    verify(baseIssuesLoader).loadForComponentUuids(singletonList(FILE_UUID));
   }
 
   @Test
   public void create_returns_Input_which_retrieves_issues_of_original_file_of_component_when_it_has_one() {
-    String originalUuid = "original uuid";
-
     when(movedFilesRepository.getOriginalFile(FILE)).thenReturn(
-        Optional.of(new MovedFilesRepository.OriginalFile(6542, originalUuid, "original key"))
+        Optional.of(new MovedFilesRepository.OriginalFile(6542, ORIGINAL_UUID, "original key"))
     );
 
     underTest.create(FILE).getIssues();
 
-    verify(baseIssuesLoader).loadForComponentUuid(originalUuid);
-    verify(baseIssuesLoader, times(0)).loadForComponentUuid(FILE_UUID);
+    verify(baseIssuesLoader).loadForComponentUuids(singletonList(ORIGINAL_UUID));
+  }
+
+  @Test
+  public void create_returns_Input_with_no_issues_and_no_line_hashes_when_component_has_no_open_issues() {
+    when(baseIssuesLoader.loadUuidsOfComponentsWithOpenIssues()).thenReturn(newHashSet("other uuid"));
+
+    assertThat(underTest.create(FILE).getIssues()).isEmpty();
+
+    verify(baseIssuesLoader).loadForComponentUuids(emptyList());
+    verify(baseIssuesLoader, never()).loadForComponentUuid(any(String.class));
+    verify(fileSourceDao, never()).selectLineHashesByFileUuids(eq(dbSession), anyCollectionOf(String.class));
+  }
+
+  @Test
+  public void data_of_next_components_are_loaded_by_batches() {
+    ReportComponent.Builder project = ReportComponent.builder(Component.Type.PROJECT, 1).setUuid("project uuid");
+    List<Component> files = new ArrayList<>();
+    for (int i = 0; i < TrackerBaseInputFactory.PREFETCH_SIZE + 1; i++) {
+      Component file = ReportComponent.builder(Component.Type.FILE, 2 + i).setUuid("file" + i).build();
+      files.add(file);
+      project.addChildren(file);
+    }
+    treeRootHolder.setRoot(project.build());
+    when(baseIssuesLoader.loadUuidsOfComponentsWithOpenIssues()).thenReturn(newHashSet("file0", "file1", "file" + TrackerBaseInputFactory.PREFETCH_SIZE));
+
+    for (Component file : files) {
+      underTest.create(file).getIssues();
+      underTest.create(file).getLineHashSequence();
+    }
+
+    verify(baseIssuesLoader).loadForComponentUuids(asList("file0", "file1"));
+    verify(fileSourceDao).selectLineHashesByFileUuids(dbSession, asList("file0", "file1"));
+    verify(baseIssuesLoader).loadForComponentUuids(singletonList("file" + TrackerBaseInputFactory.PREFETCH_SIZE));
+    verify(baseIssuesLoader, times(2)).loadForComponentUuids(anyCollectionOf(String.class));
+    verify(baseIssuesLoader, never()).loadForComponentUuid(any(String.class));
+    verify(fileSourceDao, never()).selectLineHashes(eq(dbSession), any(String.class));
   }
 }
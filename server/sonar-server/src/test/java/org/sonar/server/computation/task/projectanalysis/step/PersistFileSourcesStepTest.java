@@ -128,6 +128,42 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
     assertThat(data.getLines(1).getSource()).isEqualTo("line2");
   }
 
+  @Test
+  public void persist_sources_of_more_files_than_committed_at_once() {
+    int fileCount = PersistFileSourcesStep.MAX_UNCOMMITTED_FILES * 2 + 1;
+    Component[] files = new Component[fileCount];
+    ScannerReport.Component.Builder module = ScannerReport.Component.newBuilder()
+      .setRef(2)
+      .setType(ComponentType.MODULE);
+    for (int i = 0; i < fileCount; i++) {
+      int ref = 10 + i;
+      files[i] = ReportComponent.builder(Component.Type.FILE, ref).setUuid("FILE_" + i).setKey("MODULE_KEY:src/Foo" + i + ".java")
+        .setFileAttributes(new FileAttributes(false, null, 1)).build();
+      module.addChildRef(ref);
+      reportReader.putComponent(ScannerReport.Component.newBuilder()
+        .setRef(ref)
+        .setType(ComponentType.FILE)
+        .setLines(1)
+        .build());
+      fileSourceRepository.addLine(ref, "line of file " + i);
+    }
+    treeRootHolder.setRoot(ReportComponent.builder(Component.Type.PROJECT, 1).setUuid(PROJECT_UUID).setKey(PROJECT_KEY).addChildren(
+      ReportComponent.builder(Component.Type.MODULE, 2).setUuid("MODULE").setKey("MODULE_KEY").addChildren(files).build())
+      .build());
+    reportReader.putComponent(ScannerReport.Component.newBuilder()
+      .setRef(1)
+      .setType(ComponentType.PROJECT)
+      .addChildRef(2)
+      .build());
+    reportReader.putComponent(module.build());
+
+    underTest.execute();
+
+    assertThat(dbTester.countRowsOfTable("file_sources")).isEqualTo(fileCount);
+    FileSourceDto lastFileSource = dbClient.fileSourceDao().selectSourceByFileUuid(session, "FILE_" + (fileCount - 1));
+    assertThat(lastFileSource.getSourceData().getLines(0).getSource()).isEqualTo("line of file " + (fileCount - 1));
+  }
+
   @Test
   public void dont_persist_unchanged_sources_if_incremental() {
     analysisMetadataHolder.setIncrementalAnalysis(true);
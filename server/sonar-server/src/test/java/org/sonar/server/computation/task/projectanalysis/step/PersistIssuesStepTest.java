@@ -32,11 +32,14 @@ import org.sonar.api.utils.System2;
 import org.sonar.core.issue.DefaultIssue;
 import org.sonar.core.issue.DefaultIssueComment;
 import org.sonar.core.issue.FieldDiffs;
+import org.sonar.db.BulkInserter;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTesting;
+import org.sonar.db.issue.IssueChangeDao;
+import org.sonar.db.issue.IssueChangeDto;
 import org.sonar.db.issue.IssueDto;
 import org.sonar.db.organization.OrganizationDto;
 import org.sonar.db.rule.RuleDefinitionDto;
@@ -50,7 +53,12 @@ import org.sonar.server.computation.task.projectanalysis.issue.UpdateConflictRes
 import org.sonar.server.computation.task.step.ComputationStep;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.when;
 
 public class PersistIssuesStepTest extends BaseStepTest {
@@ -127,6 +135,51 @@ public class PersistIssuesStepTest extends BaseStepTest {
     assertThat(result.getType()).isEqualTo(RuleType.BUG.getDbConstant());
   }
 
+  @Test
+  public void new_issues_are_not_committed_without_their_changes() {
+    RuleDefinitionDto rule = RuleTesting.newRule(RuleKey.of("xoo", "S01"));
+    dbTester.rules().insert(rule);
+    OrganizationDto organizationDto = dbTester.organizations().insert();
+    ComponentDto project = ComponentTesting.newPrivateProjectDto(organizationDto);
+    dbClient.componentDao().insert(session, project);
+    ComponentDto file = ComponentTesting.newFileDto(project, null);
+    dbClient.componentDao().insert(session, file);
+    session.commit();
+    issueCache.newAppender().append(new DefaultIssue()
+      .setKey("ISSUE")
+      .setType(RuleType.CODE_SMELL)
+      .setRuleKey(rule.getKey())
+      .setComponentUuid(file.uuid())
+      .setProjectUuid(project.uuid())
+      .setSeverity(Severity.BLOCKER)
+      .setStatus(Issue.STATUS_OPEN)
+      .setNew(true)
+      .addComment(new DefaultIssueComment()
+        .setKey("COMMENT")
+        .setIssueKey("ISSUE")
+        .setUserLogin("john")
+        .setMarkdownText("Some text")
+        .setNew(true)))
+      .close();
+    BulkInserter<IssueChangeDto> failingChangeInserter = mock(BulkInserter.class);
+    doThrow(new IllegalStateException("simulated")).when(failingChangeInserter).flush();
+    IssueChangeDao issueChangeDao = spy(dbClient.issueChangeDao());
+    doReturn(failingChangeInserter).when(issueChangeDao).newBulkInserter(any(DbSession.class));
+    DbClient failingDbClient = spy(dbClient);
+    doReturn(issueChangeDao).when(failingDbClient).issueChangeDao();
+    step = new PersistIssuesStep(failingDbClient, system2, new UpdateConflictResolver(), new RuleRepositoryImpl(dbClient, analysisMetadataHolder),
+      issueCache);
+
+    try {
+      step.execute();
+      fail("An IllegalStateException should be raised");
+    } catch (IllegalStateException e) {
+      assertThat(e).hasMessage("simulated");
+    }
+
+    assertThat(dbClient.issueDao().selectByKey(session, "ISSUE")).isEmpty();
+  }
+
   @Test
   public void close_issue() {
     dbTester.prepareDbUnit(getClass(), "shared.xml");
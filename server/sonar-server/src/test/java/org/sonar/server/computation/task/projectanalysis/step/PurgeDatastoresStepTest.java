@@ -28,11 +28,17 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.Mockito;
 import org.sonar.api.config.Configuration;
 import org.sonar.api.config.internal.MapSettings;
-import org.sonar.db.DbClient;
+import org.sonar.api.utils.internal.TestSystem2;
+import org.sonar.ce.queue.CeQueue;
+import org.sonar.ce.queue.CeTaskSubmit;
+import org.sonar.core.config.PurgeConstants;
 import org.sonar.db.DbSession;
+import org.sonar.db.DbTester;
+import org.sonar.db.ce.CeActivityDto;
+import org.sonar.db.ce.CeQueueDto;
+import org.sonar.db.ce.CeTaskTypes;
 import org.sonar.db.purge.IdUuidPair;
 import org.sonar.server.computation.dbcleaner.ProjectCleaner;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
@@ -51,6 +57,7 @@ import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyList;
 import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -61,7 +68,13 @@ public class PurgeDatastoresStepTest extends BaseStepTest {
   private static final String PROJECT_KEY = "PROJECT_KEY";
   private static final long PROJECT_ID = 123L;
   private static final String PROJECT_UUID = "UUID-1234";
+  private static final long NOW = 1_500_000_000_000L;
+  private static final long ONE_HOUR = 60 * 60 * 1000L;
 
+  private TestSystem2 system2 = new TestSystem2().setNow(NOW);
+
+  @Rule
+  public DbTester db = DbTester.create(system2);
   @Rule
   public TreeRootHolderRule treeRootHolder = new TreeRootHolderRule();
   @Rule
@@ -71,8 +84,11 @@ public class PurgeDatastoresStepTest extends BaseStepTest {
   private ConfigurationRepository settingsRepository = mock(ConfigurationRepository.class);
   private MutableDisabledComponentsHolder disabledComponentsHolder = mock(MutableDisabledComponentsHolder.class, RETURNS_DEEP_STUBS);
 
-  private PurgeDatastoresStep underTest = new PurgeDatastoresStep(mock(DbClient.class, Mockito.RETURNS_DEEP_STUBS), projectCleaner, dbIdsRepository, treeRootHolder,
-    settingsRepository, disabledComponentsHolder);
+  private CeQueue ceQueue = mock(CeQueue.class);
+  private MapSettings settings = new MapSettings();
+
+  private PurgeDatastoresStep underTest = new PurgeDatastoresStep(db.getDbClient(), projectCleaner, dbIdsRepository, treeRootHolder,
+    settingsRepository, disabledComponentsHolder, ceQueue, system2);
 
   @Test
   public void call_purge_method_of_the_purge_task_for_project() {
@@ -88,6 +104,82 @@ public class PurgeDatastoresStepTest extends BaseStepTest {
     verify_call_purge_method_of_the_purge_task(project);
   }
 
+  @Test
+  public void do_not_submit_purge_task_if_one_is_already_in_queue() {
+    setUpProject();
+    insertInQueue(CeTaskTypes.PROJECT_PURGE, PROJECT_UUID);
+
+    underTest.execute();
+
+    verify(projectCleaner).purgeDisabledComponents(any(DbSession.class), any(IdUuidPair.class), any(Configuration.class), anyList());
+    verify(ceQueue, never()).submit(any(CeTaskSubmit.class));
+  }
+
+  @Test
+  public void submit_purge_task_if_tasks_of_other_types_are_in_queue() {
+    setUpProject();
+    insertInQueue(CeTaskTypes.REPORT, PROJECT_UUID);
+    insertInQueue(CeTaskTypes.PROJECT_PURGE, "OTHER_PROJECT");
+
+    underTest.execute();
+
+    verifySubmittedPurgeTask();
+  }
+
+  @Test
+  public void do_not_submit_purge_task_if_submission_is_paused() {
+    setUpProject();
+    when(ceQueue.isSubmitPaused()).thenReturn(true);
+
+    underTest.execute();
+
+    verify(projectCleaner).purgeDisabledComponents(any(DbSession.class), any(IdUuidPair.class), any(Configuration.class), anyList());
+    verify(ceQueue, never()).submit(any(CeTaskSubmit.class));
+  }
+
+  @Test
+  public void do_not_submit_purge_task_if_project_was_purged_recently() {
+    setUpProject();
+    settings.setProperty(PurgeConstants.HOURS_BETWEEN_PURGES, 24);
+    insertActivity(CeTaskTypes.PROJECT_PURGE, CeActivityDto.Status.SUCCESS, NOW - 23 * ONE_HOUR);
+
+    underTest.execute();
+
+    verify(ceQueue, never()).submit(any(CeTaskSubmit.class));
+  }
+
+  @Test
+  public void submit_purge_task_if_last_purge_is_older_than_hours_between_purges() {
+    setUpProject();
+    settings.setProperty(PurgeConstants.HOURS_BETWEEN_PURGES, 24);
+    insertActivity(CeTaskTypes.PROJECT_PURGE, CeActivityDto.Status.SUCCESS, NOW - 25 * ONE_HOUR);
+
+    underTest.execute();
+
+    verifySubmittedPurgeTask();
+  }
+
+  @Test
+  public void submit_purge_task_if_recent_purge_failed() {
+    setUpProject();
+    settings.setProperty(PurgeConstants.HOURS_BETWEEN_PURGES, 24);
+    insertActivity(CeTaskTypes.PROJECT_PURGE, CeActivityDto.Status.FAILED, NOW - ONE_HOUR);
+
+    underTest.execute();
+
+    verifySubmittedPurgeTask();
+  }
+
+  @Test
+  public void submit_purge_task_after_each_analysis_by_default() {
+    setUpProject();
+    insertActivity(CeTaskTypes.PROJECT_PURGE, CeActivityDto.Status.SUCCESS, NOW - 1L);
+
+    underTest.execute();
+
+    verifySubmittedPurgeTask();
+  }
+
   @DataProvider
   public static Object[][] nonRootProjectComponentTypes() {
     return dataproviderFromComponentTypeValues(new Predicate<Component.Type>() {
@@ -133,16 +225,60 @@ public class PurgeDatastoresStepTest extends BaseStepTest {
   }
 
   private void verify_call_purge_method_of_the_purge_task(Component project) {
-    treeRootHolder.setRoot(project);
-    when(settingsRepository.getConfiguration(project)).thenReturn(new MapSettings().asConfig());
-    dbIdsRepository.setComponentId(project, PROJECT_ID);
+    setUpRoot(project);
 
     underTest.execute();
 
     ArgumentCaptor<IdUuidPair> argumentCaptor = ArgumentCaptor.forClass(IdUuidPair.class);
-    verify(projectCleaner).purge(any(DbSession.class), argumentCaptor.capture(), any(Configuration.class), anyList());
+    verify(projectCleaner).purgeDisabledComponents(any(DbSession.class), argumentCaptor.capture(), any(Configuration.class), anyList());
+    verify(projectCleaner, never()).purge(any(DbSession.class), any(IdUuidPair.class), any(Configuration.class), anyList());
     assertThat(argumentCaptor.getValue().getId()).isEqualTo(PROJECT_ID);
     assertThat(argumentCaptor.getValue().getUuid()).isEqualTo(PROJECT_UUID);
+    verifySubmittedPurgeTask();
+  }
+
+  private Component setUpProject() {
+    Component project = ReportComponent.builder(Component.Type.PROJECT, 1).setUuid(PROJECT_UUID).setKey(PROJECT_KEY).build();
+    setUpRoot(project);
+    return project;
+  }
+
+  private void setUpRoot(Component root) {
+    treeRootHolder.setRoot(root);
+    when(settingsRepository.getConfiguration(root)).thenReturn(settings.asConfig());
+    dbIdsRepository.setComponentId(root, PROJECT_ID);
+    when(ceQueue.prepareSubmit()).thenReturn(new CeTaskSubmit.Builder("TASK_UUID"));
+  }
+
+  private void verifySubmittedPurgeTask() {
+    ArgumentCaptor<CeTaskSubmit> submitCaptor = ArgumentCaptor.forClass(CeTaskSubmit.class);
+    verify(ceQueue).submit(submitCaptor.capture());
+    assertThat(submitCaptor.getValue().getType()).isEqualTo(CeTaskTypes.PROJECT_PURGE);
+    assertThat(submitCaptor.getValue().getComponentUuid()).isEqualTo(PROJECT_UUID);
+  }
+
+  private CeQueueDto insertInQueue(String taskType, String componentUuid) {
+    CeQueueDto dto = new CeQueueDto()
+      .setUuid(taskType + componentUuid)
+      .setTaskType(taskType)
+      .setComponentUuid(componentUuid)
+      .setStatus(CeQueueDto.Status.PENDING);
+    db.getDbClient().ceQueueDao().insert(db.getSession(), dto);
+    db.commit();
+    return dto;
+  }
+
+  private void insertActivity(String taskType, CeActivityDto.Status status, long submittedAt) {
+    CeQueueDto queueDto = new CeQueueDto()
+      .setUuid("ACTIVITY_" + status)
+      .setTaskType(taskType)
+      .setComponentUuid(PROJECT_UUID)
+      .setCreatedAt(submittedAt)
+      .setUpdatedAt(submittedAt);
+    CeActivityDto dto = new CeActivityDto(queueDto);
+    dto.setStatus(status);
+    db.getDbClient().ceActivityDao().insert(db.getSession(), dto);
+    db.commit();
   }
 
   private static Object[][] dataproviderFromComponentTypeValues(Predicate<Component.Type> predicate) {
@@ -21,9 +21,11 @@ package org.sonar.server.computation.task.step;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InOrder;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
@@ -31,6 +33,7 @@ import org.sonar.server.computation.task.ChangeLogLevel;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.inOrder;
@@ -49,10 +52,12 @@ public class ComputationStepExecutorTest {
   private final ComputationStep computationStep1 = mockComputationStep("step1");
   private final ComputationStep computationStep2 = mockComputationStep("step2");
   private final ComputationStep computationStep3 = mockComputationStep("step3");
+  private final ComputationStepsStatistics statistics = new ComputationStepsStatistics();
+  private final ComputationStepsMetricsPersister metricsPersister = mock(ComputationStepsMetricsPersister.class);
 
   @Test
   public void execute_call_execute_on_each_ComputationStep_in_order_returned_by_instances_method() {
-    new ComputationStepExecutor(mockComputationSteps(computationStep1, computationStep2, computationStep3))
+    new ComputationStepExecutor(mockComputationSteps(computationStep1, computationStep2, computationStep3), statistics, metricsPersister)
       .execute();
 
     InOrder inOrder = inOrder(computationStep1, computationStep2, computationStep3);
@@ -74,7 +79,7 @@ public class ComputationStepExecutorTest {
       .when(computationStep)
       .execute();
 
-    ComputationStepExecutor computationStepExecutor = new ComputationStepExecutor(mockComputationSteps(computationStep));
+    ComputationStepExecutor computationStepExecutor = new ComputationStepExecutor(mockComputationSteps(computationStep), statistics, metricsPersister);
 
     expectedException.expect(RuntimeException.class);
     expectedException.expectMessage(message);
@@ -104,11 +109,91 @@ public class ComputationStepExecutorTest {
     assertThat(infoLogs.get(1)).contains("step2 | time=");
   }
 
+  @Test
+  public void execute_logs_resources_consumed_by_each_ComputationStep_when_level_is_DEBUG() {
+    List<String> debugLogs = execute_logs_end_timing_for_each_ComputationStep_called_when_(LoggerLevel.DEBUG);
+    assertThat(debugLogs).hasSize(2);
+    assertThat(debugLogs.get(0)).contains("step1 | time=").contains(" | cpuTime=").contains(" | allocatedBytes=");
+  }
+
+  @Test
+  public void execute_records_statistics_of_each_ComputationStep() {
+    new ComputationStepExecutor(mockComputationSteps(computationStep1, computationStep2), statistics, metricsPersister)
+      .execute();
+
+    assertThat(statistics.getAll())
+      .extracting(ComputationStepsStatistics.StepStatistics::getStepDescription)
+      .containsOnly("step1", "step2");
+    assertThat(statistics.getAll())
+      .extracting(ComputationStepsStatistics.StepStatistics::getCount)
+      .containsOnly(1L);
+  }
+
+  @Test
+  public void execute_does_not_record_statistics_of_ComputationStep_which_fails() {
+    doThrow(new RuntimeException("simulating failing execute Step method"))
+      .when(computationStep2)
+      .execute();
+
+    try {
+      new ComputationStepExecutor(mockComputationSteps(computationStep1, computationStep2), statistics, metricsPersister)
+        .execute();
+      fail("exception should have been raised");
+    } catch (RuntimeException e) {
+      assertThat(statistics.getAll())
+        .extracting(ComputationStepsStatistics.StepStatistics::getStepDescription)
+        .containsOnly("step1");
+    }
+  }
+
+  @Test
+  public void execute_persists_metrics_of_each_ComputationStep_in_order_of_execution() {
+    new ComputationStepExecutor(mockComputationSteps(computationStep2, computationStep1), statistics, metricsPersister)
+      .execute();
+
+    assertThat(capturePersistedMetrics().keySet()).containsExactly("step2", "step1");
+  }
+
+  @Test
+  public void execute_persists_metrics_of_ComputationSteps_executed_before_a_failure() {
+    doThrow(new RuntimeException("simulating failing execute Step method"))
+      .when(computationStep2)
+      .execute();
+
+    try {
+      new ComputationStepExecutor(mockComputationSteps(computationStep1, computationStep2, computationStep3), statistics, metricsPersister)
+        .execute();
+      fail("exception should have been raised");
+    } catch (RuntimeException e) {
+      assertThat(capturePersistedMetrics().keySet()).containsExactly("step1");
+    }
+  }
+
+  @Test
+  public void execute_does_not_fail_if_metrics_can_not_be_persisted() {
+    doThrow(new IllegalStateException("simulating DB failure"))
+      .when(metricsPersister)
+      .persist(any());
+
+    new ComputationStepExecutor(mockComputationSteps(computationStep1), statistics, metricsPersister, listener).execute();
+
+    verify(computationStep1).execute();
+    verify(listener).finished(true);
+    assertThat(logTester.logs(LoggerLevel.ERROR)).containsOnly("Fail to persist metrics of steps");
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<String, ComputationStepMetrics> capturePersistedMetrics() {
+    ArgumentCaptor<Map> captor = ArgumentCaptor.forClass(Map.class);
+    verify(metricsPersister).persist(captor.capture());
+    return captor.getValue();
+  }
+
   private List<String> execute_logs_end_timing_for_each_ComputationStep_called_when_(LoggerLevel level) {
     try (ChangeLogLevel executor = new ChangeLogLevel(ComputationStepExecutor.class, level);
       ChangeLogLevel step1 = new ChangeLogLevel(computationStep1.getClass(), level);
       ChangeLogLevel step2 = new ChangeLogLevel(computationStep2.getClass(), level)) {
-      new ComputationStepExecutor(mockComputationSteps(computationStep1, computationStep2))
+      new ComputationStepExecutor(mockComputationSteps(computationStep1, computationStep2), statistics, metricsPersister)
         .execute();
 
       return logTester.logs(LoggerLevel.DEBUG);
@@ -117,7 +202,7 @@ public class ComputationStepExecutorTest {
 
   @Test
   public void execute_calls_listener_finished_method_with_all_step_runs() {
-    new ComputationStepExecutor(mockComputationSteps(computationStep1, computationStep2), listener)
+    new ComputationStepExecutor(mockComputationSteps(computationStep1, computationStep2), statistics, metricsPersister, listener)
       .execute();
 
     verify(listener).finished(true);
@@ -132,7 +217,7 @@ public class ComputationStepExecutorTest {
       .execute();
 
     try {
-      new ComputationStepExecutor(mockComputationSteps(computationStep1, computationStep2), listener)
+      new ComputationStepExecutor(mockComputationSteps(computationStep1, computationStep2), statistics, metricsPersister, listener)
         .execute();
       fail("exception toBeThrown should have been raised");
     } catch (RuntimeException e) {
@@ -149,7 +234,7 @@ public class ComputationStepExecutorTest {
         .when(listener)
         .finished(anyBoolean());
 
-    new ComputationStepExecutor(mockComputationSteps(computationStep1), listener).execute();
+    new ComputationStepExecutor(mockComputationSteps(computationStep1), statistics, metricsPersister, listener).execute();
   }
 
   private static ComputationSteps mockComputationSteps(ComputationStep... computationSteps) {
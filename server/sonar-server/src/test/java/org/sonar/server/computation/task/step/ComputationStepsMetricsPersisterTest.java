@@ -0,0 +1,80 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.step;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.utils.System2;
+import org.sonar.ce.queue.CeTask;
+import org.sonar.core.util.UuidFactoryFast;
+import org.sonar.db.DbTester;
+import org.sonar.db.ce.CeTaskStepDto;
+
+import static java.util.Collections.singletonMap;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.sonar.server.computation.task.step.ComputationStepMetrics.UNAVAILABLE;
+
+public class ComputationStepsMetricsPersisterTest {
+  private static final String TASK_UUID = "TASK_1";
+
+  private System2 system2 = mock(System2.class);
+
+  @Rule
+  public DbTester dbTester = DbTester.create(system2);
+
+  private CeTask ceTask = mock(CeTask.class);
+  private ComputationStepsMetricsPersister underTest = new ComputationStepsMetricsPersister(dbTester.getDbClient(), UuidFactoryFast.getInstance(),
+    system2, ceTask);
+
+  @Test
+  public void persist_metrics_of_steps_in_order() {
+    when(ceTask.getUuid()).thenReturn(TASK_UUID);
+    when(system2.now()).thenReturn(1_000L);
+    Map<String, ComputationStepMetrics> metricsByStep = new LinkedHashMap<>();
+    metricsByStep.put("Load report", new ComputationStepMetrics(10L, 8L, 2_000L));
+    metricsByStep.put("Persist sources", new ComputationStepMetrics(20L, UNAVAILABLE, UNAVAILABLE));
+
+    underTest.persist(metricsByStep);
+
+    assertThat(dbTester.getDbClient().ceTaskStepDao().selectByTaskUuid(dbTester.getSession(), TASK_UUID))
+      .extracting(CeTaskStepDto::getStepIndex, CeTaskStepDto::getDescription, CeTaskStepDto::getWallTime, CeTaskStepDto::getCpuTime,
+        CeTaskStepDto::getAllocatedBytes, CeTaskStepDto::getCreatedAt)
+      .containsExactly(
+        tuple(0, "Load report", 10L, 8L, 2_000L, 1_000L),
+        tuple(1, "Persist sources", 20L, null, null, 1_000L));
+  }
+
+  @Test
+  public void persist_replaces_metrics_of_previous_execution_of_task() {
+    when(ceTask.getUuid()).thenReturn(TASK_UUID);
+    underTest.persist(singletonMap("Load report", new ComputationStepMetrics(10L, 8L, 2_000L)));
+
+    underTest.persist(singletonMap("Load report", new ComputationStepMetrics(30L, 25L, 4_000L)));
+
+    assertThat(dbTester.getDbClient().ceTaskStepDao().selectByTaskUuid(dbTester.getSession(), TASK_UUID))
+      .extracting(CeTaskStepDto::getDescription, CeTaskStepDto::getWallTime)
+      .containsExactly(tuple("Load report", 30L));
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.step;
+
+import java.util.List;
+import org.junit.Test;
+import org.sonar.server.computation.task.step.ComputationStepsStatistics.StepStatistics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.server.computation.task.step.ComputationStepMetrics.UNAVAILABLE;
+import static org.sonar.server.computation.task.step.ComputationStepsStatistics.MAX_SAMPLES_PER_STEP;
+
+public class ComputationStepsStatisticsTest {
+
+  private ComputationStepsStatistics underTest = new ComputationStepsStatistics();
+
+  @Test
+  public void getAll_is_empty_if_no_step_has_been_executed() {
+    assertThat(underTest.getAll()).isEmpty();
+  }
+
+  @Test
+  public void getAll_computes_percentiles_of_each_step() {
+    for (int i = 1; i <= 100; i++) {
+      underTest.add("step1", new ComputationStepMetrics(i, 2 * i, 1000 * i));
+    }
+    underTest.add("step2", new ComputationStepMetrics(7, 3, 50));
+
+    List<StepStatistics> statistics = underTest.getAll();
+
+    assertThat(statistics).hasSize(2);
+    StepStatistics step1 = statistics.get(0);
+    assertThat(step1.getStepDescription()).isEqualTo("step1");
+    assertThat(step1.getCount()).isEqualTo(100);
+    assertThat(step1.getWallTimeP50()).isEqualTo(50);
+    assertThat(step1.getWallTimeP95()).isEqualTo(95);
+    assertThat(step1.getWallTimeP99()).isEqualTo(99);
+    assertThat(step1.getCpuTimeP95()).isEqualTo(190);
+    assertThat(step1.getAllocatedBytesP95()).isEqualTo(95_000);
+    StepStatistics step2 = statistics.get(1);
+    assertThat(step2.getStepDescription()).isEqualTo("step2");
+    assertThat(step2.getCount()).isEqualTo(1);
+    assertThat(step2.getWallTimeP50()).isEqualTo(7);
+    assertThat(step2.getWallTimeP99()).isEqualTo(7);
+    assertThat(step2.getCpuTimeP95()).isEqualTo(3);
+    assertThat(step2.getAllocatedBytesP95()).isEqualTo(50);
+  }
+
+  @Test
+  public void getAll_returns_slowest_steps_first() {
+    underTest.add("fast", new ComputationStepMetrics(1, 1, 1));
+    underTest.add("slow", new ComputationStepMetrics(100, 1, 1));
+    underTest.add("medium", new ComputationStepMetrics(10, 1, 1));
+
+    assertThat(underTest.getAll())
+      .extracting(StepStatistics::getStepDescription)
+      .containsExactly("slow", "medium", "fast");
+  }
+
+  @Test
+  public void unavailable_metrics_are_ignored() {
+    underTest.add("step", new ComputationStepMetrics(10, UNAVAILABLE, UNAVAILABLE));
+    underTest.add("step", new ComputationStepMetrics(20, 5, UNAVAILABLE));
+
+    StepStatistics statistics = underTest.getAll().get(0);
+
+    assertThat(statistics.getCpuTimeP95()).isEqualTo(5);
+    assertThat(statistics.getAllocatedBytesP95()).isEqualTo(UNAVAILABLE);
+  }
+
+  @Test
+  public void only_last_samples_are_kept() {
+    for (int i = 0; i < MAX_SAMPLES_PER_STEP; i++) {
+      underTest.add("step", new ComputationStepMetrics(1_000, 1, 1));
+    }
+    for (int i = 0; i < MAX_SAMPLES_PER_STEP; i++) {
+      underTest.add("step", new ComputationStepMetrics(1, 1, 1));
+    }
+
+    StepStatistics statistics = underTest.getAll().get(0);
+
+    assertThat(statistics.getCount()).isEqualTo(2 * MAX_SAMPLES_PER_STEP);
+    assertThat(statistics.getWallTimeP99()).isEqualTo(1);
+  }
+}
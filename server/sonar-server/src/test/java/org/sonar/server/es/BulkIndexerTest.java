@@ -96,6 +96,37 @@ public class BulkIndexerTest {
     assertThat(replicas()).isEqualTo(1);
   }
 
+  @Test
+  public void large_indexing_shared_by_several_bulk_indexers() {
+    // index has one replica
+    assertThat(replicas()).isEqualTo(1);
+
+    BulkIndexer.LargeIndexing largeIndexing = BulkIndexer.startLargeIndexing(esTester.client(), INDEX_TYPE_FAKE);
+
+    // replicas are temporarily disabled
+    assertThat(replicas()).isEqualTo(0);
+
+    for (int i = 0; i < 2; i++) {
+      BulkIndexer indexer = largeIndexing.newBulkIndexer(IndexingListener.NOOP);
+      indexer.start();
+      for (int j = 0; j < 5; j++) {
+        indexer.add(newIndexRequest(i * 5 + j));
+      }
+      IndexingResult result = indexer.stop();
+
+      assertThat(result.isSuccess()).isTrue();
+      assertThat(result.getSuccess()).isEqualTo(5);
+      // settings are not reverted by each bulk indexer
+      assertThat(replicas()).isEqualTo(0);
+    }
+
+    largeIndexing.stop();
+
+    assertThat(count()).isEqualTo(10);
+    // replicas are re-enabled
+    assertThat(replicas()).isEqualTo(1);
+  }
+
   @Test
   public void bulk_delete() throws Exception {
     int max = 500;
@@ -20,14 +20,26 @@
 package org.sonar.server.es;
 
 import com.google.common.collect.ImmutableSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Rule;
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.mockito.Mockito;
+import org.mockito.stubbing.Answer;
 import org.sonar.api.config.internal.MapSettings;
 import org.sonar.api.utils.System2;
 import org.sonar.db.DbTester;
 
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -63,6 +75,25 @@ public class IndexerStartupTaskTest {
     verifyNoMoreInteractions(indexer2);
   }
 
+  @Test
+  public void do_not_flag_type_as_initialized_if_indexing_fails() throws Exception {
+    insertDocumentIntoIndex();
+
+    StartupIndexer failingIndexer = createIndexer();
+    doThrow(new IllegalStateException("BOOM")).when(failingIndexer).indexOnStartup(Mockito.anySet());
+    try {
+      emulateStartup(failingIndexer);
+      fail();
+    } catch (IllegalStateException e) {
+      assertThat(e).hasMessage("BOOM");
+    }
+
+    // index again on next run
+    StartupIndexer indexer = createIndexer();
+    emulateStartup(indexer);
+    verify(indexer).indexOnStartup(Mockito.eq(ImmutableSet.of(INDEX_TYPE_FAKE)));
+  }
+
   @Test
   public void do_not_index_if_indexes_are_disabled() throws Exception {
     settings.setProperty("sonar.internal.es.disableIndexes", "true");
@@ -76,6 +107,69 @@ public class IndexerStartupTaskTest {
     verifyNoMoreInteractions(indexer);
   }
 
+  @Test
+  public void indexers_writing_to_the_same_index_are_executed_sequentially() throws Exception {
+    insertDocumentIntoIndex();
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    StartupIndexer indexer1 = createIndexer();
+    StartupIndexer indexer2 = createIndexer();
+    Answer<Void> recordConcurrency = invocation -> {
+      maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+      Thread.sleep(100L);
+      running.decrementAndGet();
+      return null;
+    };
+    doAnswer(recordConcurrency).when(indexer1).indexOnStartup(Mockito.anySet());
+    doAnswer(recordConcurrency).when(indexer2).indexOnStartup(Mockito.anySet());
+
+    new IndexerStartupTask(es.client(), settings.asConfig(), indexer1, indexer2).execute();
+
+    InOrder inOrder = Mockito.inOrder(indexer1, indexer2);
+    inOrder.verify(indexer1).indexOnStartup(Mockito.eq(ImmutableSet.of(INDEX_TYPE_FAKE)));
+    inOrder.verify(indexer2).indexOnStartup(Mockito.eq(ImmutableSet.of(INDEX_TYPE_FAKE)));
+    assertThat(maxRunning.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void group_indexers_which_share_indices() {
+    StartupIndexer rules = mock(StartupIndexer.class);
+    StartupIndexer users = mock(StartupIndexer.class);
+    StartupIndexer activeRules = mock(StartupIndexer.class);
+    StartupIndexer issues = mock(StartupIndexer.class);
+    StartupIndexer permissions = mock(StartupIndexer.class);
+    StartupIndexer projects = mock(StartupIndexer.class);
+    Map<StartupIndexer, Set<IndexType>> typesByIndexer = new LinkedHashMap<>();
+    typesByIndexer.put(rules, ImmutableSet.of(new IndexType("rules", "rule")));
+    typesByIndexer.put(users, ImmutableSet.of(new IndexType("users", "user")));
+    typesByIndexer.put(activeRules, ImmutableSet.of(new IndexType("rules", "activeRule")));
+    typesByIndexer.put(issues, ImmutableSet.of(new IndexType("issues", "issue")));
+    typesByIndexer.put(projects, ImmutableSet.of(new IndexType("projectmeasures", "projectmeasure")));
+    typesByIndexer.put(permissions, ImmutableSet.of(new IndexType("issues", "authorization"), new IndexType("projectmeasures", "authorization")));
+
+    assertThat(IndexerStartupTask.groupBySharedIndices(typesByIndexer)).containsExactly(
+      asList(rules, activeRules),
+      singletonList(users),
+      asList(issues, projects, permissions));
+  }
+
+  @Test
+  public void merge_groups_linked_by_an_indexer() {
+    StartupIndexer issues = mock(StartupIndexer.class);
+    StartupIndexer users = mock(StartupIndexer.class);
+    StartupIndexer projects = mock(StartupIndexer.class);
+    StartupIndexer permissions = mock(StartupIndexer.class);
+    Map<StartupIndexer, Set<IndexType>> typesByIndexer = new LinkedHashMap<>();
+    typesByIndexer.put(issues, ImmutableSet.of(new IndexType("issues", "issue")));
+    typesByIndexer.put(users, ImmutableSet.of(new IndexType("users", "user")));
+    typesByIndexer.put(projects, ImmutableSet.of(new IndexType("projectmeasures", "projectmeasure")));
+    typesByIndexer.put(permissions, ImmutableSet.of(new IndexType("issues", "authorization"), new IndexType("projectmeasures", "authorization")));
+
+    assertThat(IndexerStartupTask.groupBySharedIndices(typesByIndexer)).containsExactly(
+      asList(issues, projects, permissions),
+      singletonList(users));
+  }
+
   private void insertDocumentIntoIndex() {
     es.putDocuments(INDEX_TYPE_FAKE, new FakeDoc());
   }
@@ -0,0 +1,68 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.es;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.utils.System2;
+import org.sonar.db.DbTester;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.server.es.FakeIndexDefinition.INDEX_TYPE_FAKE;
+
+public class StartupIndexingCheckpointTest {
+
+  @Rule
+  public DbTester db = DbTester.create(System2.INSTANCE);
+  @Rule
+  public EsTester es = new EsTester(new FakeIndexDefinition());
+
+  private StartupIndexingCheckpoint underTest = new StartupIndexingCheckpoint(db.getDbClient(), es.client(), INDEX_TYPE_FAKE);
+
+  @Test
+  public void load_returns_null_if_no_checkpoint() {
+    assertThat(underTest.load()).isNull();
+  }
+
+  @Test
+  public void load_saved_checkpoint() {
+    underTest.save("P1");
+    assertThat(underTest.load()).isEqualTo("P1");
+
+    underTest.save("P2");
+    assertThat(underTest.load()).isEqualTo("P2");
+  }
+
+  @Test
+  public void clear_checkpoint() {
+    underTest.save("P1");
+    underTest.clear();
+
+    assertThat(underTest.load()).isNull();
+  }
+
+  @Test
+  public void ignore_checkpoint_of_another_index() {
+    db.getDbClient().internalPropertiesDao().save(db.getSession(), "es.startupIndexing.fakes.fake", "123|P1");
+    db.commit();
+
+    assertThat(underTest.load()).isNull();
+  }
+}
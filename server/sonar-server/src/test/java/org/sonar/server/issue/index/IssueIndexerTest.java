@@ -45,6 +45,7 @@ import org.sonar.db.rule.RuleDefinitionDto;
 import org.sonar.server.es.EsTester;
 import org.sonar.server.es.IndexingResult;
 import org.sonar.server.es.ProjectIndexer;
+import org.sonar.server.es.StartupIndexingCheckpoint;
 import org.sonar.server.permission.index.AuthorizationScope;
 import org.sonar.server.permission.index.PermissionIndexerDao;
 
@@ -104,6 +105,38 @@ public class IssueIndexerTest {
     assertThatIndexHasOnly(issue1, issue2);
   }
 
+  @Test
+  public void indexOnStartup_splits_issues_in_ranges_of_projects() {
+    RuleDefinitionDto rule = db.rules().insert();
+    IssueDto[] issues = new IssueDto[40];
+    for (int i = 0; i < issues.length; i++) {
+      ComponentDto project = db.components().insertPrivateProject(organization);
+      issues[i] = db.issues().insertIssue(IssueTesting.newIssue(rule, project, project));
+    }
+
+    underTest.indexOnStartup(emptySet());
+
+    assertThatIndexHasOnly(issues);
+  }
+
+  @Test
+  public void indexOnStartup_resumes_after_last_checkpoint() {
+    RuleDefinitionDto rule = db.rules().insert();
+    ComponentDto project1 = db.components().insertComponent(ComponentTesting.newPrivateProjectDto(organization, "P1"));
+    ComponentDto project2 = db.components().insertComponent(ComponentTesting.newPrivateProjectDto(organization, "P2"));
+    ComponentDto project3 = db.components().insertComponent(ComponentTesting.newPrivateProjectDto(organization, "P3"));
+    db.issues().insertIssue(IssueTesting.newIssue(rule, project1, project1));
+    IssueDto issue2 = db.issues().insertIssue(IssueTesting.newIssue(rule, project2, project2));
+    IssueDto issue3 = db.issues().insertIssue(IssueTesting.newIssue(rule, project3, project3));
+    StartupIndexingCheckpoint checkpoint = new StartupIndexingCheckpoint(db.getDbClient(), es.client(), INDEX_TYPE_ISSUE);
+    checkpoint.save(project1.uuid());
+
+    underTest.indexOnStartup(emptySet());
+
+    assertThatIndexHasOnly(issue2, issue3);
+    assertThat(checkpoint.load()).isNull();
+  }
+
   @Test
   public void verify_indexed_fields() {
     RuleDefinitionDto rule = db.rules().insert();
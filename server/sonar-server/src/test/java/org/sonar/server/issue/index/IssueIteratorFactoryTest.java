@@ -130,6 +130,18 @@ public class IssueIteratorFactoryTest {
     assertThat(issuesByKey).hasSize(2);
   }
 
+  @Test
+  public void iterator_over_issues_from_range_of_projects() {
+    dbTester.prepareDbUnit(getClass(), "many_projects.xml");
+
+    assertThat(issuesByKey(factory -> factory.createForProjectUuidRange(null, "THE_PROJECT_1"))).hasSize(2);
+    assertThat(issuesByKey(factory -> factory.createForProjectUuidRange("THE_PROJECT_1", null)).values())
+      .hasSize(issuesByKey().size() - 2)
+      .extracting(IssueDoc::projectUuid).containsOnly("THE_PROJECT_2");
+    assertThat(issuesByKey(factory -> factory.createForProjectUuidRange("THE_PROJECT_1", "THE_PROJECT_2"))).hasSize(issuesByKey().size() - 2);
+    assertThat(issuesByKey(factory -> factory.createForProjectUuidRange("THE_PROJECT_2", null))).isEmpty();
+  }
+
   @Test
   public void extract_directory_path() {
     dbTester.prepareDbUnit(getClass(), "extract_directory_path.xml");
@@ -35,6 +35,7 @@ import org.sonar.db.metric.MetricDto;
 import org.sonarqube.ws.client.measure.ComponentTreeWsRequest;
 
 import static com.google.common.collect.Lists.newArrayList;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.sonar.db.metric.MetricTesting.newMetricDto;
@@ -235,6 +236,39 @@ public class ComponentTreeSortTest {
       .containsExactly("path-1", "path-2", "path-3");
   }
 
+  @Test
+  public void sort_top_components() {
+    components.add(newComponentWithoutSnapshotId("name-without-measure", "qualifier-without-measure", "path-without-measure"));
+    ComponentTreeWsRequest wsRequest = newRequest(singletonList(METRIC_SORT), false, NUM_METRIC_KEY);
+
+    assertThat(ComponentTreeSort.sortTopComponents(components, wsRequest, metrics, measuresByComponentUuidAndMetric, 3)).extracting("path")
+      .containsExactly("path-9", "path-8", "path-7");
+    assertThat(ComponentTreeSort.sortTopComponents(components, wsRequest, metrics, measuresByComponentUuidAndMetric, 0)).isEmpty();
+    assertThat(ComponentTreeSort.sortTopComponents(components, wsRequest, metrics, measuresByComponentUuidAndMetric, 20))
+      .containsExactlyElementsOf(sortComponents(wsRequest));
+  }
+
+  @Test
+  public void sort_top_components_keeps_initial_order_of_equal_components() {
+    components = newArrayList(
+      newComponentWithoutSnapshotId("name-2", "qualifier-1", "path-1"),
+      newComponentWithoutSnapshotId("name-1", "qualifier-1", "path-2"),
+      newComponentWithoutSnapshotId("name-1", "qualifier-1", "path-3"),
+      newComponentWithoutSnapshotId("name-1", "qualifier-1", "path-4"));
+    ComponentTreeWsRequest wsRequest = newRequest(singletonList(NAME_SORT), true, null);
+
+    assertThat(ComponentTreeSort.sortTopComponents(components, wsRequest, metrics, measuresByComponentUuidAndMetric, 2)).extracting("path")
+      .containsExactly("path-2", "path-3");
+  }
+
+  @Test
+  public void sort_top_components_without_sort_returns_first_components() {
+    ComponentTreeWsRequest wsRequest = newRequest(emptyList(), true, null);
+
+    assertThat(ComponentTreeSort.sortTopComponents(components, wsRequest, metrics, measuresByComponentUuidAndMetric, 2))
+      .containsExactly(components.get(0), components.get(1));
+  }
+
   private List<ComponentDto> sortComponents(ComponentTreeWsRequest wsRequest) {
     return ComponentTreeSort.sortComponents(components, wsRequest, metrics, measuresByComponentUuidAndMetric);
   }
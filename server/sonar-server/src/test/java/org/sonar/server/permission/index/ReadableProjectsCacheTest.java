@@ -0,0 +1,117 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.permission.index;
+
+import java.util.Collection;
+import org.elasticsearch.index.query.HasParentQueryBuilder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.config.internal.MapSettings;
+import org.sonar.api.utils.System2;
+import org.sonar.db.DbSession;
+import org.sonar.db.DbTester;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.es.EsQueueDto;
+import org.sonar.db.user.GroupDto;
+import org.sonar.db.user.UserDto;
+import org.sonar.server.es.EsTester;
+import org.sonar.server.es.ProjectIndexer;
+import org.sonar.server.tester.UserSessionRule;
+
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.api.web.UserRole.USER;
+
+public class ReadableProjectsCacheTest {
+
+  @Rule
+  public DbTester db = DbTester.create(System2.INSTANCE);
+  @Rule
+  public EsTester es = new EsTester(new FooIndexDefinition());
+  @Rule
+  public UserSessionRule userSession = UserSessionRule.standalone();
+
+  private MapSettings settings = new MapSettings().setProperty(ReadableProjectsCache.PROPERTY_ENABLED, true);
+  private ReadableProjectsCache underTest = new ReadableProjectsCache(es.client(), settings.asConfig(),
+    AuthorizationTypeSupport.getAuthorizationIndexType(FooIndexDefinition.INDEX_TYPE_FOO));
+  private FooIndex fooIndex = new FooIndex(es.client(), new AuthorizationTypeSupport(userSession, underTest));
+  private FooIndexer fooIndexer = new FooIndexer(db.getDbClient(), es.client());
+  private PermissionIndexer permissionIndexer = new PermissionIndexer(db.getDbClient(), es.client(), underTest, fooIndexer);
+
+  @Test
+  public void is_disabled_by_default() {
+    ReadableProjectsCache cache = new ReadableProjectsCache(es.client(), new MapSettings().asConfig());
+
+    assertThat(cache.isEnabled()).isFalse();
+    assertThat(new AuthorizationTypeSupport(userSession.anonymous(), cache).createQueryFilter()).isInstanceOf(HasParentQueryBuilder.class);
+  }
+
+  @Test
+  public void filter_documents_of_readable_projects() {
+    ComponentDto publicProject = createAndIndexProject(db.components().insertPublicProject());
+    ComponentDto privateProject1 = createAndIndexProject(db.components().insertPrivateProject());
+    ComponentDto privateProject2 = createAndIndexProject(db.components().insertPrivateProject());
+    UserDto user = db.users().insertUser();
+    GroupDto group = db.users().insertGroup();
+    db.users().insertProjectPermissionOnUser(user, USER, privateProject1);
+    db.users().insertProjectPermissionOnGroup(group, USER, privateProject2);
+    permissionIndexer.indexOnStartup(permissionIndexer.getIndexTypes());
+
+    userSession.anonymous();
+    assertThat(fooIndex.hasAccessToProject(publicProject.uuid())).isTrue();
+    assertThat(fooIndex.hasAccessToProject(privateProject1.uuid())).isFalse();
+
+    logIn(user);
+    assertThat(fooIndex.hasAccessToProject(publicProject.uuid())).isTrue();
+    assertThat(fooIndex.hasAccessToProject(privateProject1.uuid())).isTrue();
+    assertThat(fooIndex.hasAccessToProject(privateProject2.uuid())).isFalse();
+
+    logIn(user).setGroups(group);
+    assertThat(fooIndex.hasAccessToProject(privateProject1.uuid())).isTrue();
+    assertThat(fooIndex.hasAccessToProject(privateProject2.uuid())).isTrue();
+  }
+
+  @Test
+  public void readable_projects_are_reloaded_when_permissions_are_indexed() {
+    ComponentDto project = createAndIndexProject(db.components().insertPrivateProject());
+    UserDto user = db.users().insertUser();
+    permissionIndexer.indexOnStartup(permissionIndexer.getIndexTypes());
+    logIn(user);
+    assertThat(fooIndex.hasAccessToProject(project.uuid())).isFalse();
+
+    db.users().insertProjectPermissionOnUser(user, USER, project);
+    DbSession dbSession = db.getSession();
+    Collection<EsQueueDto> items = permissionIndexer.prepareForRecovery(dbSession, singletonList(project.uuid()), ProjectIndexer.Cause.PERMISSION_CHANGE);
+    dbSession.commit();
+    permissionIndexer.index(dbSession, items);
+
+    assertThat(fooIndex.hasAccessToProject(project.uuid())).isTrue();
+  }
+
+  private ComponentDto createAndIndexProject(ComponentDto project) {
+    fooIndexer.indexOnAnalysis(project.uuid());
+    return project;
+  }
+
+  private UserSessionRule logIn(UserDto user) {
+    userSession.logIn(user.getLogin()).setUserId(user.getId());
+    return userSession;
+  }
+}
@@ -25,8 +25,13 @@ import org.junit.rules.TemporaryFolder;
 import org.sonar.api.utils.System2;
 import org.sonar.core.util.CloseableIterator;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.fail;
@@ -52,6 +57,47 @@ public class DiskCacheTest {
     }
   }
 
+  @Test
+  public void write_and_read_with_codec() throws Exception {
+    DiskCache<String> cache = new DiskCache<>(temp.newFile(), System2.INSTANCE, new StringCodec(), false);
+
+    cache.newAppender()
+      .append("foo")
+      .append("bar")
+      .close();
+    cache.newAppender()
+      .append("baz")
+      .close();
+    try (CloseableIterator<String> traverse = cache.traverse()) {
+      assertThat(traverse).containsExactly("foo", "bar", "baz");
+    }
+  }
+
+  @Test
+  public void write_and_read_compressed_data_of_several_appenders() throws Exception {
+    DiskCache<String> cache = new DiskCache<>(temp.newFile(), System2.INSTANCE, new StringCodec(), true);
+    try (CloseableIterator<String> traverse = cache.traverse()) {
+      assertThat(traverse).isEmpty();
+    }
+
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      DiskCache<String>.DiskAppender appender = cache.newAppender();
+      // some appenders are empty, others write more than one LZ4 block
+      for (int j = 0; j < i * 2_000; j++) {
+        String value = "value " + i + "-" + j;
+        appender.append(value);
+        expected.add(value);
+      }
+      appender.close();
+    }
+    List<String> read = new ArrayList<>();
+    try (CloseableIterator<String> traverse = cache.traverse()) {
+      traverse.forEachRemaining(read::add);
+    }
+    assertThat(read).isEqualTo(expected);
+  }
+
   @Test
   public void fail_if_file_is_not_writable() throws Exception {
     try {
@@ -77,4 +123,16 @@ public class DiskCacheTest {
       assertThat(e).hasMessage("expected error");
     }
   }
+
+  private static class StringCodec implements DiskCacheCodec<String> {
+    @Override
+    public void write(String object, DataOutput output) throws IOException {
+      output.writeUTF(object);
+    }
+
+    @Override
+    public String read(DataInput input) throws IOException {
+      return input.readUTF();
+    }
+  }
 }
@@ -75,6 +75,14 @@ public class ServletRequestTest {
     assertThat(underTest.getMediaType()).isEqualTo(MediaTypes.PROTOBUF);
   }
 
+  @Test
+  public void header_returns_the_value_of_header() {
+    when(source.getHeader(HttpHeaders.IF_NONE_MATCH)).thenReturn("\"abc\"");
+
+    assertThat(underTest.header(HttpHeaders.IF_NONE_MATCH)).contains("\"abc\"");
+    assertThat(underTest.header(HttpHeaders.IF_MATCH)).isEmpty();
+  }
+
   @Test
   public void has_param_from_source() {
     when(source.getParameterMap()).thenReturn(ImmutableMap.of("param", new String[] {"value"}));
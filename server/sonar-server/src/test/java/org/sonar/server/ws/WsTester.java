@@ -32,6 +32,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.apache.commons.io.IOUtils;
@@ -100,6 +101,11 @@ public class WsTester {
       return this;
     }
 
+    @Override
+    public Optional<String> header(String name) {
+      return Optional.empty();
+    }
+
     public TestRequest setParams(Map<String, String> m) {
       this.params = m;
       return this;
@@ -100,6 +100,18 @@ public final class PurgeProperties {
         .category(CoreProperties.CATEGORY_GENERAL)
         .subCategory(CoreProperties.SUBCATEGORY_DATABASE_CLEANER)
         .index(6)
+        .build(),
+
+      PropertyDefinition.builder(PurgeConstants.HOURS_BETWEEN_PURGES)
+        .defaultValue("0")
+        .name("Minimum delay between purges")
+        .description("Number of hours during which the analyses of a project do not trigger a new purge of its history. "
+          + "Purge is executed in background after each analysis when set to 0.")
+        .type(PropertyType.INTEGER)
+        .onQualifiers(Qualifiers.PROJECT)
+        .category(CoreProperties.CATEGORY_GENERAL)
+        .subCategory(CoreProperties.SUBCATEGORY_DATABASE_CLEANER)
+        .index(7)
         .build()
       );
   }
@@ -19,14 +19,14 @@
  */
 package org.sonar.core.issue.tracking;
 
-import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.Multimap;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
-import javax.annotation.Nonnull;
 import org.apache.commons.lang.StringUtils;
-import org.sonar.api.batch.ScannerSide;
 import org.sonar.api.batch.InstantiationStrategy;
+import org.sonar.api.batch.ScannerSide;
 import org.sonar.api.rule.RuleKey;
 
 @InstantiationStrategy(InstantiationStrategy.PER_BATCH)
@@ -35,22 +35,28 @@ public class Tracker<RAW extends Trackable, BASE extends Trackable> {
 
   public Tracking<RAW, BASE> track(Input<RAW> rawInput, Input<BASE> baseInput) {
     Tracking<RAW, BASE> tracking = new Tracking<>(rawInput, baseInput);
+    if (tracking.isComplete()) {
+      return tracking;
+    }
+    TrackableFields<RAW> raws = new TrackableFields<>(tracking.getRaws());
+    TrackableFields<BASE> bases = new TrackableFields<>(tracking.getBases());
+    SearchTable baseSearch = new SearchTable(bases.size());
 
     // 1. match issues with same rule, same line and same line hash, but not necessarily with same message
-    match(tracking, LineAndLineHashKeyFactory.INSTANCE);
+    match(tracking, raws, bases, baseSearch, SearchKey.LINE_AND_LINE_HASH);
 
     // 2. detect code moves by comparing blocks of codes
     detectCodeMoves(rawInput, baseInput, tracking);
 
     // 3. match issues with same rule, same message and same line hash
-    match(tracking, LineHashAndMessageKeyFactory.INSTANCE);
+    match(tracking, raws, bases, baseSearch, SearchKey.LINE_HASH_AND_MESSAGE);
 
     // 4. match issues with same rule, same line and same message
-    match(tracking, LineAndMessageKeyFactory.INSTANCE);
+    match(tracking, raws, bases, baseSearch, SearchKey.LINE_AND_MESSAGE);
 
     // 5. match issues with same rule and same line hash but different line and different message.
     // See SONAR-2812
-    match(tracking, LineHashKeyFactory.INSTANCE);
+    match(tracking, raws, bases, baseSearch, SearchKey.LINE_HASH);
 
     return tracking;
   }
@@ -61,189 +67,205 @@ public class Tracker<RAW extends Trackable, BASE extends Trackable> {
     }
   }
 
-  private void match(Tracking<RAW, BASE> tracking, SearchKeyFactory factory) {
+  private void match(Tracking<RAW, BASE> tracking, TrackableFields<RAW> raws, TrackableFields<BASE> bases, SearchTable baseSearch, SearchKey searchKey) {
     if (tracking.isComplete()) {
       return;
     }
 
-    Multimap<SearchKey, BASE> baseSearch = ArrayListMultimap.create();
-    for (BASE base : tracking.getUnmatchedBases()) {
-      baseSearch.put(factory.create(base), base);
+    baseSearch.clear();
+    for (int b = 0; b < bases.size(); b++) {
+      if (tracking.containsUnmatchedBase(bases.get(b))) {
+        baseSearch.add(searchKey.hash(bases, b), b);
+      }
     }
 
-    for (RAW raw : tracking.getUnmatchedRaws()) {
-      SearchKey rawKey = factory.create(raw);
-      Collection<BASE> bases = baseSearch.get(rawKey);
-      if (!bases.isEmpty()) {
-        // TODO taking the first one. Could be improved if there are more than 2 issues on the same line.
-        // Message could be checked to take the best one.
-        BASE match = bases.iterator().next();
-        tracking.match(raw, match);
-        baseSearch.remove(rawKey, match);
+    for (int r = 0; r < raws.size(); r++) {
+      RAW raw = raws.get(r);
+      if (!tracking.containsUnmatchedRaw(raw)) {
+        continue;
+      }
+      // bases are visited in the order of the input, skipping the ones already matched
+      for (int b = baseSearch.first(searchKey.hash(raws, r)); b >= 0; b = baseSearch.next(b)) {
+        BASE base = bases.get(b);
+        if (tracking.containsUnmatchedBase(base) && searchKey.equals(raws, r, bases, b)) {
+          // TODO taking the first one. Could be improved if there are more than 2 issues on the same line.
+          // Message could be checked to take the best one.
+          tracking.match(raw, base);
+          break;
+        }
       }
     }
   }
 
-  private interface SearchKey {
-  }
-
-  private interface SearchKeyFactory {
-    SearchKey create(Trackable trackable);
-  }
-
-  private static class LineAndLineHashKey implements SearchKey {
-    private final RuleKey ruleKey;
-    private final String lineHash;
-    private final Integer line;
-
-    LineAndLineHashKey(Trackable trackable) {
-      this.ruleKey = trackable.getRuleKey();
-      this.line = trackable.getLine();
-      this.lineHash = StringUtils.defaultString(trackable.getLineHash(), "");
-    }
-
-    @Override
-    public boolean equals(@Nonnull Object o) {
-      if (this == o) {
-        return true;
+  /**
+   * Fields of trackables used by search keys, read once for all the passes. Their hash codes are pre-computed so that
+   * search keys don't need to be allocated.
+   */
+  private static final class TrackableFields<T extends Trackable> {
+    private final List<T> trackables;
+    private final RuleKey[] ruleKeys;
+    private final Integer[] lines;
+    private final String[] lineHashes;
+    private final String[] messages;
+    private final int[] ruleKeyCodes;
+    private final int[] lineCodes;
+    private final int[] lineHashCodes;
+    private final int[] messageCodes;
+
+    TrackableFields(Collection<T> collection) {
+      this.trackables = new ArrayList<>(collection);
+      int size = trackables.size();
+      this.ruleKeys = new RuleKey[size];
+      this.lines = new Integer[size];
+      this.lineHashes = new String[size];
+      this.messages = new String[size];
+      this.ruleKeyCodes = new int[size];
+      this.lineCodes = new int[size];
+      this.lineHashCodes = new int[size];
+      this.messageCodes = new int[size];
+      for (int i = 0; i < size; i++) {
+        T trackable = trackables.get(i);
+        ruleKeys[i] = trackable.getRuleKey();
+        lines[i] = trackable.getLine();
+        lineHashes[i] = StringUtils.defaultString(trackable.getLineHash(), "");
+        messages[i] = trackable.getMessage();
+        ruleKeyCodes[i] = ruleKeys[i].hashCode();
+        lineCodes[i] = Objects.hashCode(lines[i]);
+        lineHashCodes[i] = lineHashes[i].hashCode();
+        messageCodes[i] = Objects.hashCode(messages[i]);
       }
-      LineAndLineHashKey that = (LineAndLineHashKey) o;
-      // start with most discriminant field
-      return Objects.equals(line, that.line)
-        && lineHash.equals(that.lineHash)
-        && ruleKey.equals(that.ruleKey);
     }
 
-    @Override
-    public int hashCode() {
-      int result = ruleKey.hashCode();
-      result = 31 * result + lineHash.hashCode();
-      result = 31 * result + (line != null ? line.hashCode() : 0);
-      return result;
+    int size() {
+      return trackables.size();
     }
-  }
 
-  private enum LineAndLineHashKeyFactory implements SearchKeyFactory {
-    INSTANCE;
-    @Override
-    public SearchKey create(Trackable t) {
-      return new LineAndLineHashKey(t);
+    T get(int i) {
+      return trackables.get(i);
     }
   }
 
-  private static class LineHashAndMessageKey implements SearchKey {
-    private final RuleKey ruleKey;
-    private final String message;
-    private final String lineHash;
+  private enum SearchKey {
+    LINE_AND_LINE_HASH {
+      @Override
+      int hash(TrackableFields<?> f, int i) {
+        return 31 * (31 * f.ruleKeyCodes[i] + f.lineHashCodes[i]) + f.lineCodes[i];
+      }
 
-    LineHashAndMessageKey(Trackable trackable) {
-      this.ruleKey = trackable.getRuleKey();
-      this.message = trackable.getMessage();
-      this.lineHash = StringUtils.defaultString(trackable.getLineHash(), "");
-    }
+      @Override
+      boolean equals(TrackableFields<?> a, int i, TrackableFields<?> b, int j) {
+        // start with most discriminant field
+        return Objects.equals(a.lines[i], b.lines[j])
+          && a.lineHashes[i].equals(b.lineHashes[j])
+          && a.ruleKeys[i].equals(b.ruleKeys[j]);
+      }
+    },
 
-    @Override
-    public boolean equals(@Nonnull Object o) {
-      if (this == o) {
-        return true;
+    LINE_HASH_AND_MESSAGE {
+      @Override
+      int hash(TrackableFields<?> f, int i) {
+        return 31 * (31 * f.ruleKeyCodes[i] + f.messageCodes[i]) + f.lineHashCodes[i];
       }
-      LineHashAndMessageKey that = (LineHashAndMessageKey) o;
-      // start with most discriminant field
-      return lineHash.equals(that.lineHash)
-        && message.equals(that.message)
-        && ruleKey.equals(that.ruleKey);
-    }
 
-    @Override
-    public int hashCode() {
-      int result = ruleKey.hashCode();
-      result = 31 * result + message.hashCode();
-      result = 31 * result + lineHash.hashCode();
-      return result;
-    }
-  }
+      @Override
+      boolean equals(TrackableFields<?> a, int i, TrackableFields<?> b, int j) {
+        return a.lineHashes[i].equals(b.lineHashes[j])
+          && Objects.equals(a.messages[i], b.messages[j])
+          && a.ruleKeys[i].equals(b.ruleKeys[j]);
+      }
+    },
 
-  private enum LineHashAndMessageKeyFactory implements SearchKeyFactory {
-    INSTANCE;
-    @Override
-    public SearchKey create(Trackable t) {
-      return new LineHashAndMessageKey(t);
-    }
-  }
+    LINE_AND_MESSAGE {
+      @Override
+      int hash(TrackableFields<?> f, int i) {
+        return 31 * (31 * f.ruleKeyCodes[i] + f.messageCodes[i]) + f.lineCodes[i];
+      }
 
-  private static class LineAndMessageKey implements SearchKey {
-    private final RuleKey ruleKey;
-    private final String message;
-    private final Integer line;
+      @Override
+      boolean equals(TrackableFields<?> a, int i, TrackableFields<?> b, int j) {
+        return Objects.equals(a.lines[i], b.lines[j])
+          && Objects.equals(a.messages[i], b.messages[j])
+          && a.ruleKeys[i].equals(b.ruleKeys[j]);
+      }
+    },
 
-    LineAndMessageKey(Trackable trackable) {
-      this.ruleKey = trackable.getRuleKey();
-      this.message = trackable.getMessage();
-      this.line = trackable.getLine();
-    }
+    LINE_HASH {
+      @Override
+      int hash(TrackableFields<?> f, int i) {
+        return 31 * f.ruleKeyCodes[i] + f.lineHashCodes[i];
+      }
 
-    @Override
-    public boolean equals(@Nonnull Object o) {
-      if (this == o) {
-        return true;
+      @Override
+      boolean equals(TrackableFields<?> a, int i, TrackableFields<?> b, int j) {
+        return a.lineHashes[i].equals(b.lineHashes[j])
+          && a.ruleKeys[i].equals(b.ruleKeys[j]);
       }
-      LineAndMessageKey that = (LineAndMessageKey) o;
-      // start with most discriminant field
-      return Objects.equals(line, that.line)
-        && message.equals(that.message)
-        && ruleKey.equals(that.ruleKey);
-    }
+    };
 
-    @Override
-    public int hashCode() {
-      int result = ruleKey.hashCode();
-      result = 31 * result + message.hashCode();
-      result = 31 * result + (line != null ? line.hashCode() : 0);
-      return result;
-    }
-  }
+    abstract int hash(TrackableFields<?> f, int i);
 
-  private enum LineAndMessageKeyFactory implements SearchKeyFactory {
-    INSTANCE;
-    @Override
-    public SearchKey create(Trackable t) {
-      return new LineAndMessageKey(t);
-    }
+    abstract boolean equals(TrackableFields<?> a, int i, TrackableFields<?> b, int j);
   }
 
-  private static class LineHashKey implements SearchKey {
-    private final RuleKey ruleKey;
-    private final String lineHash;
+  /**
+   * Open addressing hash table, from hash of search key to the indexes of bases, in the order they were added.
+   * Bases having different search keys but the same hash share the same chain. It is allocated once per tracking
+   * and cleared before each pass.
+   */
+  private static final class SearchTable {
+    private final int[] hashes;
+    private final int[] heads;
+    private final int[] tails;
+    private final int[] nexts;
+    private final int mask;
+
+    SearchTable(int maxSize) {
+      // at least twice the number of bases, so that there is always an empty slot
+      int capacity = Integer.highestOneBit(Math.max(maxSize, 1)) << 2;
+      this.hashes = new int[capacity];
+      this.heads = new int[capacity];
+      this.tails = new int[capacity];
+      this.nexts = new int[maxSize];
+      this.mask = capacity - 1;
+    }
 
-    LineHashKey(Trackable trackable) {
-      this.ruleKey = trackable.getRuleKey();
-      this.lineHash = StringUtils.defaultString(trackable.getLineHash(), "");
+    void clear() {
+      Arrays.fill(heads, -1);
     }
 
-    @Override
-    public boolean equals(@Nonnull Object o) {
-      if (this == o) {
-        return true;
+    void add(int hash, int index) {
+      int slot = slot(hash);
+      nexts[index] = -1;
+      if (heads[slot] < 0) {
+        hashes[slot] = hash;
+        heads[slot] = index;
+      } else {
+        nexts[tails[slot]] = index;
       }
-      LineHashKey that = (LineHashKey) o;
-      // start with most discriminant field
-      return lineHash.equals(that.lineHash)
-        && ruleKey.equals(that.ruleKey);
+      tails[slot] = index;
     }
 
-    @Override
-    public int hashCode() {
-      int result = ruleKey.hashCode();
-      result = 31 * result + lineHash.hashCode();
-      return result;
+    /**
+     * @return the index of the first base of which search key has this hash, or -1
+     */
+    int first(int hash) {
+      return heads[slot(hash)];
+    }
+
+    /**
+     * @return the index of the next base of which search key has the same hash, or -1
+     */
+    int next(int index) {
+      return nexts[index];
     }
-  }
 
-  private enum LineHashKeyFactory implements SearchKeyFactory {
-    INSTANCE;
-    @Override
-    public SearchKey create(Trackable t) {
-      return new LineHashKey(t);
+    private int slot(int hash) {
+      int h = hash * 0x9E3779B9;
+      int slot = (h ^ (h >>> 16)) & mask;
+      while (heads[slot] >= 0 && hashes[slot] != hash) {
+        slot = (slot + 1) & mask;
+      }
+      return slot;
     }
   }
 }
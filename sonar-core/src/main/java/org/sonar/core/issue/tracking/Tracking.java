@@ -72,6 +72,18 @@ public class Tracking<RAW extends Trackable, BASE extends Trackable> {
     return Iterables.filter(bases, unmatchedBasePredicate);
   }
 
+  Collection<RAW> getRaws() {
+    return raws;
+  }
+
+  Collection<BASE> getBases() {
+    return bases;
+  }
+
+  boolean containsUnmatchedRaw(RAW raw) {
+    return !rawToBase.containsKey(raw);
+  }
+
   boolean containsUnmatchedBase(BASE base) {
     return !baseToRaw.containsKey(base);
   }
@@ -83,8 +95,12 @@ public class Tracking<RAW extends Trackable, BASE extends Trackable> {
     }
   }
 
+  /**
+   * No more matches can be found once all the raws or all the bases are matched. In particular, base
+   * data (line hashes) don't have to be loaded when there are no base issues.
+   */
   boolean isComplete() {
-    return rawToBase.size() == raws.size();
+    return rawToBase.size() == raws.size() || baseToRaw.size() == bases.size();
   }
 
   @Override
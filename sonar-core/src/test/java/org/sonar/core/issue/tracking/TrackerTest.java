@@ -351,6 +351,32 @@ public class TrackerTest {
     assertThat(tracking.getUnmatchedBases()).containsOnly(base2);
   }
 
+  @Test
+  public void match_issues_having_different_rules_with_same_hash_code() {
+    // "AaAa", "AaBB", "BBAa" and "BBBB" have the same hash code
+    RuleKey rule1 = RuleKey.of("java", "AaAa");
+    RuleKey rule2 = RuleKey.of("java", "AaBB");
+    RuleKey rule3 = RuleKey.of("java", "BBAa");
+    RuleKey rule4 = RuleKey.of("java", "BBBB");
+    assertThat(rule1.hashCode()).isEqualTo(rule2.hashCode()).isEqualTo(rule3.hashCode()).isEqualTo(rule4.hashCode());
+
+    FakeInput baseInput = new FakeInput("H1");
+    Issue base1 = baseInput.createIssueOnLine(1, rule1, "msg");
+    Issue base2 = baseInput.createIssueOnLine(1, rule2, "msg");
+    Issue base3 = baseInput.createIssueOnLine(1, rule3, "msg");
+
+    FakeInput rawInput = new FakeInput("H1");
+    Issue raw4 = rawInput.createIssueOnLine(1, rule4, "msg");
+    Issue raw3 = rawInput.createIssueOnLine(1, rule3, "msg");
+    Issue raw2 = rawInput.createIssueOnLine(1, rule2, "msg");
+
+    Tracking<Issue, Issue> tracking = tracker.track(rawInput, baseInput);
+    assertThat(tracking.baseFor(raw4)).isNull();
+    assertThat(tracking.baseFor(raw3)).isSameAs(base3);
+    assertThat(tracking.baseFor(raw2)).isSameAs(base2);
+    assertThat(tracking.getUnmatchedBases()).containsOnly(base1);
+  }
+
   /**
    * https://jira.sonarsource.com/browse/SONAR-7595
    */
@@ -19,7 +19,6 @@
  */
 package org.sonar.api.batch.fs.internal;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -47,6 +46,7 @@ import org.sonar.api.batch.fs.internal.charhandler.LineOffsetCounter;
 public class FileMetadata {
   private static final char LINE_FEED = '\n';
   private static final char CARRIAGE_RETURN = '\r';
+  private static final int BUFFER_SIZE = 8 * 1024;
 
   /**
    * Compute hash of a file ignoring line ends differences.
@@ -91,51 +91,54 @@ public class FileMetadata {
   }
 
   public static void readFile(InputStream stream, Charset encoding, String filePath, CharHandler[] handlers) {
-    try (Reader reader = new BufferedReader(new InputStreamReader(stream, encoding))) {
+    // InputStreamReader already decodes by blocks, no need for an additional buffer
+    try (Reader reader = new InputStreamReader(stream, encoding)) {
       read(reader, handlers);
     } catch (IOException e) {
       throw new IllegalStateException(String.format("Fail to read file '%s' with encoding '%s'", filePath, encoding), e);
     }
   }
 
+  /**
+   * Chars are read by blocks. Handlers are given the chars of lines by segments, in order to not call each of them
+   * for each char, and the end of line chars one by one.
+   */
   private static void read(Reader reader, CharHandler[] handlers) throws IOException {
-    char c;
-    int i = reader.read();
+    char[] buffer = new char[BUFFER_SIZE];
     boolean afterCR = false;
-    while (i != -1) {
-      c = (char) i;
-      if (afterCR) {
-        for (CharHandler handler : handlers) {
-          if (c == CARRIAGE_RETURN) {
-            handler.newLine();
-            handler.handleAll(c);
-          } else if (c == LINE_FEED) {
-            handler.handleAll(c);
-            handler.newLine();
-          } else {
+    int length = reader.read(buffer, 0, buffer.length);
+    while (length != -1) {
+      int segmentStart = 0;
+      for (int i = 0; i < length; i++) {
+        char c = buffer[i];
+        if (afterCR) {
+          afterCR = false;
+          if (c == LINE_FEED) {
+            for (CharHandler handler : handlers) {
+              handler.handleAll(c);
+              handler.newLine();
+            }
+            segmentStart = i + 1;
+            continue;
+          }
+          for (CharHandler handler : handlers) {
             handler.newLine();
-            handler.handleIgnoreEoL(c);
-            handler.handleAll(c);
           }
         }
-        afterCR = c == CARRIAGE_RETURN;
-      } else if (c == LINE_FEED) {
-        for (CharHandler handler : handlers) {
-          handler.handleAll(c);
-          handler.newLine();
-        }
-      } else if (c == CARRIAGE_RETURN) {
-        afterCR = true;
-        for (CharHandler handler : handlers) {
-          handler.handleAll(c);
-        }
-      } else {
-        for (CharHandler handler : handlers) {
-          handler.handleIgnoreEoL(c);
-          handler.handleAll(c);
+        if (c == LINE_FEED || c == CARRIAGE_RETURN) {
+          handleSegment(handlers, buffer, segmentStart, i);
+          for (CharHandler handler : handlers) {
+            handler.handleAll(c);
+            if (c == LINE_FEED) {
+              handler.newLine();
+            }
+          }
+          afterCR = c == CARRIAGE_RETURN;
+          segmentStart = i + 1;
         }
       }
-      i = reader.read();
+      handleSegment(handlers, buffer, segmentStart, length);
+      length = reader.read(buffer, 0, buffer.length);
     }
     for (CharHandler handler : handlers) {
       if (afterCR) {
@@ -145,6 +148,14 @@ public class FileMetadata {
     }
   }
 
+  private static void handleSegment(CharHandler[] handlers, char[] buffer, int start, int end) {
+    if (start < end) {
+      for (CharHandler handler : handlers) {
+        handler.handleIgnoreEoL(buffer, start, end);
+      }
+    }
+  }
+
   @FunctionalInterface
   public interface LineHashConsumer {
     void consume(int lineIdx, @Nullable byte[] hash);
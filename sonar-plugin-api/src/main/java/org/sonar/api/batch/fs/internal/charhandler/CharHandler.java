@@ -27,6 +27,18 @@ public abstract class CharHandler {
   public void handleIgnoreEoL(char c) {
   }
 
+  /**
+   * Handles the chars {@code [start, end[} of {@code chars}, which are all part of the same line and are not end of line chars.
+   * Default implementation calls {@link #handleIgnoreEoL(char)} then {@link #handleAll(char)} for each char. Handlers should
+   * override it to process the segment at once.
+   */
+  public void handleIgnoreEoL(char[] chars, int start, int end) {
+    for (int i = start; i < end; i++) {
+      handleIgnoreEoL(chars[i]);
+      handleAll(chars[i]);
+    }
+  }
+
   public void newLine() {
   }
 
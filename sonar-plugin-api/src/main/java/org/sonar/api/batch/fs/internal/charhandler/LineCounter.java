@@ -65,6 +65,19 @@ public class LineCounter extends CharHandler {
     }
   }
 
+  @Override
+  public void handleIgnoreEoL(char[] chars, int start, int end) {
+    for (int i = start; i < end; i++) {
+      char c = chars[i];
+      if (blankLine && !Character.isWhitespace(c)) {
+        blankLine = false;
+      }
+      if (c == '\ufffd') {
+        handleAll(c);
+      }
+    }
+  }
+
   @Override
   public void eof() {
     if (!blankLine) {
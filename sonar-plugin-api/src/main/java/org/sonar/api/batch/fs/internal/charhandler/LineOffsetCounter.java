@@ -33,6 +33,11 @@ public class LineOffsetCounter extends CharHandler {
     currentOriginalOffset++;
   }
 
+  @Override
+  public void handleIgnoreEoL(char[] chars, int start, int end) {
+    currentOriginalOffset += end - start;
+  }
+
   @Override
   public void newLine() {
     if (currentOriginalOffset > Integer.MAX_VALUE) {
@@ -0,0 +1,61 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.fs.internal.charhandler;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Updates a digest with the UTF-8 encoding of chars. Produces the same bytes as {@link CharsetEncoder#encode(CharBuffer)},
+ * but the output buffer is reused.
+ */
+class Utf8DigestEncoder {
+  private static final int INITIAL_CAPACITY = 1024;
+
+  private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+    .onMalformedInput(CodingErrorAction.REPLACE)
+    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+  private ByteBuffer output = ByteBuffer.allocate(INITIAL_CAPACITY);
+
+  void update(MessageDigest digest, CharSequence chars) throws CharacterCodingException {
+    // malformed chars are replaced by a single byte, so the output never overflows
+    int maxLength = (int) Math.ceil(chars.length() * (double) encoder.maxBytesPerChar());
+    if (output.capacity() < maxLength) {
+      output = ByteBuffer.allocate(maxLength);
+    }
+    output.clear();
+    encoder.reset();
+    CoderResult result = encoder.encode(CharBuffer.wrap(chars), output, true);
+    if (!result.isUnderflow()) {
+      result.throwException();
+    }
+    result = encoder.flush(output);
+    if (!result.isUnderflow()) {
+      result.throwException();
+    }
+    digest.update(output.array(), 0, output.position());
+  }
+}
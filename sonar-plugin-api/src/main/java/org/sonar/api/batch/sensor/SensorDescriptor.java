@@ -96,4 +96,11 @@ public interface SensorDescriptor {
    * @since 6.5
    */
   SensorDescriptor onlyWhenConfiguration(Predicate<Configuration> predicate);
+
+  /**
+   * This sensor can be executed by the platform at the same time as the other concurrent sensors. It must be thread-safe and must
+   * not depend on data saved by other sensors. Sensors which are not concurrent are still executed one after the other, in order.
+   * @since 6.6
+   */
+  SensorDescriptor concurrent();
 }
@@ -36,6 +36,7 @@ public class DefaultSensorDescriptor implements SensorDescriptor {
   private InputFile.Type type = null;
   private String[] ruleRepositories = new String[0];
   private boolean global = false;
+  private boolean concurrent = false;
   private Predicate<Configuration> configurationPredicate;
 
   public String name() {
@@ -63,6 +64,10 @@ public class DefaultSensorDescriptor implements SensorDescriptor {
     return global;
   }
 
+  public boolean isConcurrent() {
+    return concurrent;
+  }
+
   @Override
   public DefaultSensorDescriptor name(String name) {
     this.name = name;
@@ -120,4 +125,10 @@ public class DefaultSensorDescriptor implements SensorDescriptor {
     return this;
   }
 
+  @Override
+  public SensorDescriptor concurrent() {
+    this.concurrent = true;
+    return this;
+  }
+
 }
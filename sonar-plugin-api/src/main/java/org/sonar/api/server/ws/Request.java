@@ -24,6 +24,7 @@ import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
@@ -314,6 +315,15 @@ public abstract class Request {
    */
   public abstract String getPath();
 
+  /**
+   * Returns value of a HTTP header, if present. Returns {@link Optional#empty()} by default, for
+   * implementations that do not support headers.
+   * @since 6.6
+   */
+  public Optional<String> header(String name) {
+    return Optional.empty();
+  }
+
   /**
    * @since 6.0
    */
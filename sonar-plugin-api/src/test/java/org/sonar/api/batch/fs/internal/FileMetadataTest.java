@@ -27,6 +27,7 @@ import java.nio.charset.StandardCharsets;
 import javax.annotation.Nullable;
 import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -198,6 +199,20 @@ public class FileMetadataTest {
     assertThat(metadata.originalLineOffsets()).containsOnly(0, 4, 9);
   }
 
+  @Test
+  public void end_of_lines_and_surrogate_pairs_across_read_blocks() throws Exception {
+    File tempFile = temp.newFile();
+    String content = StringUtils.repeat("a", 8191) + "\r\n" + StringUtils.repeat("b", 8190) + "\r\r" + "c\uD83D\uDE00\n";
+    FileUtils.write(tempFile, content, StandardCharsets.UTF_8, true);
+
+    Metadata metadata = new FileMetadata().readMetadata(new FileInputStream(tempFile), StandardCharsets.UTF_8, tempFile.getName());
+    assertThat(metadata.lines()).isEqualTo(5);
+    assertThat(metadata.nonBlankLines()).isEqualTo(3);
+    assertThat(metadata.hash()).isEqualTo(md5Hex(StringUtils.repeat("a", 8191) + "\n" + StringUtils.repeat("b", 8190) + "\n\n" + "c\uD83D\uDE00\n"));
+    assertThat(metadata.originalLineOffsets()).containsExactly(0, 8193, 16384, 16385, 16389);
+    assertThat(metadata.lastValidOffset()).isEqualTo(16389);
+  }
+
   @Test
   public void start_with_newline() throws Exception {
     File tempFile = temp.newFile();
@@ -46,6 +46,17 @@ public class DefaultSensorDescriptorTest {
     settings.setProperty("sonar.foo.reportPath2", "foo");
     assertThat(descriptor.configurationPredicate().test(settings.asConfig())).isTrue();
     assertThat(descriptor.ruleRepositories()).containsOnly("squid-java");
+    assertThat(descriptor.isConcurrent()).isFalse();
+  }
+
+  @Test
+  public void describe_concurrent_sensor() {
+    DefaultSensorDescriptor descriptor = new DefaultSensorDescriptor();
+    descriptor
+      .name("Foo")
+      .concurrent();
+
+    assertThat(descriptor.isConcurrent()).isTrue();
   }
 
 }
@@ -29,6 +29,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.Nullable;
 import org.apache.commons.io.IOUtils;
@@ -605,6 +606,11 @@ public class RequestTest {
       return null;
     }
 
+    @Override
+    public Optional<String> header(String name) {
+      return Optional.empty();
+    }
+
     public FakeRequest setParam(String key, @Nullable String value) {
       if (value != null) {
         params.put(key, value);
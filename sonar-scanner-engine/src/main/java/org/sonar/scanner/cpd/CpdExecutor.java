@@ -21,7 +21,9 @@ package org.sonar.scanner.cpd;
 
 import static com.google.common.collect.FluentIterable.from;
 
+import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
@@ -30,6 +32,8 @@ import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
+import javax.annotation.CheckForNull;
+
 import org.sonar.api.batch.fs.InputComponent;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputComponent;
@@ -51,11 +55,14 @@ import org.sonar.scanner.util.ProgressReport;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 /**
  * Runs on the root module, at the end of the project analysis.
  * It executes copy paste detection involving all files of all modules, which were indexed during sensors execution for each module
  * by {@link CpdSensor). The sensor is responsible for handling exclusions and block sizes.
+ * Detection of several files can run concurrently (see {@link CpdSettings#getThreads()}), but results are always
+ * written to the report in the order of the index.
  */
 public class CpdExecutor {
   private static final Logger LOG = Loggers.get(CpdExecutor.class);
@@ -91,18 +98,33 @@ public class CpdExecutor {
     if (filesWithoutBlocks > 0) {
       LOG.info("{} {} had no CPD blocks", filesWithoutBlocks, pluralize(filesWithoutBlocks));
     }
+    int threads = settings.getThreads();
     progressReport.start(String.format("Calculating CPD for %d %s", total, pluralize(total)));
-    ExecutorService executorService = Executors.newSingleThreadExecutor();
+    ExecutorService executorService = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("CpdExecutor-%d").build());
+    // detections are submitted and collected in index order, so that duplications are written in a deterministic order
+    Deque<FileDetection> pendingDetections = new ArrayDeque<>(threads);
     try {
       Iterator<ResourceBlocks> it = index.iterator();
 
       while (it.hasNext()) {
         ResourceBlocks resourceBlocks = it.next();
-        runCpdAnalysis(executorService, resourceBlocks.resourceId(), resourceBlocks.blocks(), timeout);
-        count++;
+        FileDetection detection = runCpdAnalysis(executorService, resourceBlocks.resourceId(), resourceBlocks.blocks(), timeout);
+        if (detection == null) {
+          count++;
+          continue;
+        }
+        pendingDetections.add(detection);
+        // never more running detections than threads, so that each detection starts as soon as it is submitted
+        if (pendingDetections.size() >= threads) {
+          saveDetectionResult(pendingDetections.poll());
+        }
+      }
+      while (!pendingDetections.isEmpty()) {
+        saveDetectionResult(pendingDetections.poll());
       }
       progressReport.stop("CPD calculation finished");
     } catch (Exception e) {
+      pendingDetections.forEach(d -> d.futureResult.cancel(true));
       progressReport.stop("");
       throw e;
     } finally {
@@ -114,25 +136,38 @@ public class CpdExecutor {
     return files == 1 ? "file" : "files";
   }
 
+  /**
+   * Submits the detection of duplications of a file. The result must be retrieved with {@link #saveDetectionResult(FileDetection)}.
+   *
+   * @return null if the component is not found
+   */
+  @CheckForNull
   @VisibleForTesting
-  void runCpdAnalysis(ExecutorService executorService, String componentKey, final Collection<Block> fileBlocks, long timeout) {
+  FileDetection runCpdAnalysis(ExecutorService executorService, String componentKey, final Collection<Block> fileBlocks, long timeout) {
     DefaultInputComponent component = (DefaultInputComponent) componentStore.getByKey(componentKey);
     if (component == null) {
       LOG.error("Resource not found in component store: {}. Skipping CPD computation for it", componentKey);
-      return;
+      return null;
     }
 
     InputFile inputFile = (InputFile) component;
     LOG.debug("Detection of duplications for {}", inputFile.absolutePath());
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+    Future<List<CloneGroup>> futureResult = executorService.submit(() -> SuffixTreeCloneDetectionAlgorithm.detect(index, fileBlocks));
+    return new FileDetection(component, futureResult, deadline);
+  }
+
+  private void saveDetectionResult(FileDetection detection) {
+    InputFile inputFile = (InputFile) detection.component;
     progressReport.message(String.format("%d/%d - current file: %s", count, total, inputFile.absolutePath()));
+    count++;
 
     List<CloneGroup> duplications;
-    Future<List<CloneGroup>> futureResult = executorService.submit(() -> SuffixTreeCloneDetectionAlgorithm.detect(index, fileBlocks));
     try {
-      duplications = futureResult.get(timeout, TimeUnit.MILLISECONDS);
+      duplications = detection.futureResult.get(Math.max(0L, detection.deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
     } catch (TimeoutException e) {
       LOG.warn("Timeout during detection of duplications for " + inputFile.absolutePath());
-      futureResult.cancel(true);
+      detection.futureResult.cancel(true);
       return;
     } catch (Exception e) {
       throw new IllegalStateException("Fail during detection of duplication for " + inputFile.absolutePath(), e);
@@ -147,7 +182,7 @@ public class CpdExecutor {
       filtered = duplications;
     }
 
-    saveDuplications(component, filtered);
+    saveDuplications(detection.component, filtered);
   }
 
   @VisibleForTesting
@@ -206,4 +241,18 @@ public class CpdExecutor {
     }
     return dupBuilder.build();
   }
+
+  @VisibleForTesting
+  static class FileDetection {
+    private final DefaultInputComponent component;
+    private final Future<List<CloneGroup>> futureResult;
+    // System.nanoTime() after which detection is considered as timed out
+    private final long deadline;
+
+    private FileDetection(DefaultInputComponent component, Future<List<CloneGroup>> futureResult, long deadline) {
+      this.component = component;
+      this.futureResult = futureResult;
+      this.deadline = deadline;
+    }
+  }
 }
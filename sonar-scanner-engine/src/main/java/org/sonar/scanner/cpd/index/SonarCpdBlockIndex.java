@@ -91,8 +91,12 @@ public class SonarCpdBlockIndex extends AbstractCloneIndex {
     return mem.getByResourceId(resourceKey);
   }
 
+  /**
+   * Synchronized because lookups in {@link PackedMemoryCloneIndex} are not thread-safe, and detection of
+   * duplications can be executed concurrently for several files.
+   */
   @Override
-  public Collection<Block> getBySequenceHash(ByteArray hash) {
+  public synchronized Collection<Block> getBySequenceHash(ByteArray hash) {
     return mem.getBySequenceHash(hash);
   }
 
@@ -107,8 +111,8 @@ public class SonarCpdBlockIndex extends AbstractCloneIndex {
   }
 
   @Override
-  public Iterator<ResourceBlocks> iterator() {
-    return mem.iterator();
+  public synchronized Iterator<ResourceBlocks> iterator() {
+    return new SynchronizedIterator(mem.iterator());
   }
 
   @Override
@@ -116,4 +120,29 @@ public class SonarCpdBlockIndex extends AbstractCloneIndex {
     return mem.noResources();
   }
 
+  /**
+   * Blocks returned by {@link PackedMemoryCloneIndex} share state with lookups by hash,
+   * so iteration must not run concurrently with {@link #getBySequenceHash(ByteArray)}.
+   */
+  private class SynchronizedIterator implements Iterator<ResourceBlocks> {
+    private final Iterator<ResourceBlocks> delegate;
+
+    private SynchronizedIterator(Iterator<ResourceBlocks> delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public boolean hasNext() {
+      synchronized (SonarCpdBlockIndex.this) {
+        return delegate.hasNext();
+      }
+    }
+
+    @Override
+    public ResourceBlocks next() {
+      synchronized (SonarCpdBlockIndex.this) {
+        return delegate.next();
+      }
+    }
+  }
 }
@@ -36,9 +36,9 @@ public class EventBus {
   }
 
   /**
-   * Fires the given event.
+   * Fires the given event. Handlers are never called concurrently, even when events are fired by concurrent sensors.
    */
-  public void fireEvent(BatchEvent event) {
+  public synchronized void fireEvent(BatchEvent event) {
     doFireEvent(event);
   }
 
@@ -61,6 +61,11 @@ public class IssueExclusionsRegexpScanner extends CharHandler {
     sb.append(c);
   }
 
+  @Override
+  public void handleIgnoreEoL(char[] chars, int start, int end) {
+    sb.append(chars, start, end - start);
+  }
+
   @Override
   public void newLine() {
     processLine(sb.toString());
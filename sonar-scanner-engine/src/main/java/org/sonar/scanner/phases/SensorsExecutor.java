@@ -20,9 +20,16 @@
 package org.sonar.scanner.phases;
 
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 import org.sonar.api.batch.ScannerSide;
 import org.sonar.api.batch.Sensor;
 import org.sonar.api.batch.SensorContext;
@@ -32,6 +39,7 @@ import org.sonar.api.batch.fs.internal.SensorStrategy;
 import org.sonar.api.resources.Project;
 import org.sonar.scanner.bootstrap.ScannerExtensionDictionnary;
 import org.sonar.scanner.events.EventBus;
+import org.sonar.scanner.sensor.SensorWrapper;
 
 @ScannerSide
 public class SensorsExecutor {
@@ -77,9 +85,65 @@ public class SensorsExecutor {
     eventBus.fireEvent(new SensorsPhaseEvent(Lists.newArrayList(allSensors), false));
   }
 
+  /**
+   * Sensors declared as concurrent are executed at the same time, by groups of consecutive concurrent sensors, so that the
+   * other sensors are still executed in order.
+   */
   private void execute(SensorContext context, Collection<Sensor> sensors) {
+    List<Sensor> concurrentSensors = new ArrayList<>();
     for (Sensor sensor : sensors) {
-      executeSensor(context, sensor);
+      if (isConcurrent(sensor)) {
+        concurrentSensors.add(sensor);
+      } else {
+        executeConcurrently(context, concurrentSensors);
+        concurrentSensors.clear();
+        executeSensor(context, sensor);
+      }
+    }
+    executeConcurrently(context, concurrentSensors);
+  }
+
+  private static boolean isConcurrent(Sensor sensor) {
+    return sensor instanceof SensorWrapper && ((SensorWrapper) sensor).isConcurrent();
+  }
+
+  private void executeConcurrently(SensorContext context, List<Sensor> sensors) {
+    if (sensors.size() <= 1) {
+      sensors.forEach(sensor -> executeSensor(context, sensor));
+      return;
+    }
+    int threads = Math.min(sensors.size(), Runtime.getRuntime().availableProcessors());
+    ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder()
+      .setNameFormat("Sensor-%d")
+      .setDaemon(true)
+      .build());
+    try {
+      List<Future<?>> futures = sensors.stream()
+        .map(sensor -> executor.submit(() -> executeSensor(context, sensor)))
+        .collect(Collectors.toList());
+      for (Future<?> future : futures) {
+        waitFor(future);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static void waitFor(Future<?> future) {
+    try {
+      future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while executing sensors", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
     }
   }
 
@@ -22,15 +22,28 @@ package org.sonar.scanner.repository;
 import com.google.common.base.Throwables;
 import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.Table;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
+import java.nio.file.Files;
 import java.util.Date;
 import java.util.Map;
+import java.util.Optional;
+import javax.annotation.CheckForNull;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.utils.MessageException;
+import org.sonar.home.cache.FileCache;
 import org.sonar.scanner.bootstrap.ScannerWsClient;
 import org.sonar.scanner.util.ScannerUtils;
 import org.sonarqube.ws.WsBatch;
@@ -41,21 +54,48 @@ import org.sonarqube.ws.client.GetRequest;
 import org.sonarqube.ws.client.HttpException;
 import org.sonarqube.ws.client.WsResponse;
 
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * The last response of the server is kept in the user cache, along with its ETag, so that the project repository
+ * is not downloaded again as long as it does not change on server side. Responses containing secured settings
+ * are never written to the cache, as the cache is not protected.
+ */
 public class DefaultProjectRepositoriesLoader implements ProjectRepositoriesLoader {
   private static final Logger LOG = LoggerFactory.getLogger(DefaultProjectRepositoriesLoader.class);
   private static final String BATCH_PROJECT_URL = "/batch/project.protobuf";
+  private static final String CACHE_FILENAME = "project-repositories.protobuf";
+  private static final String ETAG = "ETag";
+  private static final String IF_NONE_MATCH = "If-None-Match";
+  private static final String SECURED_SUFFIX = ".secured";
+
   private ScannerWsClient wsClient;
+  private FileCache fileCache;
 
-  public DefaultProjectRepositoriesLoader(ScannerWsClient wsClient) {
+  public DefaultProjectRepositoriesLoader(ScannerWsClient wsClient, FileCache fileCache) {
     this.wsClient = wsClient;
+    this.fileCache = fileCache;
   }
 
   @Override
   public ProjectRepositories load(String projectKey, boolean issuesMode) {
-    GetRequest request = new GetRequest(getUrl(projectKey, issuesMode));
+    String url = getUrl(projectKey, issuesMode);
+    String cacheKey = DigestUtils.md5Hex(wsClient.baseUrl() + url);
+    File cachedFile = fileCache.get(CACHE_FILENAME, cacheKey);
+    String cachedETag = cachedFile == null ? null : readETag(cachedFile);
+
+    GetRequest request = new GetRequest(url).setHeader(IF_NONE_MATCH, cachedETag);
     try (WsResponse response = wsClient.call(request)) {
-      InputStream is = response.contentStream();
-      return processStream(is, projectKey);
+      if (cachedETag != null && response.code() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+        LOG.debug("Project repository not modified - loading it from cache");
+        return processCachedFile(cachedFile, projectKey);
+      }
+      Optional<String> eTag = response.header(ETAG);
+      if (eTag.isPresent()) {
+        return processAndCache(cacheKey, eTag.get(), response.contentStream(), projectKey);
+      }
+      return processStream(response.contentStream(), projectKey);
     } catch (RuntimeException e) {
       if (shouldThrow(e)) {
         throw e;
@@ -91,33 +131,108 @@ public class DefaultProjectRepositoriesLoader implements ProjectRepositoriesLoad
     return false;
   }
 
-  private static ProjectRepositories processStream(InputStream is, String projectKey) {
+  @CheckForNull
+  private static String readETag(File cachedFile) {
+    try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(cachedFile)))) {
+      return input.readUTF();
+    } catch (IOException e) {
+      LOG.debug("Fail to read cached project repository " + cachedFile, e);
+      return null;
+    }
+  }
+
+  /**
+   * The cached file starts with the ETag, followed by the protobuf response of the server
+   */
+  private ProjectRepositories processAndCache(String cacheKey, String eTag, InputStream is, String projectKey) {
+    File tempDir = fileCache.createTempDir();
     try {
-      WsProjectResponse response = WsProjectResponse.parseFrom(is);
+      File tempFile = new File(tempDir, CACHE_FILENAME);
+      try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+        output.writeUTF(eTag);
+        IOUtils.copy(is, output);
+      }
+      WsProjectResponse response = parseCachedFile(tempFile, projectKey);
+      if (hasSecuredSettings(response)) {
+        LOG.debug("Project repository contains secured settings - not written to cache");
+      } else {
+        moveToCache(tempFile, cacheKey);
+      }
+      return toProjectRepositories(response);
+    } catch (IOException e) {
+      throw new IllegalStateException("Couldn't load project repository for " + projectKey, e);
+    } finally {
+      FileUtils.deleteQuietly(tempDir);
+    }
+  }
 
-      Table<String, String, FileData> fileDataTable = HashBasedTable.create();
-      Table<String, String, String> settings = HashBasedTable.create();
+  private static boolean hasSecuredSettings(WsProjectResponse response) {
+    return response.getSettingsByModule().values().stream()
+      .flatMap(settings -> settings.getSettings().keySet().stream())
+      .anyMatch(key -> key.endsWith(SECURED_SUFFIX));
+  }
 
-      Map<String, Settings> settingsByModule = response.getSettingsByModule();
-      for (Map.Entry<String, Settings> e1 : settingsByModule.entrySet()) {
-        for (Map.Entry<String, String> e2 : e1.getValue().getSettings().entrySet()) {
-          settings.put(e1.getKey(), e2.getKey(), e2.getValue());
-        }
-      }
+  private void moveToCache(File tempFile, String cacheKey) {
+    File cacheDir = new File(fileCache.getDir(), cacheKey);
+    try {
+      Files.createDirectories(cacheDir.toPath());
+      // another analysis may write the same file concurrently
+      Files.move(tempFile.toPath(), new File(cacheDir, CACHE_FILENAME).toPath(), ATOMIC_MOVE, REPLACE_EXISTING);
+    } catch (IOException e) {
+      LOG.debug("Fail to write project repository to cache " + cacheDir, e);
+    }
+  }
 
-      Map<String, FileDataByPath> fileDataByModuleAndPath = response.getFileDataByModuleAndPath();
-      for (Map.Entry<String, FileDataByPath> e1 : fileDataByModuleAndPath.entrySet()) {
-        for (Map.Entry<String, WsBatch.WsProjectResponse.FileData> e2 : e1.getValue().getFileDataByPath().entrySet()) {
-          FileData fd = new FileData(e2.getValue().getHash(), e2.getValue().getRevision());
-          fileDataTable.put(e1.getKey(), e2.getKey(), fd);
-        }
-      }
+  private static ProjectRepositories processCachedFile(File cachedFile, String projectKey) {
+    return toProjectRepositories(parseCachedFile(cachedFile, projectKey));
+  }
+
+  private static WsProjectResponse parseCachedFile(File cachedFile, String projectKey) {
+    DataInputStream input = null;
+    try {
+      input = new DataInputStream(new BufferedInputStream(new FileInputStream(cachedFile)));
+      // skip ETag
+      input.readUTF();
+    } catch (IOException e) {
+      IOUtils.closeQuietly(input);
+      throw new IllegalStateException("Couldn't load project repository for " + projectKey + " from " + cachedFile, e);
+    }
+    return parse(input, projectKey);
+  }
+
+  private static ProjectRepositories processStream(InputStream is, String projectKey) {
+    return toProjectRepositories(parse(is, projectKey));
+  }
 
-      return new ProjectRepositories(settings, fileDataTable, new Date(response.getLastAnalysisDate()));
+  private static WsProjectResponse parse(InputStream is, String projectKey) {
+    try {
+      return WsProjectResponse.parseFrom(is);
     } catch (IOException e) {
       throw new IllegalStateException("Couldn't load project repository for " + projectKey, e);
     } finally {
       IOUtils.closeQuietly(is);
     }
   }
+
+  private static ProjectRepositories toProjectRepositories(WsProjectResponse response) {
+    Table<String, String, FileData> fileDataTable = HashBasedTable.create();
+    Table<String, String, String> settings = HashBasedTable.create();
+
+    Map<String, Settings> settingsByModule = response.getSettingsByModule();
+    for (Map.Entry<String, Settings> e1 : settingsByModule.entrySet()) {
+      for (Map.Entry<String, String> e2 : e1.getValue().getSettings().entrySet()) {
+        settings.put(e1.getKey(), e2.getKey(), e2.getValue());
+      }
+    }
+
+    Map<String, FileDataByPath> fileDataByModuleAndPath = response.getFileDataByModuleAndPath();
+    for (Map.Entry<String, FileDataByPath> e1 : fileDataByModuleAndPath.entrySet()) {
+      for (Map.Entry<String, WsBatch.WsProjectResponse.FileData> e2 : e1.getValue().getFileDataByPath().entrySet()) {
+        FileData fd = new FileData(e2.getValue().getHash(), e2.getValue().getRevision());
+        fileDataTable.put(e1.getKey(), e2.getKey(), fd);
+      }
+    }
+
+    return new ProjectRepositories(settings, fileDataTable, new Date(response.getLastAnalysisDate()));
+  }
 }
@@ -19,28 +19,178 @@
  */
 package org.sonar.scanner.repository;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
 import java.util.function.Consumer;
+import javax.annotation.CheckForNull;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.sonar.api.CoreProperties;
+import org.sonar.api.issue.Issue;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.home.cache.FileCache;
+import org.sonar.scanner.bootstrap.GlobalProperties;
 import org.sonar.scanner.bootstrap.ScannerWsClient;
 import org.sonar.scanner.protocol.input.ScannerInput.ServerIssue;
 import org.sonar.scanner.util.ScannerUtils;
 import org.sonarqube.ws.client.GetRequest;
+import org.sonarqube.ws.client.WsResponse;
 
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Issues of the last load are kept in the user cache, along with the date of synchronization returned by
+ * the server, so that only the issues changed since this date are downloaded by the next analysis.
+ * Cached issues are specific to the server, the component and the user. All the issues are loaded again
+ * when the project has been deleted and created again on server side, and at least once a week so that
+ * changes which are not reported by the server can't remain in cache forever.
+ */
 public class DefaultServerIssuesLoader implements ServerIssuesLoader {
 
+  private static final Logger LOG = Loggers.get(DefaultServerIssuesLoader.class);
+  private static final String CACHE_FILENAME = "server-issues.protobuf";
+  private static final String SYNC_DATE_HEADER = "Sonar-Issues-Sync-Date";
+  private static final String PROJECT_UUID_HEADER = "Sonar-Issues-Project-Uuid";
+  private static final String DELTA_HEADER = "Sonar-Issues-Delta";
+  private static final long FULL_SYNC_PERIOD = 7 * 24 * 60 * 60 * 1_000L;
+
   private final ScannerWsClient wsClient;
+  private final FileCache fileCache;
+  private final GlobalProperties globalProperties;
+  private final System2 system2;
 
-  public DefaultServerIssuesLoader(ScannerWsClient wsClient) {
+  public DefaultServerIssuesLoader(ScannerWsClient wsClient, FileCache fileCache, GlobalProperties globalProperties, System2 system2) {
     this.wsClient = wsClient;
+    this.fileCache = fileCache;
+    this.globalProperties = globalProperties;
+    this.system2 = system2;
   }
 
   @Override
   public void load(String componentKey, Consumer<ServerIssue> consumer) {
-    GetRequest getRequest = new GetRequest("/batch/issues.protobuf?key=" + ScannerUtils.encodeForUrl(componentKey));
-    InputStream is = wsClient.call(getRequest).contentStream();
-    parseIssues(is, consumer);
+    long now = system2.now();
+    String url = "/batch/issues.protobuf?key=" + ScannerUtils.encodeForUrl(componentKey);
+    String login = StringUtils.defaultString(globalProperties.property(CoreProperties.LOGIN));
+    String cacheKey = DigestUtils.md5Hex(wsClient.baseUrl() + url + '\0' + login);
+    File cachedFile = fileCache.get(CACHE_FILENAME, cacheKey);
+    CacheHeader cacheHeader = cachedFile == null ? null : readCacheHeader(cachedFile);
+    if (cacheHeader != null && cacheHeader.fullSyncDate < now - FULL_SYNC_PERIOD) {
+      LOG.debug("Cached issues are not fully synchronized since more than a week - loading all issues");
+      cacheHeader = null;
+    }
+
+    GetRequest getRequest = new GetRequest(cacheHeader == null ? url
+      : (url + "&changedSince=" + cacheHeader.syncDate + "&projectUuid=" + ScannerUtils.encodeForUrl(cacheHeader.projectUuid)));
+    WsResponse response = wsClient.call(getRequest);
+    Optional<String> syncDate = response.header(SYNC_DATE_HEADER);
+    Optional<String> projectUuid = response.header(PROJECT_UUID_HEADER);
+    if (!syncDate.isPresent() || !projectUuid.isPresent()) {
+      // server does not support synchronization
+      parseIssues(response.contentStream(), consumer);
+      return;
+    }
+    // the server returns all issues if the project is not the cached one, double-check it
+    boolean delta = cacheHeader != null && cacheHeader.projectUuid.equals(projectUuid.get())
+      && response.header(DELTA_HEADER).map(Boolean::parseBoolean).orElse(false);
+
+    File tempDir = fileCache.createTempDir();
+    try {
+      File tempFile = new File(tempDir, CACHE_FILENAME);
+      try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+        new CacheHeader(Long.parseLong(syncDate.get()), projectUuid.get(), delta ? cacheHeader.fullSyncDate : now).writeTo(output);
+        Consumer<ServerIssue> cachingConsumer = issue -> {
+          consumer.accept(issue);
+          writeIssue(issue, output);
+        };
+        if (delta) {
+          mergeChangedIssues(response.contentStream(), cachedFile, cachingConsumer);
+        } else {
+          parseIssues(response.contentStream(), cachingConsumer);
+        }
+      }
+      moveToCache(tempFile, cacheKey);
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to get previous issues", e);
+    } finally {
+      FileUtils.deleteQuietly(tempDir);
+    }
+  }
+
+  /**
+   * Changed issues replace the cached ones. Closed issues are removed.
+   */
+  private static void mergeChangedIssues(InputStream changedIssues, File cachedFile, Consumer<ServerIssue> consumer) {
+    Map<String, ServerIssue> changedIssuesByKey = new LinkedHashMap<>();
+    parseIssues(changedIssues, issue -> changedIssuesByKey.put(issue.getKey(), issue));
+    LOG.debug("{} issues changed since previous analysis", changedIssuesByKey.size());
+
+    InputStream cachedIssues = openCachedIssues(cachedFile);
+    parseIssues(cachedIssues, issue -> {
+      if (!changedIssuesByKey.containsKey(issue.getKey())) {
+        consumer.accept(issue);
+      }
+    });
+    changedIssuesByKey.values().stream()
+      .filter(issue -> !Issue.STATUS_CLOSED.equals(issue.getStatus()))
+      .forEach(consumer);
+  }
+
+  @CheckForNull
+  private static CacheHeader readCacheHeader(File cachedFile) {
+    try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(cachedFile)))) {
+      return CacheHeader.readFrom(input);
+    } catch (IOException e) {
+      LOG.debug("Fail to read cached issues " + cachedFile, e);
+      return null;
+    }
+  }
+
+  private static InputStream openCachedIssues(File cachedFile) {
+    DataInputStream input = null;
+    try {
+      input = new DataInputStream(new BufferedInputStream(new FileInputStream(cachedFile)));
+      CacheHeader.readFrom(input);
+      return input;
+    } catch (IOException e) {
+      IOUtils.closeQuietly(input);
+      throw new IllegalStateException("Unable to read cached issues " + cachedFile, e);
+    }
+  }
+
+  private static void writeIssue(ServerIssue issue, OutputStream output) {
+    try {
+      issue.writeDelimitedTo(output);
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to write issue to cache", e);
+    }
+  }
+
+  private void moveToCache(File tempFile, String cacheKey) {
+    File cacheDir = new File(fileCache.getDir(), cacheKey);
+    try {
+      Files.createDirectories(cacheDir.toPath());
+      // another analysis may write the same file concurrently
+      Files.move(tempFile.toPath(), new File(cacheDir, CACHE_FILENAME).toPath(), ATOMIC_MOVE, REPLACE_EXISTING);
+    } catch (IOException e) {
+      LOG.debug("Fail to write issues to cache " + cacheDir, e);
+    }
   }
 
   private static void parseIssues(InputStream is, Consumer<ServerIssue> consumer) {
@@ -56,4 +206,32 @@ public class DefaultServerIssuesLoader implements ServerIssuesLoader {
       IOUtils.closeQuietly(is);
     }
   }
+
+  /**
+   * The cached file starts with this header, followed by the issues
+   */
+  private static class CacheHeader {
+    private final long syncDate;
+    private final String projectUuid;
+    private final long fullSyncDate;
+
+    CacheHeader(long syncDate, String projectUuid, long fullSyncDate) {
+      this.syncDate = syncDate;
+      this.projectUuid = projectUuid;
+      this.fullSyncDate = fullSyncDate;
+    }
+
+    static CacheHeader readFrom(DataInputStream input) throws IOException {
+      long syncDate = input.readLong();
+      String projectUuid = input.readUTF();
+      long fullSyncDate = input.readLong();
+      return new CacheHeader(syncDate, projectUuid, fullSyncDate);
+    }
+
+    void writeTo(DataOutputStream output) throws IOException {
+      output.writeLong(syncDate);
+      output.writeUTF(projectUuid);
+      output.writeLong(fullSyncDate);
+    }
+  }
 }
@@ -39,6 +39,9 @@ import org.sonar.scanner.protocol.output.ScannerReport.Changesets.Builder;
 import org.sonar.scanner.protocol.output.ScannerReportWriter;
 import org.sonar.scanner.util.ProgressReport;
 
+/**
+ * Can be fed concurrently by several {@link org.sonar.api.batch.scm.BlameCommand}s, each one blaming a different shard of files.
+ */
 class DefaultBlameOutput implements BlameOutput {
 
   private static final Logger LOG = Loggers.get(DefaultBlameOutput.class);
@@ -59,10 +62,12 @@ class DefaultBlameOutput implements BlameOutput {
   }
 
   @Override
-  public synchronized void blameResult(InputFile file, List<BlameLine> lines) {
+  public void blameResult(InputFile file, List<BlameLine> lines) {
     Preconditions.checkNotNull(file);
     Preconditions.checkNotNull(lines);
-    Preconditions.checkArgument(allFilesToBlame.contains(file), "It was not expected to blame file %s", file.relativePath());
+    synchronized (this) {
+      Preconditions.checkArgument(allFilesToBlame.contains(file), "It was not expected to blame file %s", file.relativePath());
+    }
 
     if (lines.size() != file.lines()) {
       LOG.debug("Ignoring blame result since provider returned {} blame lines but file {} has {} lines", lines.size(), file.relativePath(), file.lines());
@@ -86,10 +91,17 @@ class DefaultBlameOutput implements BlameOutput {
       scmBuilder.addChangesetIndexByLine(changesetId);
       lineId++;
     }
+    // each component has its own report file, so no need to hold the lock while writing
     writer.writeComponentChangesets(scmBuilder.build());
-    allFilesToBlame.remove(file);
-    count++;
-    progressReport.message(count + "/" + total + " files analyzed");
+    synchronized (this) {
+      allFilesToBlame.remove(file);
+      count++;
+      progressReport.message(count + "/" + total + " files analyzed");
+    }
+  }
+
+  synchronized void shardFinished(int shardIndex, int shards) {
+    LOG.debug("SCM blame of shard {}/{} finished, {}/{} files analyzed", shardIndex, shards, count, total);
   }
 
   private static void validateLine(BlameLine line, int lineId, InputFile file) {
@@ -115,7 +127,7 @@ class DefaultBlameOutput implements BlameOutput {
     return inputString.toLowerCase();
   }
 
-  public void finish(boolean success) {
+  public synchronized void finish(boolean success) {
     progressReport.stop(count + "/" + total + " files analyzed");
     if (success && !allFilesToBlame.isEmpty()) {
       LOG.warn("Missing blame information for the following files:");
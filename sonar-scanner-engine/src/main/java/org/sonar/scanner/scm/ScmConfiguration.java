@@ -47,7 +47,18 @@ import org.sonar.api.utils.log.Loggers;
     project = false,
     module = false,
     global = false,
-    type = PropertyType.BOOLEAN)
+    type = PropertyType.BOOLEAN),
+  @Property(
+    key = ScmConfiguration.THREADS_KEY,
+    defaultValue = "1",
+    name = "Number of threads used to retrieve SCM information",
+    description = "Files to blame are split in shards which are blamed concurrently. Default value (1) blames all files at once. "
+      + "Use only with SCM providers supporting concurrent blame.",
+    category = CoreProperties.CATEGORY_SCM,
+    project = false,
+    module = false,
+    global = false,
+    type = PropertyType.INTEGER)
 })
 @InstantiationStrategy(InstantiationStrategy.PER_BATCH)
 @ScannerSide
@@ -55,6 +66,7 @@ public final class ScmConfiguration implements Startable {
   private static final Logger LOG = Loggers.get(ScmConfiguration.class);
 
   public static final String FORCE_RELOAD_KEY = "sonar.scm.forceReloadAll";
+  public static final String THREADS_KEY = "sonar.scm.threads";
 
   private final Configuration settings;
   private final Map<String, ScmProvider> providerPerKey = new LinkedHashMap<>();
@@ -144,6 +156,10 @@ public final class ScmConfiguration implements Startable {
     return settings.getBoolean(FORCE_RELOAD_KEY).orElse(false);
   }
 
+  public int threads() {
+    return Math.max(1, settings.getInt(THREADS_KEY).orElse(1));
+  }
+
   @Override
   public void stop() {
     // Nothing to do
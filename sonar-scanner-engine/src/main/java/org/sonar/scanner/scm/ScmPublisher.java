@@ -19,8 +19,14 @@
  */
 package org.sonar.scanner.scm;
 
-import java.util.LinkedList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.apache.commons.lang.StringUtils;
 import org.sonar.api.CoreProperties;
 import org.sonar.api.batch.InstantiationStrategy;
@@ -29,6 +35,7 @@ import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.InputFile.Status;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputModule;
+import org.sonar.api.batch.scm.BlameCommand;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.scanner.protocol.output.ScannerReport;
@@ -45,6 +52,7 @@ import org.sonar.scanner.scan.filesystem.ModuleInputComponentStore;
 public final class ScmPublisher {
 
   private static final Logger LOG = Loggers.get(ScmPublisher.class);
+  private static final int SHARDS_PER_THREAD = 4;
 
   private final DefaultInputModule inputModule;
   private final ScmConfiguration configuration;
@@ -79,7 +87,7 @@ public final class ScmPublisher {
       LOG.info("SCM provider for this project is: " + key);
       DefaultBlameOutput output = new DefaultBlameOutput(writer, filesToBlame);
       try {
-        configuration.provider().blameCommand().blame(new DefaultBlameInput(fs, filesToBlame), output);
+        blame(configuration.provider().blameCommand(), filesToBlame, output);
       } catch (Exception e) {
         output.finish(false);
         throw e;
@@ -88,11 +96,53 @@ public final class ScmPublisher {
     }
   }
 
+  private void blame(BlameCommand blameCommand, List<InputFile> filesToBlame, DefaultBlameOutput output) {
+    int threads = Math.min(configuration.threads(), filesToBlame.size());
+    if (threads <= 1) {
+      blameCommand.blame(new DefaultBlameInput(fs, filesToBlame), output);
+      return;
+    }
+
+    // more shards than threads, so that a shard of slow files does not leave other threads idle
+    int shardSize = (int) Math.ceil((double) filesToBlame.size() / (threads * SHARDS_PER_THREAD));
+    List<List<InputFile>> shards = Lists.partition(filesToBlame, shardSize);
+    LOG.debug("SCM blame of {} files split in {} shards, using {} threads", filesToBlame.size(), shards.size(), threads);
+    ExecutorService executorService = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("ScmPublisher-%d").build());
+    try {
+      List<Future<?>> tasks = new ArrayList<>(shards.size());
+      for (int i = 0; i < shards.size(); i++) {
+        List<InputFile> shard = shards.get(i);
+        int shardIndex = i + 1;
+        tasks.add(executorService.submit(() -> {
+          blameCommand.blame(new DefaultBlameInput(fs, shard), output);
+          output.shardFinished(shardIndex, shards.size());
+        }));
+      }
+      waitForTasksToComplete(tasks);
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  private static void waitForTasksToComplete(List<Future<?>> tasks) {
+    for (Future<?> task : tasks) {
+      try {
+        task.get();
+      } catch (ExecutionException e) {
+        // Unwrap ExecutionException
+        throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+
   private List<InputFile> collectFilesToBlame(ScannerReportWriter writer) {
     if (configuration.forceReloadAll()) {
       LOG.warn("Forced reloading of SCM data for all files.");
     }
-    List<InputFile> filesToBlame = new LinkedList<>();
+    List<InputFile> filesToBlame = new ArrayList<>();
     for (InputFile f : componentStore.inputFiles()) {
       DefaultInputFile inputFile = (DefaultInputFile) f;
       if (!inputFile.isPublished()) {
@@ -81,6 +81,7 @@ public class CpdExecutorTest {
     baseDir = temp.newFolder();
 
     settings = mock(CpdSettings.class);
+    when(settings.getThreads()).thenReturn(1);
     publisher = mock(ReportPublisher.class);
     when(publisher.getWriter()).thenReturn(new ScannerReportWriter(outputDir));
 
@@ -221,6 +222,38 @@ public class CpdExecutorTest {
         "Timeout during detection of duplications for .*Foo2.php");
   }
 
+  @Test
+  public void detectDuplicationsConcurrently() {
+    when(settings.getThreads()).thenReturn(4);
+    List<DefaultInputFile> components = new ArrayList<>();
+    for (int i = 1; i <= 10; i++) {
+      DefaultInputFile component = createComponent("src/Bar" + i + ".php", 100);
+      List<Block> blocks = new ArrayList<>();
+      for (int j = 1; j <= 10; j++) {
+        blocks.add(Block.builder()
+          .setResourceId(component.key())
+          .setIndexInFile(j)
+          .setLines(j, j + 1)
+          .setUnit(j, j + 1)
+          .setBlockHash(new ByteArray(("abcd" + j).getBytes()))
+          .build());
+      }
+      index.insert((InputFile) component, blocks);
+      components.add(component);
+    }
+
+    executor.execute();
+
+    for (DefaultInputFile component : components) {
+      List<Duplication> dups = new ArrayList<>();
+      reader.readComponentDuplications(component.batchId()).forEachRemaining(dups::add);
+      assertThat(dups).hasSize(1);
+      assertThat(dups.get(0).getOriginPosition().getStartLine()).isEqualTo(1);
+      assertThat(dups.get(0).getOriginPosition().getEndLine()).isEqualTo(11);
+      assertThat(dups.get(0).getDuplicateList()).hasSize(9);
+    }
+  }
+
   private Duplication[] readDuplications(int expected) {
     assertThat(reader.readComponentDuplications(batchComponent1.batchId())).hasSize(expected);
     Duplication[] duplications = new Duplication[expected];
@@ -59,4 +59,19 @@ public class CpdSettingsTest {
     assertThat(cpdSettings.getMinimumTokens("java")).isEqualTo(42);
     assertThat(cpdSettings.getMinimumTokens("php")).isEqualTo(33);
   }
+
+  @Test
+  public void defaultThreads() {
+    when(configuration.getInt(anyString())).thenReturn(Optional.empty());
+    assertThat(cpdSettings.getThreads()).isEqualTo(1);
+  }
+
+  @Test
+  public void threads() {
+    when(configuration.getInt("sonar.cpd.threads")).thenReturn(Optional.of(4));
+    assertThat(cpdSettings.getThreads()).isEqualTo(4);
+
+    when(configuration.getInt("sonar.cpd.threads")).thenReturn(Optional.of(0));
+    assertThat(cpdSettings.getThreads()).isEqualTo(1);
+  }
 }
@@ -277,6 +277,44 @@ public class ScmMediumTest {
     assertThat(file2Scm).isNotNull();
   }
 
+  @Test
+  public void blameWithSeveralThreads() throws IOException, URISyntaxException {
+    File baseDir = prepareProject();
+    for (int i = 0; i < 10; i++) {
+      FileUtils.write(new File(baseDir, "src/sample" + i + ".xoo"), SAMPLE_XOO_CONTENT);
+      FileUtils.write(new File(baseDir, "src/sample" + i + ".xoo.scm"),
+        // revision,author,dateTime
+        "1,foo,2013-01-04\n" +
+          "2,bar,2013-01-04\n");
+    }
+
+    tester.newTask()
+      .properties(ImmutableMap.<String, String>builder()
+        .put("sonar.task", "scan")
+        .put("sonar.projectBaseDir", baseDir.getAbsolutePath())
+        .put("sonar.projectKey", "com.foo.project")
+        .put("sonar.projectName", "Foo Project")
+        .put("sonar.projectVersion", "1.0-SNAPSHOT")
+        .put("sonar.projectDescription", "Description of Foo Project")
+        .put("sonar.sources", "src")
+        .put("sonar.scm.provider", "xoo")
+        .put("sonar.scm.threads", "4")
+        .put("sonar.scm.forceReloadAll", "true")
+        .build())
+      .execute();
+
+    ScannerReport.Changesets file1Scm = getChangesets(baseDir, "src/sample.xoo");
+    assertThat(file1Scm.getChangesetIndexByLineList()).hasSize(5);
+    assertThat(file1Scm.getChangeset(file1Scm.getChangesetIndexByLine(4)).getAuthor()).isEqualTo("simon");
+
+    for (int i = 0; i < 10; i++) {
+      ScannerReport.Changesets fileScm = getChangesets(baseDir, "src/sample" + i + ".xoo");
+      assertThat(fileScm.getChangesetIndexByLineList()).hasSize(2);
+      assertThat(fileScm.getChangeset(fileScm.getChangesetIndexByLine(1)).getAuthor()).isEqualTo("bar");
+    }
+    assertThat(logTester.logs()).containsSubsequence("11 files to be analyzed", "11/11 files analyzed");
+  }
+
   @Test
   public void configureUsingScmURL() throws IOException, URISyntaxException {
 
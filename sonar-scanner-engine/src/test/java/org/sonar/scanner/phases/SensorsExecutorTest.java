@@ -20,7 +20,9 @@
 package org.sonar.scanner.phases;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -32,10 +34,14 @@ import org.sonar.api.batch.fs.internal.DefaultInputModule;
 import org.sonar.api.batch.fs.internal.InputModuleHierarchy;
 import org.sonar.api.batch.fs.internal.SensorStrategy;
 import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.batch.sensor.SensorDescriptor;
 import org.sonar.api.resources.Project;
 import org.sonar.scanner.bootstrap.ScannerExtensionDictionnary;
 import org.sonar.scanner.events.EventBus;
+import org.sonar.scanner.sensor.SensorOptimizer;
+import org.sonar.scanner.sensor.SensorWrapper;
 
+import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
@@ -116,4 +122,62 @@ public class SensorsExecutorTest {
     assertThat(globalSensor.called).isTrue();
     assertThat(globalSensor.global).isTrue();
   }
+
+  @Test
+  public void should_execute_concurrent_sensors_on_other_threads_and_keep_order_of_others() {
+    List<String> executions = Collections.synchronizedList(new ArrayList<>());
+    Sensor first = new RecordingSensor("first", executions);
+    Sensor concurrent1 = concurrentSensor("concurrent1", executions);
+    Sensor concurrent2 = concurrentSensor("concurrent2", executions);
+    Sensor last = new RecordingSensor("last", executions);
+    ScannerExtensionDictionnary selector = mock(ScannerExtensionDictionnary.class);
+    when(selector.selectSensors(any(DefaultInputModule.class), eq(false))).thenReturn(asList(first, concurrent1, concurrent2, last));
+    InputModuleHierarchy hierarchy = mock(InputModuleHierarchy.class);
+    DefaultInputModule module = TestInputFileBuilder.newDefaultInputModule("sub", temp.getRoot());
+
+    new SensorsExecutor(selector, module, hierarchy, mock(EventBus.class), strategy).execute(context);
+
+    String mainThread = Thread.currentThread().getName();
+    assertThat(executions).hasSize(4);
+    assertThat(executions.get(0)).isEqualTo("first@" + mainThread);
+    assertThat(executions.subList(1, 3)).extracting(e -> e.substring(0, e.indexOf('@')))
+      .containsOnly("concurrent1", "concurrent2");
+    assertThat(executions.subList(1, 3)).allMatch(e -> e.contains("@Sensor-"));
+    assertThat(executions.get(3)).isEqualTo("last@" + mainThread);
+  }
+
+  private static Sensor concurrentSensor(String name, List<String> executions) {
+    org.sonar.api.batch.sensor.Sensor sensor = new org.sonar.api.batch.sensor.Sensor() {
+      @Override
+      public void describe(SensorDescriptor descriptor) {
+        descriptor.name(name).concurrent();
+      }
+
+      @Override
+      public void execute(org.sonar.api.batch.sensor.SensorContext context) {
+        executions.add(name + "@" + Thread.currentThread().getName());
+      }
+    };
+    return new SensorWrapper(sensor, mock(org.sonar.api.batch.sensor.SensorContext.class), mock(SensorOptimizer.class));
+  }
+
+  private static class RecordingSensor implements Sensor {
+    private final String name;
+    private final List<String> executions;
+
+    RecordingSensor(String name, List<String> executions) {
+      this.name = name;
+      this.executions = executions;
+    }
+
+    @Override
+    public boolean shouldExecuteOnProject(Project project) {
+      return true;
+    }
+
+    @Override
+    public void analyse(Project module, SensorContext context) {
+      executions.add(name + "@" + Thread.currentThread().getName());
+    }
+  }
 }
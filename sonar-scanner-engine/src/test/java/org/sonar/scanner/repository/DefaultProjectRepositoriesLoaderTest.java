@@ -24,36 +24,52 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Objects;
+import javax.annotation.Nullable;
+import org.apache.commons.io.FileUtils;
+import org.hamcrest.BaseMatcher;
+import org.hamcrest.Description;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
 import org.sonar.api.utils.MessageException;
+import org.sonar.home.cache.FileCache;
+import org.sonar.home.cache.Logger;
 import org.sonar.scanner.WsTestUtil;
 import org.sonar.scanner.bootstrap.ScannerWsClient;
 import org.sonarqube.ws.WsBatch.WsProjectResponse;
 import org.sonarqube.ws.client.HttpException;
+import org.sonarqube.ws.client.MockWsResponse;
 import org.sonarqube.ws.client.WsRequest;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.argThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class DefaultProjectRepositoriesLoaderTest {
   private final static String PROJECT_KEY = "foo?";
   @Rule
   public ExpectedException thrown = ExpectedException.none();
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
 
   private DefaultProjectRepositoriesLoader loader;
   private ScannerWsClient wsClient;
+  private FileCache fileCache;
 
   @Before
   public void prepare() throws IOException {
     wsClient = mock(ScannerWsClient.class);
     InputStream is = mockData();
     WsTestUtil.mockStream(wsClient, "/batch/project.protobuf?key=foo%3F", is);
-    loader = new DefaultProjectRepositoriesLoader(wsClient);
+    fileCache = FileCache.create(temp.newFolder(), mock(Logger.class));
+    loader = new DefaultProjectRepositoriesLoader(wsClient, fileCache);
   }
 
   @Test
@@ -132,9 +148,81 @@ public class DefaultProjectRepositoriesLoaderTest {
     assertThat(fd.hash()).isEqualTo("edb6b3b9ab92d8dc53ba90ab86cd422e");
   }
 
+  @Test
+  public void keep_response_in_cache_and_reuse_it_if_not_modified() throws IOException {
+    String url = "/batch/project.protobuf?key=org.sonarsource.github%3Asonar-github-plugin&issues_mode=true";
+    when(wsClient.call(argThat(new RequestMatcher(url, null)))).thenReturn(new MockWsResponse()
+      .setHeader("ETag", "\"abc\"")
+      .setContent(getTestResource("project.protobuf")));
+    ProjectRepositories proj = loader.load("org.sonarsource.github:sonar-github-plugin", true);
+    assertThat(proj.fileData("org.sonarsource.github:sonar-github-plugin", "src/test/java/org/sonar/plugins/github/PullRequestIssuePostJobTest.java")).isNotNull();
+
+    when(wsClient.call(argThat(new RequestMatcher(url, "\"abc\"")))).thenReturn(new MockWsResponse().setCode(304));
+    proj = loader.load("org.sonarsource.github:sonar-github-plugin", true);
+
+    FileData fd = proj.fileData("org.sonarsource.github:sonar-github-plugin", "src/test/java/org/sonar/plugins/github/PullRequestIssuePostJobTest.java");
+    assertThat(fd.revision()).isEqualTo("27bf2c54633d05c5df402bbe09471fe43bd9e2e5");
+    assertThat(fd.hash()).isEqualTo("edb6b3b9ab92d8dc53ba90ab86cd422e");
+  }
+
+  @Test
+  public void do_not_keep_response_in_cache_if_server_does_not_return_etag() throws IOException {
+    String url = "/batch/project.protobuf?key=org.sonarsource.github%3Asonar-github-plugin";
+    when(wsClient.call(argThat(new RequestMatcher(url, null)))).thenReturn(new MockWsResponse()
+      .setContent(getTestResource("project.protobuf")));
+
+    loader.load("org.sonarsource.github:sonar-github-plugin", false);
+    loader.load("org.sonarsource.github:sonar-github-plugin", false);
+
+    verify(wsClient, times(2)).call(argThat(new RequestMatcher(url, null)));
+  }
+
+  @Test
+  public void do_not_keep_response_in_cache_if_it_contains_secured_settings() throws IOException {
+    String url = "/batch/project.protobuf?key=foo%3F";
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    WsProjectResponse.Settings.Builder settings = WsProjectResponse.Settings.newBuilder();
+    settings.getMutableSettings().put("sonar.foo", "bar");
+    settings.getMutableSettings().put("sonar.login.secured", "secret");
+    WsProjectResponse.Builder response = WsProjectResponse.newBuilder();
+    response.getMutableSettingsByModule().put(PROJECT_KEY, settings.build());
+    response.build().writeTo(os);
+    when(wsClient.call(argThat(new RequestMatcher(url, null)))).thenAnswer(invocation -> new MockWsResponse()
+      .setHeader("ETag", "\"abc\"")
+      .setContent(os.toByteArray()));
+
+    ProjectRepositories proj = loader.load(PROJECT_KEY, false);
+    assertThat(proj.settings(PROJECT_KEY)).containsEntry("sonar.login.secured", "secret");
+    loader.load(PROJECT_KEY, false);
+
+    verify(wsClient, times(2)).call(argThat(new RequestMatcher(url, null)));
+    assertThat(FileUtils.listFiles(fileCache.getDir(), null, true)).isEmpty();
+  }
+
   private InputStream getTestResource(String name) throws IOException {
     return Resources.asByteSource(this.getClass().getResource(this.getClass().getSimpleName() + "/" + name))
       .openBufferedStream();
   }
 
+  private static class RequestMatcher extends BaseMatcher<WsRequest> {
+    private final String path;
+    private final String ifNoneMatch;
+
+    RequestMatcher(String path, @Nullable String ifNoneMatch) {
+      this.path = path;
+      this.ifNoneMatch = ifNoneMatch;
+    }
+
+    @Override
+    public boolean matches(Object item) {
+      WsRequest request = (WsRequest) item;
+      return request != null && path.equals(request.getPath())
+        && Objects.equals(ifNoneMatch, request.getHeaders().getValue("If-None-Match").orElse(null));
+    }
+
+    @Override
+    public void describeTo(Description description) {
+      description.appendText("request path (\"" + path + "\") with If-None-Match (" + ifNoneMatch + ")");
+    }
+  }
 }
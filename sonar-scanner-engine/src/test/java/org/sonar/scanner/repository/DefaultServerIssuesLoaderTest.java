@@ -19,31 +19,66 @@
  */
 package org.sonar.scanner.repository;
 
+import com.google.common.collect.ImmutableMap;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.function.Consumer;
+import javax.annotation.Nullable;
+import org.hamcrest.BaseMatcher;
+import org.hamcrest.Description;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.CoreProperties;
+import org.sonar.api.issue.Issue;
+import org.sonar.api.utils.System2;
+import org.sonar.home.cache.FileCache;
+import org.sonar.home.cache.Logger;
 import org.sonar.scanner.WsTestUtil;
+import org.sonar.scanner.bootstrap.GlobalProperties;
 import org.sonar.scanner.bootstrap.ScannerWsClient;
 import org.sonar.scanner.protocol.input.ScannerInput.ServerIssue;
+import org.sonarqube.ws.client.WsRequest;
+import org.sonarqube.ws.client.WsResponse;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.argThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class DefaultServerIssuesLoaderTest {
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private static final long ONE_DAY = 24 * 60 * 60 * 1_000L;
+  private static final String DELTA_URL = "/batch/issues.protobuf?key=foo&changedSince=1000&projectUuid=PROJECT_UUID";
+
   private DefaultServerIssuesLoader loader;
   private ScannerWsClient wsClient;
+  private FileCache fileCache;
+  private System2 system2 = mock(System2.class);
 
   @Before
-  public void prepare() {
+  public void prepare() throws IOException {
     wsClient = mock(ScannerWsClient.class);
-    loader = new DefaultServerIssuesLoader(wsClient);
+    fileCache = FileCache.create(temp.newFolder(), mock(Logger.class));
+    when(system2.now()).thenReturn(100 * ONE_DAY);
+    loader = newLoader("john");
+  }
+
+  private DefaultServerIssuesLoader newLoader(String login) {
+    return new DefaultServerIssuesLoader(wsClient, fileCache, new GlobalProperties(ImmutableMap.of(CoreProperties.LOGIN, login)), system2);
   }
 
   @Test
@@ -73,4 +108,128 @@ public class DefaultServerIssuesLoaderTest {
     WsTestUtil.mockStream(wsClient, "/batch/issues.protobuf?key=foo", is);
     loader.load("foo", mock(Consumer.class));
   }
+
+  @Test
+  public void load_only_issues_changed_since_previous_synchronization() throws Exception {
+    mockResponse("/batch/issues.protobuf?key=foo", null,
+      issue("ab1", Issue.STATUS_OPEN), issue("ab2", Issue.STATUS_OPEN), issue("ab3", Issue.STATUS_OPEN));
+    assertThat(load()).extracting("key").containsExactly("ab1", "ab2", "ab3");
+
+    mockResponse(DELTA_URL, "true",
+      issue("ab2", Issue.STATUS_CLOSED), issue("ab3", Issue.STATUS_CONFIRMED), issue("ab4", Issue.STATUS_OPEN));
+    assertThat(load()).extracting("key", "status").containsExactly(
+      tuple("ab1", Issue.STATUS_OPEN), tuple("ab3", Issue.STATUS_CONFIRMED), tuple("ab4", Issue.STATUS_OPEN));
+
+    // the merged issues are cached for the next synchronization
+    mockResponse(DELTA_URL, "true");
+    assertThat(load()).extracting("key").containsExactly("ab1", "ab3", "ab4");
+  }
+
+  @Test
+  public void replace_cached_issues_if_server_does_not_return_changes() throws Exception {
+    mockResponse("/batch/issues.protobuf?key=foo", null, issue("ab1", Issue.STATUS_OPEN), issue("ab2", Issue.STATUS_OPEN));
+    load();
+
+    mockResponse(DELTA_URL, null, issue("ab3", Issue.STATUS_OPEN));
+    assertThat(load()).extracting("key").containsExactly("ab3");
+  }
+
+  @Test
+  public void do_not_cache_issues_if_server_does_not_support_synchronization() throws Exception {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    issue("ab1", Issue.STATUS_OPEN).writeDelimitedTo(bos);
+    WsTestUtil.mockStream(wsClient, "/batch/issues.protobuf?key=foo", new ByteArrayInputStream(bos.toByteArray()));
+    load();
+
+    WsTestUtil.mockStream(wsClient, "/batch/issues.protobuf?key=foo", new ByteArrayInputStream(bos.toByteArray()));
+    assertThat(load()).extracting("key").containsExactly("ab1");
+    verify(wsClient, times(2)).call(any(WsRequest.class));
+  }
+
+  @Test
+  public void load_all_issues_if_project_is_not_the_cached_one() throws Exception {
+    mockResponse("/batch/issues.protobuf?key=foo", null, issue("ab1", Issue.STATUS_OPEN), issue("ab2", Issue.STATUS_OPEN));
+    load();
+
+    mockResponse(DELTA_URL, "true", "OTHER_PROJECT_UUID", issue("ab3", Issue.STATUS_OPEN));
+    assertThat(load()).extracting("key").containsExactly("ab3");
+
+    // uuid of the new project is cached
+    mockResponse("/batch/issues.protobuf?key=foo&changedSince=1000&projectUuid=OTHER_PROJECT_UUID", "true", "OTHER_PROJECT_UUID",
+      issue("ab4", Issue.STATUS_OPEN));
+    assertThat(load()).extracting("key").containsExactly("ab3", "ab4");
+  }
+
+  @Test
+  public void load_all_issues_if_cache_is_not_fully_synchronized_since_a_week() throws Exception {
+    mockResponse("/batch/issues.protobuf?key=foo", null, issue("ab1", Issue.STATUS_OPEN));
+    load();
+
+    when(system2.now()).thenReturn(105 * ONE_DAY);
+    mockResponse(DELTA_URL, "true", issue("ab2", Issue.STATUS_OPEN));
+    assertThat(load()).extracting("key").containsExactly("ab1", "ab2");
+
+    // delta synchronizations do not extend the period
+    when(system2.now()).thenReturn(108 * ONE_DAY);
+    mockResponse("/batch/issues.protobuf?key=foo", null, issue("ab3", Issue.STATUS_OPEN));
+    assertThat(load()).extracting("key").containsExactly("ab3");
+    verify(wsClient, times(2)).call(argThat(new PathMatcher("/batch/issues.protobuf?key=foo")));
+  }
+
+  @Test
+  public void cached_issues_are_not_shared_by_users() throws Exception {
+    mockResponse("/batch/issues.protobuf?key=foo", null, issue("ab1", Issue.STATUS_OPEN));
+    load();
+
+    loader = newLoader("jane");
+    mockResponse("/batch/issues.protobuf?key=foo", null, issue("ab2", Issue.STATUS_OPEN));
+    assertThat(load()).extracting("key").containsExactly("ab2");
+    verify(wsClient, times(2)).call(argThat(new PathMatcher("/batch/issues.protobuf?key=foo")));
+  }
+
+  private List<ServerIssue> load() {
+    List<ServerIssue> result = new ArrayList<>();
+    loader.load("foo", result::add);
+    return result;
+  }
+
+  private void mockResponse(String path, @Nullable String delta, ServerIssue... issues) throws IOException {
+    mockResponse(path, delta, "PROJECT_UUID", issues);
+  }
+
+  private void mockResponse(String path, @Nullable String delta, String projectUuid, ServerIssue... issues) throws IOException {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    for (ServerIssue issue : issues) {
+      issue.writeDelimitedTo(bos);
+    }
+    WsResponse response = mock(WsResponse.class);
+    when(response.contentStream()).thenReturn(new ByteArrayInputStream(bos.toByteArray()));
+    when(response.header(anyString())).thenReturn(Optional.empty());
+    when(response.header("Sonar-Issues-Sync-Date")).thenReturn(Optional.of("1000"));
+    when(response.header("Sonar-Issues-Project-Uuid")).thenReturn(Optional.of(projectUuid));
+    when(response.header("Sonar-Issues-Delta")).thenReturn(Optional.ofNullable(delta));
+    when(wsClient.call(argThat(new PathMatcher(path)))).thenReturn(response);
+  }
+
+  private static ServerIssue issue(String key, String status) {
+    return ServerIssue.newBuilder().setKey(key).setStatus(status).build();
+  }
+
+  private static class PathMatcher extends BaseMatcher<WsRequest> {
+    private final String path;
+
+    PathMatcher(String path) {
+      this.path = path;
+    }
+
+    @Override
+    public boolean matches(Object item) {
+      return item != null && path.equals(((WsRequest) item).getPath());
+    }
+
+    @Override
+    public void describeTo(Description description) {
+      description.appendText("request path \"" + path + "\"");
+    }
+  }
 }
@@ -0,0 +1,176 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.protocol.output;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import javax.annotation.CheckForNull;
+import org.sonar.core.util.ContextException;
+
+/**
+ * Data of all the components of a {@link FileStructure.Domain}, concatenated in a single file
+ * ({@link FileStructure#segmentFile(FileStructure.Domain)}) and located by an index of
+ * offsets ({@link FileStructure#segmentIndexFile(FileStructure.Domain)}).
+ * <p>
+ * The index is a sequence of (component ref, offset, length) entries sorted by component ref.
+ * </p>
+ * <p>
+ * Slices are read with positional reads of a {@link FileChannel} which is closed straight away. The segment is not
+ * memory-mapped, as a mapping is released only on garbage collection and prevents the deletion of the file on Windows.
+ * </p>
+ */
+final class DomainSegment {
+
+  private final File segmentFile;
+  private final int[] refs;
+  private final long[] offsets;
+  private final int[] lengths;
+
+  private DomainSegment(File segmentFile, int[] refs, long[] offsets, int[] lengths) {
+    this.segmentFile = segmentFile;
+    this.refs = refs;
+    this.offsets = offsets;
+    this.lengths = lengths;
+  }
+
+  /**
+   * Concatenates the given component files of {@code domain} into the segment of the domain, then deletes them.
+   *
+   * @param refs component refs, sorted in ascending order
+   */
+  static void write(FileStructure fileStructure, FileStructure.Domain domain, List<Integer> refs) {
+    File segmentFile = fileStructure.segmentFile(domain);
+    File indexFile = fileStructure.segmentIndexFile(domain);
+    try (RandomAccessFile segment = new RandomAccessFile(segmentFile, "rw");
+      DataOutputStream index = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)))) {
+      segment.setLength(0L);
+      FileChannel segmentChannel = segment.getChannel();
+      index.writeInt(refs.size());
+      long offset = 0L;
+      for (int ref : refs) {
+        File componentFile = fileStructure.fileFor(domain, ref);
+        long length;
+        try (FileChannel componentChannel = new FileInputStream(componentFile).getChannel()) {
+          length = transferFully(componentChannel, segmentChannel);
+        }
+        index.writeInt(ref);
+        index.writeLong(offset);
+        index.writeInt((int) length);
+        offset += length;
+      }
+    } catch (IOException e) {
+      throw ContextException.of("Unable to write segment of analysis report", e).addContext("file", segmentFile);
+    }
+    for (int ref : refs) {
+      deleteComponentFile(fileStructure.fileFor(domain, ref));
+    }
+  }
+
+  private static long transferFully(FileChannel from, FileChannel to) throws IOException {
+    long size = from.size();
+    if (size > Integer.MAX_VALUE) {
+      throw new IllegalStateException("Component data is too big to be added to a segment: " + size + " bytes");
+    }
+    long transferred = 0L;
+    while (transferred < size) {
+      transferred += from.transferTo(transferred, size - transferred, to);
+    }
+    return size;
+  }
+
+  private static void deleteComponentFile(File file) {
+    try {
+      Files.delete(file.toPath());
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to delete file " + file, e);
+    }
+  }
+
+  /**
+   * @return {@code null} if the data of {@code domain} has not been written to a segment
+   */
+  @CheckForNull
+  static DomainSegment open(FileStructure fileStructure, FileStructure.Domain domain) {
+    File indexFile = fileStructure.segmentIndexFile(domain);
+    if (!indexFile.isFile()) {
+      return null;
+    }
+    File segmentFile = fileStructure.segmentFile(domain);
+    try (DataInputStream index = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+      int count = index.readInt();
+      int[] refs = new int[count];
+      long[] offsets = new long[count];
+      int[] lengths = new int[count];
+      for (int i = 0; i < count; i++) {
+        refs[i] = index.readInt();
+        offsets[i] = index.readLong();
+        lengths[i] = index.readInt();
+      }
+      return new DomainSegment(segmentFile, refs, offsets, lengths);
+    } catch (IOException e) {
+      throw ContextException.of("Unable to read segment of analysis report", e).addContext("file", indexFile);
+    }
+  }
+
+  boolean contains(int componentRef) {
+    return Arrays.binarySearch(refs, componentRef) >= 0;
+  }
+
+  /**
+   * @return {@code null} if the segment has no data for the component
+   */
+  @CheckForNull
+  InputStream open(int componentRef) {
+    int i = Arrays.binarySearch(refs, componentRef);
+    if (i < 0) {
+      return null;
+    }
+    return new ByteArrayInputStream(readSlice(offsets[i], lengths[i]));
+  }
+
+  private byte[] readSlice(long offset, int length) {
+    try (RandomAccessFile segment = new RandomAccessFile(segmentFile, "r")) {
+      ByteBuffer buffer = ByteBuffer.allocate(length);
+      FileChannel channel = segment.getChannel();
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer, offset + buffer.position()) < 0) {
+          throw new IllegalStateException("Unexpected end of segment " + segmentFile);
+        }
+      }
+      return buffer.array();
+    } catch (IOException e) {
+      throw ContextException.of("Unable to read segment of analysis report", e).addContext("file", segmentFile);
+    }
+  }
+}
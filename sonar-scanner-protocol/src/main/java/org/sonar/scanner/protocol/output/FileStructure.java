@@ -20,7 +20,7 @@
 package org.sonar.scanner.protocol.output;
 
 import java.io.File;
-
+import javax.annotation.CheckForNull;
 import javax.annotation.concurrent.Immutable;
 
 /**
@@ -30,26 +30,51 @@ import javax.annotation.concurrent.Immutable;
 public class FileStructure {
 
   public enum Domain {
-    ISSUES("issues-", Domain.PB),
-    COMPONENT("component-", Domain.PB),
-    MEASURES("measures-", Domain.PB),
-    DUPLICATIONS("duplications-", Domain.PB),
-    CPD_TEXT_BLOCKS("cpd-text-block-", Domain.PB),
-    SYNTAX_HIGHLIGHTINGS("syntax-highlightings-", Domain.PB),
-    CHANGESETS("changesets-", Domain.PB),
-    SYMBOLS("symbols-", Domain.PB),
-    COVERAGES("coverages-", Domain.PB),
-    TESTS("tests-", Domain.PB),
-    COVERAGE_DETAILS("coverage-details-", Domain.PB),
-    SOURCE("source-", ".txt");
+    ISSUES("issues-", Domain.PB, true),
+    COMPONENT("component-", Domain.PB, true),
+    MEASURES("measures-", Domain.PB, true),
+    DUPLICATIONS("duplications-", Domain.PB, true),
+    CPD_TEXT_BLOCKS("cpd-text-block-", Domain.PB, true),
+    SYNTAX_HIGHLIGHTINGS("syntax-highlightings-", Domain.PB, true),
+    CHANGESETS("changesets-", Domain.PB, true),
+    SYMBOLS("symbols-", Domain.PB, true),
+    COVERAGES("coverages-", Domain.PB, true),
+    TESTS("tests-", Domain.PB, false),
+    COVERAGE_DETAILS("coverage-details-", Domain.PB, false),
+    SOURCE("source-", ".txt", false);
 
     private static final String PB = ".pb";
     private final String filePrefix;
     private final String fileSuffix;
+    private final boolean segmentable;
 
-    Domain(String filePrefix, String fileSuffix) {
+    Domain(String filePrefix, String fileSuffix, boolean segmentable) {
       this.filePrefix = filePrefix;
       this.fileSuffix = fileSuffix;
+      this.segmentable = segmentable;
+    }
+
+    /**
+     * Whether the files of the domain can be packed into a single segment. Files of the other domains are
+     * read directly by consumers of the report.
+     */
+    public boolean isSegmentable() {
+      return segmentable;
+    }
+
+    /**
+     * @return the ref of the component, or {@code null} if the file does not contain data of the domain
+     */
+    @CheckForNull
+    Integer componentRefOf(String fileName) {
+      if (!fileName.startsWith(filePrefix) || !fileName.endsWith(fileSuffix)) {
+        return null;
+      }
+      String ref = fileName.substring(filePrefix.length(), fileName.length() - fileSuffix.length());
+      if (ref.isEmpty() || !ref.chars().allMatch(Character::isDigit)) {
+        return null;
+      }
+      return Integer.valueOf(ref);
     }
   }
 
@@ -78,6 +103,20 @@ public class FileStructure {
     return new File(dir, domain.filePrefix + componentRef + domain.fileSuffix);
   }
 
+  /**
+   * Data of all the components of a domain, once packed by {@link ScannerReportWriter#writeSegments()}
+   */
+  public File segmentFile(Domain domain) {
+    return new File(dir, domain.filePrefix + "segment.dat");
+  }
+
+  /**
+   * Offsets of the components in {@link #segmentFile(Domain)}
+   */
+  public File segmentIndexFile(Domain domain) {
+    return new File(dir, domain.filePrefix + "segment.idx");
+  }
+
   public File contextProperties() {
     return new File(dir, "context-props.pb");
   }
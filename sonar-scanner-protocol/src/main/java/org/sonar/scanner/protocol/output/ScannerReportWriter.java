@@ -23,6 +23,11 @@ import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 import javax.annotation.concurrent.Immutable;
 import org.sonar.core.util.ContextException;
 import org.sonar.core.util.Protobuf;
@@ -142,6 +147,33 @@ public class ScannerReportWriter {
     return file;
   }
 
+  /**
+   * Packs the files of the {@link FileStructure.Domain#isSegmentable() segmentable} domains into one segment
+   * per domain, so that the report is made of a few big files instead of one file per component and per domain.
+   * Must be called once all the data is written, as component data can't be added to the report afterwards.
+   */
+  public void writeSegments() {
+    Map<FileStructure.Domain, List<Integer>> refsByDomain = new EnumMap<>(FileStructure.Domain.class);
+    String[] fileNames = fileStructure.root().list();
+    if (fileNames == null) {
+      throw new IllegalStateException("Unable to list files of directory: " + fileStructure.root());
+    }
+    for (String fileName : fileNames) {
+      for (FileStructure.Domain domain : FileStructure.Domain.values()) {
+        Integer ref = domain.isSegmentable() ? domain.componentRefOf(fileName) : null;
+        if (ref != null) {
+          refsByDomain.computeIfAbsent(domain, d -> new ArrayList<>()).add(ref);
+          break;
+        }
+      }
+    }
+    for (Map.Entry<FileStructure.Domain, List<Integer>> entry : refsByDomain.entrySet()) {
+      List<Integer> refs = entry.getValue();
+      Collections.sort(refs);
+      DomainSegment.write(fileStructure, entry.getKey(), refs);
+    }
+  }
+
   public File getSourceFile(int componentRef) {
     return fileStructure.fileFor(FileStructure.Domain.SOURCE, componentRef);
   }
@@ -23,6 +23,12 @@ import com.google.common.collect.Lists;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.junit.Before;
@@ -104,6 +110,65 @@ public class ScannerReportReaderTest {
     assertThat(underTest.readComponentIssues(200)).isEmpty();
   }
 
+  @Test
+  public void read_data_packed_in_segments() {
+    ScannerReportWriter writer = new ScannerReportWriter(dir);
+    writer.writeComponent(ScannerReport.Component.newBuilder().setRef(1).setPath("src/Foo.java").build());
+    writer.writeComponent(ScannerReport.Component.newBuilder().setRef(2).setPath("src/Bar.java").build());
+    writer.writeComponentIssues(1, asList(ScannerReport.Issue.newBuilder().setMsg("foo").build()));
+    writer.writeComponentIssues(2, asList(
+      ScannerReport.Issue.newBuilder().setMsg("bar1").build(),
+      ScannerReport.Issue.newBuilder().setMsg("bar2").build()));
+    writer.writeComponentIssues(3, Collections.emptyList());
+    writer.writeComponentCoverage(2, singletonList(ScannerReport.LineCoverage.newBuilder().setLine(1).build()));
+    writer.writeSegments();
+
+    assertThat(underTest.readComponent(1).getPath()).isEqualTo("src/Foo.java");
+    assertThat(underTest.readComponent(2).getPath()).isEqualTo("src/Bar.java");
+    assertThat(underTest.readComponentIssues(1)).extracting(ScannerReport.Issue::getMsg).containsExactly("foo");
+    assertThat(underTest.readComponentIssues(2)).extracting(ScannerReport.Issue::getMsg).containsExactly("bar1", "bar2");
+    assertThat(underTest.readComponentIssues(3)).isEmpty();
+    assertThat(underTest.readComponentIssues(UNKNOWN_COMPONENT_REF)).isEmpty();
+    assertThat(underTest.hasCoverage(1)).isFalse();
+    assertThat(underTest.hasCoverage(2)).isTrue();
+    assertThat(underTest.readComponentCoverage(2)).extracting(ScannerReport.LineCoverage::getLine).containsExactly(1);
+  }
+
+  @Test
+  public void read_segments_from_concurrent_threads() throws Exception {
+    ScannerReportWriter writer = new ScannerReportWriter(dir);
+    for (int ref = 1; ref <= 50; ref++) {
+      writer.writeComponent(ScannerReport.Component.newBuilder().setRef(ref).setPath("src/File" + ref + ".java").build());
+    }
+    writer.writeSegments();
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<String>> paths = new ArrayList<>();
+      for (int ref = 1; ref <= 50; ref++) {
+        int componentRef = ref;
+        paths.add(executor.submit(() -> underTest.readComponent(componentRef).getPath()));
+      }
+      for (int i = 0; i < paths.size(); i++) {
+        assertThat(paths.get(i).get()).isEqualTo("src/File" + (i + 1) + ".java");
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void segments_can_be_deleted_once_read() throws Exception {
+    ScannerReportWriter writer = new ScannerReportWriter(dir);
+    writer.writeComponent(ScannerReport.Component.newBuilder().setRef(1).setPath("src/Foo.java").build());
+    writer.writeSegments();
+    assertThat(underTest.readComponent(1).getPath()).isEqualTo("src/Foo.java");
+
+    FileUtils.deleteDirectory(dir);
+
+    assertThat(dir).doesNotExist();
+  }
+
   @Test
   public void empty_list_if_no_issue_found() {
     assertThat(underTest.readComponentIssues(UNKNOWN_COMPONENT_REF)).isEmpty();
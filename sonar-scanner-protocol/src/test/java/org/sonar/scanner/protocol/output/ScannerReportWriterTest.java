@@ -299,4 +299,26 @@ public class ScannerReportWriterTest {
 
     assertThat(underTest.hasComponentData(FileStructure.Domain.COVERAGE_DETAILS, 1)).isTrue();
   }
+
+  @Test
+  public void write_segments_packs_files_of_segmentable_domains() {
+    underTest.writeComponentIssues(1, asList(ScannerReport.Issue.getDefaultInstance()));
+    underTest.writeComponentIssues(12, asList(ScannerReport.Issue.getDefaultInstance()));
+    underTest.writeComponentMeasures(1, asList(ScannerReport.Measure.getDefaultInstance()));
+    underTest.writeTests(1, asList(ScannerReport.Test.getDefaultInstance()));
+
+    underTest.writeSegments();
+
+    FileStructure fileStructure = underTest.getFileStructure();
+    assertThat(fileStructure.fileFor(FileStructure.Domain.ISSUES, 1)).doesNotExist();
+    assertThat(fileStructure.fileFor(FileStructure.Domain.ISSUES, 12)).doesNotExist();
+    assertThat(fileStructure.fileFor(FileStructure.Domain.MEASURES, 1)).doesNotExist();
+    assertThat(fileStructure.segmentFile(FileStructure.Domain.ISSUES)).isFile();
+    assertThat(fileStructure.segmentIndexFile(FileStructure.Domain.ISSUES)).isFile();
+    assertThat(fileStructure.segmentFile(FileStructure.Domain.MEASURES)).isFile();
+    assertThat(fileStructure.segmentFile(FileStructure.Domain.SYMBOLS)).doesNotExist();
+    // tests are not segmentable
+    assertThat(fileStructure.fileFor(FileStructure.Domain.TESTS, 1)).isFile();
+    assertThat(fileStructure.segmentFile(FileStructure.Domain.TESTS)).doesNotExist();
+  }
 }
@@ -164,6 +164,8 @@ public class HttpConnector implements WsConnector {
     if (credentials != null) {
       okHttpRequestBuilder.header("Authorization", credentials);
     }
+    Headers headers = getRequest.getHeaders();
+    headers.getNames().forEach(name -> okHttpRequestBuilder.header(name, headers.getValue(name).get()));
     return okHttpRequestBuilder;
   }
 
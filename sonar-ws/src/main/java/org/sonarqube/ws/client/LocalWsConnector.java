@@ -25,6 +25,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.util.List;
+import java.util.Optional;
 import org.sonar.api.server.ws.LocalConnector;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
@@ -99,8 +100,10 @@ class LocalWsConnector implements WsConnector {
     private final byte[] bytes;
     private final String contentType;
     private final int code;
+    private final LocalConnector.LocalResponse localResponse;
 
     ByteArrayResponse(String path, LocalConnector.LocalResponse localResponse) {
+      this.localResponse = localResponse;
       this.path = path;
       this.bytes = localResponse.getBytes();
       this.contentType = localResponse.getMediaType();
@@ -122,6 +125,11 @@ class LocalWsConnector implements WsConnector {
       return contentType;
     }
 
+    @Override
+    public Optional<String> header(String name) {
+      return Optional.ofNullable(localResponse.getHeader(name));
+    }
+
     @Override
     public InputStream contentStream() {
       return new ByteArrayInputStream(bytes);
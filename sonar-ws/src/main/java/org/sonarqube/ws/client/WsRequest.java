@@ -43,6 +43,15 @@ public interface WsRequest {
 
   Parameters getParameters();
 
+  /**
+   * No headers by default
+   *
+   * @since 6.6
+   */
+  default Headers getHeaders() {
+    return Headers.EMPTY;
+  }
+
   enum Method {
     GET, POST
   }
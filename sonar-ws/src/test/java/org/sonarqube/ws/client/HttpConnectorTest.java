@@ -95,6 +95,34 @@ public class HttpConnectorTest {
     assertThat(recordedRequest.getHeader("Accept-Encoding")).isEqualTo("gzip");
   }
 
+  @Test
+  public void send_headers_of_request() throws Exception {
+    answerHelloWorld();
+    underTest = HttpConnector.newBuilder().url(serverUrl).build();
+
+    GetRequest request = new GetRequest("api/issues/search")
+      .setHeader("If-None-Match", "\"abc\"")
+      .setHeader("X-Removed", "foo")
+      .setHeader("X-Removed", null);
+    underTest.call(request);
+
+    RecordedRequest recordedRequest = server.takeRequest();
+    assertThat(recordedRequest.getHeader("If-None-Match")).isEqualTo("\"abc\"");
+    assertThat(recordedRequest.getHeader("X-Removed")).isNull();
+  }
+
+  @Test
+  public void read_headers_of_response() {
+    server.enqueue(new MockResponse().setResponseCode(304).setHeader("ETag", "\"abc\""));
+    underTest = HttpConnector.newBuilder().url(serverUrl).build();
+
+    WsResponse response = underTest.call(new GetRequest("api/issues/search"));
+
+    assertThat(response.code()).isEqualTo(304);
+    assertThat(response.header("ETag")).contains("\"abc\"");
+    assertThat(response.header("X-Missing")).isEmpty();
+  }
+
   @Test
   public void use_basic_authentication() throws Exception {
     answerHelloWorld();